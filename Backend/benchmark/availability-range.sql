@@ -0,0 +1,112 @@
+-- Availability search benchmark: current JPQL vs. daterange + GiST exclusion constraint.
+-- Builds 100k apartments and 1M rentals in a scratch schema, so it can run against any PostgreSQL 12+
+-- database without touching application tables:
+--
+--   psql -h localhost -U admin -d rental_management -f benchmark/availability-range.sql
+--
+-- Each apartment gets 10 non-overlapping bookings spread over two years, 10% of them cancelled.
+
+\timing on
+SET client_min_messages = warning;
+
+DROP SCHEMA IF EXISTS availability_bench CASCADE;
+CREATE SCHEMA availability_bench;
+SET search_path = availability_bench, public;
+CREATE EXTENSION IF NOT EXISTS btree_gist WITH SCHEMA public;
+
+CREATE TABLE apartment (
+    id bigint PRIMARY KEY,
+    title varchar(100) NOT NULL,
+    rental_price double precision NOT NULL
+);
+
+CREATE TABLE rental (
+    id bigserial PRIMARY KEY,
+    apartment_id bigint NOT NULL REFERENCES apartment (id),
+    start_date date NOT NULL,
+    end_date date NOT NULL,
+    status varchar(255) NOT NULL
+);
+
+INSERT INTO apartment (id, title, rental_price)
+SELECT id, 'Apartment ' || id, 100 + random() * 900
+FROM generate_series(1, 100000) AS id;
+
+-- Slot k of an apartment starts at day 70 * k, bookings start within 30 days and last at most 14
+INSERT INTO rental (apartment_id, start_date, end_date, status)
+SELECT apartment_id, start_date, start_date + (1 + floor(random() * 14))::int, status
+FROM (
+    SELECT a.id AS apartment_id,
+           DATE '2025-01-01' + 70 * slot.k + floor(random() * 30)::int AS start_date,
+           CASE WHEN random() < 0.1 THEN 'CANCELLED' ELSE 'ACTIVE' END AS status
+    FROM generate_series(1, 100000) AS a(id)
+    CROSS JOIN generate_series(0, 9) AS slot(k)
+) bookings;
+
+ANALYZE apartment;
+ANALYZE rental;
+
+\echo '== Current JPQL (as generated by Hibernate), no index on rental'
+EXPLAIN (ANALYZE, BUFFERS, SUMMARY)
+SELECT DISTINCT a.*
+FROM apartment a
+LEFT JOIN rental r ON r.apartment_id = a.id
+WHERE r.id IS NULL OR NOT EXISTS (
+    SELECT 1 FROM rental r2
+    WHERE r2.apartment_id = a.id
+      AND r2.status <> 'CANCELLED'
+      AND r2.start_date <= DATE '2025-06-14'
+      AND r2.end_date >= DATE '2025-06-07');
+
+\echo '== Simplified JPQL fallback (NOT EXISTS only), no index on rental'
+EXPLAIN (ANALYZE, BUFFERS, SUMMARY)
+SELECT a.*
+FROM apartment a
+WHERE NOT EXISTS (
+    SELECT 1 FROM rental r
+    WHERE r.apartment_id = a.id
+      AND r.status <> 'CANCELLED'
+      AND r.start_date <= DATE '2025-06-14'
+      AND r.end_date >= DATE '2025-06-07');
+
+-- Same DDL as RentalRangeSchema
+ALTER TABLE rental ADD COLUMN booked_days daterange
+    GENERATED ALWAYS AS (daterange(start_date, end_date, '[]')) STORED;
+ALTER TABLE rental ADD CONSTRAINT rental_booked_days_no_overlap
+    EXCLUDE USING gist (apartment_id WITH =, booked_days WITH &&)
+    WHERE (status <> 'CANCELLED');
+ANALYZE rental;
+
+\echo '== Range query on the exclusion constraint index'
+EXPLAIN (ANALYZE, BUFFERS, SUMMARY)
+SELECT a.*
+FROM apartment a
+WHERE NOT EXISTS (
+    SELECT 1 FROM rental r
+    WHERE r.apartment_id = a.id
+      AND r.status <> 'CANCELLED'
+      AND r.booked_days && daterange(DATE '2025-06-07', DATE '2025-06-14', '[]'));
+
+\echo '== Single day (/apartments/available?date=...)'
+EXPLAIN (ANALYZE, BUFFERS, SUMMARY)
+SELECT a.*
+FROM apartment a
+WHERE NOT EXISTS (
+    SELECT 1 FROM rental r
+    WHERE r.apartment_id = a.id
+      AND r.status <> 'CANCELLED'
+      AND r.booked_days && daterange(DATE '2025-06-07', DATE '2025-06-07', '[]'));
+
+\echo '== The constraint rejects an overlapping booking'
+DO $$
+BEGIN
+    INSERT INTO rental (apartment_id, start_date, end_date, status)
+    SELECT apartment_id, start_date, end_date, 'PENDING'
+    FROM rental WHERE status <> 'CANCELLED' LIMIT 1;
+    RAISE EXCEPTION 'overlapping booking was accepted';
+EXCEPTION WHEN exclusion_violation THEN
+    RAISE NOTICE 'overlapping booking rejected';
+END $$;
+
+RESET search_path;
+DROP SCHEMA availability_bench CASCADE;
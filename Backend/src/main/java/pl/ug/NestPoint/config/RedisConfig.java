@@ -3,11 +3,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;  
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.StringRedisSerializer;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
-
-import java.util.Set;
+import org.springframework.data.redis.core.StringRedisTemplate;
 
 @Configuration
 public class RedisConfig {
@@ -20,20 +16,9 @@ public class RedisConfig {
     }
     
     @Bean
-    public RedisTemplate<String, Set<Long>> participantsRedisTemplate() {
-
-        // Create a new RedisTemplate instance
-        RedisTemplate<String, Set<Long>> template = new RedisTemplate<>();
-        template.setConnectionFactory(redisConnectionFactory());
-        // Set the key and value serializers in order to serialize the keys and values of the RedisTemplate
-        // to JSON format using the GenericJackson2JsonRedisSerializer
-        // and the StringRedisSerializer for the keys
-        template.setKeySerializer(new StringRedisSerializer());
-        
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
-        template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
-        
-        template.afterPropertiesSet();
-        return template;
+    public StringRedisTemplate stringRedisTemplate() {
+        // Shared by auction presence, rate limits, the broker relay and payment states. All of them store
+        // plain strings, e.g. presence sets of user ids, so the set and hash commands work on them directly
+        return new StringRedisTemplate(redisConnectionFactory());
     }
-}
\ No newline at end of file
+}
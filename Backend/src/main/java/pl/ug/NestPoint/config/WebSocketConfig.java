@@ -2,6 +2,7 @@ package pl.ug.NestPoint.config;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -18,6 +19,7 @@ import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 import pl.ug.NestPoint.security.JwtUtil;
+import pl.ug.NestPoint.service.RedisBrokerRelay;
 import pl.ug.NestPoint.service.TokenBlacklistService;
 
 import org.springframework.context.annotation.Bean;
@@ -36,6 +38,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final JwtUtil jwtUtil;
     private final TokenBlacklistService tokenBlacklistService;
+    private final ObjectProvider<RedisBrokerRelay> brokerRelay;
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
@@ -53,6 +56,9 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         
         registry.setApplicationDestinationPrefixes("/app");
         registry.setUserDestinationPrefix("/user");
+
+        // With several nodes, outbound broker messages are shared through Redis
+        brokerRelay.ifAvailable(relay -> registry.configureBrokerChannel().interceptors(relay));
     }
     
     @Bean
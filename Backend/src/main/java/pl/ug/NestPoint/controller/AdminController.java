@@ -2,19 +2,21 @@ package pl.ug.NestPoint.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import pl.ug.NestPoint.domain.*;
 import pl.ug.NestPoint.dto.ApartmentDTO;
 import pl.ug.NestPoint.dto.RentalDTO;
+import pl.ug.NestPoint.dto.RentalWindowDTO;
 import pl.ug.NestPoint.dto.ReviewDTO;
 import pl.ug.NestPoint.mapper.ApartmentMapper;
 import pl.ug.NestPoint.mapper.RentalMapper;
 import pl.ug.NestPoint.mapper.ReviewMapper;
+import pl.ug.NestPoint.service.AdminExportService;
 import pl.ug.NestPoint.service.ApartmentService;
 import pl.ug.NestPoint.service.RentalService;
 import pl.ug.NestPoint.service.ReviewService;
@@ -33,6 +35,7 @@ public class AdminController {
     private final ApartmentService apartmentService;
     private final RentalService rentalService;
     private final ReviewService reviewService;
+    private final AdminExportService adminExportService;
     private final ApartmentMapper apartmentMapper;
     private final RentalMapper rentalMapper;
     private final ReviewMapper reviewMapper;
@@ -83,17 +86,27 @@ public class AdminController {
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "ASC") String direction) {
         
-        Pageable pageable = PageRequest.of(
-            page, size, 
-            direction.equalsIgnoreCase("ASC") 
-                ? Sort.by(sortBy).ascending() 
-                : Sort.by(sortBy).descending()
-        );
-        
         Page<Rental> rentals = rentalService.searchRentals(null, page, size, sortBy, direction);
         return ResponseEntity.ok(rentals.map(rentalMapper::toDTO));
     }
     
+    // Same list with keyset paging, every window costs the same however far the admin scrolls
+    @GetMapping("/rentals/scroll")
+    public ResponseEntity<RentalWindowDTO> scrollRentals(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "ASC") String direction) {
+        
+        try {
+            RentalService.RentalWindow window = rentalService.scrollRentals(null, cursor, size, sortBy, direction);
+            return ResponseEntity.ok(new RentalWindowDTO(
+                    window.content().stream().map(rentalMapper::toDTO).toList(), window.nextCursor()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/rentals/{id}")
     public ResponseEntity<RentalDTO> getRentalById(@PathVariable Long id) {
         Rental rental = rentalService.getRentalById(id);
@@ -126,6 +139,28 @@ public class AdminController {
         return ResponseEntity.noContent().build();
     }
     
+    // Whole tables as NDJSON or CSV, streamed while they are read
+    @GetMapping("/export/{dataset}")
+    public ResponseEntity<StreamingResponseBody> exportDataset(
+            @PathVariable String dataset,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        
+        AdminExportService.Dataset exportDataset;
+        AdminExportService.Format exportFormat;
+        try {
+            exportDataset = AdminExportService.Dataset.valueOf(dataset.toUpperCase());
+            exportFormat = AdminExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out -> adminExportService.export(exportDataset, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + dataset.toLowerCase()
+                        + "." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+    
     // System statistics
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getSystemStatistics() {
@@ -2,17 +2,29 @@ package pl.ug.NestPoint.controller;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import pl.ug.NestPoint.domain.Apartment;
 import pl.ug.NestPoint.domain.enums.AccessibilityType;
 import pl.ug.NestPoint.domain.enums.PropertyType;
 import pl.ug.NestPoint.dto.ApartmentDTO;
+import pl.ug.NestPoint.dto.ApartmentSearchCriteria;
+import pl.ug.NestPoint.dto.ApartmentSearchResultDTO;
 import pl.ug.NestPoint.dto.DateRangeDTO;
+import pl.ug.NestPoint.dto.MapPointDTO;
+import pl.ug.NestPoint.dto.MapViewportDTO;
+import pl.ug.NestPoint.dto.NearbyApartmentDTO;
 import pl.ug.NestPoint.mapper.ApartmentMapper;
+import pl.ug.NestPoint.service.ApartmentSearchIndex;
 import pl.ug.NestPoint.service.ApartmentService;
+import pl.ug.NestPoint.service.MapPayloadWriter;
 import pl.ug.NestPoint.service.PhotoService;
 import pl.ug.NestPoint.service.GeocodingService;
 import pl.ug.NestPoint.domain.Address;
@@ -20,6 +32,7 @@ import pl.ug.NestPoint.domain.Photo;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -36,6 +49,8 @@ import java.util.stream.Collectors;
 @RequestMapping("/apartments")
 @RequiredArgsConstructor
 public class ApartmentController {
+    private static final MediaType MAP_PAYLOAD = MediaType.parseMediaType(MapPayloadWriter.MEDIA_TYPE);
+
     private final ApartmentService apartmentService;
     private final ApartmentMapper apartmentMapper;
     private final PhotoService photoService;
@@ -195,50 +210,68 @@ public class ApartmentController {
         });
     }
 
+    // Every given filter applies; facet counts are over the found apartments
     @GetMapping("/search")
-    public ResponseEntity<List<ApartmentDTO>> searchApartments(
+    public ResponseEntity<ApartmentSearchResultDTO> searchApartments(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate availableOn,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate availableFrom,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate availableTo,
             @RequestParam(required = false) String ownerName,
             @RequestParam(required = false) String address,
             @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Integer minSize,
+            @RequestParam(required = false) Integer maxSize,
             @RequestParam(required = false) Double minPrice,
-            @RequestParam(required = false) Double maxPrice) {
-        
-        List<ApartmentDTO> apartments;
-        
-        if (availableOn != null) {
-            apartments = apartmentService.findAvailableOnDate(availableOn).stream()
-                    .map(apartmentMapper::toDTO)
-                    .collect(Collectors.toList());
-        } else if (availableFrom != null && availableTo != null) {
-            apartments = apartmentService.findAvailableBetweenDates(availableFrom, availableTo).stream()
-                    .map(apartmentMapper::toDTO)
-                    .collect(Collectors.toList());
-        } else if (ownerName != null) {
-            apartments = apartmentService.findByOwnerName(ownerName).stream()
-                    .map(apartmentMapper::toDTO)
-                    .collect(Collectors.toList());
-        } else if (address != null) {
-            apartments = apartmentService.findByAddressContaining(address).stream()
-                    .map(apartmentMapper::toDTO)
-                    .collect(Collectors.toList());
-        } else if (size != null) {
-            apartments = apartmentService.findBySizeGreaterThan(size).stream()
-                    .map(apartmentMapper::toDTO)
-                    .collect(Collectors.toList());
-        } else if (minPrice != null && maxPrice != null) {
-            apartments = apartmentService.findByRentalPriceBetween(minPrice, maxPrice).stream()
-                    .map(apartmentMapper::toDTO)
-                    .collect(Collectors.toList());
-        } else {
-            apartments = apartmentService.getAllApartments().stream()
-                    .map(apartmentMapper::toDTO)
-                    .collect(Collectors.toList());
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) PropertyType propertyType,
+            @RequestParam(required = false) AccessibilityType kitchen,
+            @RequestParam(required = false) AccessibilityType yardAccess,
+            @RequestParam(required = false) AccessibilityType poolAccess,
+            @RequestParam(required = false) Boolean wifi,
+            @RequestParam(required = false) Boolean parkingSpace,
+            @RequestParam(required = false) Boolean petsAllowed,
+            @RequestParam(required = false) Boolean furnished,
+            @RequestParam(required = false) Boolean disabilityFriendly) {
+
+        ApartmentSearchCriteria criteria = ApartmentSearchCriteria.builder()
+                .availableOn(availableOn)
+                .availableFrom(availableFrom)
+                .availableTo(availableTo)
+                .ownerName(ownerName)
+                .address(address)
+                // size keeps its old meaning of "larger than"
+                .minSize(minSize != null ? minSize : size != null ? Integer.valueOf(size + 1) : null)
+                .maxSize(maxSize)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .propertyType(propertyType)
+                .kitchen(kitchen)
+                .yardAccess(yardAccess)
+                .poolAccess(poolAccess)
+                .wifi(wifi)
+                .parkingSpace(parkingSpace)
+                .petsAllowed(petsAllowed)
+                .furnished(furnished)
+                .disabilityFriendly(disabilityFriendly)
+                .build();
+
+        ApartmentSearchIndex.SearchResult result = apartmentService.search(criteria);
+        List<ApartmentDTO> apartments = apartmentService.findAllInOrder(result.apartmentIds()).stream()
+                .map(apartmentMapper::toDTO)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(new ApartmentSearchResultDTO(apartments, result.facets()));
+    }
+
+    // Words of the title, description and address in any inflected form, best match first
+    @GetMapping("/text-search")
+    public ResponseEntity<Page<ApartmentDTO>> textSearchApartments(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        if (q.isBlank() || page < 0 || size < 1 || size > 100) {
+            return ResponseEntity.badRequest().build();
         }
-        
-        return ResponseEntity.ok(apartments);
+        return ResponseEntity.ok(apartmentService.textSearch(q, page, size).map(apartmentMapper::toDTO));
     }
 
     @GetMapping("/{id}/calculate-price")
@@ -363,30 +396,98 @@ public class ApartmentController {
     }
 
     // For map display coords
+    // JSON, or the columnar binary format of MapPayloadWriter for Accept: application/vnd.nestpoint.map
     @GetMapping("/map-data")
-    public ResponseEntity<List<Map<String, Object>>> getApartmentsForMap() {
-        List<Map<String, Object>> mapData = apartmentService.getAllApartments().stream()
-            .filter(apartment -> apartment.getAddress() != null 
-                && apartment.getAddress().getLatitude() != null 
-                && apartment.getAddress().getLongitude() != null)
-            .map(apartment -> {
-                Map<String, Object> data = new HashMap<>();
-                data.put("id", apartment.getId());
-                data.put("title", apartment.getTitle());
-                data.put("price", apartment.getRentalPrice());
-                data.put("lat", apartment.getAddress().getLatitude());
-                data.put("lng", apartment.getAddress().getLongitude());
-                data.put("address", apartment.getAddress().getCity() + ", " + apartment.getAddress().getStreet());
-                // Add a thumbnail from photos if available
-                if (apartment.getPhotos() != null && !apartment.getPhotos().isEmpty()) {
-                    data.put("thumbnail", apartment.getPhotos().get(0).getFilePath());
-                }
-                return data;
-            })
-            .collect(Collectors.toList());
-        
-        return ResponseEntity.ok(mapData);
+    public ResponseEntity<?> getApartmentsForMap(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest) {
+        boolean binary = acceptsMapPayload(accept);
+        String eTag = mapETag(binary);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        List<MapPointDTO> points = apartmentService.getMapPoints();
+        return mapResponse(eTag, binary, binary ? MapPayloadWriter.write(points) : points);
     }
+
+    // Only what is inside the bounding box; clustered on a grid below the configured zoom
+    @GetMapping("/map-data/viewport")
+    public ResponseEntity<?> getApartmentsInViewport(
+            @RequestParam double west,
+            @RequestParam double south,
+            @RequestParam double east,
+            @RequestParam double north,
+            @RequestParam int zoom,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest) {
+        if (south > north || south < -90 || north > 90 || west < -180 || west > 180 || east < -180 || east > 180
+                || zoom < 0 || zoom > 22) {
+            return ResponseEntity.badRequest().build();
+        }
+        boolean binary = acceptsMapPayload(accept);
+        // The viewport is in the URL, so the map data version is enough to tell responses apart
+        String eTag = mapETag(binary);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        MapViewportDTO viewport = apartmentService.getMapViewport(west, south, east, north, zoom);
+        return mapResponse(eTag, binary, binary ? MapPayloadWriter.write(viewport) : viewport);
+    }
+
+    private static boolean acceptsMapPayload(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        try {
+            return MediaType.parseMediaTypes(accept).stream()
+                    .anyMatch(type -> type.getQualityValue() > 0 && MAP_PAYLOAD.equalsTypeAndSubtype(type));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    private String mapETag(boolean binary) {
+        return "\"" + Long.toHexString(apartmentService.getMapFingerprint()) + (binary ? "-bin" : "-json") + "\"";
+    }
+
+    // Clients may keep the payload but have to revalidate it, which is a 304 until an apartment on the map changes
+    private static ResponseEntity<Object> mapResponse(String eTag, boolean binary, Object body) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT);
+        if (binary) {
+            response.contentType(MAP_PAYLOAD);
+        }
+        return response.body(body);
+    }
+
+    // k nearest apartments to a location, or all within radius km (at most k when both are given)
+    @GetMapping("/nearby")
+    public ResponseEntity<List<NearbyApartmentDTO>> findNearbyApartments(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(required = false) Integer k,
+            @RequestParam(required = false) Double radius,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate availableOn,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate availableFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate availableTo) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180 || (k == null && radius == null)
+                || (k != null && k <= 0) || (radius != null && radius <= 0)) {
+            return ResponseEntity.badRequest().build();
+        }
+        ApartmentSearchCriteria filters = ApartmentSearchCriteria.builder()
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .availableOn(availableOn)
+                .availableFrom(availableFrom)
+                .availableTo(availableTo)
+                .build();
+        return ResponseEntity.ok(apartmentService.findNearby(lat, lon, k, radius, filters));
+    }
+
     @GetMapping("/reverse-geocode")
     public ResponseEntity<JsonNode> reverseGeocode(
             @RequestParam("lat") Double lat,
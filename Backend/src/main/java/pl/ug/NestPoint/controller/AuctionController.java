@@ -2,10 +2,13 @@ package pl.ug.NestPoint.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import pl.ug.NestPoint.domain.User;
 import pl.ug.NestPoint.dto.AuctionDTO;
 import pl.ug.NestPoint.dto.BidDTO;
 import pl.ug.NestPoint.service.AuctionService;
+import pl.ug.NestPoint.service.UserService;
 
 import java.util.List;
 
@@ -15,6 +18,7 @@ import java.util.List;
 public class AuctionController {
     
     private final AuctionService auctionService;
+    private final UserService userService;
     
     @GetMapping
     public ResponseEntity<List<AuctionDTO>> getAllAuctions() {
@@ -51,6 +55,14 @@ public class AuctionController {
         return ResponseEntity.ok(auctionService.placeBid(bidDTO));
     }
     
+    @DeleteMapping("/{auctionId}/bidders/{bidderId}")
+    public ResponseEntity<Void> dropBidder(@PathVariable Long auctionId, @PathVariable Long bidderId,
+                                           Authentication authentication) {
+        User user = userService.findByUsername(authentication.getName());
+        auctionService.dropBidder(auctionId, bidderId, user);
+        return ResponseEntity.noContent().build();
+    }
+    
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> cancelAuction(@PathVariable Long id) {
         auctionService.cancelAuction(id);
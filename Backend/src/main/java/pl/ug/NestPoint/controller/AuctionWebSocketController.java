@@ -10,12 +10,14 @@ import pl.ug.NestPoint.dto.websocket.AuctionBidMessage;
 import pl.ug.NestPoint.dto.websocket.AuctionJoinMessage;
 import pl.ug.NestPoint.dto.websocket.AuctionLeaveMessage;
 import pl.ug.NestPoint.service.AuctionService;
+import pl.ug.NestPoint.service.BidIngestionPipeline;
 
 @Controller
 @RequiredArgsConstructor
 public class AuctionWebSocketController {
 
     private final AuctionService auctionService;
+    private final BidIngestionPipeline bidIngestionPipeline;
 
     @MessageMapping("/auction/{auctionId}/bid")
     public void placeBid(@DestinationVariable Long auctionId, @Payload AuctionBidMessage bidMessage) {
@@ -24,7 +26,9 @@ public class AuctionWebSocketController {
         bidDTO.setBidderId(bidMessage.getBidderId());
         bidDTO.setAmount(bidMessage.getBidAmount());
         
-        auctionService.placeBid(bidDTO);
+        // Queued so the inbound channel thread is not held up by the database,
+        // the bidder gets the outcome on /user/queue/bids
+        bidIngestionPipeline.submit(bidDTO);
     }
 
     @MessageMapping("/auction/{auctionId}/join")
@@ -1,9 +1,11 @@
 package pl.ug.NestPoint.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -15,10 +17,13 @@ import org.springframework.web.bind.annotation.*;
 import pl.ug.NestPoint.domain.User;
 import pl.ug.NestPoint.dto.RegistrationRequest;
 import pl.ug.NestPoint.security.JwtUtil;
+import pl.ug.NestPoint.service.RateLimit;
+import pl.ug.NestPoint.service.RateLimiter;
 import pl.ug.NestPoint.service.TokenBlacklistService;
 import pl.ug.NestPoint.service.UserService;
 import pl.ug.NestPoint.domain.enums.Role;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +39,10 @@ public class AuthController {
     private final UserService userService;
     private final AuthenticationManager authenticationManager;
     private final TokenBlacklistService tokenBlacklistService;
+    private final RateLimiter rateLimiter;
+
+    // Five attempts per client address and username, one more every 12 seconds
+    private static final RateLimit LOGIN_LIMIT = new RateLimit("login", 5, Duration.ofMinutes(1));
 
     public record LoginRequest(String username, String password) {}
 
@@ -94,7 +103,12 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        if (!rateLimiter.tryAcquire(LOGIN_LIMIT, request.getRemoteAddr() + ":" + loginRequest.username())) {
+            logger.warn("Too many login attempts for user {} from {}", loginRequest.username(), request.getRemoteAddr());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body("Too many login attempts. Please try again later.");
+        }
+
         try {
             // Authenticate user with Spring Security
             Authentication authentication = authenticationManager.authenticate(
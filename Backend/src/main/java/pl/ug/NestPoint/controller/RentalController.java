@@ -2,22 +2,37 @@ package pl.ug.NestPoint.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import pl.ug.NestPoint.dto.PaymentRequestDTO;
 import pl.ug.NestPoint.dto.PaymentResponseDTO;
+import pl.ug.NestPoint.dto.PaymentStatusDTO;
+import pl.ug.NestPoint.dto.RentalCalendarEventDTO;
+import pl.ug.NestPoint.dto.RentalCalendarVersion;
 import pl.ug.NestPoint.dto.RentalDTO;
 import pl.ug.NestPoint.dto.RentalSearchCriteria;
+import pl.ug.NestPoint.dto.RentalWindowDTO;
 import pl.ug.NestPoint.dto.RentalWithPaymentDTO;
 import pl.ug.NestPoint.mapper.RentalMapper;
-import pl.ug.NestPoint.service.PaymentSimulationService;
+import pl.ug.NestPoint.service.PaymentPipeline;
+import pl.ug.NestPoint.service.PaymentPipeline.PaymentTicket;
+import pl.ug.NestPoint.service.RentalCalendarService;
 import pl.ug.NestPoint.service.RentalService;
 import pl.ug.NestPoint.domain.Rental;
 import pl.ug.NestPoint.domain.RentalStatus;
 
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.HashMap;
 import java.util.Map;
@@ -32,44 +47,72 @@ import jakarta.persistence.EntityNotFoundException;
 public class RentalController {
     private final RentalService rentalService;
     private final RentalMapper rentalMapper;
-    private final PaymentSimulationService paymentSimulationService;
+    private final PaymentPipeline paymentPipeline;
+    private final RentalCalendarService rentalCalendarService;
 
 
     @PostMapping("/create-with-payment")
-    public ResponseEntity<?> createRentalWithPayment(@RequestBody RentalWithPaymentDTO rentalWithPayment) {
+    public CompletableFuture<ResponseEntity<?>> createRentalWithPayment(
+            @RequestBody RentalWithPaymentDTO rentalWithPayment,
+            @RequestHeader(value = "Prefer", required = false) String prefer) {
         // First process payment
         PaymentRequestDTO paymentRequest = rentalWithPayment.getPayment();
         
         // Verify card number length
         if (paymentRequest == null || paymentRequest.getCardNumber() == null) {
-            return ResponseEntity.badRequest().body(Map.of(
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
                 "success", false,
                 "message", "Payment information is required"
-            ));
-        }
-        
-        // Process the payment simulation
-        boolean paymentSuccess = paymentSimulationService.processPayment(paymentRequest.getCardNumber());
-        
-        if (!paymentSuccess) {
-            // Payment failed
-            PaymentResponseDTO response = new PaymentResponseDTO();
-            response.setSuccess(false);
-            response.setMessage("Payment declined. Please try again with a different card.");
-            return ResponseEntity.status(HttpStatus.PAYMENT_REQUIRED).body(response);
+            )));
         }
         
-        // Payment succeeded, create rental
+        PaymentTicket ticket;
         try {
-            RentalDTO rentalDTO = rentalWithPayment.getRental();
-            Rental rental = rentalService.createRental(rentalDTO);
-            return ResponseEntity.status(HttpStatus.CREATED).body(rentalMapper.toDTO(rental));
+            ticket = paymentPipeline.submitRentalPayment(rentalWithPayment.getRental(), paymentRequest.getCardNumber());
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            )));
+        }
+        
+        return respond(ticket, prefer, payment -> switch (payment.getState()) {
+            // Payment succeeded, rental created
+            case SUCCEEDED -> ResponseEntity.status(HttpStatus.CREATED)
+                    .body(rentalMapper.toDTO(rentalService.getRentalById(payment.getRentalId())));
+            case DECLINED -> {
+                PaymentResponseDTO response = new PaymentResponseDTO();
+                response.setSuccess(false);
+                response.setMessage(payment.getMessage());
+                yield ResponseEntity.status(HttpStatus.PAYMENT_REQUIRED).body(response);
+            }
+            default -> ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
                 "success", false,
-                "message", "Rental creation failed: " + e.getMessage()
+                "message", "Rental creation failed: " + payment.getMessage()
             ));
+        });
+    }
+
+    @GetMapping("/payments/{paymentId}")
+    public ResponseEntity<PaymentStatusDTO> getPayment(@PathVariable String paymentId) {
+        return paymentPipeline.getPayment(paymentId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * With "Prefer: respond-async" the payment is answered with 202 and its PENDING state right away,
+     * the outcome follows on /user/queue/payments and /rentals/payments/{paymentId}.
+     * Otherwise the response is sent once the payment completes, without holding a request thread.
+     */
+    private CompletableFuture<ResponseEntity<?>> respond(PaymentTicket ticket, String prefer,
+                                                         Function<PaymentStatusDTO, ResponseEntity<?>> toResponse) {
+        if (prefer != null && prefer.toLowerCase().contains("respond-async")) {
+            return CompletableFuture.completedFuture(ResponseEntity.accepted()
+                    .location(URI.create("/rentals/payments/" + ticket.pending().getPaymentId()))
+                    .body(ticket.pending()));
         }
+        return ticket.result().thenApply(toResponse);
     }
 
     @GetMapping
@@ -121,6 +164,22 @@ public class RentalController {
         return ResponseEntity.ok(rentals);
     }
 
+    // Keyset paging for /search: pass the nextCursor of the previous window, no total count is computed
+    @PostMapping("/search/scroll")
+    public ResponseEntity<RentalWindowDTO> scrollRentals(@RequestBody RentalSearchCriteria criteria,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "10") int size,
+                                                         @RequestParam(defaultValue = "id") String sortBy,
+                                                         @RequestParam(defaultValue = "ASC") String direction) {
+        try {
+            RentalService.RentalWindow window = rentalService.scrollRentals(criteria, cursor, size, sortBy, direction);
+            return ResponseEntity.ok(new RentalWindowDTO(
+                    window.content().stream().map(rentalMapper::toDTO).toList(), window.nextCursor()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/my-rentals/tenant/{userId}")
     public ResponseEntity<List<RentalDTO>> getMyTenantRentals(
             @PathVariable Long userId,
@@ -179,22 +238,28 @@ public class RentalController {
             @RequestParam(required = false) Long apartmentId,
             @RequestParam(required = false) Long userId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            WebRequest webRequest) {
         
-        List<Rental> rentals;
-        if (apartmentId != null) {
-            rentals = rentalService.findByApartmentIdAndDateRange(apartmentId, startDate, endDate);
-        } else if (userId != null) {
-            rentals = rentalService.findByUserIdAndDateRange(userId, startDate, endDate);
-        } else {
-            rentals = rentalService.findByDateRange(startDate, endDate);
+        // Polling clients get 304 Not Modified until a rental in the calendar changes
+        RentalCalendarVersion version = rentalCalendarService.getVersion(apartmentId, userId, startDate, endDate);
+        long lastModified = version.getLastModified() != null
+                ? version.getLastModified().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : -1;
+        // Default dates follow today, so the day is part of the version of such a calendar
+        String eTag = "\"" + version.getCount() + "-" + Math.max(lastModified, 0)
+                + (startDate == null || endDate == null ? "-" + LocalDate.now() : "") + "\"";
+        if (webRequest.checkNotModified(eTag, lastModified)) {
+            return null;
         }
         
+        List<RentalCalendarEventDTO> events = rentalCalendarService.findEvents(apartmentId, userId, startDate, endDate);
+        
         // Map to calendar-friendly format
-        List<Map<String, Object>> calendarEvents = rentals.stream().map(rental -> {
+        List<Map<String, Object>> calendarEvents = events.stream().map(rental -> {
             Map<String, Object> event = new HashMap<>();
             event.put("id", rental.getId());
-            event.put("title", "Rental: " + rental.getApartment().getTitle());
+            event.put("title", "Rental: " + rental.getApartmentTitle());
             event.put("start", rental.getStartDate().toString());
             event.put("end", rental.getEndDate().toString());
             event.put("status", rental.getStatus().toString());
@@ -202,7 +267,20 @@ public class RentalController {
             return event;
         }).collect(Collectors.toList());
         
-        return ResponseEntity.ok(calendarEvents);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(eTag);
+        if (lastModified >= 0) {
+            response.lastModified(lastModified);
+        }
+        return response.body(calendarEvents);
+    }
+
+    @GetMapping(value = "/calendar.ics", produces = "text/calendar")
+    public ResponseEntity<StreamingResponseBody> exportOwnerCalendar(@RequestParam Long ownerId) {
+        StreamingResponseBody body = out -> rentalCalendarService.writeOwnerCalendar(ownerId, out);
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "calendar", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"rentals-" + ownerId + ".ics\"")
+                .body(body);
     }
     
     private String getColorForStatus(RentalStatus status) {
@@ -216,67 +294,77 @@ public class RentalController {
     }
 
     @PostMapping("/{id}/confirm-auction-payment")
-    public ResponseEntity<?> confirmAuctionPayment(
+    public CompletableFuture<ResponseEntity<?>> confirmAuctionPayment(
             @PathVariable Long id,
-            @RequestBody Map<String, String> paymentData) {
+            @RequestBody Map<String, String> paymentData,
+            @RequestHeader(value = "Prefer", required = false) String prefer) {
         
         try {
             String cardNumber = paymentData.get("cardNumber");
             if (cardNumber == null || cardNumber.trim().isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of(
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
                     "success", false,
                     "message", "Card number is required"
-                ));
+                )));
             }
             
-            boolean paymentSuccess = rentalService.confirmAuctionPayment(id, cardNumber);
+            PaymentTicket ticket = paymentPipeline.submitAuctionPayment(id, cardNumber);
             
-            if (paymentSuccess) {
-                return ResponseEntity.ok(Map.of(
+            return respond(ticket, prefer, payment -> switch (payment.getState()) {
+                case SUCCEEDED -> ResponseEntity.ok(Map.of(
                     "success", true,
-                    "message", "Auction payment confirmed successfully!"
+                    "message", "Auction payment confirmed successfully!",
+                    "paymentId", payment.getPaymentId()
                 ));
-            } else {
-                return ResponseEntity.status(HttpStatus.PAYMENT_REQUIRED).body(Map.of(
+                case DECLINED -> ResponseEntity.status(HttpStatus.PAYMENT_REQUIRED).body(Map.of(
                     "success", false,
-                    "message", "Payment declined. Please try again with a different card."
+                    "message", payment.getMessage()
                 ));
-            }
+                default -> ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", payment.getMessage()
+                ));
+            });
             
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of(
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
                 "success", false,
                 "message", e.getMessage()
-            ));
+            )));
         }
     }
 
     @PostMapping("/{id}/pay-auction-fine")
-    public ResponseEntity<?> payAuctionFine(
+    public CompletableFuture<ResponseEntity<?>> payAuctionFine(
             @PathVariable Long id,
-            @RequestBody Map<String, String> paymentData) {
+            @RequestBody Map<String, String> paymentData,
+            @RequestHeader(value = "Prefer", required = false) String prefer) {
         
         try {
             String cardNumber = paymentData.get("cardNumber");
-            boolean paymentSuccess = rentalService.payAuctionFine(id, cardNumber);
+            PaymentTicket ticket = paymentPipeline.submitFinePayment(id, cardNumber);
             
-            if (paymentSuccess) {
-                return ResponseEntity.ok(Map.of(
+            return respond(ticket, prefer, payment -> switch (payment.getState()) {
+                case SUCCEEDED -> ResponseEntity.ok(Map.of(
                     "success", true,
-                    "message", "Fine paid successfully! Your account is now unblocked."
+                    "message", "Fine paid successfully! Your account is now unblocked.",
+                    "paymentId", payment.getPaymentId()
                 ));
-            } else {
-                return ResponseEntity.status(HttpStatus.PAYMENT_REQUIRED).body(Map.of(
+                case DECLINED -> ResponseEntity.status(HttpStatus.PAYMENT_REQUIRED).body(Map.of(
                     "success", false,
                     "message", "Payment declined. Please try again."
                 ));
-            }
+                default -> ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", payment.getMessage()
+                ));
+            });
             
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of(
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
                 "success", false,
                 "message", e.getMessage()
-            ));
+            )));
         }
     }
 
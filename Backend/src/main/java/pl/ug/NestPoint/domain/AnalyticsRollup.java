@@ -0,0 +1,44 @@
+package pl.ug.NestPoint.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Running totals of the apartments and rentals of one owner in one city, see AnalyticsRollups.
+ * Per-city and per-owner statistics are sums over these rows. Rows are written with plain JDBC,
+ * the entity only keeps the table in the Hibernate managed schema.
+ */
+@Entity
+@Table(name = "analytics_rollup", uniqueConstraints = @UniqueConstraint(
+        name = "analytics_rollup_owner_city_key", columnNames = {"owner_id", "city"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    // Empty for apartments without a city
+    @Column(nullable = false)
+    private String city;
+
+    @Column(name = "apartment_count", nullable = false)
+    private long apartmentCount;
+
+    @Column(name = "apartment_price_sum", nullable = false)
+    private double apartmentPriceSum;
+
+    // Rentals of the owner's apartments in the city, in any status
+    @Column(name = "rental_count", nullable = false)
+    private long rentalCount;
+
+    @Column(name = "rental_cost_sum", nullable = false)
+    private double rentalCostSum;
+
+    @Column(name = "completed_rental_count", nullable = false)
+    private long completedRentalCount;
+}
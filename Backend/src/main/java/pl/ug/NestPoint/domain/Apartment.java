@@ -9,6 +9,7 @@ import jakarta.validation.constraints.*;
 
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -87,15 +88,20 @@ public class Apartment {
     @DecimalMin(value = "0.0", message = "Pool fee must be at least 0.0")
     private double poolFee;
 
+    // Time of the last save
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     @PrePersist
     @PreUpdate
-    private void validateOwner() {
+    private void validateOwnerAndStamp() {
         if (owner != null) {
             // Use getRoles() to ensure we handle null roles properly
             if (owner.getRoles() == null || !owner.getRoles().contains(Role.OWNER)) {
                 throw new IllegalStateException("Apartment can only be owned by a user with OWNER role");
             }
         }
+        updatedAt = LocalDateTime.now();
     }
     
     @Transient
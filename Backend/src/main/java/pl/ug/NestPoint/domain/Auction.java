@@ -9,7 +9,6 @@ import java.time.LocalDateTime;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Comparator;
 
 @Entity
 @Data
@@ -57,41 +56,36 @@ public class Auction {
     @Builder.Default
     private int maxBidders = 10;
 
-    @Transient
-    public int getCurrentBidderCount() {
-        if (bids == null) {
-            return 0;
-        }
-        return (int) bids.stream()
-                .filter(bid -> !bid.isDropped())  // Only count non-dropped bidders
-                .map(Bid::getBidder)
-                .distinct()
-                .count();
-    }
+    // Denormalized bid aggregates, kept up to date by AuctionService whenever bids change
+    @Column(name = "current_highest_bid")
+    private Double currentHighestBid;
     
-    @Transient
+    @Column(name = "winning_bid_id")
+    private Long winningBidId;
+    
+    @Column(name = "winning_bidder_id")
+    private Long winningBidderId;
+    
+    @Column(name = "distinct_bidder_count", nullable = false, columnDefinition = "integer default 0")
+    @Builder.Default
+    private int distinctBidderCount = 0;
+    
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+    
+    // Falls back to the starting price until the first bid is placed
     public double getCurrentHighestBid() {
-        if (bids == null || bids.isEmpty()) {
-            return startingPrice;
-        }
-        return bids.stream()
-                .filter(bid -> !bid.isDropped())  // Only consider non-dropped bids
-                .mapToDouble(Bid::getAmount)
-                .max()
-                .orElse(startingPrice);
+        return currentHighestBid != null ? currentHighestBid : startingPrice;
     }
     
-    @Transient
-    public Bid getWinningBid() {
-        if (bids == null || bids.isEmpty()) {
-            return null;
-        }
-        return bids.stream()
-                .filter(bid -> !bid.isDropped())  // Only consider non-dropped bids
-                .max(Comparator.comparing(Bid::getAmount)
-                     .thenComparing(Bid::getBidTime, Comparator.reverseOrder()))  // If tie, earliest bid wins
-                .orElse(null);
+    public void updateBidAggregates(Bid winningBid, int bidderCount) {
+        this.currentHighestBid = winningBid != null ? winningBid.getAmount() : null;
+        this.winningBidId = winningBid != null ? winningBid.getId() : null;
+        this.winningBidderId = winningBid != null ? winningBid.getBidder().getId() : null;
+        this.distinctBidderCount = bidderCount;
     }
+    
     @Transient
     public boolean isActive() {
         LocalDateTime now = LocalDateTime.now();
@@ -103,7 +97,7 @@ public class Auction {
     
     @Transient
     public boolean canAcceptMoreBidders() {
-        return getCurrentBidderCount() < maxBidders;
+        return distinctBidderCount < maxBidders;
     }
     
     @PrePersist
@@ -44,11 +44,8 @@ public class Bid {
     @PreUpdate
     private void validateBid() {
         if (auction != null) {
-            double minimumBid = auction.getCurrentHighestBid() + auction.getMinimumBidIncrement();
-            if (amount < minimumBid) {
-                throw new IllegalStateException("Bid amount must be at least " + minimumBid);
-            }
-            
+            // The minimum amount is enforced by the AuctionEngine, which sees concurrent bids;
+            // the auction's bid collection here may be stale and is expensive to load
             if (!auction.isActive()) {
                 throw new IllegalStateException("Cannot place bid on inactive auction");
             }
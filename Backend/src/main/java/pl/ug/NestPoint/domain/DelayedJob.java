@@ -0,0 +1,42 @@
+package pl.ug.NestPoint.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import pl.ug.NestPoint.domain.enums.DelayedJobType;
+
+import java.time.LocalDateTime;
+
+/**
+ * A job that has to run at runAt, see DelayedJobQueue. Rows are written and claimed with plain JDBC,
+ * the entity only keeps the table in the Hibernate managed schema.
+ */
+@Entity
+@Table(name = "delayed_job", indexes = @Index(name = "delayed_job_run_at_idx", columnList = "run_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DelayedJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DelayedJobType type;
+
+    @Column(name = "rental_id", nullable = false)
+    private Long rentalId;
+
+    @Column(name = "run_at", nullable = false)
+    private LocalDateTime runAt;
+
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    // Worker holding the job and until when, an expired lease makes it claimable again
+    private String lockedBy;
+    private LocalDateTime lockedUntil;
+
+    // Set once the job has used up its attempts, failed jobs stay in the table but are never claimed again
+    private LocalDateTime failedAt;
+}
@@ -74,6 +74,10 @@ public class Rental {
 
     private Double rentalFees;
 
+    // Last change of the row, drives the calendar ETag and Last-Modified; bulk SQL updates set it too
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     private void validateUsers() {
         // Check tenant has TENANT role
         if (tenant != null) {
@@ -129,5 +133,6 @@ public class Rental {
     private void validateAndCalculate() {
         validateUsers();
         calculateTotalCost();
+        updatedAt = LocalDateTime.now();
     }
 }
\ No newline at end of file
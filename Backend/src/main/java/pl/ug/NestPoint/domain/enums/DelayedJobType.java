@@ -0,0 +1,6 @@
+package pl.ug.NestPoint.domain.enums;
+
+public enum DelayedJobType {
+    ISSUE_AUCTION_FINE,
+    BLOCK_UNPAID_FINE
+}
@@ -0,0 +1,7 @@
+package pl.ug.NestPoint.domain.enums;
+
+public enum PaymentPurpose {
+    RENTAL,
+    AUCTION_PAYMENT,
+    AUCTION_FINE
+}
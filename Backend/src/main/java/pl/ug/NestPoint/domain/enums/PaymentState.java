@@ -0,0 +1,8 @@
+package pl.ug.NestPoint.domain.enums;
+
+public enum PaymentState {
+    PENDING,
+    SUCCEEDED,
+    DECLINED,
+    FAILED
+}
@@ -0,0 +1,36 @@
+package pl.ug.NestPoint.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pl.ug.NestPoint.domain.enums.AccessibilityType;
+import pl.ug.NestPoint.domain.enums.PropertyType;
+
+import java.time.LocalDate;
+
+// Every field is optional, a null field does not filter; all given filters must match
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApartmentSearchCriteria {
+    private LocalDate availableOn;
+    private LocalDate availableFrom;
+    private LocalDate availableTo;
+    private String ownerName;
+    private String address;
+    private Integer minSize;
+    private Integer maxSize;
+    private Double minPrice;
+    private Double maxPrice;
+    private PropertyType propertyType;
+    private AccessibilityType kitchen;
+    private AccessibilityType yardAccess;
+    private AccessibilityType poolAccess;
+    private Boolean wifi;
+    private Boolean parkingSpace;
+    private Boolean petsAllowed;
+    private Boolean furnished;
+    private Boolean disabilityFriendly;
+}
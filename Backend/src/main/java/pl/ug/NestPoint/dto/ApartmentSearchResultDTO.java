@@ -0,0 +1,17 @@
+package pl.ug.NestPoint.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApartmentSearchResultDTO {
+    private List<ApartmentDTO> apartments;
+    // Attribute -> value -> number of the found apartments with that value, e.g. wifi -> {false: 3, true: 12}
+    private Map<String, Map<String, Integer>> facets;
+}
@@ -0,0 +1,19 @@
+package pl.ug.NestPoint.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Apartments of one grid cell; lat/lng is their centroid, the bounds are the cell's, for zooming into it
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MapClusterDTO {
+    private double lat;
+    private double lng;
+    private int count;
+    private double west;
+    private double south;
+    private double east;
+    private double north;
+}
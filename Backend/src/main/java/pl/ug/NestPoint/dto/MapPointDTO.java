@@ -0,0 +1,19 @@
+package pl.ug.NestPoint.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MapPointDTO {
+    private Long id;
+    private String title;
+    private double price;
+    private double lat;
+    private double lng;
+    private String address;
+    private String thumbnail;
+    private Long thumbnailId;
+}
@@ -0,0 +1,18 @@
+package pl.ug.NestPoint.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Apartments in a map viewport; when clustered, cells holding a single apartment are still listed as points
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MapViewportDTO {
+    private int zoom;
+    private boolean clustered;
+    private List<MapPointDTO> points;
+    private List<MapClusterDTO> clusters;
+}
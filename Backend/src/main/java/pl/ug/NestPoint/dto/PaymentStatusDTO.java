@@ -0,0 +1,25 @@
+package pl.ug.NestPoint.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pl.ug.NestPoint.domain.enums.PaymentPurpose;
+import pl.ug.NestPoint.domain.enums.PaymentState;
+
+import java.time.LocalDateTime;
+
+// Returned when a payment is submitted, polled on /rentals/payments/{paymentId} and pushed on /user/queue/payments
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentStatusDTO {
+    private String paymentId;
+    private PaymentPurpose purpose;
+    private PaymentState state;
+    private Long rentalId;
+    private String message;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+}
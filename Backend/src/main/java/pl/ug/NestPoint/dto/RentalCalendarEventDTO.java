@@ -0,0 +1,20 @@
+package pl.ug.NestPoint.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pl.ug.NestPoint.domain.RentalStatus;
+
+import java.time.LocalDate;
+
+// Only the columns a calendar shows, selected with a constructor projection instead of loading rentals
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RentalCalendarEventDTO {
+    private Long id;
+    private String apartmentTitle;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private RentalStatus status;
+}
@@ -0,0 +1,23 @@
+package pl.ug.NestPoint.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Latest change and number of the rentals in a calendar; the count catches deleted rentals and apartments
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RentalCalendarVersion {
+    private LocalDateTime lastModified;
+    private Long count;
+
+    // The later of the last rental and the last apartment change
+    public RentalCalendarVersion(LocalDateTime rentalsModified, LocalDateTime apartmentsModified, Long count) {
+        this(apartmentsModified != null && (rentalsModified == null || apartmentsModified.isAfter(rentalsModified))
+                ? apartmentsModified
+                : rentalsModified, count);
+    }
+}
@@ -0,0 +1,16 @@
+package pl.ug.NestPoint.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// One window of a keyset scroll over rentals, pass nextCursor back to get the next one
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RentalWindowDTO {
+    private List<RentalDTO> content;
+    private String nextCursor;
+}
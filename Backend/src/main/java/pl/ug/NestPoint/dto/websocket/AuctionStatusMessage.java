@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import pl.ug.NestPoint.domain.enums.AuctionStatus;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 
 @Data
@@ -21,5 +22,6 @@ public class AuctionStatusMessage {
     private double winningBidAmount;
     private int remainingBidders;
     private long timeRemainingSeconds;
+    private Instant endsAt;
     private int activeObservers; 
 }
\ No newline at end of file
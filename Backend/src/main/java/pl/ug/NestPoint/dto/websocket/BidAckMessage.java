@@ -0,0 +1,22 @@
+package pl.ug.NestPoint.dto.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Sent to the bidder's /user/queue/bids once a WebSocket bid was accepted or rejected
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BidAckMessage {
+    private Long auctionId;
+    private double bidAmount;
+    private boolean accepted;
+    private boolean isWinningBid;
+    private LocalDateTime bidTime;
+    private String message;
+}
@@ -3,29 +3,36 @@ package pl.ug.NestPoint.mapper;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
+import org.springframework.beans.factory.annotation.Autowired;
 import pl.ug.NestPoint.domain.Apartment;
 import pl.ug.NestPoint.dto.ApartmentDTO;
+import pl.ug.NestPoint.service.ApartmentAvailabilityIndex;
 
 import java.time.LocalDate;
 
 @Mapper(componentModel = "spring")
-public interface ApartmentMapper {
+public abstract class ApartmentMapper {
+
+    // Occupancy comes from the index, mapping a list must not load every apartment's rentals
+    @Autowired
+    protected ApartmentAvailabilityIndex availabilityIndex;
+
     @Mapping(source = "owner.id", target = "ownerId")
     @Mapping(source = "poolFee", target = "poolFee")
     @Mapping(source = "apartment", target = "currentlyOccupied", qualifiedByName = "isCurrentlyOccupied")
-    ApartmentDTO toDTO(Apartment apartment);
+    public abstract ApartmentDTO toDTO(Apartment apartment);
 
     @Mapping(source = "ownerId", target = "owner.id")
     @Mapping(source = "poolFee", target = "poolFee")
     @Mapping(target = "photos", ignore = true)
     @Mapping(target = "rentals", ignore = true)
     @Mapping(target = "owner", ignore = true)
-    Apartment toEntity(ApartmentDTO apartmentDTO);
-    
+    public abstract Apartment toEntity(ApartmentDTO apartmentDTO);
+
     @Named("isCurrentlyOccupied")
-    default boolean isCurrentlyOccupied(Apartment apartment) {
-        return apartment.isCurrentlyOccupied();
+    protected boolean isCurrentlyOccupied(Apartment apartment) {
+        return availabilityIndex.isOccupiedOn(apartment.getId(), LocalDate.now());
     }
 
-    
-}
\ No newline at end of file
+
+}
@@ -11,8 +11,7 @@ public interface AuctionMapper {
     
     @Mapping(source = "apartment.id", target = "apartmentId")
     @Mapping(source = "apartment.title", target = "apartmentTitle")
-    @Mapping(source = "auction", target = "currentHighestBid", qualifiedByName = "currentHighestBid")
-    @Mapping(source = "auction", target = "currentBidderCount", qualifiedByName = "currentBidderCount")
+    @Mapping(source = "distinctBidderCount", target = "currentBidderCount")
     @Mapping(source = "resultingRental.id", target = "resultingRentalId")
     @Mapping(source = "auction", target = "active", qualifiedByName = "isActive")
     AuctionDTO toDTO(Auction auction);
@@ -20,18 +19,13 @@ public interface AuctionMapper {
     @Mapping(source = "apartmentId", target = "apartment.id")
     @Mapping(target = "bids", ignore = true)
     @Mapping(target = "resultingRental", ignore = true)
+    @Mapping(target = "currentHighestBid", ignore = true)
+    @Mapping(target = "winningBidId", ignore = true)
+    @Mapping(target = "winningBidderId", ignore = true)
+    @Mapping(target = "distinctBidderCount", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Auction toEntity(AuctionDTO auctionDTO);
     
-    @Named("currentHighestBid")
-    default double currentHighestBid(Auction auction) {
-        return auction.getCurrentHighestBid();
-    }
-    
-    @Named("currentBidderCount")
-    default int currentBidderCount(Auction auction) {
-        return auction.getCurrentBidderCount();
-    }
-    
     @Named("isActive")
     default boolean isActive(Auction auction) {
         return auction.isActive();
@@ -0,0 +1,190 @@
+package pl.ug.NestPoint.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import pl.ug.NestPoint.domain.Address;
+import pl.ug.NestPoint.domain.Apartment;
+import pl.ug.NestPoint.domain.Rental;
+import pl.ug.NestPoint.domain.RentalStatus;
+import pl.ug.NestPoint.domain.User;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Keeps analytics_rollup in step with apartment and rental writes made through JPA.
+ * Hibernate calls it right after each insert, update or delete statement, inside the same transaction,
+ * with the row's state before and after the write; the difference is added to the affected cells.
+ * Bulk SQL updates bypass it and adjust the rollup themselves, see RentalMaintenanceRepository.
+ * Does nothing until enabled, which AnalyticsRollups does once the database supports the rollup.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnalyticsRollupListener
+        implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final AnalyticsRollupRepository rollupRepository;
+
+    private volatile boolean enabled;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    public void enable() {
+        enabled = true;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.getEntity() instanceof Apartment apartment) {
+            addApartment(ApartmentState.of(apartment), 1);
+        } else if (event.getEntity() instanceof Rental rental) {
+            addRental(RentalState.of(rental), 1);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!enabled || event.getOldState() == null) {
+            return;
+        }
+        if (event.getEntity() instanceof Apartment apartment) {
+            apartmentUpdated(ApartmentState.of(event.getPersister(), event.getOldState(), apartment.getId()),
+                    ApartmentState.of(apartment));
+        } else if (event.getEntity() instanceof Rental rental) {
+            rentalUpdated(RentalState.of(event.getPersister(), event.getOldState()), RentalState.of(rental));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (!enabled) {
+            return;
+        }
+        // Rentals of a deleted apartment are deleted before it, each subtracting itself
+        if (event.getEntity() instanceof Apartment apartment) {
+            addApartment(ApartmentState.of(event.getPersister(), event.getDeletedState(), apartment.getId()), -1);
+        } else if (event.getEntity() instanceof Rental) {
+            addRental(RentalState.of(event.getPersister(), event.getDeletedState()), -1);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void apartmentUpdated(ApartmentState before, ApartmentState after) {
+        if (before.sameCell(after)) {
+            if (before.price() != after.price()) {
+                addPrice(after, after.price() - before.price());
+            }
+            return;
+        }
+        addApartment(before, -1);
+        addApartment(after, 1);
+        if (before.ownerId() != null && after.ownerId() != null) {
+            rollupRepository.moveApartmentRentals(after.id(), before.ownerId(), before.city(),
+                    after.ownerId(), after.city());
+        }
+    }
+
+    private void rentalUpdated(RentalState before, RentalState after) {
+        if (!Objects.equals(before.apartmentId(), after.apartmentId())) {
+            addRental(before, -1);
+            addRental(after, 1);
+            return;
+        }
+        double costDelta = after.totalCost() - before.totalCost();
+        long completedDelta = after.completed() - before.completed();
+        if (after.apartmentId() != null && (costDelta != 0 || completedDelta != 0)) {
+            rollupRepository.addRentals(after.apartmentId(), 0, costDelta, completedDelta);
+        }
+    }
+
+    private void addApartment(ApartmentState apartment, int sign) {
+        if (apartment.ownerId() != null) {
+            rollupRepository.addApartments(apartment.ownerId(), apartment.city(), sign, sign * apartment.price());
+        }
+    }
+
+    private void addPrice(ApartmentState apartment, double priceDelta) {
+        if (apartment.ownerId() != null) {
+            rollupRepository.addApartments(apartment.ownerId(), apartment.city(), 0, priceDelta);
+        }
+    }
+
+    private void addRental(RentalState rental, int sign) {
+        if (rental.apartmentId() != null) {
+            rollupRepository.addRentals(rental.apartmentId(), sign, sign * rental.totalCost(), sign * rental.completed());
+        }
+    }
+
+    private static Object property(EntityPersister persister, Object[] state, String name) {
+        int index = Arrays.asList(persister.getPropertyNames()).indexOf(name);
+        return index >= 0 ? state[index] : null;
+    }
+
+    private record ApartmentState(Long id, Long ownerId, String city, double price) {
+
+        static ApartmentState of(Apartment apartment) {
+            return new ApartmentState(apartment.getId(),
+                    apartment.getOwner() != null ? apartment.getOwner().getId() : null,
+                    apartment.getAddress() != null ? apartment.getAddress().getCity() : null,
+                    apartment.getRentalPrice());
+        }
+
+        static ApartmentState of(EntityPersister persister, Object[] state, Long id) {
+            Object owner = property(persister, state, "owner");
+            Object address = property(persister, state, "address");
+            Object price = property(persister, state, "rentalPrice");
+            return new ApartmentState(id,
+                    owner instanceof User user ? user.getId() : null,
+                    address instanceof Address value ? value.getCity() : null,
+                    price instanceof Number number ? number.doubleValue() : 0);
+        }
+
+        boolean sameCell(ApartmentState other) {
+            return Objects.equals(ownerId, other.ownerId)
+                    && Objects.equals(Objects.toString(city, ""), Objects.toString(other.city, ""));
+        }
+    }
+
+    private record RentalState(Long apartmentId, double totalCost, long completed) {
+
+        static RentalState of(Rental rental) {
+            return new RentalState(rental.getApartment() != null ? rental.getApartment().getId() : null,
+                    rental.getTotalCost(), rental.getStatus() == RentalStatus.COMPLETED ? 1 : 0);
+        }
+
+        static RentalState of(EntityPersister persister, Object[] state) {
+            Object apartment = property(persister, state, "apartment");
+            Object totalCost = property(persister, state, "totalCost");
+            return new RentalState(apartment instanceof Apartment value ? value.getId() : null,
+                    totalCost instanceof Number number ? number.doubleValue() : 0,
+                    property(persister, state, "status") == RentalStatus.COMPLETED ? 1 : 0);
+        }
+    }
+}
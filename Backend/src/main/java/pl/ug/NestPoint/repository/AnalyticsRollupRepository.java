@@ -0,0 +1,224 @@
+package pl.ug.NestPoint.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import pl.ug.NestPoint.domain.enums.Role;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Reads and writes the analytics_rollup table: one row per (owner, city) with apartment and rental totals.
+ * Writes add deltas with an upsert, so concurrent writers never lose each other's changes.
+ * The statements use PostgreSQL syntax, see {@link #isSupported()}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AnalyticsRollupRepository {
+
+    private static final String ADD_TO_CELL = """
+            INSERT INTO analytics_rollup (owner_id, city, apartment_count, apartment_price_sum,
+                                          rental_count, rental_cost_sum, completed_rental_count)
+            VALUES (?, COALESCE(?, ''), ?, ?, ?, ?, ?)
+            ON CONFLICT (owner_id, city) DO UPDATE SET
+                apartment_count = analytics_rollup.apartment_count + EXCLUDED.apartment_count,
+                apartment_price_sum = analytics_rollup.apartment_price_sum + EXCLUDED.apartment_price_sum,
+                rental_count = analytics_rollup.rental_count + EXCLUDED.rental_count,
+                rental_cost_sum = analytics_rollup.rental_cost_sum + EXCLUDED.rental_cost_sum,
+                completed_rental_count = analytics_rollup.completed_rental_count + EXCLUDED.completed_rental_count""";
+
+    // Same upsert for a rental, whose cell is found through its apartment
+    private static final String ADD_RENTAL = """
+            INSERT INTO analytics_rollup (owner_id, city, apartment_count, apartment_price_sum,
+                                          rental_count, rental_cost_sum, completed_rental_count)
+            SELECT owner_id, COALESCE(city, ''), 0, 0, ?, ?, ? FROM apartment WHERE id = ? AND owner_id IS NOT NULL
+            ON CONFLICT (owner_id, city) DO UPDATE SET
+                rental_count = analytics_rollup.rental_count + EXCLUDED.rental_count,
+                rental_cost_sum = analytics_rollup.rental_cost_sum + EXCLUDED.rental_cost_sum,
+                completed_rental_count = analytics_rollup.completed_rental_count + EXCLUDED.completed_rental_count""";
+
+    /*
+     * Counts the rentals the next chunk of RentalMaintenanceRepository.completeEndedRentals will complete.
+     * The chunk is locked, so the update that follows in the same transaction completes exactly these rows
+     * and a job running on another node at the same time cannot count them again.
+     */
+    private static final String ADD_ENDED_RENTALS = """
+            UPDATE analytics_rollup c SET completed_rental_count = c.completed_rental_count + n.completed
+            FROM (SELECT a.owner_id, COALESCE(a.city, '') AS city, COUNT(*) AS completed
+                  FROM rental r JOIN apartment a ON a.id = r.apartment_id
+                  WHERE r.id IN (SELECT id FROM rental WHERE status = 'ACTIVE' AND end_date < ?
+                                 ORDER BY id LIMIT ? FOR UPDATE)
+                  GROUP BY a.owner_id, COALESCE(a.city, '')) n
+            WHERE c.owner_id = n.owner_id AND c.city = n.city""";
+
+    private static final String APARTMENT_RENTAL_TOTALS = """
+            SELECT COUNT(*), COALESCE(SUM(total_cost), 0), COUNT(*) FILTER (WHERE status = 'COMPLETED')
+            FROM rental WHERE apartment_id = ?""";
+
+    /*
+     * Recomputes every cell from the apartment and rental tables and overwrites the cells that differ,
+     * returning how many did. Sums are compared with a tolerance for floating point rounding.
+     */
+    private static final String RECONCILE = """
+            WITH apartments AS (
+                SELECT owner_id, COALESCE(city, '') AS city, COUNT(*) AS apartment_count,
+                       SUM(rental_price) AS apartment_price_sum
+                FROM apartment WHERE owner_id IS NOT NULL
+                GROUP BY owner_id, COALESCE(city, '')
+            ), rentals AS (
+                SELECT a.owner_id, COALESCE(a.city, '') AS city, COUNT(*) AS rental_count,
+                       SUM(r.total_cost) AS rental_cost_sum,
+                       COUNT(*) FILTER (WHERE r.status = 'COMPLETED') AS completed_rental_count
+                FROM rental r JOIN apartment a ON a.id = r.apartment_id
+                WHERE a.owner_id IS NOT NULL
+                GROUP BY a.owner_id, COALESCE(a.city, '')
+            ), actual AS (
+                SELECT ap.owner_id, ap.city, ap.apartment_count, ap.apartment_price_sum,
+                       COALESCE(re.rental_count, 0) AS rental_count,
+                       COALESCE(re.rental_cost_sum, 0) AS rental_cost_sum,
+                       COALESCE(re.completed_rental_count, 0) AS completed_rental_count
+                FROM apartments ap LEFT JOIN rentals re ON re.owner_id = ap.owner_id AND re.city = ap.city
+            ), corrected AS (
+                INSERT INTO analytics_rollup (owner_id, city, apartment_count, apartment_price_sum,
+                                              rental_count, rental_cost_sum, completed_rental_count)
+                SELECT owner_id, city, apartment_count, apartment_price_sum,
+                       rental_count, rental_cost_sum, completed_rental_count FROM actual
+                ON CONFLICT (owner_id, city) DO UPDATE SET
+                    apartment_count = EXCLUDED.apartment_count,
+                    apartment_price_sum = EXCLUDED.apartment_price_sum,
+                    rental_count = EXCLUDED.rental_count,
+                    rental_cost_sum = EXCLUDED.rental_cost_sum,
+                    completed_rental_count = EXCLUDED.completed_rental_count
+                WHERE analytics_rollup.apartment_count <> EXCLUDED.apartment_count
+                   OR analytics_rollup.rental_count <> EXCLUDED.rental_count
+                   OR analytics_rollup.completed_rental_count <> EXCLUDED.completed_rental_count
+                   OR ABS(analytics_rollup.apartment_price_sum - EXCLUDED.apartment_price_sum) > 0.005
+                   OR ABS(analytics_rollup.rental_cost_sum - EXCLUDED.rental_cost_sum) > 0.005
+                RETURNING 1
+            ), removed AS (
+                DELETE FROM analytics_rollup c
+                WHERE NOT EXISTS (SELECT 1 FROM actual a WHERE a.owner_id = c.owner_id AND a.city = c.city)
+                RETURNING 1
+            )
+            SELECT (SELECT COUNT(*) FROM corrected) + (SELECT COUNT(*) FROM removed)""";
+
+    private static final String AVERAGE_RENTAL_COST_BY_CITY = """
+            SELECT NULLIF(city, ''), SUM(rental_cost_sum) / SUM(rental_count)
+            FROM analytics_rollup GROUP BY city HAVING SUM(rental_count) > 0""";
+
+    private static final String AVERAGE_APARTMENT_PRICE_BY_CITY = """
+            SELECT NULLIF(city, ''), SUM(apartment_price_sum) / SUM(apartment_count)
+            FROM analytics_rollup GROUP BY city HAVING SUM(apartment_count) > 0""";
+
+    private static final String AVERAGE_APARTMENT_PRICE_BY_OWNER = """
+            SELECT CONCAT(u.first_name, ' ', u.last_name), SUM(c.apartment_price_sum) / SUM(c.apartment_count)
+            FROM analytics_rollup c JOIN users u ON u.id = c.owner_id
+            WHERE EXISTS (SELECT 1 FROM user_roles ur WHERE ur.user_id = u.id AND ur.roles = ?)
+            GROUP BY u.first_name, u.last_name HAVING SUM(c.apartment_count) > 0""";
+
+    private static final String OWNER_COMPLETION = """
+            SELECT owner_id, SUM(rental_count), SUM(completed_rental_count),
+                   SUM(completed_rental_count) * 100.0 / NULLIF(SUM(rental_count), 0)
+            FROM analytics_rollup WHERE owner_id = ?
+            GROUP BY owner_id HAVING SUM(apartment_count) > 0""";
+
+    /*
+     * Cells whose city matches come from the rollup. Apartments that only match on the street are not
+     * covered by a cell, their rentals are still counted from the rental table.
+     */
+    private static final String OWNER_COMPLETION_BY_ADDRESS = """
+            SELECT owner_id, SUM(rental_count), SUM(completed_rental_count),
+                   SUM(completed_rental_count) * 100.0 / NULLIF(SUM(rental_count), 0)
+            FROM (
+                SELECT c.owner_id, c.rental_count, c.completed_rental_count
+                FROM analytics_rollup c WHERE c.apartment_count > 0 AND c.city LIKE ?
+                UNION ALL
+                SELECT a.owner_id, COUNT(r.id), COUNT(r.id) FILTER (WHERE r.status = 'COMPLETED')
+                FROM apartment a LEFT JOIN rental r ON r.apartment_id = a.id
+                WHERE a.owner_id IS NOT NULL AND a.street LIKE ? AND (a.city IS NULL OR a.city NOT LIKE ?)
+                GROUP BY a.owner_id
+            ) matches
+            WHERE EXISTS (SELECT 1 FROM user_roles ur WHERE ur.user_id = matches.owner_id AND ur.roles = ?)
+            GROUP BY owner_id""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public boolean isSupported() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+
+    public void addApartments(long ownerId, String city, long count, double priceSum) {
+        jdbcTemplate.update(ADD_TO_CELL, ownerId, city, count, priceSum, 0, 0.0, 0);
+    }
+
+    public void addRentals(long apartmentId, long count, double costSum, long completedCount) {
+        jdbcTemplate.update(ADD_RENTAL, count, costSum, completedCount, apartmentId);
+    }
+
+    // Call before completing a chunk of ended rentals with a bulk update, which the listener does not see
+    public void addEndedRentals(LocalDate today, int limit) {
+        jdbcTemplate.update(ADD_ENDED_RENTALS, today, limit);
+    }
+
+    // Moves the totals of an apartment's rentals to another cell, e.g. after the apartment changed owner
+    public void moveApartmentRentals(long apartmentId, long fromOwnerId, String fromCity, long toOwnerId, String toCity) {
+        RentalTotals totals = jdbcTemplate.queryForObject(APARTMENT_RENTAL_TOTALS,
+                (rs, rowNum) -> new RentalTotals(rs.getLong(1), rs.getDouble(2), rs.getLong(3)), apartmentId);
+        if (totals == null || totals.count() == 0) {
+            return;
+        }
+        jdbcTemplate.update(ADD_TO_CELL, fromOwnerId, fromCity, 0, 0.0,
+                -totals.count(), -totals.costSum(), -totals.completedCount());
+        jdbcTemplate.update(ADD_TO_CELL, toOwnerId, toCity, 0, 0.0,
+                totals.count(), totals.costSum(), totals.completedCount());
+    }
+
+    // Returns the number of cells that had drifted from the base tables
+    public int reconcile() {
+        Long corrected = jdbcTemplate.queryForObject(RECONCILE, Long.class);
+        return corrected != null ? corrected.intValue() : 0;
+    }
+
+    public List<Object[]> findAverageRentalCostGroupedByCity() {
+        return jdbcTemplate.query(AVERAGE_RENTAL_COST_BY_CITY, AnalyticsRollupRepository::average);
+    }
+
+    public List<Object[]> findAverageRentalPriceGroupedByCity() {
+        return jdbcTemplate.query(AVERAGE_APARTMENT_PRICE_BY_CITY, AnalyticsRollupRepository::average);
+    }
+
+    public List<Object[]> findAverageRentalPriceGroupedByOwner(Role ownerRole) {
+        return jdbcTemplate.query(AVERAGE_APARTMENT_PRICE_BY_OWNER, AnalyticsRollupRepository::average,
+                ownerRole.name());
+    }
+
+    public List<Object[]> getOwnerFeePercentage(long ownerId) {
+        return jdbcTemplate.query(OWNER_COMPLETION, AnalyticsRollupRepository::completion, ownerId);
+    }
+
+    public List<Object[]> getOwnerFeePercentageByAddress(String address, Role role) {
+        String pattern = "%" + address + "%";
+        return jdbcTemplate.query(OWNER_COMPLETION_BY_ADDRESS, AnalyticsRollupRepository::completion,
+                pattern, pattern, pattern, role.name());
+    }
+
+    // Group name and average, as the JPQL GROUP BY queries return them
+    private static Object[] average(ResultSet rs, int rowNum) throws SQLException {
+        return new Object[]{rs.getString(1), rs.getDouble(2)};
+    }
+
+    // Owner id, rentals, completed rentals and completion rate in percent (null without rentals)
+    private static Object[] completion(ResultSet rs, int rowNum) throws SQLException {
+        double rate = rs.getDouble(4);
+        return new Object[]{rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.wasNull() ? null : rate};
+    }
+
+    private record RentalTotals(long count, double costSum, long completedCount) {
+    }
+}
@@ -1,40 +1,60 @@
 package pl.ug.NestPoint.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import pl.ug.NestPoint.domain.Apartment;
-import pl.ug.NestPoint.domain.enums.AccessibilityType;
-import pl.ug.NestPoint.domain.enums.PropertyType;
 import pl.ug.NestPoint.domain.enums.Role;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ApartmentRepository extends JpaRepository<Apartment, Long> {
 
-    @Query("SELECT DISTINCT a FROM Apartment a LEFT JOIN a.rentals r " +
-           "WHERE r IS NULL OR NOT EXISTS (" +
-           "    SELECT r2 FROM Rental r2 " +
-           "    WHERE r2.apartment = a " +
-           "    AND r2.status <> 'CANCELLED' " +
-           "    AND r2.startDate <= :date " +
-           "    AND r2.endDate >= :date" +
+    // id, title, price, latitude, longitude, city, street and the first photo of geocoded apartments
+    String MAP_POINT = "SELECT a.id, a.title, a.rentalPrice, a.address.latitude, a.address.longitude, " +
+           "a.address.city, a.address.street, " +
+           "(SELECT p.filePath FROM Photo p WHERE p.id = (SELECT MIN(p2.id) FROM Photo p2 WHERE p2.apartment = a)), " +
+           "(SELECT MIN(p3.id) FROM Photo p3 WHERE p3.apartment = a) " +
+           "FROM Apartment a WHERE a.address.latitude IS NOT NULL AND a.address.longitude IS NOT NULL";
+
+    // No join or DISTINCT needed, NOT EXISTS alone keeps apartments without rentals
+    @Query("SELECT a FROM Apartment a WHERE NOT EXISTS (" +
+           "    SELECT r FROM Rental r " +
+           "    WHERE r.apartment = a " +
+           "    AND r.status <> 'CANCELLED' " +
+           "    AND r.startDate <= :date " +
+           "    AND r.endDate >= :date" +
            ")")
     List<Apartment> findAvailableOnDate(@Param("date") LocalDate date);
     
-    @Query("SELECT DISTINCT a FROM Apartment a LEFT JOIN a.rentals r " +
-           "WHERE r IS NULL OR NOT EXISTS (" +
-           "    SELECT r2 FROM Rental r2 " +
-           "    WHERE r2.apartment = a " +
-           "    AND r2.status <> 'CANCELLED' " +
-           "    AND r2.startDate <= :endDate " +
-           "    AND r2.endDate >= :startDate" +
+    @Query("SELECT a FROM Apartment a WHERE NOT EXISTS (" +
+           "    SELECT r FROM Rental r " +
+           "    WHERE r.apartment = a " +
+           "    AND r.status <> 'CANCELLED' " +
+           "    AND r.startDate <= :endDate " +
+           "    AND r.endDate >= :startDate" +
            ")")
     List<Apartment> findAvailableBetweenDates(
         @Param("startDate") LocalDate startDate, 
         @Param("endDate") LocalDate endDate
     );
+
+    // PostgreSQL only, needs the booked_days column and GiST index from RentalRangeSchema
+    @Query(value = "SELECT a.* FROM apartment a WHERE NOT EXISTS (" +
+           "    SELECT 1 FROM rental r " +
+           "    WHERE r.apartment_id = a.id " +
+           "    AND r.status <> 'CANCELLED' " +
+           "    AND r.booked_days && daterange(:startDate, :endDate, '[]')" +
+           ")", nativeQuery = true)
+    List<Apartment> findAvailableBetweenDatesByRange(
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
     
     @Query("SELECT DISTINCT a FROM Apartment a JOIN a.rentals r " +
            "WHERE r.status <> 'CANCELLED' " +
@@ -87,32 +107,6 @@ public interface ApartmentRepository extends JpaRepository<Apartment, Long> {
         return findAverageRentalPriceGroupedByOwner(Role.OWNER);
     }
 
-    @Query("SELECT a FROM Apartment a WHERE " +
-           "(:needsWifi = false OR a.wifi = true) AND " +
-           "(:needsParking = false OR a.parkingSpace = true) AND " +
-           "(:allowsPets = false OR a.petsAllowed = true) AND " +
-           "(:kitchenType is null OR a.kitchen = :kitchenType) AND " +
-           "(:needsDisabilityAccess = false OR a.disabilityFriendly = true)")
-    List<Apartment> findByAmenities(
-        @Param("needsWifi") boolean needsWifi,
-        @Param("needsParking") boolean needsParking,
-        @Param("allowsPets") boolean allowsPets,
-        @Param("kitchenType") AccessibilityType kitchenType,
-        @Param("needsDisabilityAccess") boolean needsDisabilityAccess
-    );
-
-    List<Apartment> findByPropertyType(PropertyType propertyType);
-
-    @Query("SELECT a FROM Apartment a WHERE " +
-           "(:poolAccess is null OR a.poolAccess = :poolAccess) AND " +
-           "(:yardAccess is null OR a.yardAccess = :yardAccess) AND " +
-           "(:disabilityFriendly = false OR a.disabilityFriendly = true)")
-    List<Apartment> findByAccessibilityFeatures(
-        @Param("poolAccess") AccessibilityType poolAccess,
-        @Param("yardAccess") AccessibilityType yardAccess,
-        @Param("disabilityFriendly") boolean disabilityFriendly
-    );
-
     @Query("SELECT COUNT(a) > 0 FROM Apartment a WHERE a.id = :apartmentId AND " +
            "a.owner.id = :userId AND :ownerRole MEMBER OF a.owner.roles")
     boolean isOwnedByUser(@Param("apartmentId") Long apartmentId, @Param("userId") Long userId, @Param("ownerRole") Role ownerRole);
@@ -132,4 +126,28 @@ public interface ApartmentRepository extends JpaRepository<Apartment, Long> {
     
     @Query("SELECT DISTINCT a FROM Apartment a JOIN a.auctions auc")
     List<Apartment> findWithAnyAuction();
-}
\ No newline at end of file
+
+    // Cursor over all apartments for exports, has to be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM Apartment a ORDER BY a.id")
+    Stream<Apartment> streamAllForExport();
+
+    // Owners are fetched too, the search index keeps their names
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT a FROM Apartment a LEFT JOIN FETCH a.owner")
+    List<Apartment> findAllForSearchIndex();
+
+    // Only the text the full-text index keeps: id, title, description, street, city and postal code
+    @Query("SELECT a.id, a.title, a.description, a.address.street, a.address.city, a.address.postalCode " +
+           "FROM Apartment a")
+    List<Object[]> findTextIndexRows();
+
+    @Query(MAP_POINT)
+    List<Object[]> findMapPoints();
+
+    @Query(MAP_POINT + " AND a.id = :apartmentId")
+    List<Object[]> findMapPoint(@Param("apartmentId") Long apartmentId);
+}
@@ -7,12 +7,15 @@ import pl.ug.NestPoint.domain.Auction;
 import pl.ug.NestPoint.domain.enums.AuctionStatus;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface AuctionRepository extends JpaRepository<Auction, Long> {
     
     List<Auction> findByStatus(AuctionStatus status);
     
+    List<Auction> findByStatusIn(Collection<AuctionStatus> statuses);
+    
     @Query("SELECT a FROM Auction a WHERE a.apartment.id = :apartmentId")
     List<Auction> findByApartmentId(@Param("apartmentId") Long apartmentId);
     
@@ -25,10 +28,14 @@ public interface AuctionRepository extends JpaRepository<Auction, Long> {
     @Query("SELECT a FROM Auction a WHERE a.status = 'PENDING' AND a.startTime < :now")
     List<Auction> findPendingAuctionsToBeActivated(@Param("now") LocalDateTime now);
     
-    @Query("SELECT a FROM Auction a WHERE a.status = 'ACTIVE' AND " +
-           "(SELECT COUNT(DISTINCT b.bidder.id) FROM Bid b WHERE b.auction = a) < a.maxBidders")
+    @Query("SELECT a FROM Auction a WHERE a.status = 'ACTIVE' AND a.distinctBidderCount < a.maxBidders")
     List<Auction> findAuctionsWithAvailableBidderSlots();
     
     @Query("SELECT a FROM Auction a JOIN a.bids b WHERE b.bidder.id = :userId")
     List<Auction> findAuctionsByBidder(@Param("userId") Long userId);
+    
+    // Auctions with bids that predate the denormalized aggregate columns
+    @Query("SELECT a FROM Auction a WHERE a.currentHighestBid IS NULL AND " +
+           "EXISTS (SELECT b FROM Bid b WHERE b.auction = a AND b.dropped = false)")
+    List<Auction> findAuctionsMissingBidAggregates();
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package pl.ug.NestPoint.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import pl.ug.NestPoint.domain.Bid;
+
+import java.util.List;
+
+/**
+ * Writes bids with plain JDBC batches. Runs on the connection of the surrounding JPA transaction,
+ * so the rows are visible to repository queries in the same transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BidBatchRepository {
+
+    private static final String INSERT_BID = """
+            INSERT INTO bid (auction_id, bidder_id, amount, bid_time, is_auto_bid, dropped, max_auto_bid_amount)
+            VALUES (?, ?, ?, ?, ?, ?, ?)""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // One batched statement instead of an INSERT round trip per bid; ids are not read back
+    public void insertAll(List<Bid> bids) {
+        jdbcTemplate.batchUpdate(INSERT_BID, bids, bids.size(), (statement, bid) -> {
+            statement.setLong(1, bid.getAuction().getId());
+            statement.setLong(2, bid.getBidder().getId());
+            statement.setDouble(3, bid.getAmount());
+            statement.setObject(4, bid.getBidTime());
+            statement.setBoolean(5, bid.isAutoBid());
+            statement.setBoolean(6, bid.isDropped());
+            statement.setDouble(7, bid.getMaxAutoBidAmount());
+        });
+    }
+}
@@ -1,6 +1,7 @@
 package pl.ug.NestPoint.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import pl.ug.NestPoint.domain.Bid;
@@ -22,6 +23,25 @@ public interface BidRepository extends JpaRepository<Bid, Long> {
             @Param("auctionId") Long auctionId, 
             @Param("bidderId") Long bidderId);
     
+    @Query("SELECT b.bidder.id, MAX(b.bidTime) FROM Bid b WHERE b.auction.id = :auctionId AND b.dropped = false " +
+           "GROUP BY b.bidder.id")
+    List<Object[]> findLatestBidTimePerBidder(@Param("auctionId") Long auctionId);
+    
+    @Query("SELECT b.bidder.id, MAX(b.maxAutoBidAmount), MIN(b.bidTime) FROM Bid b WHERE b.auction.id = :auctionId " +
+           "AND b.isAutoBid = true AND b.dropped = false GROUP BY b.bidder.id")
+    List<Object[]> findAutoBidCeilingPerBidder(@Param("auctionId") Long auctionId);
+    
+    // Current leader: highest amount, earliest bid wins a tie
+    Optional<Bid> findFirstByAuctionIdAndDroppedFalseOrderByAmountDescBidTimeAsc(Long auctionId);
+    
+    @Query("SELECT COUNT(DISTINCT b.bidder.id) FROM Bid b WHERE b.auction.id = :auctionId AND b.dropped = false")
+    int countDistinctBiddersByAuctionId(@Param("auctionId") Long auctionId);
+    
+    @Modifying
+    @Query("UPDATE Bid b SET b.dropped = true WHERE b.auction.id = :auctionId AND b.bidder.id = :bidderId " +
+           "AND b.dropped = false")
+    int markDroppedByAuctionIdAndBidderId(@Param("auctionId") Long auctionId, @Param("bidderId") Long bidderId);
+    
     @Query("SELECT MAX(b.amount) FROM Bid b WHERE b.auction.id = :auctionId")
     Optional<Double> findHighestBidAmountByAuctionId(@Param("auctionId") Long auctionId);
 
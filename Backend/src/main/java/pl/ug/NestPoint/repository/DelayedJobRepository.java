@@ -0,0 +1,78 @@
+package pl.ug.NestPoint.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import pl.ug.NestPoint.domain.enums.DelayedJobType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Plain JDBC access to the delayed_job table.
+ * Jobs are claimed with FOR UPDATE SKIP LOCKED, so workers on every node can poll the same table
+ * and each due job is handed to exactly one of them. A claim is a lease: the job stays in the table
+ * until it is completed, and becomes claimable again when the worker dies before its lease ends.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DelayedJobRepository {
+
+    private static final String INSERT_JOB = """
+            INSERT INTO delayed_job (type, rental_id, run_at, attempts) VALUES (?, ?, ?, 0)""";
+
+    private static final String CLAIM_DUE = """
+            UPDATE delayed_job SET locked_by = ?, locked_until = ?, attempts = attempts + 1
+            WHERE id IN (SELECT id FROM delayed_job
+                         WHERE run_at <= ? AND failed_at IS NULL
+                           AND (locked_until IS NULL OR locked_until < ?)
+                         ORDER BY run_at LIMIT ?
+                         FOR UPDATE SKIP LOCKED)
+            RETURNING id, type, rental_id, run_at, attempts""";
+
+    private static final String NEXT_RUN_AT = """
+            SELECT MIN(GREATEST(run_at, COALESCE(locked_until, run_at))) FROM delayed_job
+            WHERE failed_at IS NULL""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void enqueue(DelayedJobType type, long rentalId, LocalDateTime runAt) {
+        jdbcTemplate.update(INSERT_JOB, type.name(), rentalId, runAt);
+    }
+
+    // Leases at most limit due jobs to the worker, oldest first
+    public List<ClaimedJob> claimDue(String worker, LocalDateTime now, LocalDateTime leaseUntil, int limit) {
+        return jdbcTemplate.query(CLAIM_DUE, (rs, rowNum) -> new ClaimedJob(
+                        rs.getLong("id"),
+                        DelayedJobType.valueOf(rs.getString("type")),
+                        rs.getLong("rental_id"),
+                        rs.getObject("run_at", LocalDateTime.class),
+                        rs.getInt("attempts")),
+                worker, leaseUntil, now, now, limit);
+    }
+
+    public void complete(long jobId) {
+        jdbcTemplate.update("DELETE FROM delayed_job WHERE id = ?", jobId);
+    }
+
+    // Releases the lease and moves the job to a later time
+    public void retryAt(long jobId, LocalDateTime runAt) {
+        jdbcTemplate.update("UPDATE delayed_job SET run_at = ?, locked_by = NULL, locked_until = NULL WHERE id = ?",
+                runAt, jobId);
+    }
+
+    // Releases the lease and parks the job for good, it stays in the table to be looked into
+    public void markFailed(long jobId, LocalDateTime failedAt) {
+        jdbcTemplate.update("UPDATE delayed_job SET failed_at = ?, locked_by = NULL, locked_until = NULL WHERE id = ?",
+                failedAt, jobId);
+    }
+
+    // Earliest time any job becomes claimable, counting leases that will run out
+    public Optional<LocalDateTime> nextRunAt() {
+        return Optional.ofNullable(jdbcTemplate.queryForObject(NEXT_RUN_AT, LocalDateTime.class));
+    }
+
+    public record ClaimedJob(long id, DelayedJobType type, long rentalId, LocalDateTime runAt, int attempts) {
+    }
+}
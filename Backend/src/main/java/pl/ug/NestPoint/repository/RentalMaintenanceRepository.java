@@ -0,0 +1,102 @@
+package pl.ug.NestPoint.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Set-based updates for the periodic rental jobs.
+ * Every method handles at most one chunk of rows, picked in id order, and is meant to run in its own
+ * transaction; rows it changed no longer match, so calling it again continues with the next chunk.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RentalMaintenanceRepository {
+
+    private static final String ACTIVATE_STARTED = """
+            UPDATE rental SET status = 'ACTIVE', updated_at = ?
+            WHERE id IN (SELECT id FROM rental WHERE status = 'PENDING' AND start_date <= ? ORDER BY id LIMIT ?)""";
+
+    private static final String COMPLETE_ENDED = """
+            UPDATE rental SET status = 'COMPLETED', updated_at = ?
+            WHERE id IN (SELECT id FROM rental WHERE status = 'ACTIVE' AND end_date < ? ORDER BY id LIMIT ?)""";
+
+    private static final String ISSUE_OVERDUE_FINES = """
+            UPDATE rental SET auction_fine_issued = true, auction_fine_amount = total_cost * ?, updated_at = ?
+            WHERE id IN (SELECT id FROM rental
+                         WHERE is_auction = true AND auction_payment_confirmed = false
+                           AND auction_payment_deadline < ? AND auction_fine_issued = false
+                         ORDER BY id LIMIT ?)""";
+
+    private static final String ISSUE_FINE = """
+            UPDATE rental SET auction_fine_issued = true, auction_fine_amount = total_cost * ?, updated_at = ?
+            WHERE id = ? AND is_auction = true AND auction_payment_confirmed = false
+              AND auction_payment_deadline <= ? AND auction_fine_issued = false""";
+
+    private static final String FIND_UNPAID_FINE = """
+            SELECT r.tenant_id, r.auction_fine_amount
+            FROM rental r JOIN users u ON u.id = r.tenant_id
+            WHERE r.id = ? AND r.auction_fine_issued = true AND r.auction_payment_confirmed = false
+              AND r.auction_payment_deadline <= ? AND (u.is_blocked IS NULL OR u.is_blocked = false)""";
+
+    private static final String FIND_TENANTS_TO_BLOCK = """
+            SELECT r.tenant_id, MAX(r.auction_fine_amount)
+            FROM rental r JOIN users u ON u.id = r.tenant_id
+            WHERE r.auction_fine_issued = true AND r.auction_payment_confirmed = false
+              AND r.auction_payment_deadline < ? AND (u.is_blocked IS NULL OR u.is_blocked = false)
+            GROUP BY r.tenant_id
+            ORDER BY r.tenant_id LIMIT ?""";
+
+    private static final String BLOCK_USER = """
+            UPDATE users SET is_blocked = true, blocked_reason = ?, blocked_at = ?
+            WHERE id = ? AND (is_blocked IS NULL OR is_blocked = false)""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public int activateStartedRentals(LocalDate today, int limit) {
+        return jdbcTemplate.update(ACTIVATE_STARTED, LocalDateTime.now(), today, limit);
+    }
+
+    public int completeEndedRentals(LocalDate today, int limit) {
+        return jdbcTemplate.update(COMPLETE_ENDED, LocalDateTime.now(), today, limit);
+    }
+
+    public int issueOverdueFines(LocalDateTime now, double fineRate, int limit) {
+        return jdbcTemplate.update(ISSUE_OVERDUE_FINES, fineRate, now, now, limit);
+    }
+
+    // Single rental variants used by the delayed payment deadline jobs
+    public boolean issueFine(long rentalId, LocalDateTime now, double fineRate) {
+        return jdbcTemplate.update(ISSUE_FINE, fineRate, now, rentalId, now) > 0;
+    }
+
+    public Optional<UnpaidFine> findUnpaidFine(long rentalId, LocalDateTime deadline) {
+        return jdbcTemplate.query(FIND_UNPAID_FINE,
+                (rs, rowNum) -> new UnpaidFine(rs.getLong(1), rs.getDouble(2)), rentalId, deadline).stream().findFirst();
+    }
+
+    public List<UnpaidFine> findTenantsToBlock(LocalDateTime deadline, int limit) {
+        return jdbcTemplate.query(FIND_TENANTS_TO_BLOCK,
+                (rs, rowNum) -> new UnpaidFine(rs.getLong(1), rs.getDouble(2)), deadline, limit);
+    }
+
+    // One JDBC batch for the whole chunk, the reason text differs per user
+    public int blockUsers(List<UnpaidFine> unpaidFines, LocalDateTime blockedAt) {
+        int[][] counts = jdbcTemplate.batchUpdate(BLOCK_USER, unpaidFines, unpaidFines.size(), (statement, fine) -> {
+            statement.setString(1, "Unpaid auction fine of $" + fine.amount());
+            statement.setObject(2, blockedAt);
+            statement.setLong(3, fine.tenantId());
+        });
+        // Drivers may report SUCCESS_NO_INFO (-2) for batched rows
+        return Arrays.stream(counts).flatMapToInt(Arrays::stream).map(count -> count < 0 ? 1 : count).sum();
+    }
+
+    public record UnpaidFine(long tenantId, double amount) {
+    }
+}
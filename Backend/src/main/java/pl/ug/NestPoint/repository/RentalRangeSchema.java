@@ -0,0 +1,84 @@
+package pl.ug.NestPoint.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds the PostgreSQL range columns used by availability searches on top of the schema Hibernate creates.
+ * rental.booked_days is a generated daterange over the inclusive start and end date. An exclusion
+ * constraint on (apartment_id, booked_days) rejects overlapping non-cancelled bookings, and its GiST index
+ * also serves the "no overlapping booking" searches.
+ * Other databases keep the JPQL queries, see {@link #isInstalled()}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RentalRangeSchema {
+
+    static final String OVERLAP_CONSTRAINT = "rental_booked_days_no_overlap";
+    static final String FALLBACK_INDEX = "rental_booked_days_idx";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile boolean installed;
+
+    public boolean isInstalled() {
+        return installed;
+    }
+
+    // True when the write was rejected because it overlaps another booking of the apartment
+    public static boolean isOverlapViolation(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.contains(OVERLAP_CONSTRAINT);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void install() {
+        try {
+            if (!isPostgres()) {
+                return;
+            }
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS btree_gist");
+            jdbcTemplate.execute("""
+                    ALTER TABLE rental ADD COLUMN IF NOT EXISTS booked_days daterange
+                    GENERATED ALWAYS AS (daterange(start_date, end_date, '[]')) STORED""");
+            installOverlapConstraint();
+            installed = true;
+            log.info("Rental date range search installed");
+        } catch (DataAccessException e) {
+            log.warn("Rental date range search not installed, using JPQL availability queries: {}", e.getMessage());
+        }
+    }
+
+    private void installOverlapConstraint() {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_constraint WHERE conname = ?", Integer.class, OVERLAP_CONSTRAINT);
+        if (existing != null && existing > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute("ALTER TABLE rental ADD CONSTRAINT " + OVERLAP_CONSTRAINT + """
+                     EXCLUDE USING gist (apartment_id WITH =, booked_days WITH &&)
+                    WHERE (status <> 'CANCELLED')""");
+        } catch (DataAccessException e) {
+            // Existing double bookings have to be resolved by hand, searches still get the index
+            log.warn("Overlapping bookings exist, rental overlap constraint not added: {}", e.getMessage());
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + FALLBACK_INDEX + """
+                     ON rental USING gist (apartment_id, booked_days)
+                    WHERE status <> 'CANCELLED'""");
+        }
+    }
+
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+}
@@ -1,19 +1,53 @@
 package pl.ug.NestPoint.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import pl.ug.NestPoint.domain.Rental;
 import pl.ug.NestPoint.domain.RentalStatus;
 import pl.ug.NestPoint.domain.enums.Role;
+import pl.ug.NestPoint.dto.RentalCalendarEventDTO;
+import pl.ug.NestPoint.dto.RentalCalendarVersion;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+
+public interface RentalRepository extends JpaRepository<Rental, Long>, JpaSpecificationExecutor<Rental> {
+
+    // Rentals overlapping the dates, of one apartment or where the user is owner or tenant when given
+    String CALENDAR_SCOPE = "r.startDate <= :endDate AND r.endDate >= :startDate " +
+           "AND (:apartmentId IS NULL OR r.apartment.id = :apartmentId) " +
+           "AND (:userId IS NULL OR r.owner.id = :userId OR r.tenant.id = :userId)";
+
+    @Query("SELECT new pl.ug.NestPoint.dto.RentalCalendarEventDTO(r.id, a.title, r.startDate, r.endDate, r.status) " +
+           "FROM Rental r JOIN r.apartment a WHERE " + CALENDAR_SCOPE + " ORDER BY r.startDate, r.id")
+    List<RentalCalendarEventDTO> findCalendarEvents(@Param("apartmentId") Long apartmentId,
+                                                    @Param("userId") Long userId,
+                                                    @Param("startDate") LocalDate startDate,
+                                                    @Param("endDate") LocalDate endDate);
+
+    // Apartment changes count as well, events show the apartment's title
+    @Query("SELECT new pl.ug.NestPoint.dto.RentalCalendarVersion(MAX(r.updatedAt), MAX(a.updatedAt), COUNT(r)) " +
+           "FROM Rental r JOIN r.apartment a WHERE " + CALENDAR_SCOPE)
+    RentalCalendarVersion findCalendarVersion(@Param("apartmentId") Long apartmentId,
+                                              @Param("userId") Long userId,
+                                              @Param("startDate") LocalDate startDate,
+                                              @Param("endDate") LocalDate endDate);
+
+    // Read with a cursor in chunks of the fetch size, has to be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new pl.ug.NestPoint.dto.RentalCalendarEventDTO(r.id, a.title, r.startDate, r.endDate, r.status) " +
+           "FROM Rental r JOIN r.apartment a WHERE r.owner.id = :ownerId ORDER BY r.startDate, r.id")
+    Stream<RentalCalendarEventDTO> streamOwnerCalendar(@Param("ownerId") Long ownerId);
 
-public interface RentalRepository extends JpaRepository<Rental, Long> {
     Page<Rental> findByStatus(RentalStatus status, Pageable pageable);
 
     @Query("SELECT r FROM Rental r JOIN r.apartment a WHERE a.address.street LIKE %:address% OR " +
@@ -56,6 +90,10 @@ public interface RentalRepository extends JpaRepository<Rental, Long> {
     @Query("SELECT r.apartment.address.city, AVG(r.totalCost) FROM Rental r GROUP BY r.apartment.address.city")
     List<Object[]> findAverageRentalCostGroupedByCity();
 
+    // Rental id, apartment id, start and end date of every booking, for the availability index
+    @Query("SELECT r.id, r.apartment.id, r.startDate, r.endDate FROM Rental r WHERE r.status <> :excludedStatus")
+    List<Object[]> findBookedIntervals(@Param("excludedStatus") RentalStatus excludedStatus);
+
     @Query("SELECT CASE WHEN COUNT(r) > 0 THEN true ELSE false END FROM Rental r " +
            "WHERE r.apartment.id = :apartmentId AND r.tenant.id = :tenantId AND " +
            ":role MEMBER OF r.tenant.roles")
@@ -87,45 +125,6 @@ public interface RentalRepository extends JpaRepository<Rental, Long> {
         @Param("id") Long excludeId
     );
 
-    List<Rental> findByStatusAndStartDateLessThanEqual(RentalStatus status, LocalDate date);
-    List<Rental> findByStatusAndEndDateLessThan(RentalStatus status, LocalDate date);
-
-    @Query("SELECT r FROM Rental r WHERE r.apartment.id = :apartmentId " +
-           "AND r.status != 'CANCELLED' " + 
-           "AND ((r.startDate BETWEEN :startDate AND :endDate) " +
-           "OR (r.endDate BETWEEN :startDate AND :endDate) " +
-           "OR (:startDate BETWEEN r.startDate AND r.endDate))")
-    List<Rental> findByApartmentIdAndDateBetween(
-        @Param("apartmentId") Long apartmentId,
-        @Param("startDate") LocalDate startDate,
-        @Param("endDate") LocalDate endDate);
-
-    @Query("SELECT r FROM Rental r WHERE r.owner.id = :ownerId " +
-           "AND ((r.startDate BETWEEN :startDate AND :endDate) " +
-           "OR (r.endDate BETWEEN :startDate AND :endDate) " +
-           "OR (:startDate BETWEEN r.startDate AND r.endDate))")
-    List<Rental> findByOwnerIdAndDateBetween(
-        @Param("ownerId") Long ownerId,
-        @Param("startDate") LocalDate startDate,
-        @Param("endDate") LocalDate endDate);
-
-    @Query("SELECT r FROM Rental r WHERE r.tenant.id = :tenantId " +
-           "AND ((r.startDate BETWEEN :startDate AND :endDate) " +
-           "OR (r.endDate BETWEEN :startDate AND :endDate) " +
-           "OR (:startDate BETWEEN r.startDate AND r.endDate))")
-    List<Rental> findByTenantIdAndDateBetween(
-        @Param("tenantId") Long tenantId,
-        @Param("startDate") LocalDate startDate,
-        @Param("endDate") LocalDate endDate);
-
-    @Query("SELECT r FROM Rental r WHERE " +
-           "(r.startDate BETWEEN :startDate AND :endDate) " +
-           "OR (r.endDate BETWEEN :startDate AND :endDate) " +
-           "OR (:startDate BETWEEN r.startDate AND r.endDate)")
-    List<Rental> findByDateBetween(
-        @Param("startDate") LocalDate startDate,
-        @Param("endDate") LocalDate endDate);
-
     List<Rental> findByTenantIdAndStatus(Long tenantId, RentalStatus status);
     List<Rental> findByTenantId(Long tenantId);
     List<Rental> findByOwnerIdAndStatus(Long ownerId, RentalStatus status);
@@ -134,12 +133,15 @@ public interface RentalRepository extends JpaRepository<Rental, Long> {
     long countByStatus(RentalStatus status);
 
 
-       @Query("SELECT r FROM Rental r WHERE r.isAuction = true AND r.auctionPaymentConfirmed = false AND r.auctionPaymentDeadline < :now AND r.auctionFineIssued = false")
-       List<Rental> findOverdueAuctionPayments(@Param("now") LocalDateTime now);
-
        @Query("SELECT r FROM Rental r WHERE r.tenant.id = :userId AND r.isAuction = true AND r.auctionPaymentConfirmed = false AND r.auctionPaymentDeadline < :now")
        List<Rental> findOverdueAuctionPaymentsByUser(@Param("userId") Long userId, @Param("now") LocalDateTime now);
 
-       @Query("SELECT r FROM Rental r WHERE r.auctionFineIssued = true AND r.auctionPaymentConfirmed = false AND r.auctionPaymentDeadline < :deadline")
-       List<Rental> findUnpaidFinesOlderThan(@Param("deadline") LocalDateTime deadline);
-}
\ No newline at end of file
+    // Cursor over all rentals with their apartment for exports, has to be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    // The payment is the inverse side of a one-to-one and would otherwise be loaded by a query per rental
+    @Query("SELECT r FROM Rental r JOIN FETCH r.apartment LEFT JOIN FETCH r.payment ORDER BY r.id")
+    Stream<Rental> streamAllForExport();
+}
@@ -0,0 +1,100 @@
+package pl.ug.NestPoint.repository;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+import pl.ug.NestPoint.domain.Apartment;
+import pl.ug.NestPoint.domain.Rental;
+import pl.ug.NestPoint.domain.RentalStatus;
+import pl.ug.NestPoint.domain.User;
+import pl.ug.NestPoint.domain.enums.Role;
+import pl.ug.NestPoint.dto.RentalSearchCriteria;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Rental search filters as JPA specifications, so any set of criteria becomes one query.
+ * The filters match the former single-criterion JPQL searches of RentalRepository.
+ */
+public final class RentalSpecifications {
+
+    private RentalSpecifications() {
+    }
+
+    // Every non-null field of the criteria has to match, no criteria matches all rentals
+    public static Specification<Rental> matching(RentalSearchCriteria criteria) {
+        List<Specification<Rental>> filters = new ArrayList<>();
+        if (criteria != null) {
+            if (criteria.getAddress() != null) {
+                filters.add(addressContains(criteria.getAddress()));
+            }
+            if (criteria.getOccupied() != null) {
+                filters.add(occupied(criteria.getOccupied(), LocalDate.now()));
+            }
+            if (criteria.getOwnerName() != null) {
+                filters.add(ownerNameContains(criteria.getOwnerName()));
+            }
+            if (criteria.getTenantName() != null) {
+                filters.add(tenantNameContains(criteria.getTenantName()));
+            }
+            if (criteria.getRentalStatus() != null) {
+                filters.add(hasStatus(RentalStatus.valueOf(criteria.getRentalStatus())));
+            }
+        }
+        return Specification.allOf(filters);
+    }
+
+    public static Specification<Rental> addressContains(String address) {
+        return (root, query, cb) -> {
+            Path<Object> apartmentAddress = root.join("apartment").get("address");
+            String pattern = "%" + address + "%";
+            return cb.or(
+                    cb.like(apartmentAddress.get("street"), pattern),
+                    cb.like(apartmentAddress.get("city"), pattern),
+                    cb.like(apartmentAddress.get("postalCode"), pattern));
+        };
+    }
+
+    // Occupied means not cancelled and the date falls within the rental
+    public static Specification<Rental> occupied(boolean occupied, LocalDate date) {
+        return (root, query, cb) -> {
+            Predicate isOccupied = cb.and(
+                    cb.notEqual(root.get("status"), RentalStatus.CANCELLED),
+                    cb.lessThanOrEqualTo(root.get("startDate"), date),
+                    cb.greaterThanOrEqualTo(root.get("endDate"), date));
+            return occupied ? isOccupied : cb.not(isOccupied);
+        };
+    }
+
+    public static Specification<Rental> ownerNameContains(String ownerName) {
+        return (root, query, cb) -> {
+            Join<Apartment, User> owner = root.<Rental, Apartment>join("apartment").join("owner");
+            return cb.and(
+                    cb.like(fullName(cb, owner), "%" + ownerName + "%"),
+                    cb.isMember(Role.OWNER, owner.<Set<Role>>get("roles")));
+        };
+    }
+
+    public static Specification<Rental> tenantNameContains(String tenantName) {
+        return (root, query, cb) -> {
+            Join<Rental, User> tenant = root.join("tenant");
+            return cb.and(
+                    cb.like(fullName(cb, tenant), "%" + tenantName + "%"),
+                    cb.isMember(Role.TENANT, tenant.<Set<Role>>get("roles")));
+        };
+    }
+
+    public static Specification<Rental> hasStatus(RentalStatus status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    private static Expression<String> fullName(CriteriaBuilder cb, Join<?, User> user) {
+        return cb.concat(cb.concat(user.get("firstName"), " "), user.get("lastName"));
+    }
+}
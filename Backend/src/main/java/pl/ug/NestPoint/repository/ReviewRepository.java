@@ -1,11 +1,15 @@
 package pl.ug.NestPoint.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import pl.ug.NestPoint.domain.Review;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ReviewRepository extends JpaRepository<Review, Long> {
     // Basic finder methods (combining functionality from both previous repositories)
@@ -44,4 +48,12 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     
     boolean existsByApartmentIdAndAuthorId(Long apartmentId, Long authorId);
     boolean existsByTargetUserIdAndAuthorId(Long targetUserId, Long authorId);
-}
\ No newline at end of file
+
+    // Cursor over all reviews for exports, has to be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r FROM Review r ORDER BY r.id")
+    Stream<Review> streamAllForExport();
+}
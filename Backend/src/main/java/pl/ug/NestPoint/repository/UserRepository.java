@@ -1,7 +1,10 @@
 package pl.ug.NestPoint.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import pl.ug.NestPoint.domain.RentalStatus;
@@ -11,6 +14,7 @@ import pl.ug.NestPoint.domain.enums.Role;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
@@ -117,4 +121,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT DISTINCT u FROM User u JOIN u.rentals r JOIN r.apartment a WHERE :role MEMBER OF u.roles " +
            "AND (a.address.street LIKE %:address% OR a.address.city LIKE %:address% OR a.address.postalCode LIKE %:address%)")
      List<User> findTenantsByApartmentAddress(@Param("address") String address, @Param("role") Role role);
-}
\ No newline at end of file
+
+    // Cursor over all users for exports, has to be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    // Roles are eager and would otherwise be loaded by a query per user; ordering by id keeps each user's rows together
+    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.roles ORDER BY u.id")
+    Stream<User> streamAllForExport();
+}
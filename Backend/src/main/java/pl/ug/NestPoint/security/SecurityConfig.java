@@ -3,6 +3,7 @@ package pl.ug.NestPoint.security;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -64,6 +65,8 @@ public class SecurityConfig {
           .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
           .authorizeHttpRequests(auth -> auth
               .requestMatchers("/ws/**").permitAll() 
+              // Dropping a bidder changes who wins, only the auction's owner or an admin may do it
+              .requestMatchers(HttpMethod.DELETE, "/auctions/*/bidders/*").hasAnyAuthority("OWNER", "ADMIN")
               .requestMatchers("/login", "/register", "/logout", "/register-admin", "/apartments/**", "/reviews/**", "/tenants/**", "/auctions/**", "/rentals/**").permitAll()
 //                .requestMatchers("/ws/**", "/app/**", "/topic/**").authenticated()
               .requestMatchers("/admin/**").hasAuthority("ADMIN")
@@ -0,0 +1,221 @@
+package pl.ug.NestPoint.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.ug.NestPoint.domain.Address;
+import pl.ug.NestPoint.domain.Apartment;
+import pl.ug.NestPoint.domain.Rental;
+import pl.ug.NestPoint.domain.Review;
+import pl.ug.NestPoint.domain.User;
+import pl.ug.NestPoint.repository.ApartmentRepository;
+import pl.ug.NestPoint.repository.RentalRepository;
+import pl.ug.NestPoint.repository.ReviewRepository;
+import pl.ug.NestPoint.repository.UserRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Full-table exports for admins as NDJSON or CSV.
+ * Rows are read from a database cursor, written as flat records and detached right away, and the
+ * persistence context is cleared every chunk, so memory use does not grow with the table.
+ * Output goes to the client as it is written instead of after the whole table is loaded.
+ */
+@Service
+@RequiredArgsConstructor
+public class AdminExportService {
+
+    private static final int CLEAR_EVERY = 500;
+
+    private static final List<Column<User>> USER_COLUMNS = List.of(
+            new Column<>("id", User::getId),
+            new Column<>("username", User::getUsername),
+            new Column<>("email", User::getEmail),
+            new Column<>("firstName", User::getFirstName),
+            new Column<>("lastName", User::getLastName),
+            new Column<>("phone", User::getPhone),
+            new Column<>("roles", User::getRoles),
+            new Column<>("blocked", User::isCurrentlyBlocked),
+            new Column<>("blockedReason", User::getBlockedReason),
+            new Column<>("blockedAt", User::getBlockedAt));
+
+    private static final List<Column<Apartment>> APARTMENT_COLUMNS = List.of(
+            new Column<>("id", Apartment::getId),
+            new Column<>("ownerId", apartment -> apartment.getOwner() != null ? apartment.getOwner().getId() : null),
+            new Column<>("title", Apartment::getTitle),
+            new Column<>("description", Apartment::getDescription),
+            new Column<>("street", apartment -> address(apartment, Address::getStreet)),
+            new Column<>("apartmentNumber", apartment -> address(apartment, Address::getApartmentNumber)),
+            new Column<>("city", apartment -> address(apartment, Address::getCity)),
+            new Column<>("postalCode", apartment -> address(apartment, Address::getPostalCode)),
+            new Column<>("country", apartment -> address(apartment, Address::getCountry)),
+            new Column<>("latitude", apartment -> address(apartment, Address::getLatitude)),
+            new Column<>("longitude", apartment -> address(apartment, Address::getLongitude)),
+            new Column<>("propertyType", Apartment::getPropertyType),
+            new Column<>("size", Apartment::getSize),
+            new Column<>("rentalPrice", Apartment::getRentalPrice),
+            new Column<>("numberOfRooms", Apartment::getNumberOfRooms),
+            new Column<>("numberOfBeds", Apartment::getNumberOfBeds),
+            new Column<>("furnished", Apartment::isFurnished),
+            new Column<>("wifi", Apartment::isWifi),
+            new Column<>("petsAllowed", Apartment::isPetsAllowed),
+            new Column<>("parkingSpace", Apartment::isParkingSpace),
+            new Column<>("disabilityFriendly", Apartment::isDisabilityFriendly),
+            new Column<>("kitchen", Apartment::getKitchen),
+            new Column<>("yardAccess", Apartment::getYardAccess),
+            new Column<>("poolAccess", Apartment::getPoolAccess),
+            new Column<>("poolFee", Apartment::getPoolFee));
+
+    private static final List<Column<Rental>> RENTAL_COLUMNS = List.of(
+            new Column<>("id", Rental::getId),
+            new Column<>("apartmentId", rental -> rental.getApartment().getId()),
+            new Column<>("city", rental -> address(rental.getApartment(), Address::getCity)),
+            new Column<>("ownerId", rental -> rental.getOwner() != null ? rental.getOwner().getId() : null),
+            new Column<>("tenantId", rental -> rental.getTenant() != null ? rental.getTenant().getId() : null),
+            new Column<>("startDate", Rental::getStartDate),
+            new Column<>("endDate", Rental::getEndDate),
+            new Column<>("status", Rental::getStatus),
+            new Column<>("totalCost", Rental::getTotalCost),
+            new Column<>("rentalFees", Rental::getRentalFees),
+            new Column<>("isAuction", Rental::isAuction),
+            new Column<>("auctionPaymentConfirmed", Rental::getAuctionPaymentConfirmed),
+            new Column<>("auctionPaymentDeadline", Rental::getAuctionPaymentDeadline),
+            new Column<>("auctionFineIssued", Rental::getAuctionFineIssued),
+            new Column<>("auctionFineAmount", Rental::getAuctionFineAmount));
+
+    private static final List<Column<Review>> REVIEW_COLUMNS = List.of(
+            new Column<>("id", Review::getId),
+            new Column<>("authorId", review -> review.getAuthor() != null ? review.getAuthor().getId() : null),
+            new Column<>("apartmentId", review -> review.getApartment() != null ? review.getApartment().getId() : null),
+            new Column<>("targetUserId", review -> review.getTargetUser() != null ? review.getTargetUser().getId() : null),
+            new Column<>("score", Review::getScore),
+            new Column<>("content", Review::getContent),
+            new Column<>("createdAt", Review::getCreatedAt));
+
+    private final UserRepository userRepository;
+    private final ApartmentRepository apartmentRepository;
+    private final RentalRepository rentalRepository;
+    private final ReviewRepository reviewRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public void export(Dataset dataset, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        switch (dataset) {
+            case USERS -> write(userRepository.streamAllForExport(), USER_COLUMNS, format, writer);
+            case APARTMENTS -> write(apartmentRepository.streamAllForExport(), APARTMENT_COLUMNS, format, writer);
+            case RENTALS -> write(rentalRepository.streamAllForExport(), RENTAL_COLUMNS, format, writer);
+            case REVIEWS -> write(reviewRepository.streamAllForExport(), REVIEW_COLUMNS, format, writer);
+        }
+        writer.flush();
+    }
+
+    private <T> void write(Stream<T> rows, List<Column<T>> columns, Format format, Writer writer) throws IOException {
+        if (format == Format.CSV) {
+            writeCsvLine(writer, columns.stream().map(Column::name).toList());
+        }
+        int[] written = {0};
+        try (rows) {
+            rows.forEach(row -> {
+                try {
+                    writeRow(writer, format, columns, row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                entityManager.detach(row);
+                // Drops associations loaded for the chunk, e.g. the apartments of exported rentals
+                if (++written[0] % CLEAR_EVERY == 0) {
+                    entityManager.clear();
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private <T> void writeRow(Writer writer, Format format, List<Column<T>> columns, T row) throws IOException {
+        if (format == Format.NDJSON) {
+            Map<String, Object> record = new LinkedHashMap<>();
+            columns.forEach(column -> record.put(column.name(), column.value().apply(row)));
+            writer.write(objectMapper.writeValueAsString(record));
+            writer.write('\n');
+        } else {
+            writeCsvLine(writer, columns.stream().map(column -> column.value().apply(row)).toList());
+        }
+    }
+
+    private static void writeCsvLine(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvField(values.get(i)));
+        }
+        writer.write("\r\n");
+    }
+
+    // RFC 4180 quoting; text starting like a formula is prefixed so spreadsheets show it as text
+    static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof Collection<?> values
+                ? values.stream().map(String::valueOf).sorted().collect(Collectors.joining(";"))
+                : value.toString();
+        if (value instanceof String && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+    private static <V> V address(Apartment apartment, Function<Address, V> field) {
+        return apartment != null && apartment.getAddress() != null ? field.apply(apartment.getAddress()) : null;
+    }
+
+    public enum Dataset {
+        USERS, APARTMENTS, RENTALS, REVIEWS
+    }
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private record Column<T>(String name, Function<T, Object> value) {
+    }
+}
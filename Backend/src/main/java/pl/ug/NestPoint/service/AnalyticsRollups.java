@@ -0,0 +1,134 @@
+package pl.ug.NestPoint.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.ug.NestPoint.domain.enums.Role;
+import pl.ug.NestPoint.repository.AnalyticsRollupListener;
+import pl.ug.NestPoint.repository.AnalyticsRollupRepository;
+import pl.ug.NestPoint.repository.ApartmentRepository;
+import pl.ug.NestPoint.repository.RentalRepository;
+import pl.ug.NestPoint.repository.UserRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Per-city and per-owner statistics read from the analytics_rollup table, which holds running totals per
+ * (owner, city) instead of aggregating every apartment and rental on each request.
+ * On PostgreSQL the rollup is rebuilt at startup, then kept up to date by {@link AnalyticsRollupListener}
+ * and checked against the base tables every night; cells that had drifted are corrected and counted
+ * in analytics.rollup.drift. Until the rollup is ready, and on other databases, the JPQL GROUP BY
+ * queries answer instead.
+ */
+@Component
+@Slf4j
+public class AnalyticsRollups {
+
+    private final AnalyticsRollupRepository rollupRepository;
+    private final AnalyticsRollupListener rollupListener;
+    private final RentalRepository rentalRepository;
+    private final ApartmentRepository apartmentRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+
+    private volatile boolean ready;
+
+    public AnalyticsRollups(AnalyticsRollupRepository rollupRepository, AnalyticsRollupListener rollupListener,
+                            RentalRepository rentalRepository, ApartmentRepository apartmentRepository,
+                            UserRepository userRepository, PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${analytics.rollup.enabled:true}") boolean enabled) {
+        this.rollupRepository = rollupRepository;
+        this.rollupListener = rollupListener;
+        this.rentalRepository = rentalRepository;
+        this.apartmentRepository = apartmentRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            if (!enabled || !rollupRepository.isSupported()) {
+                return;
+            }
+            // Track writes first, the rebuild then includes everything committed before it
+            rollupListener.enable();
+            reconcile();
+            ready = true;
+            log.info("Analytics rollup ready");
+        } catch (DataAccessException e) {
+            log.warn("Analytics rollup not available, using aggregate queries: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${analytics.rollup.reconcile-cron:0 30 3 * * ?}") // Run nightly by default
+    public void reconcileNightly() {
+        if (ready) {
+            reconcile();
+        }
+    }
+
+    int reconcile() {
+        Integer drifted = transactionTemplate.execute(status -> rollupRepository.reconcile());
+        int corrected = drifted != null ? drifted : 0;
+        meterRegistry.counter("analytics.rollup.drift").increment(corrected);
+        if (corrected > 0 && ready) {
+            log.warn("Corrected {} analytics rollup cells that had drifted from the base tables", corrected);
+        }
+        return corrected;
+    }
+
+    // Bulk updates bypass the listener, so the rental jobs report the rentals they complete here first
+    public void addEndedRentals(LocalDate today, int limit) {
+        if (ready) {
+            rollupRepository.addEndedRentals(today, limit);
+        }
+    }
+
+    public List<Object[]> findAverageRentalCostGroupedByCity() {
+        return read(rollupRepository::findAverageRentalCostGroupedByCity,
+                rentalRepository::findAverageRentalCostGroupedByCity);
+    }
+
+    public List<Object[]> findAverageRentalPriceGroupedByCity() {
+        return read(rollupRepository::findAverageRentalPriceGroupedByCity,
+                apartmentRepository::findAverageRentalPriceGroupedByCity);
+    }
+
+    public List<Object[]> findAverageRentalPriceGroupedByOwner() {
+        return read(() -> rollupRepository.findAverageRentalPriceGroupedByOwner(Role.OWNER),
+                apartmentRepository::findAverageRentalPriceGroupedByOwner);
+    }
+
+    public List<Object[]> getOwnerFeePercentage(Long ownerId) {
+        return read(() -> rollupRepository.getOwnerFeePercentage(ownerId),
+                () -> userRepository.getOwnerFeePercentage(ownerId));
+    }
+
+    public List<Object[]> getOwnerFeePercentageByAddress(String address) {
+        return read(() -> rollupRepository.getOwnerFeePercentageByAddress(address, Role.OWNER),
+                () -> userRepository.getOwnerFeePercentageByAddress(address, Role.OWNER));
+    }
+
+    private List<Object[]> read(Supplier<List<Object[]>> fromRollup, Supplier<List<Object[]>> fromBaseTables) {
+        return ready ? fromRollup.get() : fromBaseTables.get();
+    }
+}
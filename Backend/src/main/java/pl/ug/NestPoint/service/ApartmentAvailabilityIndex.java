@@ -0,0 +1,278 @@
+package pl.ug.NestPoint.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.ug.NestPoint.domain.Rental;
+import pl.ug.NestPoint.domain.RentalStatus;
+import pl.ug.NestPoint.repository.RentalRepository;
+
+import java.time.LocalDate;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory booked days of every apartment, so availability checks need neither SQL nor the lazy
+ * rentals collection.
+ * Each apartment keeps its non-cancelled bookings merged into disjoint day ranges in a sorted map;
+ * "is any day between start and end booked" is then a single floor lookup. A booking change updates
+ * only the apartment's ranges around it in concurrent sorted maps, so readers never lock.
+ * Changes are applied after commit. The index is loaded on startup and reloaded periodically to pick up
+ * rentals written by other nodes, see {@link SnapshotIndex}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ApartmentAvailabilityIndex {
+
+    // Shared and never written to
+    private static final ApartmentBookings NO_BOOKINGS = new ApartmentBookings();
+
+    private final RentalRepository rentalRepository;
+
+    private final SnapshotIndex<Bookings, Change> index =
+            new SnapshotIndex<>("apartment bookings", new Bookings(), this::loadBookings, Bookings::apply);
+
+    public boolean isOccupiedOn(Long apartmentId, LocalDate date) {
+        return isOccupiedBetween(apartmentId, date, date);
+    }
+
+    // Both ends inclusive, like Apartment.isOccupiedBetween
+    public boolean isOccupiedBetween(Long apartmentId, LocalDate startDate, LocalDate endDate) {
+        return bookingsOf(apartmentId).overlaps(startDate, endDate);
+    }
+
+    // Free on availableOn and through availableFrom..availableTo; a missing date or range is no restriction
+    public boolean isAvailable(Long apartmentId, LocalDate availableOn, LocalDate availableFrom, LocalDate availableTo) {
+        if (availableOn != null && isOccupiedOn(apartmentId, availableOn)) {
+            return false;
+        }
+        return availableFrom == null || availableTo == null || !isOccupiedBetween(apartmentId, availableFrom, availableTo);
+    }
+
+    // Ignores the bookings of one rental, used when that rental itself is being moved
+    public boolean isOccupiedBetween(Long apartmentId, LocalDate startDate, LocalDate endDate, Long excludedRentalId) {
+        ApartmentBookings bookings = bookingsOf(apartmentId);
+        if (!bookings.overlaps(startDate, endDate)) {
+            return false;
+        }
+        return excludedRentalId == null || bookings.overlapsExcluding(startDate, endDate, excludedRentalId);
+    }
+
+    // Call after saving a rental, a cancelled rental is removed from the index
+    public void update(Rental rental) {
+        Booking booking = rental.getStatus() != RentalStatus.CANCELLED ? Booking.of(rental) : null;
+        Change change = new Change(rental.getId(), rental.getApartment() != null ? rental.getApartment().getId() : null,
+                booking);
+        index.applyAfterCommit(change);
+    }
+
+    public void remove(Long rentalId) {
+        index.applyAfterCommit(new Change(rentalId, null, null));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${apartment.availability.reload-interval-ms:300000}")
+    public void reload() {
+        index.reload();
+    }
+
+    private Bookings loadBookings() {
+        Bookings bookings = new Bookings();
+        Map<Long, List<Booking>> byApartment = new HashMap<>();
+        for (Object[] row : rentalRepository.findBookedIntervals(RentalStatus.CANCELLED)) {
+            Booking booking = new Booking((Long) row[0], (LocalDate) row[2], (LocalDate) row[3]);
+            if (booking.isValid()) {
+                byApartment.computeIfAbsent((Long) row[1], id -> new ArrayList<>()).add(booking);
+                bookings.rentalApartments().put(booking.rentalId(), (Long) row[1]);
+            }
+        }
+        byApartment.forEach((apartmentId, apartmentBookings) ->
+                bookings.apartments().put(apartmentId, ApartmentBookings.of(apartmentBookings)));
+        log.debug("Indexed {} bookings of {} apartments", bookings.rentalApartments().size(), byApartment.size());
+        return bookings;
+    }
+
+    private ApartmentBookings bookingsOf(Long apartmentId) {
+        Map<Long, ApartmentBookings> apartments = index.get().apartments();
+        return apartmentId != null ? apartments.getOrDefault(apartmentId, NO_BOOKINGS) : NO_BOOKINGS;
+    }
+
+    record Booking(Long rentalId, LocalDate startDate, LocalDate endDate) {
+
+        static Booking of(Rental rental) {
+            return new Booking(rental.getId(), rental.getStartDate(), rental.getEndDate());
+        }
+
+        boolean isValid() {
+            return rentalId != null && startDate != null && endDate != null && !endDate.isBefore(startDate);
+        }
+    }
+
+    private record Change(Long rentalId, Long apartmentId, Booking booking) {
+    }
+
+    /**
+     * Bookings by apartment, and the apartment of every indexed rental to find it again when the rental
+     * moves or is cancelled. Changes update the maps and the apartment's bookings in place.
+     */
+    private record Bookings(Map<Long, ApartmentBookings> apartments, Map<Long, Long> rentalApartments) {
+
+        Bookings() {
+            this(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+
+        Bookings apply(Change change) {
+            boolean indexed = change.booking() != null && change.booking().isValid() && change.apartmentId() != null;
+            Long previousApartmentId = rentalApartments.remove(change.rentalId());
+            if (previousApartmentId != null && !(indexed && previousApartmentId.equals(change.apartmentId()))) {
+                ApartmentBookings previous = apartments.get(previousApartmentId);
+                if (previous != null) {
+                    previous.remove(change.rentalId());
+                    if (previous.isEmpty()) {
+                        apartments.remove(previousApartmentId);
+                    }
+                }
+            }
+            if (indexed) {
+                // A booking that stays on its apartment is replaced in place by add
+                apartments.computeIfAbsent(change.apartmentId(), id -> new ApartmentBookings()).add(change.booking());
+                rentalApartments.put(change.rentalId(), change.apartmentId());
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Bookings of one apartment, sorted by start date, plus their union as disjoint day ranges
+     * (start -> end, both inclusive). Adding or removing a booking touches only the ranges around it,
+     * so an update costs O(log n) plus the bookings merged into the affected range.
+     * Updates are made by one writer at a time and readers see no lock. Ranges that stay booked are
+     * never missing from what a reader sees, days being added or freed may show either state.
+     */
+    static final class ApartmentBookings {
+
+        private static final Comparator<Booking> BY_START =
+                Comparator.comparing(Booking::startDate).thenComparing(Booking::rentalId);
+
+        private final Map<Long, Booking> bookings = new ConcurrentHashMap<>();
+        private final NavigableSet<Booking> byStart = new ConcurrentSkipListSet<>(BY_START);
+        private final NavigableMap<LocalDate, LocalDate> bookedDays = new ConcurrentSkipListMap<>();
+
+        static ApartmentBookings of(Collection<Booking> bookings) {
+            ApartmentBookings apartmentBookings = new ApartmentBookings();
+            bookings.forEach(apartmentBookings::add);
+            return apartmentBookings;
+        }
+
+        boolean isEmpty() {
+            return bookings.isEmpty();
+        }
+
+        boolean overlaps(LocalDate startDate, LocalDate endDate) {
+            // Ranges are disjoint, so only the last one starting on or before endDate can reach startDate
+            Map.Entry<LocalDate, LocalDate> range = bookedDays.floorEntry(endDate);
+            return range != null && !range.getValue().isBefore(startDate);
+        }
+
+        boolean overlapsExcluding(LocalDate startDate, LocalDate endDate, Long excludedRentalId) {
+            // Every booking reaching startDate starts no earlier than the range containing it
+            Map.Entry<LocalDate, LocalDate> range = bookedDays.floorEntry(startDate);
+            LocalDate from = range != null && !range.getValue().isBefore(startDate) ? range.getKey() : startDate;
+            for (Booking booking : byStart.subSet(probe(from, Long.MIN_VALUE), true, probe(endDate, Long.MAX_VALUE), true)) {
+                if (!booking.rentalId().equals(excludedRentalId) && !booking.endDate().isBefore(startDate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(Booking booking) {
+            Booking previous = bookings.put(booking.rentalId(), booking);
+            if (previous != null) {
+                byStart.remove(previous);
+                release(previous);
+            }
+            byStart.add(booking);
+
+            // Merge with every range the booking overlaps or touches
+            LocalDate start = booking.startDate();
+            LocalDate end = booking.endDate();
+            List<LocalDate> absorbed = new ArrayList<>();
+            for (Map.Entry<LocalDate, LocalDate> range : bookedDays.headMap(end.plusDays(1), true).descendingMap().entrySet()) {
+                if (range.getValue().isBefore(start.minusDays(1))) {
+                    break;
+                }
+                absorbed.add(range.getKey());
+                start = range.getKey().isBefore(start) ? range.getKey() : start;
+                end = range.getValue().isAfter(end) ? range.getValue() : end;
+            }
+            // The merged range goes in before the ones it replaces are dropped
+            bookedDays.put(start, end);
+            for (LocalDate rangeStart : absorbed) {
+                if (!rangeStart.equals(start)) {
+                    bookedDays.remove(rangeStart);
+                }
+            }
+        }
+
+        void remove(Long rentalId) {
+            Booking booking = bookings.remove(rentalId);
+            if (booking != null) {
+                byStart.remove(booking);
+                release(booking);
+            }
+        }
+
+        // Rebuilds the range that contained the booking from the bookings left in it
+        private void release(Booking booking) {
+            Map.Entry<LocalDate, LocalDate> range = bookedDays.floorEntry(booking.startDate());
+            if (range == null || range.getValue().isBefore(booking.startDate())) {
+                return;
+            }
+            List<Map.Entry<LocalDate, LocalDate>> remaining = new ArrayList<>();
+            for (Booking other : byStart.subSet(probe(range.getKey(), Long.MIN_VALUE), true,
+                    probe(range.getValue(), Long.MAX_VALUE), true)) {
+                if (other.rentalId().equals(booking.rentalId())) {
+                    continue;
+                }
+                Map.Entry<LocalDate, LocalDate> last = remaining.isEmpty() ? null : remaining.get(remaining.size() - 1);
+                if (last != null && !other.startDate().isAfter(last.getValue().plusDays(1))) {
+                    if (other.endDate().isAfter(last.getValue())) {
+                        last.setValue(other.endDate());
+                    }
+                } else {
+                    remaining.add(new AbstractMap.SimpleEntry<>(other.startDate(), other.endDate()));
+                }
+            }
+            // Later ranges go in first and the old range shrinks last, so days that stay booked never look free
+            for (int i = remaining.size() - 1; i >= 0; i--) {
+                bookedDays.put(remaining.get(i).getKey(), remaining.get(i).getValue());
+            }
+            if (remaining.isEmpty() || !remaining.get(0).getKey().equals(range.getKey())) {
+                bookedDays.remove(range.getKey());
+            }
+        }
+
+        private static Booking probe(LocalDate startDate, long rentalId) {
+            return new Booking(rentalId, startDate, startDate);
+        }
+    }
+}
@@ -0,0 +1,480 @@
+package pl.ug.NestPoint.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.ug.NestPoint.dto.ApartmentSearchCriteria;
+import pl.ug.NestPoint.dto.MapClusterDTO;
+import pl.ug.NestPoint.dto.MapPointDTO;
+import pl.ug.NestPoint.dto.MapViewportDTO;
+import pl.ug.NestPoint.dto.NearbyApartmentDTO;
+import pl.ug.NestPoint.repository.ApartmentRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory spatial index of geocoded apartments for the map, so panning needs neither a table scan nor
+ * a photo query per apartment.
+ * The world is split into a grid of 2^level x 2^level cells per level. Apartments are sorted by the
+ * Z-order code of their finest cell, so every cell of every level is a contiguous run of that array,
+ * found with two binary searches, and prefix sums of the coordinates give each run's centroid.
+ * A viewport is answered cell by cell on a level picked from the zoom, capped at max-cells cells, and
+ * from cluster-max-zoom on with the individual apartments as long as there are at most max-points of
+ * them; so the response stays bounded however many listings there are.
+ * Nearest-apartment and radius queries go to a k-d tree over the same points, see {@link NearestPointTree}.
+ * The index is immutable and replaced on change, so readers never lock; a change moves only the changed
+ * point within the sorted arrays. Changes are applied after commit, and the index is reloaded periodically
+ * to pick up writes from other nodes, see {@link SnapshotIndex}.
+ */
+@Component
+@Slf4j
+public class ApartmentMapIndex {
+
+    // Finest cells are 360 / 2^26 degrees wide, under a metre
+    static final int MAX_LEVEL = 26;
+    // Zoom z is clustered on level z + 3, about 8 cells across a 256 px map tile
+    private static final int CLUSTER_LEVEL_OFFSET = 3;
+    // Changed points searched next to the k-d tree before it is rebuilt
+    static final int MAX_PENDING_POINTS = 256;
+
+    private final ApartmentRepository apartmentRepository;
+    private final ApartmentAvailabilityIndex availabilityIndex;
+    private final int clusterMaxZoom;
+    private final int maxPoints;
+    private final int maxCells;
+
+    private final SnapshotIndex<Snapshot, Change> index =
+            new SnapshotIndex<>("apartment map index", Snapshot.of(List.of()), this::loadSnapshot,
+                    (snapshot, change) -> snapshot.with(change.apartmentId(), change.point()));
+
+    public ApartmentMapIndex(ApartmentRepository apartmentRepository, ApartmentAvailabilityIndex availabilityIndex,
+                             @Value("${apartment.map.cluster-max-zoom:15}") int clusterMaxZoom,
+                             @Value("${apartment.map.max-points:500}") int maxPoints,
+                             @Value("${apartment.map.max-cells:1024}") int maxCells) {
+        this.apartmentRepository = apartmentRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.clusterMaxZoom = clusterMaxZoom;
+        this.maxPoints = maxPoints;
+        this.maxCells = maxCells;
+    }
+
+    // Every geocoded apartment in id order
+    public List<MapPointDTO> allPoints() {
+        return Arrays.stream(index.get().byId())
+                .map(MapPoint::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    // Changes whenever a point is added, moved or edited, the same on every node holding the same points
+    public long fingerprint() {
+        return index.get().fingerprint();
+    }
+
+    // A west edge east of the east edge means the viewport crosses the antimeridian
+    public MapViewportDTO viewport(double west, double south, double east, double north, int zoom) {
+        Snapshot current = index.get();
+        List<Box> boxes = west <= east
+                ? List.of(new Box(west, south, east, north))
+                : List.of(new Box(west, south, 180, north), new Box(-180, south, east, north));
+        int level = gridLevel(boxes, zoom);
+
+        if (zoom >= clusterMaxZoom) {
+            List<MapPointDTO> points = new ArrayList<>();
+            for (Box box : boxes) {
+                box.forEachCell(level, (cellX, cellY, cellLevel) -> {
+                    int[] range = current.range(cellLevel, cellX, cellY);
+                    for (int i = range[0]; i < range[1]; i++) {
+                        MapPoint point = current.sorted()[i];
+                        if (box.contains(point)) {
+                            points.add(point.toDTO());
+                        }
+                    }
+                });
+            }
+            if (points.size() <= maxPoints) {
+                return new MapViewportDTO(zoom, false, points, List.of());
+            }
+        }
+
+        List<MapPointDTO> points = new ArrayList<>();
+        List<MapClusterDTO> clusters = new ArrayList<>();
+        for (Box box : boxes) {
+            box.forEachCell(level, (cellX, cellY, cellLevel) -> {
+                int[] range = current.range(cellLevel, cellX, cellY);
+                int from = range[0];
+                int count = range[1] - range[0];
+                if (count == 1 && box.contains(current.sorted()[from])) {
+                    points.add(current.sorted()[from].toDTO());
+                } else if (count > 1) {
+                    double cells = 1L << cellLevel;
+                    clusters.add(new MapClusterDTO(
+                            (current.latSums()[from + count] - current.latSums()[from]) / count,
+                            (current.lngSums()[from + count] - current.lngSums()[from]) / count,
+                            count,
+                            cellX * 360 / cells - 180, cellY * 180 / cells - 90,
+                            (cellX + 1) * 360 / cells - 180, (cellY + 1) * 180 / cells - 90));
+                }
+            });
+        }
+        return new MapViewportDTO(zoom, true, points, clusters);
+    }
+
+    /**
+     * The limit nearest apartments matching the price and date filters, closest first; with a radius only those
+     * within it. Without a limit up to max-points apartments are returned.
+     */
+    public List<NearbyApartmentDTO> nearby(double lat, double lng, Integer limit, Double radiusKm,
+                                           ApartmentSearchCriteria filters) {
+        int cappedLimit = limit != null ? Math.min(limit, maxPoints) : maxPoints;
+        return index.get().nearby().nearest(lat, lng, cappedLimit, radiusKm, point -> matches(point, filters)).stream()
+                .map(neighbour -> neighbour.point().toNearbyDTO(neighbour.distanceKm()))
+                .collect(Collectors.toList());
+    }
+
+    private boolean matches(MapPoint point, ApartmentSearchCriteria filters) {
+        if (filters.getMinPrice() != null && point.price() < filters.getMinPrice()) {
+            return false;
+        }
+        if (filters.getMaxPrice() != null && point.price() > filters.getMaxPrice()) {
+            return false;
+        }
+        return availabilityIndex.isAvailable(point.id(),
+                filters.getAvailableOn(), filters.getAvailableFrom(), filters.getAvailableTo());
+    }
+
+    // Call after an apartment's address or photos changed, it is read again once the transaction commits
+    public void update(Long apartmentId) {
+        SnapshotIndex.afterCommit(() -> {
+            try {
+                List<Object[]> rows = apartmentRepository.findMapPoint(apartmentId);
+                index.apply(new Change(apartmentId, rows.isEmpty() ? null : MapPoint.of(rows.get(0))));
+            } catch (RuntimeException e) {
+                // The periodic reload picks it up
+                log.warn("Failed to refresh apartment {} on the map: {}", apartmentId, e.getMessage());
+            }
+        });
+    }
+
+    public void remove(Long apartmentId) {
+        index.applyAfterCommit(new Change(apartmentId, null));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${apartment.map.reload-interval-ms:300000}")
+    public void reload() {
+        index.reload();
+    }
+
+    private Snapshot loadSnapshot() {
+        Map<Long, MapPoint> byId = new HashMap<>();
+        for (Object[] row : apartmentRepository.findMapPoints()) {
+            MapPoint point = MapPoint.of(row);
+            byId.put(point.id(), point);
+        }
+        log.debug("Indexed {} apartments for the map", byId.size());
+        return Snapshot.of(byId.values());
+    }
+
+    // The zoom's clustering level, made coarser until the viewport covers at most maxCells cells
+    private int gridLevel(List<Box> boxes, int zoom) {
+        int level = Math.max(0, Math.min(zoom + CLUSTER_LEVEL_OFFSET, MAX_LEVEL));
+        while (level > 0) {
+            long cells = 0;
+            for (Box box : boxes) {
+                cells += box.cellCount(level);
+            }
+            if (cells <= maxCells) {
+                break;
+            }
+            level--;
+        }
+        return level;
+    }
+
+    // Column or row of a coordinate on a level, the east and north edges belong to the last cell
+    static int cell(double coordinate, double min, double span, int level) {
+        long cells = 1L << level;
+        long cell = (long) Math.floor((coordinate - min) / span * cells);
+        return (int) Math.max(0, Math.min(cell, cells - 1));
+    }
+
+    // Z-order code, the bits of x and y interleaved with x in the even positions
+    static long interleave(int x, int y) {
+        long code = 0;
+        for (int bit = 0; bit < MAX_LEVEL; bit++) {
+            code |= (long) ((x >>> bit) & 1) << (2 * bit);
+            code |= (long) ((y >>> bit) & 1) << (2 * bit + 1);
+        }
+        return code;
+    }
+
+    // An apartment's current point, or a null point once it is deleted or no longer geocoded
+    private record Change(Long apartmentId, MapPoint point) {
+    }
+
+    @FunctionalInterface
+    private interface CellVisitor {
+        void visit(int cellX, int cellY, int level);
+    }
+
+    private record Box(double west, double south, double east, double north) {
+
+        long cellCount(int level) {
+            long columns = cell(east, -180, 360, level) - cell(west, -180, 360, level) + 1L;
+            long rows = cell(north, -90, 180, level) - cell(south, -90, 180, level) + 1L;
+            return columns * rows;
+        }
+
+        void forEachCell(int level, CellVisitor visitor) {
+            int westCell = cell(west, -180, 360, level);
+            int eastCell = cell(east, -180, 360, level);
+            int southCell = cell(south, -90, 180, level);
+            int northCell = cell(north, -90, 180, level);
+            for (int cellY = southCell; cellY <= northCell; cellY++) {
+                for (int cellX = westCell; cellX <= eastCell; cellX++) {
+                    visitor.visit(cellX, cellY, level);
+                }
+            }
+        }
+
+        boolean contains(MapPoint point) {
+            return point.lat() >= south && point.lat() <= north && point.lng() >= west && point.lng() <= east;
+        }
+    }
+
+    record MapPoint(Long id, String title, double price, double lat, double lng, String address, String thumbnail,
+                    Long thumbnailId) {
+
+        // A row of ApartmentRepository.MAP_POINT
+        static MapPoint of(Object[] row) {
+            String address = Stream.of((String) row[5], (String) row[6])
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.joining(", "));
+            return new MapPoint((Long) row[0], (String) row[1], ((Number) row[2]).doubleValue(),
+                    ((Number) row[3]).doubleValue(), ((Number) row[4]).doubleValue(), address, (String) row[7],
+                    (Long) row[8]);
+        }
+
+        long code() {
+            return interleave(cell(lng, -180, 360, MAX_LEVEL), cell(lat, -90, 180, MAX_LEVEL));
+        }
+
+        MapPointDTO toDTO() {
+            return new MapPointDTO(id, title, price, lat, lng, address, thumbnail, thumbnailId);
+        }
+
+        NearbyApartmentDTO toNearbyDTO(double distanceKm) {
+            return new NearbyApartmentDTO(id, title, price, lat, lng, address, thumbnail, distanceKm);
+        }
+    }
+
+    /**
+     * Points in id order, the same points sorted by Z-order code with prefix sums of their latitudes and
+     * longitudes, the nearest-point search, and an order-independent hash of all points for ETags.
+     */
+    record Snapshot(long[] ids, MapPoint[] byId, MapPoint[] sorted, long[] codes, double[] latSums,
+                    double[] lngSums, NearbyPoints nearby, long fingerprint) {
+
+        static Snapshot of(Collection<MapPoint> points) {
+            MapPoint[] byId = points.toArray(new MapPoint[0]);
+            Arrays.sort(byId, Comparator.comparing(MapPoint::id));
+            long[] ids = new long[byId.length];
+            for (int i = 0; i < byId.length; i++) {
+                ids[i] = byId[i].id();
+            }
+
+            MapPoint[] sorted = byId.clone();
+            Arrays.sort(sorted, Comparator.comparingLong(MapPoint::code));
+            long[] codes = new long[sorted.length];
+            long fingerprint = sorted.length;
+            for (int i = 0; i < sorted.length; i++) {
+                codes[i] = sorted[i].code();
+                fingerprint += mix(sorted[i].hashCode());
+            }
+            double[] latSums = new double[sorted.length + 1];
+            double[] lngSums = new double[sorted.length + 1];
+            sumFrom(sorted, latSums, lngSums, 0);
+            return new Snapshot(ids, byId, sorted, codes, latSums, lngSums, NearbyPoints.of(Arrays.asList(sorted)),
+                    fingerprint);
+        }
+
+        /**
+         * Copy with the apartment's point replaced, a null point removes it. The point is moved within the
+         * sorted arrays and the prefix sums after it are recomputed; the k-d tree is left as it is and the
+         * point is searched next to it, see {@link NearbyPoints}.
+         */
+        Snapshot with(Long apartmentId, MapPoint point) {
+            int found = Arrays.binarySearch(ids, apartmentId);
+            MapPoint previous = found >= 0 ? byId[found] : null;
+            if (Objects.equals(previous, point)) {
+                return this;
+            }
+
+            long[] updatedIds = ids;
+            MapPoint[] updatedById;
+            if (found >= 0 && point != null) {
+                updatedById = byId.clone();
+                updatedById[found] = point;
+            } else if (found >= 0) {
+                updatedIds = removeAt(ids, found);
+                updatedById = removeAt(byId, found);
+            } else {
+                updatedIds = insertAt(ids, -(found + 1), apartmentId);
+                updatedById = insertAt(byId, -(found + 1), point);
+            }
+
+            MapPoint[] updatedSorted = sorted;
+            long[] updatedCodes = codes;
+            int firstChanged = sorted.length;
+            long fingerprint = this.fingerprint;
+            if (previous != null) {
+                int position = firstAtLeast(codes, previous.code());
+                while (!updatedSorted[position].id().equals(apartmentId)) {
+                    position++;
+                }
+                updatedSorted = removeAt(updatedSorted, position);
+                updatedCodes = removeAt(updatedCodes, position);
+                firstChanged = position;
+                fingerprint -= 1 + mix(previous.hashCode());
+            }
+            if (point != null) {
+                int position = firstAtLeast(updatedCodes, point.code() + 1);
+                updatedSorted = insertAt(updatedSorted, position, point);
+                updatedCodes = insertAt(updatedCodes, position, point.code());
+                firstChanged = Math.min(firstChanged, position);
+                fingerprint += 1 + mix(point.hashCode());
+            }
+            double[] latSums = Arrays.copyOf(this.latSums, updatedSorted.length + 1);
+            double[] lngSums = Arrays.copyOf(this.lngSums, updatedSorted.length + 1);
+            sumFrom(updatedSorted, latSums, lngSums, firstChanged);
+
+            return new Snapshot(updatedIds, updatedById, updatedSorted, updatedCodes, latSums, lngSums,
+                    nearby.with(apartmentId, point, updatedById), fingerprint);
+        }
+
+        private static void sumFrom(MapPoint[] sorted, double[] latSums, double[] lngSums, int from) {
+            for (int i = from; i < sorted.length; i++) {
+                latSums[i + 1] = latSums[i] + sorted[i].lat();
+                lngSums[i + 1] = lngSums[i] + sorted[i].lng();
+            }
+        }
+
+        // SplitMix64 finalizer, so that summing the hashes does not cancel out small differences
+        private static long mix(long value) {
+            value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+            value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+            return value ^ (value >>> 31);
+        }
+
+        // [from, to) indexes of the points in a cell; a cell's finest codes share its code as a prefix
+        int[] range(int level, int cellX, int cellY) {
+            int shift = 2 * (MAX_LEVEL - level);
+            long prefix = interleave(cellX, cellY);
+            return new int[]{firstAtLeast(codes, prefix << shift), firstAtLeast(codes, (prefix + 1) << shift)};
+        }
+
+        private static int firstAtLeast(long[] codes, long code) {
+            int low = 0;
+            int high = codes.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (codes[middle] < code) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Nearest-point search over a k-d tree plus the points changed since it was built. Those are kept in a
+     * small tree of their own and their outdated entries in the big tree are skipped, so a write never
+     * rebuilds the big tree; it is rebuilt once MAX_PENDING_POINTS changes have piled up, and by the
+     * periodic reload.
+     */
+    record NearbyPoints(NearestPointTree tree, Set<Long> changedIds, List<MapPoint> pending,
+                        NearestPointTree pendingTree) {
+
+        static NearbyPoints of(Collection<MapPoint> points) {
+            return new NearbyPoints(NearestPointTree.of(points), Set.of(), List.of(), NearestPointTree.of(List.of()));
+        }
+
+        NearbyPoints with(Long apartmentId, MapPoint point, MapPoint[] allPoints) {
+            if (changedIds.size() >= MAX_PENDING_POINTS) {
+                return of(Arrays.asList(allPoints));
+            }
+            Set<Long> updatedIds = new HashSet<>(changedIds);
+            updatedIds.add(apartmentId);
+            List<MapPoint> updatedPending = new ArrayList<>(pending);
+            updatedPending.removeIf(pendingPoint -> pendingPoint.id().equals(apartmentId));
+            if (point != null) {
+                updatedPending.add(point);
+            }
+            return new NearbyPoints(tree, Set.copyOf(updatedIds), List.copyOf(updatedPending),
+                    NearestPointTree.of(updatedPending));
+        }
+
+        List<NearestPointTree.Neighbour> nearest(double lat, double lng, int limit, Double radiusKm,
+                                                 Predicate<MapPoint> filter) {
+            if (changedIds.isEmpty()) {
+                return tree.nearest(lat, lng, limit, radiusKm, filter);
+            }
+            List<NearestPointTree.Neighbour> neighbours = new ArrayList<>(tree.nearest(lat, lng, limit, radiusKm,
+                    point -> !changedIds.contains(point.id()) && filter.test(point)));
+            neighbours.addAll(pendingTree.nearest(lat, lng, limit, radiusKm, filter));
+            neighbours.sort(Comparator.comparingDouble(NearestPointTree.Neighbour::distanceKm));
+            return neighbours.size() > limit ? neighbours.subList(0, limit) : neighbours;
+        }
+    }
+
+    private static long[] insertAt(long[] array, int index, long value) {
+        long[] updated = new long[array.length + 1];
+        System.arraycopy(array, 0, updated, 0, index);
+        System.arraycopy(array, index, updated, index + 1, array.length - index);
+        updated[index] = value;
+        return updated;
+    }
+
+    private static MapPoint[] insertAt(MapPoint[] array, int index, MapPoint value) {
+        MapPoint[] updated = new MapPoint[array.length + 1];
+        System.arraycopy(array, 0, updated, 0, index);
+        System.arraycopy(array, index, updated, index + 1, array.length - index);
+        updated[index] = value;
+        return updated;
+    }
+
+    private static long[] removeAt(long[] array, int index) {
+        long[] updated = new long[array.length - 1];
+        System.arraycopy(array, 0, updated, 0, index);
+        System.arraycopy(array, index + 1, updated, index, array.length - index - 1);
+        return updated;
+    }
+
+    private static MapPoint[] removeAt(MapPoint[] array, int index) {
+        MapPoint[] updated = new MapPoint[array.length - 1];
+        System.arraycopy(array, 0, updated, 0, index);
+        System.arraycopy(array, index + 1, updated, index, array.length - index - 1);
+        return updated;
+    }
+}
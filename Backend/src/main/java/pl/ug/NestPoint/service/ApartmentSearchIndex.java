@@ -0,0 +1,412 @@
+package pl.ug.NestPoint.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.ug.NestPoint.domain.Address;
+import pl.ug.NestPoint.domain.Apartment;
+import pl.ug.NestPoint.domain.User;
+import pl.ug.NestPoint.dto.ApartmentSearchCriteria;
+import pl.ug.NestPoint.repository.ApartmentRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * In-memory index of apartment attributes, so any combination of search filters is answered without
+ * a query per filter.
+ * Apartments get dense slot numbers in id order. Every value of a boolean or enum attribute has a bitmap
+ * of the slots that have it, and price and size are kept as slots sorted by value; a search is then a
+ * binary search per range plus one AND per filter. Facet counts are the cardinality of each value bitmap
+ * ANDed with the matches. Text and date filters are only checked on the slots left after that.
+ * The index is immutable and replaced on change, so readers never lock; a write copies only the bitmaps
+ * and sorted arrays of the apartment it changes. Changes are applied after commit, and the index is
+ * reloaded periodically to pick up writes from other nodes, see {@link SnapshotIndex}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ApartmentSearchIndex {
+
+    // Facet attributes in response order
+    static final List<String> FACETS = List.of("propertyType", "kitchen", "yardAccess", "poolAccess",
+            "wifi", "parkingSpace", "petsAllowed", "furnished", "disabilityFriendly");
+
+    private final ApartmentRepository apartmentRepository;
+    private final ApartmentAvailabilityIndex availabilityIndex;
+
+    private final SnapshotIndex<Snapshot, Change> index =
+            new SnapshotIndex<>("apartment search index", Snapshot.of(List.of()), this::loadSnapshot,
+                    (snapshot, change) -> snapshot.with(change.apartmentId(), change.entry()));
+
+    public SearchResult search(ApartmentSearchCriteria criteria) {
+        Snapshot current = index.get();
+        BitSet matches = current.match(criteria);
+        String ownerName = lowerCaseOrNull(criteria.getOwnerName());
+        String address = lowerCaseOrNull(criteria.getAddress());
+        for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+            Entry entry = current.entry(slot);
+            if (!entry.matchesText(ownerName, address) || !availabilityIndex.isAvailable(entry.id(),
+                    criteria.getAvailableOn(), criteria.getAvailableFrom(), criteria.getAvailableTo())) {
+                matches.clear(slot);
+            }
+        }
+
+        List<Long> apartmentIds = new ArrayList<>(matches.cardinality());
+        for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+            apartmentIds.add(current.entry(slot).id());
+        }
+        return new SearchResult(apartmentIds, current.facetCounts(matches));
+    }
+
+    // Call after saving an apartment
+    public void update(Apartment apartment) {
+        Entry entry = Entry.of(apartment);
+        index.applyAfterCommit(new Change(entry.id(), entry));
+    }
+
+    public void remove(Long apartmentId) {
+        index.applyAfterCommit(new Change(apartmentId, null));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${apartment.search.reload-interval-ms:300000}")
+    public void reload() {
+        index.reload();
+    }
+
+    private Snapshot loadSnapshot() {
+        Map<Long, Entry> byId = new HashMap<>();
+        apartmentRepository.findAllForSearchIndex().forEach(apartment -> byId.put(apartment.getId(), Entry.of(apartment)));
+        log.debug("Indexed {} apartments for search", byId.size());
+        return Snapshot.of(byId.values());
+    }
+
+    private static String lowerCaseOrNull(String text) {
+        return text != null && !text.isBlank() ? text.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * Ids of the matching apartments in id order, and per facet attribute the number of matches with each value.
+     */
+    public record SearchResult(List<Long> apartmentIds, Map<String, Map<String, Integer>> facets) {
+    }
+
+    // A saved apartment's entry, or a null entry for a deleted one
+    private record Change(Long apartmentId, Entry entry) {
+    }
+
+    /**
+     * What the index keeps of one apartment; text is lower-cased and facet values are enum names or true/false.
+     */
+    record Entry(Long id, String ownerName, List<String> addressParts, double price, int size,
+                 Map<String, String> facetValues) {
+
+        static Entry of(Apartment apartment) {
+            User owner = apartment.getOwner();
+            String ownerName = owner != null
+                    ? (owner.getFirstName() + " " + owner.getLastName()).toLowerCase(Locale.ROOT)
+                    : null;
+            List<String> addressParts = new ArrayList<>();
+            Address address = apartment.getAddress();
+            if (address != null) {
+                for (String part : new String[]{address.getStreet(), address.getCity(), address.getPostalCode()}) {
+                    if (part != null) {
+                        addressParts.add(part.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+
+            Map<String, String> facetValues = new HashMap<>();
+            putIfPresent(facetValues, "propertyType", apartment.getPropertyType());
+            putIfPresent(facetValues, "kitchen", apartment.getKitchen());
+            putIfPresent(facetValues, "yardAccess", apartment.getYardAccess());
+            putIfPresent(facetValues, "poolAccess", apartment.getPoolAccess());
+            putIfPresent(facetValues, "wifi", apartment.isWifi());
+            putIfPresent(facetValues, "parkingSpace", apartment.isParkingSpace());
+            putIfPresent(facetValues, "petsAllowed", apartment.isPetsAllowed());
+            putIfPresent(facetValues, "furnished", apartment.isFurnished());
+            putIfPresent(facetValues, "disabilityFriendly", apartment.isDisabilityFriendly());
+            return new Entry(apartment.getId(), ownerName, List.copyOf(addressParts), apartment.getRentalPrice(),
+                    apartment.getSize(), Map.copyOf(facetValues));
+        }
+
+        // Same fields as the ownerName and address queries of ApartmentRepository, but case-insensitive
+        boolean matchesText(String ownerNamePart, String addressPart) {
+            if (ownerNamePart != null && (ownerName == null || !ownerName.contains(ownerNamePart))) {
+                return false;
+            }
+            return addressPart == null || addressParts.stream().anyMatch(part -> part.contains(addressPart));
+        }
+
+        private static void putIfPresent(Map<String, String> facetValues, String facet, Object value) {
+            if (value != null) {
+                facetValues.put(facet, facetValue(value));
+            }
+        }
+    }
+
+    static String facetValue(Object value) {
+        return value instanceof Enum<?> constant ? constant.name() : String.valueOf(value);
+    }
+
+    /**
+     * Entries by slot, a bitmap per facet value, and slots sorted by price and by size.
+     * A deleted apartment leaves an empty slot behind until the next reload, so the other slots keep
+     * their numbers.
+     */
+    record Snapshot(Entry[] entries, long[] ids, BitSet live, Map<String, Map<String, BitSet>> facets,
+                    double[] sortedPrices, int[] slotsByPrice, double[] sortedSizes, int[] slotsBySize) {
+
+        static Snapshot of(Collection<Entry> unordered) {
+            List<Entry> entries = new ArrayList<>(unordered);
+            entries.sort(Comparator.comparing(Entry::id));
+
+            long[] ids = new long[entries.size()];
+            BitSet live = new BitSet(entries.size());
+            live.set(0, entries.size());
+            Map<String, Map<String, BitSet>> facets = new LinkedHashMap<>();
+            FACETS.forEach(facet -> facets.put(facet, new TreeMap<>()));
+            for (int slot = 0; slot < entries.size(); slot++) {
+                ids[slot] = entries.get(slot).id();
+                for (Map.Entry<String, String> value : entries.get(slot).facetValues().entrySet()) {
+                    facets.get(value.getKey()).computeIfAbsent(value.getValue(), key -> new BitSet()).set(slot);
+                }
+            }
+
+            int[] slotsByPrice = slotsSortedBy(entries, Comparator.comparingDouble(Entry::price));
+            int[] slotsBySize = slotsSortedBy(entries, Comparator.comparingInt(Entry::size));
+            double[] sortedPrices = new double[entries.size()];
+            double[] sortedSizes = new double[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                sortedPrices[i] = entries.get(slotsByPrice[i]).price();
+                sortedSizes[i] = entries.get(slotsBySize[i]).size();
+            }
+            return new Snapshot(entries.toArray(new Entry[0]), ids, live, facets, sortedPrices, slotsByPrice,
+                    sortedSizes, slotsBySize);
+        }
+
+        /**
+         * Copy with the apartment's entry replaced, a null entry deletes it. Only the changed slot is patched:
+         * the bitmaps of its old and new facet values are copied and its position in the sorted arrays moves,
+         * everything else is shared with this snapshot. Only an apartment new to the index with an id below
+         * the highest indexed one, which new ids normally are not, takes a full rebuild.
+         */
+        Snapshot with(Long apartmentId, Entry entry) {
+            int found = Arrays.binarySearch(ids, apartmentId);
+            if (found < 0) {
+                if (entry == null) {
+                    return this;
+                }
+                if (-(found + 1) < ids.length) {
+                    List<Entry> rebuilt = new ArrayList<>(live.cardinality() + 1);
+                    live.stream().forEach(liveSlot -> rebuilt.add(entries[liveSlot]));
+                    rebuilt.add(entry);
+                    return of(rebuilt);
+                }
+            }
+            // A new apartment is appended after the highest id
+            int slot = found >= 0 ? found : ids.length;
+            Entry previous = slot < entries.length ? entries[slot] : null;
+            if (previous == null && entry == null) {
+                return this;
+            }
+
+            Entry[] updatedEntries = Arrays.copyOf(entries, Math.max(entries.length, slot + 1));
+            updatedEntries[slot] = entry;
+            long[] updatedIds = Arrays.copyOf(ids, updatedEntries.length);
+            updatedIds[slot] = apartmentId;
+            BitSet updatedLive = (BitSet) live.clone();
+            updatedLive.set(slot, entry != null);
+
+            Map<String, Map<String, BitSet>> updatedFacets = new LinkedHashMap<>();
+            facets.forEach((facet, values) -> {
+                String previousValue = previous != null ? previous.facetValues().get(facet) : null;
+                String value = entry != null ? entry.facetValues().get(facet) : null;
+                if (Objects.equals(previousValue, value)) {
+                    updatedFacets.put(facet, values);
+                    return;
+                }
+                Map<String, BitSet> updatedValues = new TreeMap<>(values);
+                if (previousValue != null) {
+                    BitSet slots = (BitSet) updatedValues.get(previousValue).clone();
+                    slots.clear(slot);
+                    if (slots.isEmpty()) {
+                        updatedValues.remove(previousValue);
+                    } else {
+                        updatedValues.put(previousValue, slots);
+                    }
+                }
+                if (value != null) {
+                    BitSet existing = updatedValues.get(value);
+                    BitSet slots = existing != null ? (BitSet) existing.clone() : new BitSet();
+                    slots.set(slot);
+                    updatedValues.put(value, slots);
+                }
+                updatedFacets.put(facet, updatedValues);
+            });
+
+            SortedSlots prices = new SortedSlots(sortedPrices, slotsByPrice)
+                    .without(slot, previous != null ? previous.price() : null)
+                    .with(slot, entry != null ? entry.price() : null);
+            SortedSlots sizes = new SortedSlots(sortedSizes, slotsBySize)
+                    .without(slot, previous != null ? (double) previous.size() : null)
+                    .with(slot, entry != null ? (double) entry.size() : null);
+            return new Snapshot(updatedEntries, updatedIds, updatedLive, updatedFacets,
+                    prices.values(), prices.slots(), sizes.values(), sizes.slots());
+        }
+
+        Entry entry(int slot) {
+            return entries[slot];
+        }
+
+        BitSet match(ApartmentSearchCriteria criteria) {
+            BitSet matches = (BitSet) live.clone();
+            and(matches, "propertyType", criteria.getPropertyType());
+            and(matches, "kitchen", criteria.getKitchen());
+            and(matches, "yardAccess", criteria.getYardAccess());
+            and(matches, "poolAccess", criteria.getPoolAccess());
+            and(matches, "wifi", criteria.getWifi());
+            and(matches, "parkingSpace", criteria.getParkingSpace());
+            and(matches, "petsAllowed", criteria.getPetsAllowed());
+            and(matches, "furnished", criteria.getFurnished());
+            and(matches, "disabilityFriendly", criteria.getDisabilityFriendly());
+            if (criteria.getMinPrice() != null || criteria.getMaxPrice() != null) {
+                matches.and(range(sortedPrices, slotsByPrice, criteria.getMinPrice(), criteria.getMaxPrice()));
+            }
+            if (criteria.getMinSize() != null || criteria.getMaxSize() != null) {
+                matches.and(range(sortedSizes, slotsBySize,
+                        criteria.getMinSize() != null ? criteria.getMinSize().doubleValue() : null,
+                        criteria.getMaxSize() != null ? criteria.getMaxSize().doubleValue() : null));
+            }
+            return matches;
+        }
+
+        Map<String, Map<String, Integer>> facetCounts(BitSet matches) {
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            facets.forEach((facet, values) -> {
+                Map<String, Integer> valueCounts = new LinkedHashMap<>();
+                values.forEach((value, slots) -> {
+                    BitSet matchingSlots = (BitSet) slots.clone();
+                    matchingSlots.and(matches);
+                    valueCounts.put(value, matchingSlots.cardinality());
+                });
+                counts.put(facet, valueCounts);
+            });
+            return counts;
+        }
+
+        private void and(BitSet matches, String facet, Object value) {
+            if (value == null) {
+                return;
+            }
+            BitSet slots = facets.get(facet).get(facetValue(value));
+            if (slots != null) {
+                matches.and(slots);
+            } else {
+                matches.clear();
+            }
+        }
+
+        // Slots whose value is within [min, max], either end may be open
+        private static BitSet range(double[] sortedValues, int[] slots, Double min, Double max) {
+            BitSet inRange = new BitSet(slots.length);
+            int i = min != null ? firstAtLeast(sortedValues, min) : 0;
+            for (; i < sortedValues.length && (max == null || sortedValues[i] <= max); i++) {
+                inRange.set(slots[i]);
+            }
+            return inRange;
+        }
+
+        private static int firstAtLeast(double[] sortedValues, double min) {
+            int low = 0;
+            int high = sortedValues.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (sortedValues[middle] < min) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private static int firstAbove(double[] sortedValues, double value) {
+            int low = 0;
+            int high = sortedValues.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (sortedValues[middle] <= value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private static int[] slotsSortedBy(List<Entry> entries, Comparator<Entry> order) {
+            List<Integer> slots = new ArrayList<>(entries.size());
+            for (int slot = 0; slot < entries.size(); slot++) {
+                slots.add(slot);
+            }
+            slots.sort((a, b) -> order.compare(entries.get(a), entries.get(b)));
+            return slots.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    // Values in ascending order with the slot each belongs to
+    private record SortedSlots(double[] values, int[] slots) {
+
+        SortedSlots without(int slot, Double value) {
+            if (value == null) {
+                return this;
+            }
+            int position = Snapshot.firstAtLeast(values, value);
+            while (slots[position] != slot) {
+                position++;
+            }
+            double[] updatedValues = new double[values.length - 1];
+            int[] updatedSlots = new int[slots.length - 1];
+            System.arraycopy(values, 0, updatedValues, 0, position);
+            System.arraycopy(values, position + 1, updatedValues, position, values.length - position - 1);
+            System.arraycopy(slots, 0, updatedSlots, 0, position);
+            System.arraycopy(slots, position + 1, updatedSlots, position, slots.length - position - 1);
+            return new SortedSlots(updatedValues, updatedSlots);
+        }
+
+        SortedSlots with(int slot, Double value) {
+            if (value == null) {
+                return this;
+            }
+            int position = Snapshot.firstAbove(values, value);
+            double[] updatedValues = new double[values.length + 1];
+            int[] updatedSlots = new int[slots.length + 1];
+            System.arraycopy(values, 0, updatedValues, 0, position);
+            System.arraycopy(values, position, updatedValues, position + 1, values.length - position);
+            System.arraycopy(slots, 0, updatedSlots, 0, position);
+            System.arraycopy(slots, position, updatedSlots, position + 1, slots.length - position);
+            updatedValues[position] = value;
+            updatedSlots[position] = slot;
+            return new SortedSlots(updatedValues, updatedSlots);
+        }
+    }
+}
@@ -3,6 +3,9 @@ package pl.ug.NestPoint.service;
 import lombok.RequiredArgsConstructor;
 
 import org.hibernate.Hibernate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,17 +16,25 @@ import pl.ug.NestPoint.domain.RentalStatus;
 import pl.ug.NestPoint.domain.enums.AccessibilityType;
 import pl.ug.NestPoint.domain.enums.PropertyType;
 import pl.ug.NestPoint.dto.ApartmentDTO;
+import pl.ug.NestPoint.dto.ApartmentSearchCriteria;
 import pl.ug.NestPoint.dto.DateRangeDTO;
+import pl.ug.NestPoint.dto.MapPointDTO;
+import pl.ug.NestPoint.dto.MapViewportDTO;
+import pl.ug.NestPoint.dto.NearbyApartmentDTO;
 import pl.ug.NestPoint.mapper.ApartmentMapper;
 import pl.ug.NestPoint.repository.ApartmentRepository;
+import pl.ug.NestPoint.repository.RentalRangeSchema;
 import pl.ug.NestPoint.repository.UserRepository;
 import pl.ug.NestPoint.domain.User;
 import pl.ug.NestPoint.domain.enums.Role;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
@@ -33,6 +44,11 @@ public class ApartmentService {
     private final ApartmentMapper apartmentMapper;
     private final UserRepository userRepository;
     private final GeocodingService geocodingService;
+    private final RentalRangeSchema rentalRangeSchema;
+    private final AnalyticsRollups analyticsRollups;
+    private final ApartmentSearchIndex searchIndex;
+    private final ApartmentTextIndex textIndex;
+    private final ApartmentMapIndex mapIndex;
 
 
     // Core CRUD operations
@@ -47,7 +63,11 @@ public class ApartmentService {
             geocodingService.geocodeAddress(apartment.getAddress());
         }
         
-        return apartmentRepository.save(apartment);
+        Apartment saved = apartmentRepository.save(apartment);
+        searchIndex.update(saved);
+        textIndex.update(saved);
+        mapIndex.update(saved.getId());
+        return saved;
     }
 
     public Apartment updateApartment(Long id, Apartment updatedApartment) {
@@ -60,11 +80,58 @@ public class ApartmentService {
             geocodingService.geocodeAddress(existingApartment.getAddress());
         }
         
-        return apartmentRepository.save(existingApartment);
+        Apartment saved = apartmentRepository.save(existingApartment);
+        searchIndex.update(saved);
+        textIndex.update(saved);
+        mapIndex.update(saved.getId());
+        return saved;
     }
 
     public void deleteApartment(Long id) {
         apartmentRepository.deleteById(id);
+        searchIndex.remove(id);
+        textIndex.remove(id);
+        mapIndex.remove(id);
+    }
+
+    public List<MapPointDTO> getMapPoints() {
+        return mapIndex.allPoints();
+    }
+
+    // Version of the map data, for ETags
+    public long getMapFingerprint() {
+        return mapIndex.fingerprint();
+    }
+
+    public MapViewportDTO getMapViewport(double west, double south, double east, double north, int zoom) {
+        return mapIndex.viewport(west, south, east, north, zoom);
+    }
+
+    // Only the price and availability filters of the criteria apply
+    public List<NearbyApartmentDTO> findNearby(double lat, double lon, Integer limit, Double radiusKm,
+                                               ApartmentSearchCriteria filters) {
+        return mapIndex.nearby(lat, lon, limit, radiusKm, filters);
+    }
+
+    // All filters combined, answered by the search index; apartments come back in id order
+    public ApartmentSearchIndex.SearchResult search(ApartmentSearchCriteria criteria) {
+        return searchIndex.search(criteria);
+    }
+
+    // Relevance-ranked full-text search over title, description and address
+    public Page<Apartment> textSearch(String query, int page, int size) {
+        ApartmentTextIndex.TextSearchResult result = textIndex.search(query, page, size);
+        List<Apartment> apartments = findAllInOrder(result.hits().stream()
+                .map(ApartmentTextIndex.Hit::apartmentId)
+                .toList());
+        return new PageImpl<>(apartments, PageRequest.of(page, size), result.total());
+    }
+
+    public List<Apartment> findAllInOrder(List<Long> ids) {
+        Map<Long, Apartment> byId = new HashMap<>();
+        apartmentRepository.findAllById(ids).forEach(apartment -> byId.put(apartment.getId(), apartment));
+        // An apartment deleted since the search is left out
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
     }
 
     public Apartment getApartmentById(Long id) {
@@ -78,10 +145,17 @@ public class ApartmentService {
 
     // Date-based availability methods
     public List<Apartment> findAvailableOnDate(LocalDate date) {
+        if (rentalRangeSchema.isInstalled()) {
+            return apartmentRepository.findAvailableBetweenDatesByRange(date, date);
+        }
         return apartmentRepository.findAvailableOnDate(date);
     }
     
+    // On PostgreSQL the search is a GiST range lookup per apartment instead of two date comparisons
     public List<Apartment> findAvailableBetweenDates(LocalDate startDate, LocalDate endDate) {
+        if (rentalRangeSchema.isInstalled()) {
+            return apartmentRepository.findAvailableBetweenDatesByRange(startDate, endDate);
+        }
         return apartmentRepository.findAvailableBetweenDates(startDate, endDate);
     }
     
@@ -252,11 +326,11 @@ public class ApartmentService {
     }
 
     public List<Object[]> findAverageRentalPriceGroupedByCity() {
-        return apartmentRepository.findAverageRentalPriceGroupedByCity();
+        return analyticsRollups.findAverageRentalPriceGroupedByCity();
     }
 
     public List<Object[]> findAverageRentalPriceGroupedByOwner() {
-        return apartmentRepository.findAverageRentalPriceGroupedByOwner();
+        return analyticsRollups.findAverageRentalPriceGroupedByOwner();
     }
 
     public List<Apartment> findByAmenities(
@@ -265,29 +339,37 @@ public class ApartmentService {
             boolean allowsPets, 
             AccessibilityType kitchenType,
             boolean needsDisabilityAccess) {
-        return apartmentRepository.findByAmenities(
-            needsWifi, 
-            needsDisabilityAccess, 
-            needsParking,
-            kitchenType,
-            allowsPets
-            
-        );
+        return searchAll(ApartmentSearchCriteria.builder()
+            .wifi(requiredOrAny(needsWifi))
+            .parkingSpace(requiredOrAny(needsParking))
+            .petsAllowed(requiredOrAny(allowsPets))
+            .kitchen(kitchenType)
+            .disabilityFriendly(requiredOrAny(needsDisabilityAccess))
+            .build());
     }
 
     public List<Apartment> findByPropertyType(PropertyType propertyType) {
-        return apartmentRepository.findByPropertyType(propertyType);
+        return searchAll(ApartmentSearchCriteria.builder().propertyType(propertyType).build());
     }
 
     public List<Apartment> findByAccessibilityFeatures(
             AccessibilityType poolAccess,
             AccessibilityType yardAccess,
             boolean disabilityFriendly) {
-        return apartmentRepository.findByAccessibilityFeatures(
-            poolAccess,
-            yardAccess,
-            disabilityFriendly
-        );
+        return searchAll(ApartmentSearchCriteria.builder()
+            .poolAccess(poolAccess)
+            .yardAccess(yardAccess)
+            .disabilityFriendly(requiredOrAny(disabilityFriendly))
+            .build());
+    }
+
+    private List<Apartment> searchAll(ApartmentSearchCriteria criteria) {
+        return findAllInOrder(searchIndex.search(criteria).apartmentIds());
+    }
+
+    // An unticked checkbox means "don't care", not "must not have"
+    private static Boolean requiredOrAny(boolean required) {
+        return required ? Boolean.TRUE : null;
     }
 
     public long getApartmentCount() {
@@ -0,0 +1,369 @@
+package pl.ug.NestPoint.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.ug.NestPoint.domain.Address;
+import pl.ug.NestPoint.domain.Apartment;
+import pl.ug.NestPoint.repository.ApartmentRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * In-memory full-text index over apartment titles, descriptions and addresses, so text search needs
+ * neither a LIKE with a leading wildcard nor a table scan, and finds words in any inflected form.
+ * Text is split into terms by {@link PolishTextAnalyzer}. Every term has a posting list of the apartments
+ * containing it with its weighted count, where a word in the title counts three times and one in the
+ * address twice. Results are the apartments containing every query term, ranked by BM25 over those
+ * weighted counts; the last query term also matches as a prefix, so results follow typing.
+ * The index is immutable and replaced on change, so readers never lock; a change copies only the posting
+ * lists of the terms it touches. Changes are applied after commit, and the index is reloaded periodically
+ * to pick up writes from other nodes, see {@link SnapshotIndex}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ApartmentTextIndex {
+
+    static final float TITLE_WEIGHT = 3;
+    static final float ADDRESS_WEIGHT = 2;
+    static final float DESCRIPTION_WEIGHT = 1;
+    // Usual BM25 parameters: how fast repeated terms stop adding, and how much long texts are penalized
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    // Shorter prefixes would match a large part of the vocabulary
+    private static final int MIN_PREFIX_LENGTH = 3;
+    private static final int MAX_PREFIX_TERMS = 64;
+
+    private final ApartmentRepository apartmentRepository;
+
+    private final SnapshotIndex<Snapshot, Change> index =
+            new SnapshotIndex<>("apartment text index", Snapshot.of(List.of()), this::loadSnapshot,
+                    (snapshot, change) -> snapshot.with(change.apartmentId(), change.entry()));
+
+    /**
+     * One page of the apartments matching every term of the query, best match first.
+     */
+    public TextSearchResult search(String query, int page, int size) {
+        Snapshot current = index.get();
+        List<String> terms = PolishTextAnalyzer.terms(query);
+        if (terms.isEmpty()) {
+            return new TextSearchResult(List.of(), 0);
+        }
+        // A query not ending in a space or punctuation is still being typed
+        String typedTerm = Character.isLetterOrDigit(query.charAt(query.length() - 1))
+                ? terms.get(terms.size() - 1)
+                : null;
+        List<int[]> groups = new ArrayList<>();
+        for (String term : new LinkedHashSet<>(terms)) {
+            int[] termIds = term.equals(typedTerm) && term.length() >= MIN_PREFIX_LENGTH
+                    ? current.termsStartingWith(term)
+                    : current.term(term);
+            if (termIds.length == 0) {
+                return new TextSearchResult(List.of(), 0);
+            }
+            groups.add(termIds);
+        }
+
+        List<Hit> hits = current.rank(groups);
+        int from = (int) Math.min((long) page * size, hits.size());
+        int to = (int) Math.min((long) from + size, hits.size());
+        return new TextSearchResult(List.copyOf(hits.subList(from, to)), hits.size());
+    }
+
+    // Call after saving an apartment
+    public void update(Apartment apartment) {
+        Address address = apartment.getAddress();
+        Entry entry = Entry.of(apartment.getId(), apartment.getTitle(), apartment.getDescription(),
+                address != null ? address.getStreet() : null,
+                address != null ? address.getCity() : null,
+                address != null ? address.getPostalCode() : null);
+        index.applyAfterCommit(new Change(entry.id(), entry));
+    }
+
+    public void remove(Long apartmentId) {
+        index.applyAfterCommit(new Change(apartmentId, null));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${apartment.text.reload-interval-ms:300000}")
+    public void reload() {
+        index.reload();
+    }
+
+    private Snapshot loadSnapshot() {
+        Map<Long, Entry> byId = new HashMap<>();
+        for (Object[] row : apartmentRepository.findTextIndexRows()) {
+            Entry entry = Entry.of((Long) row[0], (String) row[1], (String) row[2], (String) row[3],
+                    (String) row[4], (String) row[5]);
+            byId.put(entry.id(), entry);
+        }
+        log.debug("Indexed the text of {} apartments", byId.size());
+        return Snapshot.of(byId.values());
+    }
+
+    /**
+     * The requested page of hits, and how many apartments matched in total.
+     */
+    public record TextSearchResult(List<Hit> hits, int total) {
+    }
+
+    public record Hit(Long apartmentId, double score) {
+    }
+
+    // A saved apartment's entry, or a null entry for a deleted one
+    private record Change(Long apartmentId, Entry entry) {
+    }
+
+    /**
+     * What the index keeps of one apartment: the weighted count of each term, and their sum as its length.
+     */
+    record Entry(Long id, Map<String, Float> termWeights, float length) {
+
+        static Entry of(Long id, String title, String description, String street, String city, String postalCode) {
+            Map<String, Float> termWeights = new HashMap<>();
+            addTerms(termWeights, title, TITLE_WEIGHT);
+            addTerms(termWeights, description, DESCRIPTION_WEIGHT);
+            for (String part : new String[]{street, city, postalCode}) {
+                addTerms(termWeights, part, ADDRESS_WEIGHT);
+            }
+            float length = 0;
+            for (float weight : termWeights.values()) {
+                length += weight;
+            }
+            return new Entry(id, Map.copyOf(termWeights), length);
+        }
+
+        private static void addTerms(Map<String, Float> termWeights, String text, float weight) {
+            for (String term : PolishTextAnalyzer.terms(text)) {
+                termWeights.merge(term, weight, Float::sum);
+            }
+        }
+    }
+
+    /**
+     * Entries by slot, the sorted vocabulary, and per term the slots containing it with the term's weighted
+     * count there; each slot's BM25 length normalization is computed up front. A reload numbers the slots in
+     * id order. After that a new apartment takes the next slot and a deleted one leaves its slot empty, so
+     * a write only replaces the posting lists of its own terms.
+     */
+    record Snapshot(Entry[] entries, Map<Long, Integer> slots, String[] terms, Posting[] postings, float[] norms) {
+
+        static Snapshot of(Collection<Entry> unordered) {
+            Entry[] entries = unordered.toArray(new Entry[0]);
+            Arrays.sort(entries, Comparator.comparing(Entry::id));
+
+            Map<String, Integer> documentCounts = new HashMap<>();
+            Map<Long, Integer> slots = new HashMap<>();
+            for (int slot = 0; slot < entries.length; slot++) {
+                entries[slot].termWeights().keySet().forEach(term -> documentCounts.merge(term, 1, Integer::sum));
+                slots.put(entries[slot].id(), slot);
+            }
+            String[] terms = documentCounts.keySet().toArray(new String[0]);
+            Arrays.sort(terms);
+            Map<String, Integer> termIds = new HashMap<>();
+            int[][] postingSlots = new int[terms.length][];
+            float[][] postingWeights = new float[terms.length][];
+            for (int termId = 0; termId < terms.length; termId++) {
+                termIds.put(terms[termId], termId);
+                postingSlots[termId] = new int[documentCounts.get(terms[termId])];
+                postingWeights[termId] = new float[postingSlots[termId].length];
+            }
+
+            // Slots are visited in order, so every posting list comes out sorted
+            int[] filled = new int[terms.length];
+            for (int slot = 0; slot < entries.length; slot++) {
+                for (Map.Entry<String, Float> termWeight : entries[slot].termWeights().entrySet()) {
+                    int termId = termIds.get(termWeight.getKey());
+                    postingSlots[termId][filled[termId]] = slot;
+                    postingWeights[termId][filled[termId]++] = termWeight.getValue();
+                }
+            }
+            Posting[] postings = new Posting[terms.length];
+            for (int termId = 0; termId < terms.length; termId++) {
+                postings[termId] = new Posting(postingSlots[termId], postingWeights[termId]);
+            }
+            return new Snapshot(entries, slots, terms, postings, norms(entries));
+        }
+
+        // The snapshot with the apartment's entry replaced, added, or removed when the entry is null
+        Snapshot with(Long apartmentId, Entry entry) {
+            Integer existing = slots.get(apartmentId);
+            if (existing == null && entry == null) {
+                return this;
+            }
+            int slot = existing != null ? existing : entries.length;
+            Entry previous = existing != null ? entries[existing] : null;
+            Entry[] newEntries = Arrays.copyOf(entries, Math.max(entries.length, slot + 1));
+            newEntries[slot] = entry;
+            Map<Long, Integer> newSlots = new HashMap<>(slots);
+            if (entry != null) {
+                newSlots.put(apartmentId, slot);
+            } else {
+                newSlots.remove(apartmentId);
+            }
+
+            Set<String> touched = new TreeSet<>();
+            if (previous != null) {
+                touched.addAll(previous.termWeights().keySet());
+            }
+            if (entry != null) {
+                touched.addAll(entry.termWeights().keySet());
+            }
+            // Both vocabularies are sorted, so the touched terms are merged into the untouched ones in one pass
+            List<String> newTerms = new ArrayList<>(terms.length + touched.size());
+            List<Posting> newPostings = new ArrayList<>(terms.length + touched.size());
+            int i = 0;
+            for (String term : touched) {
+                while (i < terms.length && terms[i].compareTo(term) < 0) {
+                    newTerms.add(terms[i]);
+                    newPostings.add(postings[i++]);
+                }
+                Posting posting = i < terms.length && terms[i].equals(term) ? postings[i++] : Posting.EMPTY;
+                Posting changed = posting.with(slot, entry != null ? entry.termWeights().get(term) : null);
+                if (changed.slots().length > 0) {
+                    newTerms.add(term);
+                    newPostings.add(changed);
+                }
+            }
+            for (; i < terms.length; i++) {
+                newTerms.add(terms[i]);
+                newPostings.add(postings[i]);
+            }
+            return new Snapshot(newEntries, newSlots, newTerms.toArray(new String[0]),
+                    newPostings.toArray(new Posting[0]), norms(newEntries));
+        }
+
+        private static float[] norms(Entry[] entries) {
+            double totalLength = 0;
+            int count = 0;
+            for (Entry entry : entries) {
+                if (entry != null) {
+                    totalLength += entry.length();
+                    count++;
+                }
+            }
+            double averageLength = count == 0 ? 1 : Math.max(totalLength / count, 1);
+            float[] norms = new float[entries.length];
+            for (int slot = 0; slot < entries.length; slot++) {
+                if (entries[slot] != null) {
+                    norms[slot] = (float) (K1 * (1 - B + B * entries[slot].length() / averageLength));
+                }
+            }
+            return norms;
+        }
+
+        int[] term(String term) {
+            int termId = Arrays.binarySearch(terms, term);
+            return termId >= 0 ? new int[]{termId} : new int[0];
+        }
+
+        // The sorted vocabulary keeps all terms with a prefix next to each other
+        int[] termsStartingWith(String prefix) {
+            int from = Arrays.binarySearch(terms, prefix);
+            if (from < 0) {
+                from = -from - 1;
+            }
+            int to = from;
+            while (to < terms.length && to - from < MAX_PREFIX_TERMS && terms[to].startsWith(prefix)) {
+                to++;
+            }
+            int[] termIds = new int[to - from];
+            for (int i = 0; i < termIds.length; i++) {
+                termIds[i] = from + i;
+            }
+            return termIds;
+        }
+
+        /**
+         * Apartments containing a term of every group, by BM25 score; within a group the best scoring term
+         * counts, so a prefix does not score higher for matching several words of one apartment.
+         */
+        List<Hit> rank(List<int[]> groups) {
+            int documents = slots.size();
+            float[] scores = new float[entries.length];
+            int[] matchedGroups = new int[entries.length];
+            float[] groupScores = new float[entries.length];
+            for (int group = 0; group < groups.size(); group++) {
+                List<Integer> touched = new ArrayList<>();
+                for (int termId : groups.get(group)) {
+                    Posting posting = postings[termId];
+                    int[] postingSlots = posting.slots();
+                    double idf = Math.log(1 + (documents - postingSlots.length + 0.5) / (postingSlots.length + 0.5));
+                    for (int i = 0; i < postingSlots.length; i++) {
+                        int slot = postingSlots[i];
+                        // Only apartments matching all earlier groups can still be a hit
+                        if (matchedGroups[slot] != group) {
+                            continue;
+                        }
+                        float weight = posting.weights()[i];
+                        float score = (float) (idf * weight * (K1 + 1) / (weight + norms[slot]));
+                        if (groupScores[slot] == 0) {
+                            touched.add(slot);
+                        }
+                        groupScores[slot] = Math.max(groupScores[slot], score);
+                    }
+                }
+                for (int slot : touched) {
+                    scores[slot] += groupScores[slot];
+                    groupScores[slot] = 0;
+                    matchedGroups[slot]++;
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>();
+            for (int slot = 0; slot < entries.length; slot++) {
+                if (entries[slot] != null && matchedGroups[slot] == groups.size()) {
+                    hits.add(new Hit(entries[slot].id(), scores[slot]));
+                }
+            }
+            hits.sort(Comparator.comparingDouble(Hit::score).reversed().thenComparing(Hit::apartmentId));
+            return hits;
+        }
+    }
+
+    /**
+     * Sorted slots of the apartments containing a term, with the term's weighted count in each.
+     */
+    record Posting(int[] slots, float[] weights) {
+
+        static final Posting EMPTY = new Posting(new int[0], new float[0]);
+
+        // A copy with the slot's weight replaced, added, or removed when the weight is null
+        Posting with(int slot, Float weight) {
+            int index = Arrays.binarySearch(slots, slot);
+            boolean present = index >= 0;
+            int position = present ? index : -index - 1;
+            int length = slots.length + (weight != null ? 1 : 0) - (present ? 1 : 0);
+            int[] newSlots = new int[length];
+            float[] newWeights = new float[length];
+            System.arraycopy(slots, 0, newSlots, 0, position);
+            System.arraycopy(weights, 0, newWeights, 0, position);
+            int next = position;
+            if (weight != null) {
+                newSlots[next] = slot;
+                newWeights[next++] = weight;
+            }
+            int rest = slots.length - position - (present ? 1 : 0);
+            System.arraycopy(slots, slots.length - rest, newSlots, next, rest);
+            System.arraycopy(weights, weights.length - rest, newWeights, next, rest);
+            return new Posting(newSlots, newWeights);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package pl.ug.NestPoint.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.ug.NestPoint.domain.Auction;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the live state of running auctions in memory.
+ * Every auction is owned by exactly one shard thread, so all bids for the same auction
+ * are validated and applied one after another without any locking, while bids for
+ * different auctions run in parallel on other shards.
+ */
+@Component
+@Slf4j
+public class AuctionEngine {
+
+    private static final int SHARD_COUNT = Math.max(2, Runtime.getRuntime().availableProcessors());
+    // One bid per bidder and auction every 15 minutes
+    static final RateLimit BID_LIMIT = new RateLimit("bid", 1, Duration.ofMinutes(15));
+
+    private final ExecutorService[] shards = new ExecutorService[SHARD_COUNT];
+    private final Map<Long, LiveAuction> liveAuctions = new ConcurrentHashMap<>();
+    private final RateLimiter rateLimiter;
+
+    public AuctionEngine(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            final int index = i;
+            shards[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "auction-engine-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+    }
+
+    /**
+     * Validates a bid against the live auction state and applies it when accepted, together with
+     * the automatic counter bid it triggers. A positive maxAutoBidAmount above the amount registers
+     * the bidder's proxy. The history loader is only called when this node has no state for the auction
+     * yet, or its state was built from an older version of the auction row, e.g. because another node
+     * has placed a bid since.
+     *
+     * @throws IllegalStateException with a user-facing message when the bid is rejected
+     */
+    public BidOutcome placeBid(Auction auction, Long bidderId, double amount, double maxAutoBidAmount,
+                               LocalDateTime bidTime, Supplier<AuctionHistory> historyLoader) {
+        LiveAuction live = load(auction, historyLoader);
+        return execute(auction.getId(), () -> live.accept(bidderId, amount, maxAutoBidAmount, bidTime));
+    }
+
+    public Optional<AuctionSnapshot> snapshot(Long auctionId) {
+        LiveAuction live = liveAuctions.get(auctionId);
+        return live == null ? Optional.empty() : Optional.of(live.snapshot);
+    }
+
+    // Empty as well when the state is older than the given auction row
+    public Optional<AuctionSnapshot> snapshot(Auction auction) {
+        LiveAuction live = liveAuctions.get(auction.getId());
+        return live == null || live.version != auction.getVersion() ? Optional.empty() : Optional.of(live.snapshot);
+    }
+
+    // Call once this node has written the aggregates of its bids, the state now matches that auction version
+    public void confirm(Auction auction) {
+        LiveAuction live = liveAuctions.get(auction.getId());
+        if (live != null) {
+            live.version = auction.getVersion();
+        }
+    }
+
+    // Drop the in-memory state, the next bid reloads it from the database
+    public void evict(Long auctionId) {
+        liveAuctions.remove(auctionId);
+    }
+
+    // When the surrounding transaction rolls back, the in-memory state is ahead of the database
+    public void evictOnRollback(Long auctionId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    evict(auctionId);
+                }
+            }
+        });
+    }
+
+    // When the surrounding transaction rolls back the bid was never placed, so the bidder gets the permit back
+    public void releaseOnRollback(Long auctionId, Long bidderId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    rateLimiter.release(BID_LIMIT, bidLimitKey(auctionId, bidderId));
+                }
+            }
+        });
+    }
+
+    // Drop the state once the surrounding transaction finishes, so the reload sees its writes
+    public void evictAfterCompletion(Long auctionId) {
+        evict(auctionId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                evict(auctionId);
+            }
+        });
+    }
+
+    private LiveAuction load(Auction auction, Supplier<AuctionHistory> historyLoader) {
+        LiveAuction live = liveAuctions.get(auction.getId());
+        if (live != null && live.version == auction.getVersion()) {
+            return live;
+        }
+        // Seed on the caller thread, which owns the persistence context of the auction entity
+        AuctionHistory history = historyLoader.get();
+        // Restore the bid limits, a no-op for bidders the limiter already knows
+        history.lastBidTimes().forEach((bidderId, lastBidTime) -> rateLimiter.seed(BID_LIMIT,
+                bidLimitKey(auction.getId(), bidderId), lastBidTime.atZone(ZoneId.systemDefault()).toInstant()));
+
+        LiveAuction seeded = new LiveAuction(auction, history, rateLimiter);
+        // Replace stale state, unless a concurrent bid has already done so
+        if (live != null && liveAuctions.replace(auction.getId(), live, seeded)) {
+            return seeded;
+        }
+        LiveAuction existing = liveAuctions.putIfAbsent(auction.getId(), seeded);
+        return existing != null ? existing : seeded;
+    }
+
+    private static String bidLimitKey(Long auctionId, Long bidderId) {
+        return auctionId + ":" + bidderId;
+    }
+
+    private <T> T execute(Long auctionId, Callable<T> task) {
+        ExecutorService shard = shards[(int) Math.floorMod(auctionId, (long) SHARD_COUNT)];
+        Future<T> result = shard.submit(task);
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while processing auction " + auctionId, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Failed to process auction " + auctionId, e.getCause());
+        }
+    }
+
+    public record AuctionSnapshot(
+            Long auctionId,
+            double highestBid,
+            Long winningBidderId,
+            int bidderCount,
+            int maxBidders) {
+
+        public int remainingBidders() {
+            return maxBidders - bidderCount;
+        }
+    }
+
+    // Result of a single bid: the resulting state and the net automatic bid it caused, if any
+    public record BidOutcome(AuctionSnapshot snapshot, ProxyBidBook.CounterBid counterBid) {
+    }
+
+    // Persisted bidding history an auction is seeded from
+    public record AuctionHistory(Map<Long, LocalDateTime> lastBidTimes, List<ProxyBidBook.ProxyBid> proxyBids) {
+
+        public static AuctionHistory empty() {
+            return new AuctionHistory(Map.of(), List.of());
+        }
+    }
+
+    // Mutable state of a single auction, only touched from its owning shard thread
+    private static final class LiveAuction {
+        private final Long auctionId;
+        private final LocalDateTime endTime;
+        private final double minimumBidIncrement;
+        private final int maxBidders;
+        private final RateLimiter rateLimiter;
+        private final Set<Long> bidders;
+        private final ProxyBidBook proxyBids = new ProxyBidBook();
+        private double highestBid;
+        private Long winningBidderId;
+        private volatile AuctionSnapshot snapshot;
+        // Version of the auction row this state corresponds to
+        private volatile long version;
+
+        private LiveAuction(Auction auction, AuctionHistory history, RateLimiter rateLimiter) {
+            this.auctionId = auction.getId();
+            this.endTime = auction.getEndTime();
+            this.minimumBidIncrement = auction.getMinimumBidIncrement();
+            this.maxBidders = auction.getMaxBidders();
+            this.rateLimiter = rateLimiter;
+            this.bidders = new HashSet<>(history.lastBidTimes().keySet());
+            history.proxyBids().forEach(proxyBid ->
+                    proxyBids.register(proxyBid.bidderId(), proxyBid.ceiling(), proxyBid.placedAt()));
+            this.highestBid = auction.getCurrentHighestBid();
+            this.winningBidderId = auction.getWinningBidderId();
+            this.version = auction.getVersion();
+            publish();
+        }
+
+        private BidOutcome accept(Long bidderId, double amount, double maxAutoBidAmount, LocalDateTime bidTime) {
+            if (!bidTime.isBefore(endTime)) {
+                throw new IllegalStateException("Auction is not active");
+            }
+
+            boolean isBidderAlreadyParticipating = bidders.contains(bidderId);
+            if (!isBidderAlreadyParticipating && bidders.size() >= maxBidders) {
+                throw new IllegalStateException("Maximum number of bidders reached");
+            }
+
+            double minimumBid = highestBid + minimumBidIncrement;
+            if (amount < minimumBid) {
+                throw new IllegalStateException("Bid amount must be at least " + minimumBid);
+            }
+
+            // Checked last so that a rejected bid does not use up the bidder's permit
+            if (!rateLimiter.tryAcquire(BID_LIMIT, bidLimitKey(auctionId, bidderId))) {
+                throw new IllegalStateException("You can only place one bid every 15 minutes. Please try again later.");
+            }
+
+            apply(bidderId, amount);
+            if (maxAutoBidAmount > amount) {
+                proxyBids.register(bidderId, maxAutoBidAmount, bidTime);
+            }
+
+            // All standing proxies are settled at once, only the net counter bid is applied
+            ProxyBidBook.CounterBid counterBid = proxyBids.resolve(bidderId, amount, minimumBidIncrement).orElse(null);
+            if (counterBid != null) {
+                // Automatic counter bids do not count against the proxy owner's limit
+                apply(counterBid.bidderId(), counterBid.amount());
+            }
+            return new BidOutcome(snapshot, counterBid);
+        }
+
+        private AuctionSnapshot apply(Long bidderId, double amount) {
+            bidders.add(bidderId);
+            // On a tie the earlier bid keeps winning
+            if (winningBidderId == null || amount > highestBid) {
+                highestBid = amount;
+                winningBidderId = bidderId;
+            }
+            return publish();
+        }
+
+        private AuctionSnapshot publish() {
+            snapshot = new AuctionSnapshot(auctionId, highestBid, winningBidderId, bidders.size(), maxBidders);
+            return snapshot;
+        }
+    }
+}
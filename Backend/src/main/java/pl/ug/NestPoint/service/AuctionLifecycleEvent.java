@@ -0,0 +1,12 @@
+package pl.ug.NestPoint.service;
+
+/**
+ * Published by {@link AuctionLifecycleScheduler} when an auction reaches its start or end time.
+ */
+public record AuctionLifecycleEvent(Long auctionId, Transition transition) {
+
+    public enum Transition {
+        ACTIVATE,
+        COMPLETE
+    }
+}
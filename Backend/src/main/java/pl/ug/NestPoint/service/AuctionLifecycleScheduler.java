@@ -0,0 +1,155 @@
+package pl.ug.NestPoint.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.ug.NestPoint.domain.Auction;
+import pl.ug.NestPoint.domain.enums.AuctionStatus;
+import pl.ug.NestPoint.repository.AuctionRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fires auction activation and completion at the exact start and end time.
+ * Timers wait in a DelayQueue and a single dispatcher thread publishes an
+ * {@link AuctionLifecycleEvent} for each one that comes due, so nothing is polled.
+ * Rescheduling or cancelling an auction bumps its generation, stale timers are skipped when they fire.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AuctionLifecycleScheduler {
+
+    private final AuctionRepository auctionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final DelayQueue<LifecycleTimer> timers = new DelayQueue<>();
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+    private final AtomicLong generationSequence = new AtomicLong();
+    private Thread dispatcher;
+
+    @PostConstruct
+    public void start() {
+        dispatcher = new Thread(this::dispatch, "auction-lifecycle");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+    }
+
+    // Pick up every auction that still has a transition ahead of it
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadScheduledAuctions() {
+        List<Auction> auctions = auctionRepository.findByStatusIn(List.of(AuctionStatus.PENDING, AuctionStatus.ACTIVE));
+        auctions.forEach(this::schedule);
+        log.info("Scheduled lifecycle timers for {} auctions", auctions.size());
+    }
+
+    /**
+     * (Re)schedules the remaining transitions of the auction. Inside a transaction the timers
+     * are only armed after commit, so the handler never runs before the auction is visible.
+     */
+    public void schedule(Auction auction) {
+        Long auctionId = auction.getId();
+        AuctionStatus status = auction.getStatus();
+        LocalDateTime startTime = auction.getStartTime();
+        LocalDateTime endTime = auction.getEndTime();
+        runAfterCommit(() -> arm(auctionId, status, startTime, endTime));
+    }
+
+    public void unschedule(Long auctionId) {
+        generations.remove(auctionId);
+    }
+
+    public int pendingTimers() {
+        return timers.size();
+    }
+
+    private void arm(Long auctionId, AuctionStatus status, LocalDateTime startTime, LocalDateTime endTime) {
+        long generation = generationSequence.incrementAndGet();
+        generations.put(auctionId, generation);
+        if (status == AuctionStatus.PENDING) {
+            timers.add(new LifecycleTimer(auctionId, AuctionLifecycleEvent.Transition.ACTIVATE, startTime, generation));
+        }
+        if (status == AuctionStatus.PENDING || status == AuctionStatus.ACTIVE) {
+            timers.add(new LifecycleTimer(auctionId, AuctionLifecycleEvent.Transition.COMPLETE, endTime, generation));
+        } else {
+            generations.remove(auctionId, generation);
+        }
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            LifecycleTimer timer;
+            try {
+                timer = timers.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!Long.valueOf(timer.generation()).equals(generations.get(timer.auctionId()))) {
+                continue;
+            }
+            if (timer.transition() == AuctionLifecycleEvent.Transition.COMPLETE) {
+                generations.remove(timer.auctionId(), timer.generation());
+            }
+            try {
+                eventPublisher.publishEvent(new AuctionLifecycleEvent(timer.auctionId(), timer.transition()));
+            } catch (RuntimeException e) {
+                log.error("Failed to {} auction {}", timer.transition(), timer.auctionId(), e);
+            }
+        }
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record LifecycleTimer(Long auctionId, AuctionLifecycleEvent.Transition transition,
+                                  LocalDateTime dueAt, long generation) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(LocalDateTime.now(), dueAt).toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof LifecycleTimer timer) {
+                int byDue = dueAt.compareTo(timer.dueAt);
+                // Activation goes first when both transitions are due at once
+                return byDue != 0 ? byDue : transition.compareTo(timer.transition);
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
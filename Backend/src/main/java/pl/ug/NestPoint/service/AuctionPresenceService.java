@@ -0,0 +1,178 @@
+package pl.ug.NestPoint.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks who is watching an auction, shared across nodes through Redis sets.
+ * Every member also has a short-lived heartbeat key that the node holding the user's
+ * WebSocket keeps refreshing; members whose heartbeat expired (closed tab, crashed node)
+ * are swept out of the set.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuctionPresenceService {
+
+    private static final String PARTICIPANTS_KEY_PREFIX = "auction:observers:";
+    private static final String HEARTBEAT_KEY_PREFIX = "auction:presence:";
+    // Auctions that currently have a participants set, so the sweep knows where to look
+    private static final String AUCTIONS_INDEX_KEY = "auction:observers:index";
+
+    private static final long PARTICIPANTS_TTL_SECONDS = 24 * 60 * 60;
+    private static final long HEARTBEAT_TTL_SECONDS = 90;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    // Members connected to this node, refreshed by the heartbeat
+    private final Map<Long, Set<Long>> localMembers = new ConcurrentHashMap<>();
+
+    /**
+     * Adds the user to the auction in a single round trip.
+     *
+     * @return true when the user was not present before
+     */
+    public boolean join(Long auctionId, Long userId) {
+        localMembers.computeIfAbsent(auctionId, id -> ConcurrentHashMap.newKeySet()).add(userId);
+
+        String participantsKey = participantsKey(auctionId);
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            redis.sAdd(participantsKey, userId.toString());
+            redis.expire(participantsKey, PARTICIPANTS_TTL_SECONDS);
+            redis.setEx(heartbeatKey(auctionId, userId), HEARTBEAT_TTL_SECONDS, "1");
+            redis.sAdd(AUCTIONS_INDEX_KEY, auctionId.toString());
+            return null;
+        });
+        return isPositive(results.get(0));
+    }
+
+    /**
+     * Removes the user from the auction in a single round trip.
+     *
+     * @return true when the user was present
+     */
+    public boolean leave(Long auctionId, Long userId) {
+        Set<Long> members = localMembers.get(auctionId);
+        if (members != null) {
+            members.remove(userId);
+        }
+
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            redis.sRem(participantsKey(auctionId), userId.toString());
+            redis.del(heartbeatKey(auctionId, userId));
+            return null;
+        });
+        return isPositive(results.get(0));
+    }
+
+    // SCARD, constant time regardless of the number of observers
+    public int count(Long auctionId) {
+        Long size = stringRedisTemplate.opsForSet().size(participantsKey(auctionId));
+        return size != null ? size.intValue() : 0;
+    }
+
+    public void clear(Long auctionId) {
+        localMembers.remove(auctionId);
+        stringRedisTemplate.delete(participantsKey(auctionId));
+        stringRedisTemplate.opsForSet().remove(AUCTIONS_INDEX_KEY, auctionId.toString());
+    }
+
+    // A closed connection stops the heartbeat, the member then expires on its own
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        Map<String, Object> sessionAttributes = SimpMessageHeaderAccessor.getSessionAttributes(event.getMessage().getHeaders());
+        if (sessionAttributes == null || !(sessionAttributes.get("userId") instanceof Long userId)) {
+            return;
+        }
+        localMembers.values().forEach(members -> members.remove(userId));
+    }
+
+    @Scheduled(fixedRate = 30000) // Run every 30 seconds
+    public void refreshHeartbeats() {
+        localMembers.values().removeIf(Set::isEmpty);
+        if (localMembers.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                localMembers.forEach((auctionId, members) -> members.forEach(userId ->
+                        redis.setEx(heartbeatKey(auctionId, userId), HEARTBEAT_TTL_SECONDS, "1")));
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.warn("Failed to refresh auction presence heartbeats: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedRate = 60000) // Run every minute
+    public void sweepExpiredMembers() {
+        try {
+            Set<String> auctionIds = stringRedisTemplate.opsForSet().members(AUCTIONS_INDEX_KEY);
+            if (auctionIds == null) {
+                return;
+            }
+            for (String auctionId : auctionIds) {
+                sweepAuction(Long.valueOf(auctionId));
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to sweep auction presence: {}", e.getMessage());
+        }
+    }
+
+    private void sweepAuction(Long auctionId) {
+        String participantsKey = participantsKey(auctionId);
+        Set<String> members = stringRedisTemplate.opsForSet().members(participantsKey);
+        if (members == null || members.isEmpty()) {
+            stringRedisTemplate.opsForSet().remove(AUCTIONS_INDEX_KEY, auctionId.toString());
+            return;
+        }
+
+        List<String> orderedMembers = new ArrayList<>(members);
+        List<Object> alive = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            orderedMembers.forEach(member -> redis.exists(HEARTBEAT_KEY_PREFIX + auctionId + ":" + member));
+            return null;
+        });
+
+        List<String> expired = new ArrayList<>();
+        for (int i = 0; i < orderedMembers.size(); i++) {
+            if (!Boolean.TRUE.equals(alive.get(i))) {
+                expired.add(orderedMembers.get(i));
+            }
+        }
+        if (!expired.isEmpty()) {
+            stringRedisTemplate.opsForSet().remove(participantsKey, expired.toArray());
+            log.debug("Removed {} expired observers from auction {}", expired.size(), auctionId);
+        }
+    }
+
+    private static boolean isPositive(Object result) {
+        return result instanceof Long count && count > 0;
+    }
+
+    private static String participantsKey(Long auctionId) {
+        return PARTICIPANTS_KEY_PREFIX + auctionId;
+    }
+
+    private static String heartbeatKey(Long auctionId, Long userId) {
+        return HEARTBEAT_KEY_PREFIX + auctionId + ":" + userId;
+    }
+}
@@ -2,67 +2,64 @@ package pl.ug.NestPoint.service;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.redis.core.RedisTemplate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import pl.ug.NestPoint.domain.*;
 import pl.ug.NestPoint.domain.enums.AuctionStatus;
+import pl.ug.NestPoint.domain.enums.DelayedJobType;
 import pl.ug.NestPoint.domain.enums.Role;
 import pl.ug.NestPoint.dto.AuctionDTO;
 import pl.ug.NestPoint.dto.BidDTO;
 import pl.ug.NestPoint.dto.websocket.AuctionBidMessage;
-import pl.ug.NestPoint.dto.websocket.AuctionStatusMessage;
 import pl.ug.NestPoint.mapper.AuctionMapper;
 import pl.ug.NestPoint.mapper.BidMapper;
 import pl.ug.NestPoint.repository.ApartmentRepository;
 import pl.ug.NestPoint.repository.AuctionRepository;
+import pl.ug.NestPoint.repository.BidBatchRepository;
 import pl.ug.NestPoint.repository.BidRepository;
 import pl.ug.NestPoint.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
-import java.util.Comparator;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.concurrent.TimeUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class AuctionService {
     
     private final AuctionRepository auctionRepository;
     private final BidRepository bidRepository;
+    private final BidBatchRepository bidBatchRepository;
     private final ApartmentRepository apartmentRepository;
     private final UserRepository userRepository;
     private final RentalService rentalService;
     private final AuctionMapper auctionMapper;
     private final BidMapper bidMapper;
+    private final AuctionEngine auctionEngine;
+    private final BookingCoordinator bookingCoordinator;
+    private final BidJournal bidJournal;
+    private final AuctionLifecycleScheduler auctionLifecycleScheduler;
+    private final AuctionStatusBroadcaster auctionStatusBroadcaster;
     private final SimpMessagingTemplate messagingTemplate;
-    private final RedisTemplate<String, Set<Long>> participantsRedisTemplate;
-    
-    // Redis key patterns
-    private static final String AUCTION_PARTICIPANTS_KEY_PREFIX = "auction:participants:";
-    private static final long REDIS_KEY_EXPIRATION_TIME = 24; // hours
-    
-    // Helper methods for Redis operations
-    private String getAuctionParticipantsKey(Long auctionId) {
-        return AUCTION_PARTICIPANTS_KEY_PREFIX + auctionId;
-    }
-    
-    private Set<Long> getAuctionParticipants(Long auctionId) {
-        String key = getAuctionParticipantsKey(auctionId);
-        Set<Long> participants = participantsRedisTemplate.opsForValue().get(key);
-        return participants != null ? participants : new HashSet<>();
-    }
-    
-    private void saveAuctionParticipants(Long auctionId, Set<Long> participants) {
-        String key = getAuctionParticipantsKey(auctionId);
-        participantsRedisTemplate.opsForValue().set(key, participants, REDIS_KEY_EXPIRATION_TIME, TimeUnit.HOURS);
-    }
+    private final AuctionPresenceService auctionPresenceService;
+    private final DelayedJobQueue delayedJobQueue;
+    private final PlatformTransactionManager transactionManager;
     
     // Core CRUD operations
     public List<AuctionDTO> getAllAuctions() {
@@ -104,7 +101,9 @@ public class AuctionService {
             throw new IllegalStateException("Apartment must belong to an owner");
         }
         
-        if (apartment.isOccupiedBetween(auctionDTO.getRentalStartDate(), auctionDTO.getRentalEndDate())) {
+        bookingCoordinator.lock(apartment.getId());
+        if (bookingCoordinator.isOccupiedBetween(
+                apartment.getId(), auctionDTO.getRentalStartDate(), auctionDTO.getRentalEndDate(), null)) {
             throw new IllegalStateException("Apartment is already booked for the specified period");
         }
         
@@ -117,6 +116,7 @@ public class AuctionService {
         }
         
         Auction savedAuction = auctionRepository.save(auction);
+        auctionLifecycleScheduler.schedule(savedAuction);
         return auctionMapper.toDTO(savedAuction);
     }
     
@@ -128,79 +128,322 @@ public class AuctionService {
         User bidder = userRepository.findById(bidDTO.getBidderId())
                 .orElseThrow(() -> new EntityNotFoundException("Bidder not found"));
         
-        // Verify bidder is a tenant
-        if (!bidder.getRoles().contains(Role.TENANT)) {
-            throw new IllegalStateException("Only tenants can place bids");
+        checkCanBid(auction, bidder);
+        
+        // Bidder slots, rate limiting and minimum amount are checked by the auction's owning engine shard,
+        // which also settles the bid against all automatic bids in one step
+        LocalDateTime bidTime = LocalDateTime.now();
+        double maxAutoBidAmount = bidDTO.isAutoBid() ? bidDTO.getMaxAutoBidAmount() : 0;
+        AuctionEngine.BidOutcome outcome = auctionEngine.placeBid(auction, bidder.getId(), bidDTO.getAmount(),
+                maxAutoBidAmount, bidTime, () -> loadAuctionHistory(auction));
+        AuctionEngine.AuctionSnapshot snapshot = outcome.snapshot();
+        auctionEngine.evictOnRollback(auction.getId());
+        auctionEngine.releaseOnRollback(auction.getId(), bidder.getId());
+        
+        Bid bid = newBid(bidDTO, auction, bidder, bidTime);
+        
+        // Save the bid
+        Bid savedBid = bidRepository.save(bid);
+        updateBidAggregates(auction, savedBid, snapshot);
+        bidJournal.recordBid(bid);
+        
+        // Only the net result of the automatic bids is written
+        Bid counterBid = null;
+        if (outcome.counterBid() != null) {
+            User counterBidder = userRepository.findById(outcome.counterBid().bidderId())
+                    .orElseThrow(() -> new EntityNotFoundException("Bidder not found"));
+            counterBid = bidRepository.save(newCounterBid(auction, counterBidder, outcome.counterBid(), bidTime));
+            updateBidAggregates(auction, counterBid, snapshot);
+            bidJournal.recordBid(counterBid);
         }
+        saveBidAggregates(auction);
         
-        // Check if auction is active
-        if (!auction.isActive()) {
-            throw new IllegalStateException("Auction is not active");
+        boolean isWinningBid = bidder.getId().equals(snapshot.winningBidderId());
+        
+        // Send WebSocket notification
+        messagingTemplate.convertAndSend("/topic/auction/" + auction.getId() + "/bids", createBidMessage(bid, isWinningBid));
+        
+        if (counterBid != null) {
+            messagingTemplate.convertAndSend("/topic/auction/" + auction.getId() + "/bids", createBidMessage(counterBid, true));
         }
         
-        // Check if there's room for this bidder
-        boolean isBidderAlreadyParticipating = bidRepository.findByAuctionIdAndBidderId(
-                auction.getId(), bidder.getId()).size() > 0;
-                
-        if (!isBidderAlreadyParticipating && !auction.canAcceptMoreBidders()) {
-            throw new IllegalStateException("Maximum number of bidders reached");
+        // Update auction status for all participants
+        auctionStatusBroadcaster.markChanged(auction.getId());
+        
+        return bidMapper.toDTO(savedBid);
+    }
+    
+    /**
+     * Places queued bids in arrival order. The bids of each auction are written in their own transaction,
+     * the accepted ones together with the automatic counter bids they trigger in one JDBC batch.
+     * A rejected bid is reported in its result and does not affect the rest of the batch, and a write that
+     * fails, e.g. on a conflict with another node, only rejects the bids of that auction.
+     */
+    public List<BidResult> placeBidBatch(List<BidDTO> bidDTOs) {
+        Map<Long, List<Integer>> positionsByAuction = new LinkedHashMap<>();
+        for (int i = 0; i < bidDTOs.size(); i++) {
+            positionsByAuction.computeIfAbsent(bidDTOs.get(i).getAuctionId(), id -> new ArrayList<>()).add(i);
         }
         
-        // RATE LIMITING: Check if the bidder has placed a bid in the last 15 minutes
-        List<Bid> recentBids = bidRepository.findByAuctionIdAndBidderId(auction.getId(), bidder.getId());
-        if (!recentBids.isEmpty()) {
-            // Get most recent bid
-            Bid mostRecentBid = recentBids.stream()
-                    .max(Comparator.comparing(Bid::getBidTime))
-                    .orElse(null);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        BidResult[] results = new BidResult[bidDTOs.size()];
+        positionsByAuction.forEach((auctionId, positions) -> {
+            List<BidDTO> auctionBids = positions.stream().map(bidDTOs::get).toList();
+            AuctionBatch batch;
+            try {
+                batch = transactionTemplate.execute(status -> placeAuctionBids(auctionId, auctionBids));
+            } catch (RuntimeException e) {
+                // The transaction of this auction rolled back, none of its bids were saved
+                log.warn("Failed to write {} bids on auction {}: {}", auctionBids.size(), auctionId, e.getMessage());
+                String message = e instanceof IllegalStateException
+                        ? e.getMessage()
+                        : "Your bid could not be saved. Please try again.";
+                batch = new AuctionBatch(auctionBids.stream().map(bidDTO -> BidResult.rejected(bidDTO, message)).toList(),
+                        List.of());
+            }
             
-            if (mostRecentBid != null) {
-                LocalDateTime fifteenMinutesAgo = LocalDateTime.now().minus(15, ChronoUnit.MINUTES);
-                if (mostRecentBid.getBidTime().isAfter(fifteenMinutesAgo)) {
-                    throw new IllegalStateException("You can only place one bid every 15 minutes. Please try again later.");
+            for (int i = 0; i < positions.size(); i++) {
+                results[positions.get(i)] = batch.results().get(i);
+            }
+            if (!batch.bidMessages().isEmpty()) {
+                batch.bidMessages().forEach(message ->
+                        messagingTemplate.convertAndSend("/topic/auction/" + auctionId + "/bids", message));
+                auctionStatusBroadcaster.markChanged(auctionId);
+            }
+        });
+        return Arrays.asList(results);
+    }
+    
+    // Places the queued bids of one auction, runs in the transaction of that auction
+    private AuctionBatch placeAuctionBids(Long auctionId, List<BidDTO> bidDTOs) {
+        List<BidResult> results = new ArrayList<>(bidDTOs.size());
+        Auction auction = auctionRepository.findById(auctionId).orElse(null);
+        if (auction == null) {
+            bidDTOs.forEach(bidDTO -> results.add(BidResult.rejected(bidDTO, "Auction not found")));
+            return new AuctionBatch(results, List.of());
+        }
+        
+        Map<Long, User> bidders = new HashMap<>();
+        AuctionEngine.AuctionSnapshot snapshot = null;
+        List<Bid> acceptedBids = new ArrayList<>();
+        List<AuctionBidMessage> bidMessages = new ArrayList<>();
+        for (BidDTO bidDTO : bidDTOs) {
+            boolean placed = false;
+            try {
+                User bidder = findBidder(bidders, bidDTO.getBidderId());
+                checkCanBid(auction, bidder);
+                
+                LocalDateTime bidTime = LocalDateTime.now();
+                double maxAutoBidAmount = bidDTO.isAutoBid() ? bidDTO.getMaxAutoBidAmount() : 0;
+                AuctionEngine.BidOutcome outcome = auctionEngine.placeBid(auction, bidder.getId(), bidDTO.getAmount(),
+                        maxAutoBidAmount, bidTime, () -> loadAuctionHistory(auction));
+                if (snapshot == null) {
+                    auctionEngine.evictOnRollback(auctionId);
+                }
+                auctionEngine.releaseOnRollback(auctionId, bidder.getId());
+                placed = true;
+                snapshot = outcome.snapshot();
+                
+                boolean isWinningBid = bidder.getId().equals(snapshot.winningBidderId());
+                Bid bid = newBid(bidDTO, auction, bidder, bidTime);
+                acceptedBids.add(bid);
+                bidMessages.add(createBidMessage(bid, isWinningBid));
+                
+                if (outcome.counterBid() != null) {
+                    User counterBidder = findBidder(bidders, outcome.counterBid().bidderId());
+                    Bid counterBid = newCounterBid(auction, counterBidder, outcome.counterBid(), bidTime);
+                    acceptedBids.add(counterBid);
+                    bidMessages.add(createBidMessage(counterBid, true));
                 }
+                results.add(BidResult.accepted(bidDTO, isWinningBid, bidTime));
+            } catch (IllegalStateException | EntityNotFoundException e) {
+                if (placed) {
+                    // The engine already holds this bid, rolling the auction back evicts it and returns the permits
+                    throw e;
+                }
+                results.add(BidResult.rejected(bidDTO, e.getMessage()));
             }
         }
         
-        // Check minimum bid amount
-        double minimumBid = auction.getCurrentHighestBid() + auction.getMinimumBidIncrement();
-        if (bidDTO.getAmount() < minimumBid) {
-            throw new IllegalStateException("Bid amount must be at least " + minimumBid);
+        if (acceptedBids.isEmpty()) {
+            return new AuctionBatch(results, List.of());
         }
         
-        // Process auto-bid if applicable
-        Bid bid = bidMapper.toEntity(bidDTO);
-        bid.setAuction(auction);
-        bid.setBidder(bidder);
-        bid.setBidTime(LocalDateTime.now());
+        // Bidders are told whether they lead once the whole batch is placed
+        Long winningBidderId = snapshot.winningBidderId();
+        results.replaceAll(result -> result.accepted()
+                ? BidResult.accepted(result.request(), result.request().getBidderId().equals(winningBidderId),
+                        result.bidTime())
+                : result);
+        
+        bidBatchRepository.insertAll(acceptedBids);
+        acceptedBids.forEach(bidJournal::recordBid);
+        
+        // The batch insert does not hand back ids, so the leader is read back
+        Bid winningBid = bidRepository.findFirstByAuctionIdAndDroppedFalseOrderByAmountDescBidTimeAsc(auctionId)
+                .orElse(null);
+        auction.updateBidAggregates(winningBid, snapshot.bidderCount());
+        saveBidAggregates(auction);
+        return new AuctionBatch(results, bidMessages);
+    }
+    
+    // Outcome of the queued bids of one auction, the messages are sent once its transaction has committed
+    private record AuctionBatch(List<BidResult> results, List<AuctionBidMessage> bidMessages) {
+    }
+    
+    // Result of a single queued bid, in the order the bids were submitted
+    public record BidResult(BidDTO request, boolean accepted, boolean winningBid, LocalDateTime bidTime, String message) {
         
-        // Save the bid
-        Bid savedBid = bidRepository.save(bid);
+        public static BidResult accepted(BidDTO request, boolean winningBid, LocalDateTime bidTime) {
+            return new BidResult(request, true, winningBid, bidTime, null);
+        }
         
-        // Process auto-bids from other bidders
-        processAutoBids(auction.getId(), savedBid);
+        public static BidResult rejected(BidDTO request, String message) {
+            return new BidResult(request, false, false, null, message);
+        }
+    }
+    
+    private void checkCanBid(Auction auction, User bidder) {
+        // Verify bidder is a tenant
+        if (!bidder.getRoles().contains(Role.TENANT)) {
+            throw new IllegalStateException("Only tenants can place bids");
+        }
         
-        // Send WebSocket notification
-        AuctionBidMessage bidMessage = AuctionBidMessage.builder()
-                .auctionId(auction.getId())
-                .bidderId(bidder.getId())
-                .bidderUsername(bidder.getUsername())
+        // Check if auction is active
+        if (!auction.isActive()) {
+            throw new IllegalStateException("Auction is not active");
+        }
+    }
+    
+    private User findBidder(Map<Long, User> bidders, Long bidderId) {
+        return bidders.computeIfAbsent(bidderId, id -> userRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Bidder not found")));
+    }
+    
+    private Bid newBid(BidDTO bidDTO, Auction auction, User bidder, LocalDateTime bidTime) {
+        Bid bid = bidMapper.toEntity(bidDTO);
+        bid.setAuction(auction);
+        bid.setBidder(bidder);
+        bid.setBidTime(bidTime);
+        return bid;
+    }
+    
+    private AuctionBidMessage createBidMessage(Bid bid, boolean isWinningBid) {
+        return AuctionBidMessage.builder()
+                .auctionId(bid.getAuction().getId())
+                .bidderId(bid.getBidder().getId())
+                .bidderUsername(bid.getBidder().getUsername())
                 .bidAmount(bid.getAmount())
                 .bidTime(bid.getBidTime())
-                .isWinningBid(isWinningBid(auction, bid))
+                .isWinningBid(isWinningBid)
                 .build();
+    }
+    
+    // Latest bid time and automatic bid ceiling of every bidder still in the auction, used to seed the engine.
+    // Recovered from the bid journal when it is up to date, otherwise read from the bids table
+    private AuctionEngine.AuctionHistory loadAuctionHistory(Auction auction) {
+        return bidJournal.history(auction).orElseGet(() -> loadAuctionHistoryFromDatabase(auction.getId()));
+    }
+    
+    private AuctionEngine.AuctionHistory loadAuctionHistoryFromDatabase(Long auctionId) {
+        Map<Long, LocalDateTime> activity = new HashMap<>();
+        for (Object[] row : bidRepository.findLatestBidTimePerBidder(auctionId)) {
+            activity.put((Long) row[0], (LocalDateTime) row[1]);
+        }
+        List<ProxyBidBook.ProxyBid> proxyBids = new ArrayList<>();
+        for (Object[] row : bidRepository.findAutoBidCeilingPerBidder(auctionId)) {
+            proxyBids.add(new ProxyBidBook.ProxyBid((Long) row[0], (Double) row[1], (LocalDateTime) row[2]));
+        }
+        return new AuctionEngine.AuctionHistory(activity, proxyBids);
+    }
+    
+    private Bid newCounterBid(Auction auction, User bidder, ProxyBidBook.CounterBid counterBid, LocalDateTime bidTime) {
+        Bid automaticBid = new Bid();
+        automaticBid.setAuction(auction);
+        automaticBid.setBidder(bidder);
+        automaticBid.setAmount(counterBid.amount());
+        automaticBid.setBidTime(bidTime);
+        automaticBid.setAutoBid(true);
+        automaticBid.setMaxAutoBidAmount(counterBid.maxAutoBidAmount());
+        return automaticBid;
+    }
+    
+    // Moves the persisted aggregates forward when the saved bid took the lead
+    private void updateBidAggregates(Auction auction, Bid savedBid, AuctionEngine.AuctionSnapshot snapshot) {
+        boolean isLeading = savedBid.getBidder().getId().equals(snapshot.winningBidderId())
+                && savedBid.getAmount() == snapshot.highestBid();
+        if (isLeading) {
+            auction.updateBidAggregates(savedBid, snapshot.bidderCount());
+        } else {
+            auction.setDistinctBidderCount(snapshot.bidderCount());
+        }
+    }
+    
+    // Recomputes the aggregates from the bids table, used when bids are dropped
+    private void refreshBidAggregates(Auction auction) {
+        Bid winningBid = bidRepository.findFirstByAuctionIdAndDroppedFalseOrderByAmountDescBidTimeAsc(auction.getId())
+                .orElse(null);
+        auction.updateBidAggregates(winningBid, bidRepository.countDistinctBiddersByAuctionId(auction.getId()));
+    }
+    
+    // Flushing bumps the auction version, so a concurrent update of the same auction
+    // fails here instead of silently overwriting the other bid
+    private void saveBidAggregates(Auction auction) {
+        try {
+            auctionRepository.saveAndFlush(auction);
+            auctionEngine.confirm(auction);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            auctionEngine.evict(auction.getId());
+            throw new IllegalStateException("The auction was updated by another bid. Please try again.");
+        }
+    }
+    
+    private Bid findWinningBid(Auction auction) {
+        if (auction.getWinningBidId() == null) {
+            return null;
+        }
+        return bidRepository.findById(auction.getWinningBidId()).orElse(null);
+    }
+    
+    @Transactional
+    public void dropBidder(Long auctionId, Long bidderId, User requester) {
+        Auction auction = auctionRepository.findById(auctionId)
+                .orElseThrow(() -> new EntityNotFoundException("Auction not found"));
         
-        messagingTemplate.convertAndSend("/topic/auction/" + auction.getId() + "/bids", bidMessage);
+        // Only the owner of the auctioned apartment or an admin may change who takes part
+        User owner = auction.getApartment() != null ? auction.getApartment().getOwner() : null;
+        boolean isOwner = owner != null && owner.getId().equals(requester.getId());
+        if (!isOwner && !requester.getRoles().contains(Role.ADMIN)) {
+            throw new AccessDeniedException("Only the auction's owner can drop bidders");
+        }
         
-        // Update auction status for all participants
-        sendAuctionStatusUpdate(auction);
+        if (!auction.isActive()) {
+            throw new IllegalStateException("Auction is not active");
+        }
         
-        return bidMapper.toDTO(savedBid);
+        if (bidRepository.markDroppedByAuctionIdAndBidderId(auctionId, bidderId) == 0) {
+            throw new EntityNotFoundException("No bids found for bidder " + bidderId + " in auction " + auctionId);
+        }
+        
+        refreshBidAggregates(auction);
+        saveBidAggregates(auction);
+        bidJournal.recordDrop(auctionId, bidderId);
+        
+        // The freed slot and the new leader are picked up when the engine reloads the auction
+        auctionEngine.evictAfterCompletion(auctionId);
+        
+        auctionStatusBroadcaster.markChanged(auction.getId());
     }
     
-    private boolean isWinningBid(Auction auction, Bid bid) {
-        Bid winningBid = auction.getWinningBid();
-        return winningBid != null && winningBid.getId().equals(bid.getId());
+    // Auctions created before the aggregate columns existed get them computed once on startup
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillBidAggregates() {
+        List<Auction> auctions = auctionRepository.findAuctionsMissingBidAggregates();
+        auctions.forEach(auction -> {
+            refreshBidAggregates(auction);
+            auctionRepository.save(auction);
+        });
     }
     
     @Transactional
@@ -214,36 +457,63 @@ public class AuctionService {
         
         auction.setStatus(AuctionStatus.CANCELLED);
         auctionRepository.save(auction);
+        auctionEngine.evict(auction.getId());
+        auctionLifecycleScheduler.unschedule(auction.getId());
+        bidJournal.recordClose(auction.getId());
         
         // Notify participants about cancellation
-        sendAuctionStatusUpdate(auction);
+        auctionStatusBroadcaster.markChanged(auction.getId());
     }
     
-    @Scheduled(fixedRate = 30000) // Run every 30 seconds
+    // Activation and completion at the exact start and end time, fired by AuctionLifecycleScheduler
+    @EventListener
     @Transactional
-    public void processAuctionStatuses() {
-        LocalDateTime now = LocalDateTime.now();
-        
-        // Activate pending auctions whose start time has passed
-        List<Auction> pendingAuctions = auctionRepository.findPendingAuctionsToBeActivated(now);
-        pendingAuctions.forEach(auction -> {
-            auction.setStatus(AuctionStatus.ACTIVE);
-            auctionRepository.save(auction);
-            sendAuctionStatusUpdate(auction);
-        });
-        
-        // Complete active auctions whose end time has passed
-        List<Auction> expiredAuctions = auctionRepository.findExpiredActiveAuctions(now);
-        expiredAuctions.forEach(this::completeAuction);
+    public void onAuctionLifecycleEvent(AuctionLifecycleEvent event) {
+        Auction auction = auctionRepository.findById(event.auctionId()).orElse(null);
+        if (auction == null) {
+            return;
+        }
         
-        // Update status for all active auctions
-        List<Auction> activeAuctions = auctionRepository.findByStatus(AuctionStatus.ACTIVE);
-        activeAuctions.forEach(this::sendAuctionStatusUpdate);
+        LocalDateTime now = LocalDateTime.now();
+        switch (event.transition()) {
+            case ACTIVATE:
+                // Another node may have handled it already
+                if (auction.getStatus() != AuctionStatus.PENDING) {
+                    return;
+                }
+                if (auction.getStartTime().isAfter(now)) {
+                    auctionLifecycleScheduler.schedule(auction);
+                    return;
+                }
+                auction.setStatus(AuctionStatus.ACTIVE);
+                auctionRepository.save(auction);
+                auctionStatusBroadcaster.markChanged(auction.getId());
+                break;
+            case COMPLETE:
+                if (auction.getStatus() != AuctionStatus.ACTIVE) {
+                    return;
+                }
+                if (auction.getEndTime().isAfter(now)) {
+                    auctionLifecycleScheduler.schedule(auction);
+                    return;
+                }
+                completeAuction(auction);
+                break;
+        }
+    }
+    
+    // Safety net for transitions this node never scheduled, e.g. auctions created on another node
+    @Scheduled(fixedRate = 300000) // Run every 5 minutes
+    @Transactional(readOnly = true)
+    public void reconcileAuctionLifecycles() {
+        LocalDateTime now = LocalDateTime.now();
+        auctionRepository.findPendingAuctionsToBeActivated(now).forEach(auctionLifecycleScheduler::schedule);
+        auctionRepository.findExpiredActiveAuctions(now).forEach(auctionLifecycleScheduler::schedule);
     }
     
     @Transactional
     public void completeAuction(Auction auction) {
-        Bid winningBid = auction.getWinningBid();
+        Bid winningBid = findWinningBid(auction);
         
         if (winningBid != null) {
             // Create a rental for the winning bidder
@@ -266,13 +536,18 @@ public class AuctionService {
             // Set the resulting rental
             Rental savedRental = rentalService.createRentalFromAuction(rental);
             auction.setResultingRental(savedRental);
+            // Fine the winner right at the deadline unless the payment is confirmed by then
+            delayedJobQueue.enqueue(DelayedJobType.ISSUE_AUCTION_FINE, savedRental.getId(),
+                    rental.getAuctionPaymentDeadline());
         }
         
         auction.setStatus(AuctionStatus.COMPLETED);
         Auction savedAuction = auctionRepository.save(auction);
+        auctionEngine.evict(auction.getId());
+        bidJournal.recordClose(auction.getId());
         
         // Send status update (existing functionality)
-        sendAuctionStatusUpdate(savedAuction);
+        auctionStatusBroadcaster.markChanged(savedAuction.getId());
     }
     
     // Add user to auction participants in Redis and notify others
@@ -282,14 +557,8 @@ public class AuctionService {
         Auction auction = auctionRepository.findById(auctionId)
                 .orElseThrow(() -> new EntityNotFoundException("Auction not found"));
         
-        // Get current participants from Redis
-        Set<Long> participants = getAuctionParticipants(auctionId);
-        
-        // Add user to participants
-        participants.add(userId);
-        
-        // Save updated participants set to Redis
-        saveAuctionParticipants(auctionId, participants);
+        // Add user to the participants set in Redis
+        auctionPresenceService.join(auctionId, userId);
         
         // Send current auction state to the new participant
         User user = userRepository.findById(userId)
@@ -301,26 +570,13 @@ public class AuctionService {
                 user.getUsername() + " joined the auction"
         );
         
-        // Send current auction status to the new participant
-        sendAuctionStatusUpdate(auction);
+        // Make sure the new participant gets the current auction status
+        auctionStatusBroadcaster.republish(auction.getId());
     }
     
     public void removeUserFromAuction(Long auctionId, Long userId) {
-        // Get current participants from Redis
-        Set<Long> participants = getAuctionParticipants(auctionId);
-        
-        if (!participants.isEmpty()) {
-            // Remove user from participants
-            participants.remove(userId);
-            
-            // If participants set is empty, delete the key
-            if (participants.isEmpty()) {
-                participantsRedisTemplate.delete(getAuctionParticipantsKey(auctionId));
-            } else {
-                // Otherwise save the updated set
-                saveAuctionParticipants(auctionId, participants);
-            }
-            
+        // Remove user from the participants set in Redis, only notify when they were there
+        if (auctionPresenceService.leave(auctionId, userId)) {
             // Notify other participants
             User user = userRepository.findById(userId)
                     .orElseThrow(() -> new EntityNotFoundException("User not found"));
@@ -329,154 +585,25 @@ public class AuctionService {
                     "/topic/auction/" + auctionId + "/participants", 
                     user.getUsername() + " left the auction"
             );
+            auctionStatusBroadcaster.markChanged(auctionId);
         }
     }
     
     // Get count of active auction observers (WebSocket connections)
     public int getActiveAuctionObserverCount(Long auctionId) {
-        Set<Long> participants = getAuctionParticipants(auctionId);
-        return participants.size();
+        return auctionPresenceService.count(auctionId);
     }
     
     // Scheduled task to clean up stale auction participant data
     @Scheduled(fixedRate = 3600000) // Run every hour
     public void cleanupStaleAuctionParticipants() {
-        // This is less important with Redis's TTL functionality,
-        // but we can still implement additional cleanup logic if needed
+        // Expired observers are swept by AuctionPresenceService, this only drops finished auctions
         List<Auction> completedAuctions = auctionRepository.findByStatus(AuctionStatus.COMPLETED);
         completedAuctions.forEach(auction -> {
             // Delete participant entries for completed auctions older than 24 hours
             if (auction.getEndTime().isBefore(LocalDateTime.now().minus(24, ChronoUnit.HOURS))) {
-                participantsRedisTemplate.delete(getAuctionParticipantsKey(auction.getId()));
+                auctionPresenceService.clear(auction.getId());
             }
         });
     }
-    
-    private void sendAuctionStatusUpdate(Auction auction) {
-        AuctionStatusMessage statusMessage = createStatusMessage(auction);
-        messagingTemplate.convertAndSend("/topic/auction/" + auction.getId() + "/status", statusMessage);
-    }
-    
-    private AuctionStatusMessage createStatusMessage(Auction auction) {
-        AuctionStatusMessage message = new AuctionStatusMessage();
-        message.setAuctionId(auction.getId());
-        message.setStatus(auction.getStatus());
-        message.setTimestamp(LocalDateTime.now());
-        
-        // Calculate time remaining
-        if (auction.getStatus() == AuctionStatus.ACTIVE) {
-            long secondsRemaining = LocalDateTime.now().until(auction.getEndTime(), ChronoUnit.SECONDS);
-            message.setTimeRemainingSeconds(Math.max(0, secondsRemaining));
-        }
-        
-        // Set bidder count
-        message.setRemainingBidders(auction.getMaxBidders() - auction.getCurrentBidderCount());
-        
-        // Set observer count (WebSocket connections)
-        message.setActiveObservers(getActiveAuctionObserverCount(auction.getId()));
-        
-        // Set winning bid info if available
-        Bid winningBid = auction.getWinningBid();
-        if (winningBid != null) {
-            message.setWinningBidAmount(winningBid.getAmount());
-            message.setWinningBidderId(winningBid.getBidder().getId());
-        } else {
-            message.setWinningBidAmount(auction.getStartingPrice());
-        }
-        
-        // Add a status message
-        message.setMessage(createStatusMessageText(auction));
-        
-        return message;
-    }
-    
-    private String createStatusMessageText(Auction auction) {
-        switch (auction.getStatus()) {
-            case PENDING:
-                return "Auction will start at " + auction.getStartTime();
-            case ACTIVE:
-                LocalDateTime now = LocalDateTime.now();
-                long hoursRemaining = now.until(auction.getEndTime(), ChronoUnit.HOURS);
-                long minutesRemaining = now.until(auction.getEndTime(), ChronoUnit.MINUTES) % 60;
-                
-                if (hoursRemaining > 0) {
-                    return "Auction in progress: " + hoursRemaining + "h " + minutesRemaining + "m remaining";
-                } else {
-                    return "Auction in progress: " + minutesRemaining + "m remaining";
-                }
-            case COMPLETED:
-                Bid winningBid = auction.getWinningBid();
-                if (winningBid != null) {
-                    return "Auction has ended. Winner: " + winningBid.getBidder().getUsername() + 
-                           " with bid of $" + winningBid.getAmount();
-                } else {
-                    return "Auction has ended with no bids";
-                }
-            case CANCELLED:
-                return "This auction has been cancelled";
-            default:
-                return "Unknown auction status";
-        }
-    }
-    
-    @Transactional
-    protected void processAutoBids(Long auctionId, Bid newBid) {
-        Auction auction = auctionRepository.findById(auctionId)
-                .orElseThrow(() -> new EntityNotFoundException("Auction not found"));
-        
-        // Get all auto-bids for this auction except from the current bidder
-        List<Bid> autoBids = bidRepository.findByAuctionId(auctionId).stream()
-                .filter(b -> b.isAutoBid() && !b.getBidder().getId().equals(newBid.getBidder().getId()))
-                .collect(Collectors.toList());
-        
-        if (autoBids.isEmpty()) {
-            return;
-        }
-        
-        double currentHighestBid = auction.getCurrentHighestBid();
-        double minimumIncrement = auction.getMinimumBidIncrement();
-        
-        for (Bid autoBid : autoBids) {
-            // Skip if this auto-bid's max is less than what would be needed to outbid
-            if (autoBid.getMaxAutoBidAmount() < currentHighestBid + minimumIncrement) {
-                continue;
-            }
-            
-            // Place a new bid at the minimum required amount
-            double newAmount = currentHighestBid + minimumIncrement;
-            
-            // Don't exceed their maximum
-            if (newAmount > autoBid.getMaxAutoBidAmount()) {
-                newAmount = autoBid.getMaxAutoBidAmount();
-            }
-            
-            Bid automaticBid = new Bid();
-            automaticBid.setAuction(auction);
-            automaticBid.setBidder(autoBid.getBidder());
-            automaticBid.setAmount(newAmount);
-            automaticBid.setBidTime(LocalDateTime.now());
-            automaticBid.setAutoBid(true);
-            automaticBid.setMaxAutoBidAmount(autoBid.getMaxAutoBidAmount());
-            
-            Bid savedAutoBid = bidRepository.save(automaticBid);
-            
-            // Notify participants about auto-bid
-            AuctionBidMessage bidMessage = AuctionBidMessage.builder()
-                    .auctionId(auction.getId())
-                    .bidderId(autoBid.getBidder().getId())
-                    .bidderUsername(autoBid.getBidder().getUsername())
-                    .bidAmount(newAmount)
-                    .bidTime(automaticBid.getBidTime())
-                    .isWinningBid(true)
-                    .build();
-            
-            messagingTemplate.convertAndSend("/topic/auction/" + auction.getId() + "/bids", bidMessage);
-            
-            // Update current highest for the next iteration
-            currentHighestBid = newAmount;
-        }
-        
-        // Send updated auction status
-        sendAuctionStatusUpdate(auction);
-    }
 }
\ No newline at end of file
@@ -0,0 +1,178 @@
+package pl.ug.NestPoint.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.ug.NestPoint.domain.Auction;
+import pl.ug.NestPoint.domain.Bid;
+import pl.ug.NestPoint.domain.enums.AuctionStatus;
+import pl.ug.NestPoint.dto.websocket.AuctionStatusMessage;
+import pl.ug.NestPoint.repository.AuctionRepository;
+import pl.ug.NestPoint.repository.BidRepository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publishes auction status frames only when something changed.
+ * Changes are collected per auction and flushed once per coalescing interval, so a burst of bids
+ * ends up as a single frame; frames identical to the last one sent are dropped. Clients count down
+ * from the end instant in the frame, there are no periodic pushes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AuctionStatusBroadcaster {
+
+    private final AuctionRepository auctionRepository;
+    private final BidRepository bidRepository;
+    private final AuctionEngine auctionEngine;
+    private final AuctionPresenceService auctionPresenceService;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+    // Auctions that must get a frame even if it looks the same, e.g. for a participant who just joined
+    private final Set<Long> forced = ConcurrentHashMap.newKeySet();
+    private final Map<Long, StatusFingerprint> lastPublished = new ConcurrentHashMap<>();
+
+    // Inside a transaction the change is only recorded after commit, so the flush reads committed state
+    public void markChanged(Long auctionId) {
+        afterCommit(() -> changed.add(auctionId));
+    }
+
+    public void republish(Long auctionId) {
+        afterCommit(() -> {
+            forced.add(auctionId);
+            changed.add(auctionId);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${auction.status.coalesce-interval-ms:500}")
+    @Transactional(readOnly = true)
+    public void flush() {
+        if (changed.isEmpty()) {
+            return;
+        }
+        List<Long> auctionIds = new ArrayList<>(changed);
+        changed.removeAll(auctionIds);
+
+        for (Long auctionId : auctionIds) {
+            boolean force = forced.remove(auctionId);
+            try {
+                auctionRepository.findById(auctionId).ifPresent(auction -> publish(auction, force));
+            } catch (RuntimeException e) {
+                log.warn("Failed to publish status of auction {}: {}", auctionId, e.getMessage());
+            }
+        }
+    }
+
+    private void publish(Auction auction, boolean force) {
+        AuctionStatusMessage message = createStatusMessage(auction);
+        StatusFingerprint fingerprint = StatusFingerprint.of(message);
+        StatusFingerprint previous = lastPublished.put(auction.getId(), fingerprint);
+        if (!force && fingerprint.equals(previous)) {
+            return;
+        }
+
+        messagingTemplate.convertAndSend("/topic/auction/" + auction.getId() + "/status", message);
+
+        // Finished auctions do not change anymore
+        if (auction.getStatus() == AuctionStatus.COMPLETED || auction.getStatus() == AuctionStatus.CANCELLED) {
+            lastPublished.remove(auction.getId());
+        }
+    }
+
+    AuctionStatusMessage createStatusMessage(Auction auction) {
+        AuctionStatusMessage message = new AuctionStatusMessage();
+        message.setAuctionId(auction.getId());
+        message.setStatus(auction.getStatus());
+        message.setTimestamp(LocalDateTime.now());
+        message.setEndsAt(auction.getEndTime().atZone(ZoneId.systemDefault()).toInstant());
+
+        // Time remaining at the moment of sending, clients keep counting down from endsAt
+        if (auction.getStatus() == AuctionStatus.ACTIVE) {
+            long secondsRemaining = LocalDateTime.now().until(auction.getEndTime(), ChronoUnit.SECONDS);
+            message.setTimeRemainingSeconds(Math.max(0, secondsRemaining));
+        }
+
+        // Set observer count (WebSocket connections)
+        message.setActiveObservers(auctionPresenceService.count(auction.getId()));
+
+        // Running auctions are answered from the engine without walking the bids
+        AuctionEngine.AuctionSnapshot snapshot = auctionEngine.snapshot(auction).orElse(null);
+        if (snapshot != null) {
+            message.setRemainingBidders(snapshot.remainingBidders());
+            message.setWinningBidAmount(snapshot.highestBid());
+            message.setWinningBidderId(snapshot.winningBidderId());
+        } else {
+            // Otherwise read the persisted aggregates, the highest bid falls back to the starting price
+            message.setRemainingBidders(auction.getMaxBidders() - auction.getDistinctBidderCount());
+            message.setWinningBidAmount(auction.getCurrentHighestBid());
+            message.setWinningBidderId(auction.getWinningBidderId());
+        }
+
+        // Add a status message
+        message.setMessage(createStatusMessageText(auction));
+
+        return message;
+    }
+
+    private String createStatusMessageText(Auction auction) {
+        switch (auction.getStatus()) {
+            case PENDING:
+                return "Auction will start at " + auction.getStartTime();
+            case ACTIVE:
+                return "Auction in progress until " + auction.getEndTime();
+            case COMPLETED:
+                Bid winningBid = auction.getWinningBidId() != null
+                        ? bidRepository.findById(auction.getWinningBidId()).orElse(null)
+                        : null;
+                if (winningBid != null) {
+                    return "Auction has ended. Winner: " + winningBid.getBidder().getUsername() +
+                           " with bid of $" + winningBid.getAmount();
+                } else {
+                    return "Auction has ended with no bids";
+                }
+            case CANCELLED:
+                return "This auction has been cancelled";
+            default:
+                return "Unknown auction status";
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Everything a client renders, without the send time
+    private record StatusFingerprint(AuctionStatus status, Long winningBidderId, double winningBidAmount,
+                                     int remainingBidders, int activeObservers, Instant endsAt) {
+
+        static StatusFingerprint of(AuctionStatusMessage message) {
+            return new StatusFingerprint(message.getStatus(), message.getWinningBidderId(),
+                    message.getWinningBidAmount(), message.getRemainingBidders(), message.getActiveObservers(),
+                    message.getEndsAt());
+        }
+    }
+}
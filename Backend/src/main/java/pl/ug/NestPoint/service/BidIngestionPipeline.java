@@ -0,0 +1,147 @@
+package pl.ug.NestPoint.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import pl.ug.NestPoint.dto.BidDTO;
+import pl.ug.NestPoint.dto.websocket.BidAckMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes WebSocket bids off the inbound channel thread.
+ * Bids are queued per auction lane and handled by one worker per lane, so bids for the same auction
+ * keep their arrival order. Each worker writes whatever queued up while the previous batch was being
+ * committed as one transaction (group commit), then answers every bidder on /user/queue/bids.
+ */
+@Component
+@Slf4j
+public class BidIngestionPipeline {
+
+    private static final int LANE_COUNT = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final int LANE_CAPACITY = 10000;
+    private static final int MAX_BATCH_SIZE = 200;
+
+    private final AuctionService auctionService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final Timer acceptedLatency;
+    private final Timer rejectedLatency;
+    private final List<BlockingQueue<PendingBid>> lanes = new ArrayList<>(LANE_COUNT);
+    private final List<Thread> workers = new ArrayList<>(LANE_COUNT);
+
+    public BidIngestionPipeline(AuctionService auctionService, SimpMessagingTemplate messagingTemplate,
+                                MeterRegistry meterRegistry) {
+        this.auctionService = auctionService;
+        this.messagingTemplate = messagingTemplate;
+        this.acceptedLatency = latencyTimer(meterRegistry, "accepted");
+        this.rejectedLatency = latencyTimer(meterRegistry, "rejected");
+        for (int i = 0; i < LANE_COUNT; i++) {
+            lanes.add(new ArrayBlockingQueue<>(LANE_CAPACITY));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < LANE_COUNT; i++) {
+            BlockingQueue<PendingBid> lane = lanes.get(i);
+            Thread worker = new Thread(() -> runLane(lane), "bid-ingestion-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.forEach(Thread::interrupt);
+    }
+
+    // Returns immediately, the outcome is sent to the bidder once the bid is committed or rejected
+    public void submit(BidDTO bidDTO) {
+        PendingBid pendingBid = new PendingBid(bidDTO, System.nanoTime());
+        BlockingQueue<PendingBid> lane = lanes.get((int) Math.floorMod(bidDTO.getAuctionId(), (long) LANE_COUNT));
+        if (!lane.offer(pendingBid)) {
+            acknowledge(pendingBid, AuctionService.BidResult.rejected(bidDTO, "Too many bids right now. Please try again."));
+        }
+    }
+
+    private void runLane(BlockingQueue<PendingBid> lane) {
+        List<PendingBid> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(lane.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            // Everything that arrived while the previous batch was committing goes into this one
+            lane.drainTo(batch, MAX_BATCH_SIZE - 1);
+            try {
+                process(batch);
+            } catch (RuntimeException e) {
+                // Keep the lane alive, the bidders of this batch get no answer
+                log.error("Failed to process a batch of {} bids", batch.size(), e);
+            }
+            batch.clear();
+        }
+    }
+
+    void process(List<PendingBid> batch) {
+        List<AuctionService.BidResult> results;
+        try {
+            results = auctionService.placeBidBatch(batch.stream().map(PendingBid::bidDTO).toList());
+        } catch (RuntimeException e) {
+            // Failed writes are reported per auction, so this only happens before any bid was placed
+            log.warn("Failed to write a batch of {} bids: {}", batch.size(), e.getMessage());
+            String message = e instanceof IllegalStateException
+                    ? e.getMessage()
+                    : "Your bid could not be saved. Please try again.";
+            results = batch.stream()
+                    .map(pendingBid -> AuctionService.BidResult.rejected(pendingBid.bidDTO(), message))
+                    .toList();
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            acknowledge(batch.get(i), results.get(i));
+        }
+    }
+
+    private void acknowledge(PendingBid pendingBid, AuctionService.BidResult result) {
+        BidDTO bidDTO = pendingBid.bidDTO();
+        BidAckMessage ack = BidAckMessage.builder()
+                .auctionId(bidDTO.getAuctionId())
+                .bidAmount(bidDTO.getAmount())
+                .accepted(result.accepted())
+                .isWinningBid(result.winningBid())
+                .bidTime(result.bidTime())
+                .message(result.message())
+                .build();
+        try {
+            messagingTemplate.convertAndSendToUser(bidDTO.getBidderId().toString(), "/queue/bids", ack);
+        } catch (RuntimeException e) {
+            log.warn("Failed to notify bidder {}: {}", bidDTO.getBidderId(), e.getMessage());
+        }
+
+        Timer latency = result.accepted() ? acceptedLatency : rejectedLatency;
+        latency.record(System.nanoTime() - pendingBid.receivedAt(), TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer latencyTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("auction.bid.latency")
+                .description("Time from receiving a WebSocket bid until the bidder is notified")
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    record PendingBid(BidDTO bidDTO, long receivedAt) {
+    }
+}
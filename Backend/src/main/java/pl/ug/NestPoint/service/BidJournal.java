@@ -0,0 +1,433 @@
+package pl.ug.NestPoint.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.ug.NestPoint.domain.Auction;
+import pl.ug.NestPoint.domain.Bid;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of committed bids, so a restarted node can seed running auctions
+ * without querying the bid table.
+ * Records go to memory-mapped segment files after the bid's transaction commits. The replayed state
+ * of every open auction is snapshotted periodically, recovery loads the snapshot and replays only
+ * the records written after it. The bid table stays the source of truth: when the journal does not
+ * match an auction's persisted aggregates, the auction is seeded from the database as before.
+ */
+@Component
+@Slf4j
+public class BidJournal {
+
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final int SNAPSHOT_MAGIC = 0x4E504A53;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+
+    // Replayed state of every open auction, kept up to date with each append
+    private final Map<Long, AuctionJournalState> auctions = new HashMap<>();
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long nextSequence;
+    private long snapshotSequence;
+    private boolean dirty;
+
+    public BidJournal(@Value("${auction.journal.enabled:false}") boolean enabled,
+                      @Value("${auction.journal.directory:data/journal}") String directory,
+                      @Value("${auction.journal.segment-size-mb:64}") int segmentSizeMb) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSizeMb * 1024 * 1024;
+    }
+
+    @PostConstruct
+    public synchronized void open() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create bid journal directory " + directory, e);
+        }
+
+        snapshotSequence = loadSnapshot();
+        BidJournalReader.ReplayResult result = BidJournalReader.replay(directory, snapshotSequence, this::apply);
+        nextSequence = result.nextSequence();
+        if (result.lastSegment() != null) {
+            mapSegment(result.lastSegment(), result.lastSegmentEnd());
+        } else {
+            roll();
+        }
+
+        log.info("Recovered {} auctions from the bid journal up to sequence {} in {} ms",
+                auctions.size(), nextSequence - 1, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled) {
+            return;
+        }
+        snapshot();
+        synchronized (this) {
+            flush();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close bid journal segment: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Journal entries are written once the bid is committed, a rolled back bid never shows up
+    public void recordBid(Bid bid) {
+        appendAfterCommit(BidJournalRecord.bid(bid.getAuction().getId(), bid.getBidder().getId(), bid.getAmount(),
+                bid.isAutoBid(), bid.getMaxAutoBidAmount(), bid.getBidTime()));
+    }
+
+    public void recordDrop(Long auctionId, Long bidderId) {
+        appendAfterCommit(BidJournalRecord.drop(auctionId, bidderId));
+    }
+
+    public void recordClose(Long auctionId) {
+        appendAfterCommit(BidJournalRecord.close(auctionId));
+    }
+
+    public synchronized void append(BidJournalRecord record) {
+        if (!enabled) {
+            return;
+        }
+        if (segment.remaining() < BidJournalRecord.FRAME_SIZE) {
+            roll();
+        }
+        BidJournalRecord sequenced = record.withSequence(nextSequence++);
+        sequenced.writeTo(segment);
+        apply(sequenced);
+        dirty = true;
+    }
+
+    /**
+     * Bidding history of the auction as recovered from the journal.
+     *
+     * @return empty when the journal is disabled or behind the auction's persisted aggregates,
+     *         e.g. for bids placed before the journal was enabled
+     */
+    public synchronized Optional<AuctionEngine.AuctionHistory> history(Auction auction) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        AuctionJournalState state = auctions.get(auction.getId());
+        if (state == null) {
+            return auction.getDistinctBidderCount() == 0
+                    ? Optional.of(AuctionEngine.AuctionHistory.empty())
+                    : Optional.empty();
+        }
+        if (!state.matches(auction)) {
+            log.debug("Bid journal is behind auction {}, seeding it from the database", auction.getId());
+            return Optional.empty();
+        }
+        return Optional.of(state.toHistory());
+    }
+
+    @Scheduled(fixedDelayString = "${auction.journal.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (enabled && dirty) {
+            segment.force();
+            dirty = false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auction.journal.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        if (!enabled) {
+            return;
+        }
+        byte[] data;
+        long sequence;
+        synchronized (this) {
+            if (nextSequence == snapshotSequence) {
+                return;
+            }
+            // Records covered by the snapshot are made durable before the snapshot replaces the old one
+            flush();
+            sequence = nextSequence;
+            data = encodeSnapshot(sequence);
+        }
+
+        try {
+            Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+            Files.write(temporary, data);
+            Files.move(temporary, directory.resolve(SNAPSHOT_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (this) {
+                snapshotSequence = sequence;
+            }
+        } catch (IOException e) {
+            log.warn("Failed to write bid journal snapshot: {}", e.getMessage());
+            return;
+        }
+        deleteSegmentsBefore(sequence);
+    }
+
+    synchronized int openAuctionCount() {
+        return auctions.size();
+    }
+
+    private void appendAfterCommit(BidJournalRecord record) {
+        if (!enabled) {
+            return;
+        }
+        Runnable action = () -> {
+            try {
+                append(record);
+            } catch (RuntimeException e) {
+                // The journal falls behind and the auction is seeded from the database instead
+                log.warn("Failed to append to the bid journal: {}", e.getMessage());
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void apply(BidJournalRecord record) {
+        switch (record.type()) {
+            case BID -> auctions.computeIfAbsent(record.auctionId(), id -> new AuctionJournalState()).apply(record);
+            case DROP -> {
+                AuctionJournalState state = auctions.get(record.auctionId());
+                if (state != null) {
+                    state.bidders.remove(record.bidderId());
+                }
+            }
+            case CLOSE -> auctions.remove(record.auctionId());
+        }
+    }
+
+    // Deletes closed segments whose records all precede the sequence, recovery starts at the snapshot instead
+    private void deleteSegmentsBefore(long sequence) {
+        List<Path> segments = BidJournalReader.segments(directory);
+        // A segment ends right before the next one starts, the last segment is still being written
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (BidJournalReader.firstSequence(segments.get(i + 1)) > sequence) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(segments.get(i));
+            } catch (IOException e) {
+                log.warn("Failed to delete bid journal segment {}: {}", segments.get(i), e.getMessage());
+            }
+        }
+    }
+
+    private void roll() {
+        if (segment != null) {
+            segment.force();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close bid journal segment: {}", e.getMessage());
+            }
+        }
+        mapSegment(directory.resolve(BidJournalReader.segmentName(nextSequence)), 0);
+    }
+
+    private void mapSegment(Path path, int position) {
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // Preallocated and zero-filled, a zero length marks the end of the written frames
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, channel.size()));
+            segment.position(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open bid journal segment " + path, e);
+        }
+    }
+
+    private byte[] encodeSnapshot(long sequence) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(sequence);
+            out.writeInt(auctions.size());
+            for (Map.Entry<Long, AuctionJournalState> entry : auctions.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeInt(entry.getValue().bidders.size());
+                for (Map.Entry<Long, BidderState> bidder : entry.getValue().bidders.entrySet()) {
+                    BidderState state = bidder.getValue();
+                    out.writeLong(bidder.getKey());
+                    out.writeDouble(state.highestAmount());
+                    out.writeLong(BidJournalRecord.toEpochMillis(state.highestAt()));
+                    out.writeLong(BidJournalRecord.toEpochMillis(state.lastBidAt()));
+                    out.writeDouble(state.autoBidCeiling());
+                    out.writeBoolean(state.autoBidSince() != null);
+                    out.writeLong(BidJournalRecord.toEpochMillis(state.autoBidSince()));
+                }
+            }
+            out.flush();
+
+            CRC32C crc = new CRC32C();
+            crc.update(bytes.toByteArray());
+            out.writeInt((int) crc.getValue());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Returns the first sequence not covered by the snapshot, 0 without a usable snapshot
+    private long loadSnapshot() {
+        Path path = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try {
+            byte[] data = Files.readAllBytes(path);
+            CRC32C crc = new CRC32C();
+            crc.update(data, 0, Math.max(0, data.length - 4));
+            if (data.length < 24 || ByteBuffer.wrap(data, data.length - 4, 4).getInt() != (int) crc.getValue()) {
+                log.warn("Bid journal snapshot is damaged, replaying the whole journal");
+                return 0;
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 0, data.length - 4));
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                log.warn("Unknown bid journal snapshot format, replaying the whole journal");
+                return 0;
+            }
+            long sequence = in.readLong();
+            int auctionCount = in.readInt();
+            for (int i = 0; i < auctionCount; i++) {
+                AuctionJournalState state = new AuctionJournalState();
+                auctions.put(in.readLong(), state);
+                int bidderCount = in.readInt();
+                for (int j = 0; j < bidderCount; j++) {
+                    long bidderId = in.readLong();
+                    double highestAmount = in.readDouble();
+                    LocalDateTime highestAt = BidJournalRecord.fromEpochMillis(in.readLong());
+                    LocalDateTime lastBidAt = BidJournalRecord.fromEpochMillis(in.readLong());
+                    double autoBidCeiling = in.readDouble();
+                    boolean hasAutoBid = in.readBoolean();
+                    long autoBidSince = in.readLong();
+                    state.bidders.put(bidderId, new BidderState(highestAmount, highestAt, lastBidAt, autoBidCeiling,
+                            hasAutoBid ? BidJournalRecord.fromEpochMillis(autoBidSince) : null));
+                }
+            }
+            return sequence;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read bid journal snapshot, replaying the whole journal: {}", e.getMessage());
+            auctions.clear();
+            return 0;
+        }
+    }
+
+    // Per-bidder summary of the journal, mirrors the queries the engine is otherwise seeded from
+    private record BidderState(double highestAmount, LocalDateTime highestAt, LocalDateTime lastBidAt,
+                               double autoBidCeiling, LocalDateTime autoBidSince) {
+
+        static BidderState of(BidJournalRecord record) {
+            return new BidderState(record.amount(), record.bidTime(), record.bidTime(),
+                    record.autoBid() ? record.maxAutoBidAmount() : 0,
+                    record.autoBid() ? record.bidTime() : null);
+        }
+
+        BidderState with(BidJournalRecord record) {
+            // On a tie the earlier bid keeps its place
+            boolean higher = record.amount() > highestAmount;
+            boolean laterBid = record.bidTime().isAfter(lastBidAt);
+            return new BidderState(
+                    higher ? record.amount() : highestAmount,
+                    higher ? record.bidTime() : highestAt,
+                    laterBid ? record.bidTime() : lastBidAt,
+                    record.autoBid() ? Math.max(autoBidCeiling, record.maxAutoBidAmount()) : autoBidCeiling,
+                    record.autoBid() && (autoBidSince == null || record.bidTime().isBefore(autoBidSince))
+                            ? record.bidTime()
+                            : autoBidSince);
+        }
+    }
+
+    private static final class AuctionJournalState {
+        private final Map<Long, BidderState> bidders = new HashMap<>();
+
+        private void apply(BidJournalRecord record) {
+            bidders.merge(record.bidderId(), BidderState.of(record), (current, ignored) -> current.with(record));
+        }
+
+        // Highest amount first, the earlier bid on a tie
+        private Map.Entry<Long, BidderState> leader() {
+            Map.Entry<Long, BidderState> leader = null;
+            for (Map.Entry<Long, BidderState> entry : bidders.entrySet()) {
+                BidderState state = entry.getValue();
+                if (leader == null
+                        || state.highestAmount() > leader.getValue().highestAmount()
+                        || (state.highestAmount() == leader.getValue().highestAmount()
+                            && state.highestAt().isBefore(leader.getValue().highestAt()))) {
+                    leader = entry;
+                }
+            }
+            return leader;
+        }
+
+        private boolean matches(Auction auction) {
+            if (bidders.size() != auction.getDistinctBidderCount()) {
+                return false;
+            }
+            Map.Entry<Long, BidderState> leader = leader();
+            if (leader == null) {
+                return auction.getWinningBidderId() == null;
+            }
+            return leader.getKey().equals(auction.getWinningBidderId())
+                    && leader.getValue().highestAmount() == auction.getCurrentHighestBid();
+        }
+
+        private AuctionEngine.AuctionHistory toHistory() {
+            Map<Long, LocalDateTime> lastBidTimes = new HashMap<>();
+            List<ProxyBidBook.ProxyBid> proxyBids = new ArrayList<>();
+            bidders.forEach((bidderId, state) -> {
+                lastBidTimes.put(bidderId, state.lastBidAt());
+                if (state.autoBidSince() != null) {
+                    proxyBids.add(new ProxyBidBook.ProxyBid(bidderId, state.autoBidCeiling(), state.autoBidSince()));
+                }
+            });
+            return new AuctionEngine.AuctionHistory(lastBidTimes, proxyBids);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package pl.ug.NestPoint.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Reads bid journal segments without Spring, used for recovery as well as offline replay.
+ * Replay stops at the first damaged frame, everything before it is intact.
+ *
+ * <pre>
+ * java -cp NestPoint.jar -Dloader.main=pl.ug.NestPoint.service.BidJournalReader \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher data/journal [fromSequence]
+ * </pre>
+ * prints every record as CSV for audits or to feed a benchmark.
+ */
+public final class BidJournalReader {
+
+    static final String SEGMENT_PREFIX = "bids-";
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private BidJournalReader() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: BidJournalReader <journal directory> [fromSequence]");
+            System.exit(1);
+        }
+        long fromSequence = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        System.out.println("sequence,type,auctionId,bidderId,amount,autoBid,maxAutoBidAmount,bidTime");
+        replay(Paths.get(args[0]), fromSequence, record -> System.out.println(String.join(",",
+                String.valueOf(record.sequence()),
+                record.type().name(),
+                String.valueOf(record.auctionId()),
+                String.valueOf(record.bidderId()),
+                String.valueOf(record.amount()),
+                String.valueOf(record.autoBid()),
+                String.valueOf(record.maxAutoBidAmount()),
+                record.bidTime() != null ? record.bidTime().toString() : "")));
+    }
+
+    /**
+     * Passes every intact record with a sequence of at least fromSequence to the consumer, in order.
+     *
+     * @return the position after the last intact record of the last segment read
+     */
+    public static ReplayResult replay(Path directory, long fromSequence, Consumer<BidJournalRecord> consumer) {
+        List<Path> segments = segments(directory);
+        long lastSequence = fromSequence - 1;
+        Path lastSegment = null;
+        int lastSegmentEnd = 0;
+
+        for (int i = 0; i < segments.size(); i++) {
+            // Segments are named after their first sequence, earlier ones can be skipped entirely
+            if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= fromSequence) {
+                continue;
+            }
+            lastSegment = segments.get(i);
+            ByteBuffer buffer = map(lastSegment);
+            BidJournalRecord record;
+            while ((record = BidJournalRecord.readFrom(buffer)) != null) {
+                if (record.sequence() >= fromSequence) {
+                    consumer.accept(record);
+                }
+                lastSequence = Math.max(lastSequence, record.sequence());
+            }
+            lastSegmentEnd = buffer.position();
+            if (buffer.remaining() >= BidJournalRecord.FRAME_SIZE && buffer.getInt(buffer.position()) != 0) {
+                // A torn frame, later segments cannot be trusted to continue the sequence
+                break;
+            }
+        }
+        return new ReplayResult(lastSegment, lastSegmentEnd, lastSequence + 1);
+    }
+
+    static List<Path> segments(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>(files
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .toList());
+            // Zero-padded sequence numbers sort by name
+            segments.sort(null);
+            return segments;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list bid journal segments in " + directory, e);
+        }
+    }
+
+    static String segmentName(long firstSequence) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX);
+    }
+
+    static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static ByteBuffer map(Path segment) {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read bid journal segment " + segment, e);
+        }
+    }
+
+    /**
+     * @param lastSegment    the segment appends should continue in, null when there is none
+     * @param lastSegmentEnd byte offset after the last intact frame of that segment
+     * @param nextSequence   sequence number for the next record
+     */
+    public record ReplayResult(Path lastSegment, int lastSegmentEnd, long nextSequence) {
+    }
+}
@@ -0,0 +1,116 @@
+package pl.ug.NestPoint.service;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+
+/**
+ * A single entry of the bid journal.
+ * On disk every record is a fixed-size frame: payload length, CRC32C of the payload, payload.
+ * Bid times are stored as the epoch milliseconds of the wall-clock time, the same local time
+ * the bid table holds.
+ */
+public record BidJournalRecord(
+        long sequence,
+        Type type,
+        long auctionId,
+        long bidderId,
+        double amount,
+        boolean autoBid,
+        double maxAutoBidAmount,
+        LocalDateTime bidTime) {
+
+    public enum Type {
+        BID,
+        // All bids of the bidder were dropped from the auction
+        DROP,
+        // The auction completed or was cancelled, its state is no longer needed
+        CLOSE
+    }
+
+    static final int PAYLOAD_SIZE = 1 + 1 + 8 + 8 + 8 + 8 + 8 + 8;
+    static final int FRAME_SIZE = 4 + 4 + PAYLOAD_SIZE;
+
+    public static BidJournalRecord bid(long auctionId, long bidderId, double amount, boolean autoBid,
+                                       double maxAutoBidAmount, LocalDateTime bidTime) {
+        return new BidJournalRecord(0, Type.BID, auctionId, bidderId, amount, autoBid, maxAutoBidAmount, bidTime);
+    }
+
+    public static BidJournalRecord drop(long auctionId, long bidderId) {
+        return new BidJournalRecord(0, Type.DROP, auctionId, bidderId, 0, false, 0, null);
+    }
+
+    public static BidJournalRecord close(long auctionId) {
+        return new BidJournalRecord(0, Type.CLOSE, auctionId, 0, 0, false, 0, null);
+    }
+
+    BidJournalRecord withSequence(long sequence) {
+        return new BidJournalRecord(sequence, type, auctionId, bidderId, amount, autoBid, maxAutoBidAmount, bidTime);
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        int frameStart = buffer.position();
+        buffer.position(frameStart + 8);
+        buffer.put((byte) type.ordinal());
+        buffer.put((byte) (autoBid ? 1 : 0));
+        buffer.putLong(sequence);
+        buffer.putLong(auctionId);
+        buffer.putLong(bidderId);
+        buffer.putDouble(amount);
+        buffer.putDouble(maxAutoBidAmount);
+        buffer.putLong(toEpochMillis(bidTime));
+
+        // Length is written last, so a torn write never looks like a complete frame
+        buffer.putInt(frameStart + 4, checksum(buffer, frameStart + 8));
+        buffer.putInt(frameStart, PAYLOAD_SIZE);
+    }
+
+    /**
+     * Reads the frame at the buffer's position.
+     *
+     * @return null at the end of the written data or at a damaged frame, the position is then unchanged
+     */
+    static BidJournalRecord readFrom(ByteBuffer buffer) {
+        int frameStart = buffer.position();
+        if (buffer.remaining() < FRAME_SIZE || buffer.getInt(frameStart) != PAYLOAD_SIZE) {
+            return null;
+        }
+        if (buffer.getInt(frameStart + 4) != checksum(buffer, frameStart + 8)) {
+            return null;
+        }
+
+        buffer.position(frameStart + 8);
+        int typeOrdinal = buffer.get();
+        boolean autoBid = buffer.get() == 1;
+        long sequence = buffer.getLong();
+        long auctionId = buffer.getLong();
+        long bidderId = buffer.getLong();
+        double amount = buffer.getDouble();
+        double maxAutoBidAmount = buffer.getDouble();
+        long bidTimeMillis = buffer.getLong();
+
+        if (typeOrdinal < 0 || typeOrdinal >= Type.values().length) {
+            buffer.position(frameStart);
+            return null;
+        }
+        Type type = Type.values()[typeOrdinal];
+        LocalDateTime bidTime = type == Type.BID ? fromEpochMillis(bidTimeMillis) : null;
+        return new BidJournalRecord(sequence, type, auctionId, bidderId, amount, autoBid, maxAutoBidAmount, bidTime);
+    }
+
+    static long toEpochMillis(LocalDateTime time) {
+        return time != null ? time.toInstant(ZoneOffset.UTC).toEpochMilli() : 0;
+    }
+
+    static LocalDateTime fromEpochMillis(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000),
+                (int) Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    private static int checksum(ByteBuffer buffer, int payloadStart) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(payloadStart, PAYLOAD_SIZE));
+        return (int) crc.getValue();
+    }
+}
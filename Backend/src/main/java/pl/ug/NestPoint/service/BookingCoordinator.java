@@ -0,0 +1,135 @@
+package pl.ug.NestPoint.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.ug.NestPoint.repository.RentalRepository;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes bookings of the same apartment without serializing the whole table.
+ * Within a node an apartment maps to one of a fixed set of striped locks; with the postgres store a
+ * transaction-scoped advisory lock per apartment covers the other nodes. Both are held until the booking
+ * transaction completes, so the next booking of the apartment sees it. Bookings of different apartments
+ * only meet when they hash to the same stripe.
+ */
+@Component
+@Slf4j
+public class BookingCoordinator {
+
+    static final int STRIPE_COUNT = 256;
+    // First key of the two-key advisory lock, keeps apartment locks apart from any other advisory locks
+    static final int ADVISORY_LOCK_NAMESPACE = 0x4E50_0001;
+    private static final long MAX_ADVISORY_BACKOFF_MILLIS = 50;
+    private static final String LOCK_TIMEOUT_MESSAGE = "The apartment is being booked by someone else. Please try again.";
+
+    private final ApartmentAvailabilityIndex availabilityIndex;
+    private final RentalRepository rentalRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean distributed;
+    private final long lockTimeoutMillis;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPE_COUNT];
+
+    public BookingCoordinator(ApartmentAvailabilityIndex availabilityIndex, RentalRepository rentalRepository,
+                              JdbcTemplate jdbcTemplate,
+                              @Value("${booking.lock.store:local}") String lockStore,
+                              @Value("${booking.lock.timeout-ms:5000}") long lockTimeoutMillis) {
+        this.availabilityIndex = availabilityIndex;
+        this.rentalRepository = rentalRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.distributed = "postgres".equalsIgnoreCase(lockStore);
+        this.lockTimeoutMillis = lockTimeoutMillis;
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Locks the apartments until the surrounding transaction commits or rolls back.
+     * Stripes and advisory locks are taken in a fixed order, so two bookings locking the same pair of
+     * apartments cannot deadlock.
+     */
+    public void lock(Long... apartmentIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Apartments can only be locked inside a transaction");
+        }
+        long[] ids = Arrays.stream(apartmentIds).filter(Objects::nonNull).mapToLong(Long::longValue)
+                .distinct().sorted().toArray();
+
+        int[] stripeIndexes = Arrays.stream(ids).mapToInt(BookingCoordinator::stripeOf).distinct().sorted().toArray();
+        for (int stripeIndex : stripeIndexes) {
+            acquire(stripes[stripeIndex]);
+        }
+        if (distributed) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lockTimeoutMillis);
+            for (long id : ids) {
+                acquireAdvisory(id, deadline);
+            }
+        }
+    }
+
+    /**
+     * Availability check for a booking that holds the apartment's lock.
+     * The in-memory index answers for this node; with several nodes the database is asked as well, since
+     * the index only learns about other nodes' bookings on its next reload.
+     */
+    public boolean isOccupiedBetween(Long apartmentId, LocalDate startDate, LocalDate endDate, Long excludedRentalId) {
+        if (availabilityIndex.isOccupiedBetween(apartmentId, startDate, endDate, excludedRentalId)) {
+            return true;
+        }
+        return distributed && rentalRepository.existsOverlappingRental(apartmentId, startDate, endDate, excludedRentalId);
+    }
+
+    // pg_advisory_xact_lock would wait without limit, so the try variant is polled until the deadline
+    private void acquireAdvisory(long apartmentId, long deadline) {
+        long backoffMillis = 1;
+        while (!Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?, ?)",
+                Boolean.class, ADVISORY_LOCK_NAMESPACE, Long.hashCode(apartmentId)))) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                throw new IllegalStateException(LOCK_TIMEOUT_MESSAGE);
+            }
+            try {
+                Thread.sleep(Math.min(backoffMillis, remainingMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(LOCK_TIMEOUT_MESSAGE);
+            }
+            backoffMillis = Math.min(backoffMillis * 2, MAX_ADVISORY_BACKOFF_MILLIS);
+        }
+    }
+
+    private void acquire(ReentrantLock stripe) {
+        boolean acquired;
+        try {
+            acquired = stripe.tryLock(lockTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            throw new IllegalStateException(LOCK_TIMEOUT_MESSAGE);
+        }
+        // Runs on the same thread as the transaction, which is the lock owner
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                stripe.unlock();
+            }
+        });
+    }
+
+    static int stripeOf(long apartmentId) {
+        // Spread sequential ids over the stripes
+        long mixed = apartmentId * 0x9E3779B97F4A7C15L;
+        return (int) (mixed >>> 56) & (STRIPE_COUNT - 1);
+    }
+}
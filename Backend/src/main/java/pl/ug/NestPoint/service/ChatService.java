@@ -18,6 +18,7 @@ import pl.ug.NestPoint.repository.RentalRepository;
 import pl.ug.NestPoint.repository.UserRepository;
 import pl.ug.NestPoint.dto.ChatNotificationDTO;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -26,6 +27,9 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ChatService {
     
+    // Bursts of up to 10 messages, refilled at one message per second
+    private static final RateLimit MESSAGE_LIMIT = new RateLimit("chat", 10, Duration.ofSeconds(10));
+    
     private final ConversationRepository conversationRepository;
     private final MessageRepository messageRepository;
     private final RentalRepository rentalRepository;
@@ -33,6 +37,7 @@ public class ChatService {
     private final ConversationMapper conversationMapper;
     private final MessageMapper messageMapper;
     private final SimpMessagingTemplate messagingTemplate;
+    private final RateLimiter rateLimiter;
 
     @Transactional
     public ConversationDTO getOrCreateConversation(Long rentalId, Long userId) {
@@ -132,6 +137,10 @@ public class ChatService {
         
         log.info("PROCESSING MESSAGE: conversation={}, sender={}, content='{}'", 
             conversationId, userId, messageDTO.getContent());
+        
+        if (!rateLimiter.tryAcquire(MESSAGE_LIMIT, userId.toString())) {
+            throw new IllegalStateException("You are sending messages too quickly. Please slow down.");
+        }
             
         // Find conversation directly using repository
         Conversation conversation = conversationRepository.findById(conversationId)
@@ -0,0 +1,245 @@
+package pl.ug.NestPoint.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.ug.NestPoint.domain.enums.DelayedJobType;
+import pl.ug.NestPoint.repository.DelayedJobRepository;
+import pl.ug.NestPoint.repository.DelayedJobRepository.ClaimedJob;
+import pl.ug.NestPoint.repository.RentalMaintenanceRepository;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Durable delayed jobs for auction payment deadlines: issuing the fine when the deadline passes and
+ * blocking the tenant when the fine is still unpaid after the grace period.
+ * Jobs live in the delayed_job table, so they survive restarts and are shared by all nodes. Worker threads
+ * sleep until the earliest job is due, claim due jobs with FOR UPDATE SKIP LOCKED and run each one in its
+ * own transaction together with its removal from the queue. Handlers re-check the rental, so a job that
+ * is no longer needed (payment confirmed, fine paid) just completes. A job that still fails after
+ * max-attempts runs is marked failed and left in the table instead of being retried forever.
+ * Run times are published as rental.jobs.delayed, tagged by type and outcome.
+ */
+@Component
+@Slf4j
+public class DelayedJobQueue {
+
+    private static final int CLAIM_BATCH_SIZE = 20;
+    private static final long MAX_RETRY_DELAY_MINUTES = 60;
+
+    private final DelayedJobRepository jobRepository;
+    private final RentalMaintenanceRepository maintenanceRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int workerCount;
+    private final long pollIntervalMs;
+    private final long leaseMs;
+    private final int maxAttempts;
+
+    private final String nodeName = ManagementFactory.getRuntimeMXBean().getName();
+    private final List<Thread> workers = new ArrayList<>();
+    private final ReentrantLock wakeLock = new ReentrantLock();
+    private final Condition wakeUp = wakeLock.newCondition();
+    // Bumped on every wake-up, so a signal between reading the next run time and waiting is not lost
+    private long wakeUps;
+
+    public DelayedJobQueue(DelayedJobRepository jobRepository, RentalMaintenanceRepository maintenanceRepository,
+                           PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                           @Value("${rental.jobs.delayed.enabled:true}") boolean enabled,
+                           @Value("${rental.jobs.delayed.workers:2}") int workerCount,
+                           @Value("${rental.jobs.delayed.poll-interval-ms:30000}") long pollIntervalMs,
+                           @Value("${rental.jobs.delayed.lease-ms:300000}") long leaseMs,
+                           @Value("${rental.jobs.delayed.max-attempts:10}") int maxAttempts) {
+        this.jobRepository = jobRepository;
+        this.maintenanceRepository = maintenanceRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.workerCount = workerCount;
+        this.pollIntervalMs = pollIntervalMs;
+        this.leaseMs = leaseMs;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        for (int i = 0; i < workerCount; i++) {
+            String workerName = nodeName + "/" + i;
+            Thread worker = new Thread(() -> runWorker(workerName), "delayed-job-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Queues a job for the rental at runAt. Inside a transaction the job is written with it,
+     * and the local workers are woken after commit to pick up the new run time.
+     */
+    public void enqueue(DelayedJobType type, Long rentalId, LocalDateTime runAt) {
+        jobRepository.enqueue(type, rentalId, runAt);
+        runAfterCommit(this::wakeWorkers);
+    }
+
+    private void runWorker(String workerName) {
+        while (!Thread.currentThread().isInterrupted()) {
+            long seenWakeUps = wakeUps();
+            try {
+                if (runDueJobs(workerName) < CLAIM_BATCH_SIZE) {
+                    awaitNextJob(seenWakeUps);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Keep the worker alive, e.g. while the database is unreachable
+                log.error("Delayed job worker {} failed", workerName, e);
+                try {
+                    await(seenWakeUps, pollIntervalMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Returns the number of jobs claimed, a full batch means more may be due already
+    int runDueJobs(String workerName) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ClaimedJob> jobs = transactionTemplate.execute(status ->
+                jobRepository.claimDue(workerName, now, now.plus(Duration.ofMillis(leaseMs)), CLAIM_BATCH_SIZE));
+        if (jobs == null) {
+            return 0;
+        }
+        jobs.forEach(this::execute);
+        return jobs.size();
+    }
+
+    private void execute(ClaimedJob job) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "done";
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                handle(job);
+                jobRepository.complete(job.id());
+            });
+        } catch (RuntimeException e) {
+            if (job.attempts() >= maxAttempts) {
+                outcome = "failed";
+                log.error("Delayed job {} {} for rental {} failed {} times, giving up",
+                        job.id(), job.type(), job.rentalId(), job.attempts(), e);
+                jobRepository.markFailed(job.id(), LocalDateTime.now());
+            } else {
+                outcome = "retried";
+                // Back off 2, 4, 8... minutes, capped at an hour
+                long delayMinutes = Math.min(1L << Math.min(job.attempts(), 6), MAX_RETRY_DELAY_MINUTES);
+                log.warn("Delayed job {} {} for rental {} failed (attempt {}), retrying in {} min: {}",
+                        job.id(), job.type(), job.rentalId(), job.attempts(), delayMinutes, e.getMessage());
+                jobRepository.retryAt(job.id(), LocalDateTime.now().plusMinutes(delayMinutes));
+            }
+        } finally {
+            sample.stop(Timer.builder("rental.jobs.delayed")
+                    .description("Run time of the delayed payment deadline jobs")
+                    .tag("type", job.type().name())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private void handle(ClaimedJob job) {
+        LocalDateTime now = LocalDateTime.now();
+        switch (job.type()) {
+            case ISSUE_AUCTION_FINE -> {
+                if (maintenanceRepository.issueFine(job.rentalId(), now, RentalMaintenanceJobs.AUCTION_FINE_RATE)) {
+                    log.info("Issued auction fine for rental {}", job.rentalId());
+                    // Written in this transaction, so the fine and its follow-up commit together
+                    jobRepository.enqueue(DelayedJobType.BLOCK_UNPAID_FINE, job.rentalId(),
+                            job.runAt().plusHours(RentalMaintenanceJobs.FINE_GRACE_HOURS));
+                }
+            }
+            case BLOCK_UNPAID_FINE -> maintenanceRepository
+                    .findUnpaidFine(job.rentalId(), now.minusHours(RentalMaintenanceJobs.FINE_GRACE_HOURS))
+                    .ifPresent(fine -> {
+                        maintenanceRepository.blockUsers(List.of(fine), now);
+                        log.info("Blocked user {} for the unpaid fine of rental {}", fine.tenantId(), job.rentalId());
+                    });
+        }
+    }
+
+    // Sleeps until the earliest job is due, at most one poll interval so jobs queued by other nodes are seen
+    private void awaitNextJob(long seenWakeUps) throws InterruptedException {
+        long waitMs = jobRepository.nextRunAt()
+                .map(runAt -> Math.min(Duration.between(LocalDateTime.now(), runAt).toMillis(), pollIntervalMs))
+                .orElse(pollIntervalMs);
+        await(seenWakeUps, waitMs);
+    }
+
+    private void await(long seenWakeUps, long waitMs) throws InterruptedException {
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(waitMs);
+        wakeLock.lock();
+        try {
+            while (remainingNanos > 0 && wakeUps == seenWakeUps) {
+                remainingNanos = wakeUp.awaitNanos(remainingNanos);
+            }
+        } finally {
+            wakeLock.unlock();
+        }
+    }
+
+    private long wakeUps() {
+        wakeLock.lock();
+        try {
+            return wakeUps;
+        } finally {
+            wakeLock.unlock();
+        }
+    }
+
+    private void wakeWorkers() {
+        wakeLock.lock();
+        try {
+            wakeUps++;
+            wakeUp.signalAll();
+        } finally {
+            wakeLock.unlock();
+        }
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,98 @@
+package pl.ug.NestPoint.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@ConditionalOnProperty(name = "rate-limit.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimiter implements RateLimiter {
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Clock clock;
+
+    public InMemoryRateLimiter() {
+        this(Clock.systemUTC());
+    }
+
+    InMemoryRateLimiter(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean tryAcquire(RateLimit limit, String key) {
+        long now = clock.millis();
+        boolean[] acquired = new boolean[1];
+        // compute() runs atomically per key
+        buckets.compute(bucketKey(limit, key), (k, bucket) -> {
+            TokenBucket current = bucket != null ? bucket : new TokenBucket(limit, limit.capacity(), now);
+            current.refill(now);
+            if (current.tokens >= 1) {
+                current.tokens -= 1;
+                acquired[0] = true;
+            }
+            return current;
+        });
+        return acquired[0];
+    }
+
+    @Override
+    public void seed(RateLimit limit, String key, Instant acquiredAt) {
+        buckets.computeIfAbsent(bucketKey(limit, key), k -> {
+            TokenBucket bucket = new TokenBucket(limit, limit.capacity() - 1, acquiredAt.toEpochMilli());
+            bucket.refill(clock.millis());
+            return bucket;
+        });
+    }
+
+    @Override
+    public void release(RateLimit limit, String key) {
+        buckets.computeIfPresent(bucketKey(limit, key), (k, bucket) -> {
+            bucket.tokens = Math.min(limit.capacity(), bucket.tokens + 1);
+            return bucket;
+        });
+    }
+
+    // Full buckets behave exactly like missing ones, so they can be dropped
+    @Scheduled(fixedRate = 300000) // Run every 5 minutes
+    public void evictRefilledBuckets() {
+        long now = clock.millis();
+        buckets.values().removeIf(bucket -> bucket.isFullAt(now));
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private static String bucketKey(RateLimit limit, String key) {
+        return limit.name() + ":" + key;
+    }
+
+    private static final class TokenBucket {
+        private final RateLimit limit;
+        private double tokens;
+        private long refilledAt;
+
+        private TokenBucket(RateLimit limit, double tokens, long refilledAt) {
+            this.limit = limit;
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+
+        private void refill(long now) {
+            if (now > refilledAt) {
+                tokens = Math.min(limit.capacity(), tokens + (now - refilledAt) * limit.permitsPerMilli());
+                refilledAt = now;
+            }
+        }
+
+        private boolean isFullAt(long now) {
+            return tokens + (now - refilledAt) * limit.permitsPerMilli() >= limit.capacity();
+        }
+    }
+}
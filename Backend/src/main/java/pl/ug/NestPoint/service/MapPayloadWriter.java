@@ -0,0 +1,145 @@
+package pl.ug.NestPoint.service;
+
+import pl.ug.NestPoint.dto.MapClusterDTO;
+import pl.ug.NestPoint.dto.MapPointDTO;
+import pl.ug.NestPoint.dto.MapViewportDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Compact binary encoding of map points and clusters, served instead of JSON when the client accepts
+ * {@link #MEDIA_TYPE}. Values are stored column by column, integers as LEB128 varints, signed ones
+ * zigzag-encoded:
+ * <pre>
+ * "NPM" version:u8 flags:u8 (bit 0 = clustered) zoom:u8 (255 = not a viewport)
+ * pointCount:varint
+ *   ids          ascending, each the difference to the previous one
+ *   latitudes    degrees * 1e5, signed difference to the previous point
+ *   longitudes   degrees * 1e5, signed difference to the previous point
+ *   prices       in cents
+ *   thumbnails   photo ids, 0 for none, otherwise the signed difference to the previous photo id + 1
+ * clusterCount:varint
+ *   latitudes, longitudes, west, south, east, north   degrees * 1e5, each a signed difference to the
+ *                                                     previous cluster's value of the same column
+ *   counts
+ * </pre>
+ * Sorted ids and neighbouring coordinates make most differences one or two bytes, and similar values in
+ * a column next to each other also compress well with gzip. Titles and addresses are left out, the client
+ * loads the details of the apartment that is clicked, and thumbnail URLs of the markers it shows from
+ * {@code /photos/{id}}.
+ */
+public final class MapPayloadWriter {
+
+    public static final String MEDIA_TYPE = "application/vnd.nestpoint.map";
+    static final int VERSION = 1;
+    // Five decimal places, about a metre
+    static final double COORDINATE_SCALE = 1e5;
+    private static final int NO_ZOOM = 255;
+
+    private MapPayloadWriter() {
+    }
+
+    public static byte[] write(List<MapPointDTO> points) {
+        return write(points, List.of(), false, NO_ZOOM);
+    }
+
+    public static byte[] write(MapViewportDTO viewport) {
+        return write(viewport.getPoints(), viewport.getClusters(), viewport.isClustered(), viewport.getZoom());
+    }
+
+    private static byte[] write(List<MapPointDTO> unsortedPoints, List<MapClusterDTO> clusters, boolean clustered,
+                                int zoom) {
+        List<MapPointDTO> points = new ArrayList<>(unsortedPoints);
+        points.sort(Comparator.comparing(MapPointDTO::getId));
+        Buffer out = new Buffer(16 + points.size() * 12 + clusters.size() * 24);
+        out.write('N');
+        out.write('P');
+        out.write('M');
+        out.write(VERSION);
+        out.write(clustered ? 1 : 0);
+        out.write(zoom);
+
+        out.writeVarint(points.size());
+        long previousId = 0;
+        for (MapPointDTO point : points) {
+            out.writeVarint(point.getId() - previousId);
+            previousId = point.getId();
+        }
+        writeCoordinates(out, points, MapPointDTO::getLat);
+        writeCoordinates(out, points, MapPointDTO::getLng);
+        for (MapPointDTO point : points) {
+            out.writeVarint(Math.max(0, Math.round(point.getPrice() * 100)));
+        }
+        writeThumbnails(out, points);
+
+        out.writeVarint(clusters.size());
+        writeCoordinates(out, clusters, MapClusterDTO::getLat);
+        writeCoordinates(out, clusters, MapClusterDTO::getLng);
+        writeCoordinates(out, clusters, MapClusterDTO::getWest);
+        writeCoordinates(out, clusters, MapClusterDTO::getSouth);
+        writeCoordinates(out, clusters, MapClusterDTO::getEast);
+        writeCoordinates(out, clusters, MapClusterDTO::getNorth);
+        for (MapClusterDTO cluster : clusters) {
+            out.writeVarint(cluster.getCount());
+        }
+        return out.toByteArray();
+    }
+
+    private static <T> void writeCoordinates(Buffer out, List<T> items, ToDoubleFunction<T> degrees) {
+        long previous = 0;
+        for (T item : items) {
+            long quantized = Math.round(degrees.applyAsDouble(item) * COORDINATE_SCALE);
+            out.writeVarint(zigzag(quantized - previous));
+            previous = quantized;
+        }
+    }
+
+    private static void writeThumbnails(Buffer out, List<MapPointDTO> points) {
+        long previous = 0;
+        for (MapPointDTO point : points) {
+            if (point.getThumbnailId() == null) {
+                out.writeVarint(0);
+            } else {
+                out.writeVarint(zigzag(point.getThumbnailId() - previous) + 1);
+                previous = point.getThumbnailId();
+            }
+        }
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    // Unsynchronized, unlike ByteArrayOutputStream, which matters at a few bytes per write
+    private static final class Buffer {
+        private byte[] bytes;
+        private int size;
+
+        Buffer(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void write(int value) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package pl.ug.NestPoint.service;
+
+import pl.ug.NestPoint.service.ApartmentMapIndex.MapPoint;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Static k-d tree over map points for nearest-neighbour and radius queries by great-circle distance.
+ * Points are placed on the unit sphere as x/y/z, where the straight-line (chord) distance between two
+ * points grows with their great-circle distance, so Euclidean pruning on three axes gives exact haversine
+ * results with no special cases at the poles or the antimeridian.
+ * The tree is implicit: the median of each range sits in its middle, with the lower half left of it.
+ */
+final class NearestPointTree {
+
+    static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final MapPoint[] points;
+    private final double[] coordinates;
+
+    private NearestPointTree(MapPoint[] points, double[] coordinates) {
+        this.points = points;
+        this.coordinates = coordinates;
+    }
+
+    static NearestPointTree of(Collection<MapPoint> source) {
+        MapPoint[] points = source.toArray(new MapPoint[0]);
+        double[] coordinates = new double[points.length * 3];
+        for (int i = 0; i < points.length; i++) {
+            setCoordinates(coordinates, i, points[i].lat(), points[i].lng());
+        }
+        NearestPointTree tree = new NearestPointTree(points, coordinates);
+        tree.build(0, points.length, 0);
+        return tree;
+    }
+
+    /**
+     * Up to limit matching points nearest to the given location, closest first; a null radius means no limit
+     * on the distance.
+     */
+    List<Neighbour> nearest(double lat, double lng, int limit, Double radiusKm, Predicate<MapPoint> filter) {
+        if (limit <= 0 || points.length == 0) {
+            return List.of();
+        }
+        double[] target = new double[3];
+        setCoordinates(target, 0, lat, lng);
+        double maxChord = radiusKm != null ? chord(radiusKm) : Double.POSITIVE_INFINITY;
+        Search search = new Search(target, limit, maxChord * maxChord, filter);
+        search(0, points.length, 0, search);
+
+        List<Neighbour> neighbours = new ArrayList<>(search.found.size());
+        for (int index : search.found) {
+            neighbours.add(new Neighbour(points[index], distanceKm(Math.sqrt(squaredDistance(index, target)))));
+        }
+        neighbours.sort(Comparator.comparingDouble(Neighbour::distanceKm));
+        return neighbours;
+    }
+
+    static double distanceKm(double chord) {
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, chord / 2));
+    }
+
+    static double chord(double distanceKm) {
+        return 2 * Math.sin(Math.min(Math.PI, distanceKm / EARTH_RADIUS_KM) / 2);
+    }
+
+    private void search(int from, int to, int axis, Search search) {
+        if (from >= to) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        search.consider(middle);
+        double difference = search.target[axis] - coordinates[middle * 3 + axis];
+        int nextAxis = (axis + 1) % 3;
+        // The side the target is on first, the other one only if it can still hold a closer point
+        if (difference < 0) {
+            search(from, middle, nextAxis, search);
+            if (difference * difference <= search.worst()) {
+                search(middle + 1, to, nextAxis, search);
+            }
+        } else {
+            search(middle + 1, to, nextAxis, search);
+            if (difference * difference <= search.worst()) {
+                search(from, middle, nextAxis, search);
+            }
+        }
+    }
+
+    // Puts the median of [from, to) on the axis in the middle, smaller values left of it, then recurses
+    private void build(int from, int to, int axis) {
+        if (to - from <= 1) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        select(from, to - 1, middle, axis);
+        int nextAxis = (axis + 1) % 3;
+        build(from, middle, nextAxis);
+        build(middle + 1, to, nextAxis);
+    }
+
+    // Quickselect, afterwards index k holds the value it would have if [left, right] were sorted on the axis
+    private void select(int left, int right, int k, int axis) {
+        while (left < right) {
+            double pivot = coordinates[((left + right) >>> 1) * 3 + axis];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coordinates[i * 3 + axis] < pivot) {
+                    i++;
+                }
+                while (coordinates[j * 3 + axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        MapPoint point = points[a];
+        points[a] = points[b];
+        points[b] = point;
+        for (int axis = 0; axis < 3; axis++) {
+            double value = coordinates[a * 3 + axis];
+            coordinates[a * 3 + axis] = coordinates[b * 3 + axis];
+            coordinates[b * 3 + axis] = value;
+        }
+    }
+
+    private double squaredDistance(int index, double[] target) {
+        double dx = coordinates[index * 3] - target[0];
+        double dy = coordinates[index * 3 + 1] - target[1];
+        double dz = coordinates[index * 3 + 2] - target[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static void setCoordinates(double[] coordinates, int index, double lat, double lng) {
+        double phi = Math.toRadians(lat);
+        double lambda = Math.toRadians(lng);
+        coordinates[index * 3] = Math.cos(phi) * Math.cos(lambda);
+        coordinates[index * 3 + 1] = Math.cos(phi) * Math.sin(lambda);
+        coordinates[index * 3 + 2] = Math.sin(phi);
+    }
+
+    record Neighbour(MapPoint point, double distanceKm) {
+    }
+
+    /**
+     * The best matches so far in a max-heap on squared chord distance, the farthest on top.
+     */
+    private final class Search {
+        private final double[] target;
+        private final int limit;
+        private final double maxSquared;
+        private final Predicate<MapPoint> filter;
+        private final PriorityQueue<Integer> found;
+
+        Search(double[] target, int limit, double maxSquared, Predicate<MapPoint> filter) {
+            this.target = target;
+            this.limit = limit;
+            this.maxSquared = maxSquared;
+            this.filter = filter;
+            this.found = new PriorityQueue<>(Comparator.comparingDouble((Integer index) -> squaredDistance(index, target))
+                    .reversed());
+        }
+
+        void consider(int index) {
+            double squared = squaredDistance(index, target);
+            if (squared > worst() || !filter.test(points[index])) {
+                return;
+            }
+            found.add(index);
+            if (found.size() > limit) {
+                found.poll();
+            }
+        }
+
+        // Squared distance a point has to beat to be kept
+        double worst() {
+            return found.size() < limit ? maxSquared : squaredDistance(found.peek(), target);
+        }
+    }
+}
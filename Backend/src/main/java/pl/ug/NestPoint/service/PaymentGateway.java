@@ -0,0 +1,13 @@
+package pl.ug.NestPoint.service;
+
+import pl.ug.NestPoint.domain.enums.PaymentPurpose;
+
+/**
+ * Charges a card with the payment provider.
+ * Calls may block for as long as the provider takes, they only run on PaymentPipeline workers.
+ */
+public interface PaymentGateway {
+
+    // True when the charge was approved
+    boolean charge(PaymentPurpose purpose, String cardNumber);
+}
@@ -0,0 +1,161 @@
+package pl.ug.NestPoint.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import pl.ug.NestPoint.domain.enums.PaymentPurpose;
+import pl.ug.NestPoint.domain.enums.PaymentState;
+import pl.ug.NestPoint.dto.PaymentStatusDTO;
+import pl.ug.NestPoint.dto.RentalDTO;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Charges cards off the request threads.
+ * Submitting checks the rental, registers the payment as PENDING and returns its id right away. A payment
+ * worker then calls the {@link PaymentGateway} without holding a database connection, and only once the
+ * charge is approved commits the rental or fine change in a short transaction of its own.
+ * The outcome can be polled by payment id and is pushed to the paying user on /user/queue/payments.
+ * Payment states live in the {@link PaymentStatusStore}, so any node can answer the poll.
+ */
+@Component
+@Slf4j
+public class PaymentPipeline {
+
+    private static final int QUEUE_CAPACITY = 1000;
+
+    private final PaymentGateway paymentGateway;
+    private final RentalService rentalService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ExecutorService workers;
+    private final PaymentStatusStore paymentStatusStore;
+
+    public PaymentPipeline(PaymentGateway paymentGateway, RentalService rentalService,
+                           SimpMessagingTemplate messagingTemplate, PaymentStatusStore paymentStatusStore,
+                           @Value("${payment.workers:16}") int workerCount) {
+        this.paymentGateway = paymentGateway;
+        this.rentalService = rentalService;
+        this.messagingTemplate = messagingTemplate;
+        this.paymentStatusStore = paymentStatusStore;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "payment-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    public PaymentTicket submitRentalPayment(RentalDTO rentalDTO, String cardNumber) {
+        return submit(PaymentPurpose.RENTAL, null, rentalDTO.getTenantId(), cardNumber,
+                submittedAt -> rentalService.createRental(rentalDTO).getId());
+    }
+
+    public PaymentTicket submitAuctionPayment(Long rentalId, String cardNumber) {
+        Long tenantId = rentalService.checkAuctionPaymentAllowed(rentalId);
+        return submit(PaymentPurpose.AUCTION_PAYMENT, rentalId, tenantId, cardNumber, submittedAt -> {
+            rentalService.confirmAuctionPayment(rentalId, submittedAt);
+            return rentalId;
+        });
+    }
+
+    public PaymentTicket submitFinePayment(Long rentalId, String cardNumber) {
+        Long tenantId = rentalService.checkAuctionFinePayable(rentalId);
+        return submit(PaymentPurpose.AUCTION_FINE, rentalId, tenantId, cardNumber, submittedAt -> {
+            rentalService.settleAuctionFine(rentalId);
+            return rentalId;
+        });
+    }
+
+    public Optional<PaymentStatusDTO> getPayment(String paymentId) {
+        return paymentStatusStore.find(paymentId);
+    }
+
+    private PaymentTicket submit(PaymentPurpose purpose, Long rentalId, Long userId, String cardNumber,
+                                 ApprovedPayment onApproved) {
+        PaymentStatusDTO pending = PaymentStatusDTO.builder()
+                .paymentId(UUID.randomUUID().toString())
+                .purpose(purpose)
+                .state(PaymentState.PENDING)
+                .rentalId(rentalId)
+                .submittedAt(LocalDateTime.now())
+                .build();
+        paymentStatusStore.save(pending);
+        try {
+            Supplier<PaymentStatusDTO> process = () -> process(pending, userId, cardNumber, onApproved);
+            return new PaymentTicket(pending, CompletableFuture.supplyAsync(process, workers));
+        } catch (RejectedExecutionException e) {
+            paymentStatusStore.delete(pending.getPaymentId());
+            throw new IllegalStateException("Too many payments right now. Please try again.");
+        }
+    }
+
+    private PaymentStatusDTO process(PaymentStatusDTO pending, Long userId, String cardNumber,
+                                     ApprovedPayment onApproved) {
+        PaymentStatusDTO.PaymentStatusDTOBuilder completed = pending.toBuilder();
+        try {
+            if (paymentGateway.charge(pending.getPurpose(), cardNumber)) {
+                completed.state(PaymentState.SUCCEEDED)
+                        .rentalId(onApproved.commit(pending.getSubmittedAt()));
+            } else {
+                completed.state(PaymentState.DECLINED)
+                        .message("Payment declined. Please try again with a different card.");
+            }
+        } catch (RuntimeException e) {
+            // E.g. the apartment was booked by someone else while the card was being charged
+            log.warn("Payment {} for {} failed: {}", pending.getPaymentId(), pending.getPurpose(), e.getMessage());
+            completed.state(PaymentState.FAILED).message(e.getMessage());
+        }
+        PaymentStatusDTO result = completed.completedAt(LocalDateTime.now()).build();
+        saveOutcome(result);
+        notifyUser(userId, result);
+        return result;
+    }
+
+    // The charge is settled by now, a store outage must not turn it into a failed payment
+    private void saveOutcome(PaymentStatusDTO payment) {
+        try {
+            paymentStatusStore.save(payment);
+        } catch (RuntimeException e) {
+            log.warn("Failed to store the outcome of payment {}: {}", payment.getPaymentId(), e.getMessage());
+        }
+    }
+
+    private void notifyUser(Long userId, PaymentStatusDTO payment) {
+        if (userId == null) {
+            return;
+        }
+        try {
+            messagingTemplate.convertAndSendToUser(userId.toString(), "/queue/payments", payment);
+        } catch (RuntimeException e) {
+            log.warn("Failed to notify user {} about payment {}: {}", userId, payment.getPaymentId(), e.getMessage());
+        }
+    }
+
+    // Commits the rental or fine change for an approved charge, returns the rental id
+    @FunctionalInterface
+    private interface ApprovedPayment {
+        Long commit(LocalDateTime submittedAt);
+    }
+
+    // The payment as registered on submit, and its outcome once the worker is done
+    public record PaymentTicket(PaymentStatusDTO pending, CompletableFuture<PaymentStatusDTO> result) {
+    }
+}
@@ -1,12 +1,28 @@
 package pl.ug.NestPoint.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import pl.ug.NestPoint.domain.enums.PaymentPurpose;
+
 import java.util.Random;
 
+/**
+ * Local stand-in for a payment provider.
+ */
 @Service
-public class PaymentSimulationService {
+public class PaymentSimulationService implements PaymentGateway {
     
     private final Random random = new Random();
+    private final long latencyMs;
+    
+    public PaymentSimulationService(@Value("${payment.simulation.latency-ms:1000}") long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+    
+    @Override
+    public boolean charge(PaymentPurpose purpose, String cardNumber) {
+        return purpose == PaymentPurpose.RENTAL ? processPayment(cardNumber) : processAuctionPayment(cardNumber);
+    }
     
     public boolean processPayment(String cardNumber) {
         // Validate card number is exactly 10 digits
@@ -17,4 +33,21 @@ public class PaymentSimulationService {
         // 90% chance of success (return false only when random is 0)
         return random.nextInt(10) != 0;
     }
-}
\ No newline at end of file
+    
+    private boolean processAuctionPayment(String cardNumber) {
+        // Validate card number is exactly 10 digits
+        if (cardNumber == null || !cardNumber.matches("\\d{10}")) {
+            return false;
+        }
+        
+        // Simulate processing delay
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        // 98% SUCCESS RATE FOR AUCTION PAYMENTS (higher than regular 90%)
+        return random.nextInt(50) != 0;
+    }
+}
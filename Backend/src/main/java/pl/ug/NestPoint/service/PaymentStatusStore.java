@@ -0,0 +1,88 @@
+package pl.ug.NestPoint.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import pl.ug.NestPoint.domain.enums.PaymentPurpose;
+import pl.ug.NestPoint.domain.enums.PaymentState;
+import pl.ug.NestPoint.dto.PaymentStatusDTO;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Payment states shared by all nodes, so a payment can be polled on any node, not only the one that took it.
+ * Each payment is a Redis hash that expires an hour after its last update.
+ */
+@Component
+@RequiredArgsConstructor
+public class PaymentStatusStore {
+
+    private static final String KEY_PREFIX = "payment:status:";
+    private static final long RETENTION_SECONDS = 60 * 60;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    // Writes the payment and restarts its expiry in a single round trip
+    public void save(PaymentStatusDTO payment) {
+        String key = key(payment.getPaymentId());
+        Map<String, String> fields = toFields(payment);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            redis.hMSet(key, fields);
+            redis.expire(key, RETENTION_SECONDS);
+            return null;
+        });
+    }
+
+    public Optional<PaymentStatusDTO> find(String paymentId) {
+        Map<Object, Object> fields = stringRedisTemplate.opsForHash().entries(key(paymentId));
+        if (fields.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(fromFields(paymentId, fields));
+    }
+
+    public void delete(String paymentId) {
+        stringRedisTemplate.delete(key(paymentId));
+    }
+
+    private static Map<String, String> toFields(PaymentStatusDTO payment) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("purpose", payment.getPurpose().name());
+        fields.put("state", payment.getState().name());
+        fields.put("submittedAt", payment.getSubmittedAt().toString());
+        if (payment.getRentalId() != null) {
+            fields.put("rentalId", payment.getRentalId().toString());
+        }
+        if (payment.getMessage() != null) {
+            fields.put("message", payment.getMessage());
+        }
+        if (payment.getCompletedAt() != null) {
+            fields.put("completedAt", payment.getCompletedAt().toString());
+        }
+        return fields;
+    }
+
+    private static PaymentStatusDTO fromFields(String paymentId, Map<Object, Object> fields) {
+        Object rentalId = fields.get("rentalId");
+        Object completedAt = fields.get("completedAt");
+        return PaymentStatusDTO.builder()
+                .paymentId(paymentId)
+                .purpose(PaymentPurpose.valueOf((String) fields.get("purpose")))
+                .state(PaymentState.valueOf((String) fields.get("state")))
+                .rentalId(rentalId != null ? Long.valueOf((String) rentalId) : null)
+                .message((String) fields.get("message"))
+                .submittedAt(LocalDateTime.parse((String) fields.get("submittedAt")))
+                .completedAt(completedAt != null ? LocalDateTime.parse((String) completedAt) : null)
+                .build();
+    }
+
+    private static String key(String paymentId) {
+        return KEY_PREFIX + paymentId;
+    }
+}
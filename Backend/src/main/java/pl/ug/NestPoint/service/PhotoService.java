@@ -20,6 +20,7 @@ import java.util.List;
 public class PhotoService {
     private final Cloudinary cloudinary;
     private final PhotoRepository photoRepository;
+    private final ApartmentMapIndex apartmentMapIndex;
 
     private final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5 MB
     private final String[] ALLOWED_FILE_TYPES = {"image/jpeg", "image/png"};
@@ -44,7 +45,10 @@ public class PhotoService {
                 .apartment(Apartment.builder().id(apartmentId).build())
                 .build();
 
-        return photoRepository.save(photo);
+        Photo saved = photoRepository.save(photo);
+        // The first photo is the apartment's map thumbnail
+        apartmentMapIndex.update(apartmentId);
+        return saved;
     }
 
     /**
@@ -105,6 +109,9 @@ public class PhotoService {
     public void deletePhoto(Long photoId) {
         Photo photo = getPhoto(photoId);
         photoRepository.delete(photo);
+        if (photo.getApartment() != null) {
+            apartmentMapIndex.update(photo.getApartment().getId());
+        }
         
         // Extract the public ID from the Cloudinary URL
         try {
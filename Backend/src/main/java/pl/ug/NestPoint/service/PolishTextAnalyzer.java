@@ -0,0 +1,132 @@
+package pl.ug.NestPoint.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Turns listing text and search queries into index terms: words are lower-cased, stop words dropped,
+ * diacritics removed, so queries typed without Polish letters match, and inflectional endings stripped
+ * by a light Polish stemmer, so that "Krakowie", "Kraków" and "krakow" all become "krak".
+ * The stemmer only cuts the longest known case or number ending while at least three letters remain;
+ * it does not know exceptions, but it maps the forms of one word onto the same term in most cases, which
+ * is what matching needs.
+ */
+final class PolishTextAnalyzer {
+
+    private static final Locale POLISH = Locale.forLanguageTag("pl");
+    private static final int MIN_STEM_LENGTH = 3;
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "aby", "ale", "bez", "by", "być", "czy", "dla", "do", "i", "ich", "jak", "jest", "jego", "już",
+            "lub", "ma", "na", "nad", "nie", "o", "od", "oraz", "po", "pod", "przy", "przez", "się", "są", "ta",
+            "te", "to", "tu", "u", "ul", "w", "we", "z", "za", "ze", "że",
+            "an", "and", "at", "for", "in", "is", "of", "on", "or", "the", "with");
+
+    // Endings without diacritics, longest first so that "owie" is cut before "ie"
+    private static final List<String> SUFFIXES = sortedByLength(
+            "osciach", "osciami", "osciom", "oscia", "osci", "osc",
+            "owiach", "owiami", "owych", "owymi", "owego", "owemu", "owej", "owym", "owie", "owa", "owe", "owi",
+            "iach", "iami", "ach", "ami", "ego", "emu", "ych", "ymi", "ich", "imi", "iem", "iej", "iom",
+            "ow", "om", "em", "ej", "ym", "im", "ie", "ia", "iu", "ii",
+            "a", "e", "i", "o", "u", "y");
+
+    private PolishTextAnalyzer() {
+    }
+
+    /**
+     * Terms of the text in order, repeated as often as they occur.
+     */
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        String lowerCase = text.toLowerCase(POLISH);
+        int start = -1;
+        for (int i = 0; i <= lowerCase.length(); i++) {
+            boolean wordCharacter = i < lowerCase.length() && Character.isLetterOrDigit(lowerCase.charAt(i));
+            if (wordCharacter && start < 0) {
+                start = i;
+            } else if (!wordCharacter && start >= 0) {
+                String term = term(lowerCase.substring(start, i));
+                if (term != null) {
+                    terms.add(term);
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    private static String term(String word) {
+        if (STOP_WORDS.contains(word) || (word.length() == 1 && !Character.isDigit(word.charAt(0)))) {
+            return null;
+        }
+        return stem(fold(word));
+    }
+
+    static String stem(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.isDigit(word.charAt(i))) {
+                // Street numbers and postal codes stay as they are
+                return word;
+            }
+        }
+        for (String suffix : SUFFIXES) {
+            if (word.length() - suffix.length() >= MIN_STEM_LENGTH && word.endsWith(suffix)) {
+                return word.substring(0, word.length() - suffix.length());
+            }
+        }
+        return word;
+    }
+
+    // Polish letters are mapped directly, other accented letters lose their combining marks
+    static String fold(String word) {
+        if (isAscii(word)) {
+            return word;
+        }
+        StringBuilder folded = new StringBuilder(word.length());
+        boolean other = false;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            switch (c) {
+                case 'ą' -> folded.append('a');
+                case 'ć' -> folded.append('c');
+                case 'ę' -> folded.append('e');
+                case 'ł' -> folded.append('l');
+                case 'ń' -> folded.append('n');
+                case 'ó' -> folded.append('o');
+                case 'ś' -> folded.append('s');
+                case 'ź', 'ż' -> folded.append('z');
+                default -> {
+                    folded.append(c);
+                    other |= c > 127;
+                }
+            }
+        }
+        return other
+                ? COMBINING_MARKS.matcher(Normalizer.normalize(folded, Normalizer.Form.NFD)).replaceAll("")
+                : folded.toString();
+    }
+
+    private static boolean isAscii(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (word.charAt(i) > 127) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> sortedByLength(String... suffixes) {
+        List<String> sorted = new ArrayList<>(List.of(suffixes));
+        sorted.sort(Comparator.comparingInt(String::length).reversed());
+        return List.copyOf(sorted);
+    }
+}
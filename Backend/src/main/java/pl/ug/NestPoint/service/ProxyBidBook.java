@@ -0,0 +1,96 @@
+package pl.ug.NestPoint.service;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Standing automatic bids of a single auction, ordered by their maximum amount.
+ * A new bid is settled against all of them in one step: only the strongest competitor
+ * can answer it, and its price only depends on the runner-up, so no bid-by-bid
+ * escalation is needed. Not thread safe, owned by the auction's engine shard.
+ */
+public class ProxyBidBook {
+
+    // Highest ceiling first, on equal ceilings the earlier proxy wins
+    private static final Comparator<ProxyBid> ORDER = Comparator
+            .comparingDouble(ProxyBid::ceiling).reversed()
+            .thenComparing(ProxyBid::placedAt)
+            .thenComparing(ProxyBid::bidderId);
+
+    private final NavigableSet<ProxyBid> byCeiling = new TreeSet<>(ORDER);
+    private final Map<Long, ProxyBid> byBidder = new HashMap<>();
+
+    public void register(Long bidderId, double ceiling, LocalDateTime placedAt) {
+        ProxyBid previous = byBidder.remove(bidderId);
+        if (previous != null) {
+            byCeiling.remove(previous);
+        }
+        ProxyBid proxyBid = new ProxyBid(bidderId, ceiling, placedAt);
+        byCeiling.add(proxyBid);
+        byBidder.put(bidderId, proxyBid);
+    }
+
+    public Optional<ProxyBid> get(Long bidderId) {
+        return Optional.ofNullable(byBidder.get(bidderId));
+    }
+
+    public int size() {
+        return byCeiling.size();
+    }
+
+    /**
+     * Settles a bid of the given amount against the standing proxies.
+     *
+     * @return the single automatic bid that results from it, empty when the bid stands as placed
+     */
+    public Optional<CounterBid> resolve(Long bidderId, double amount, double increment) {
+        // Strongest two competitors, the bidder's own proxy is skipped
+        ProxyBid top = null;
+        ProxyBid runnerUp = null;
+        Iterator<ProxyBid> iterator = byCeiling.iterator();
+        while (iterator.hasNext() && runnerUp == null) {
+            ProxyBid candidate = iterator.next();
+            if (candidate.bidderId().equals(bidderId)) {
+                continue;
+            }
+            if (top == null) {
+                top = candidate;
+            } else {
+                runnerUp = candidate;
+            }
+        }
+
+        if (top == null || top.ceiling() < amount + increment) {
+            return Optional.empty();
+        }
+
+        ProxyBid own = byBidder.get(bidderId);
+        double ownCeiling = own != null ? Math.max(amount, own.ceiling()) : amount;
+        boolean competitorWins = top.ceiling() > ownCeiling
+                || (top.ceiling() == ownCeiling && (own == null || ORDER.compare(top, own) < 0));
+
+        if (competitorWins) {
+            double rivalLevel = runnerUp != null ? Math.max(ownCeiling, runnerUp.ceiling()) : ownCeiling;
+            double price = Math.min(top.ceiling(), rivalLevel + increment);
+            return price > amount
+                    ? Optional.of(new CounterBid(top.bidderId(), price, top.ceiling()))
+                    : Optional.empty();
+        }
+
+        // The bidder's own proxy outlasts the strongest competitor
+        double price = Math.min(ownCeiling, top.ceiling() + increment);
+        return Optional.of(new CounterBid(bidderId, price, ownCeiling));
+    }
+
+    public record ProxyBid(Long bidderId, double ceiling, LocalDateTime placedAt) {
+    }
+
+    public record CounterBid(Long bidderId, double amount, double maxAutoBidAmount) {
+    }
+}
@@ -0,0 +1,14 @@
+package pl.ug.NestPoint.service;
+
+import java.time.Duration;
+
+/**
+ * A named token bucket: up to {@code capacity} permits, refilled evenly over {@code period}.
+ * For example {@code new RateLimit("bid", 1, Duration.ofMinutes(15))} allows one bid every 15 minutes.
+ */
+public record RateLimit(String name, int capacity, Duration period) {
+
+    public double permitsPerMilli() {
+        return (double) capacity / period.toMillis();
+    }
+}
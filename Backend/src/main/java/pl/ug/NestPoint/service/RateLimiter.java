@@ -0,0 +1,29 @@
+package pl.ug.NestPoint.service;
+
+import java.time.Instant;
+
+/**
+ * Constant-time rate limiting per key, e.g. per (auction, bidder) pair or per user.
+ * The in-memory implementation is used by default, {@code rate-limit.store=redis}
+ * shares the buckets between nodes.
+ */
+public interface RateLimiter {
+
+    /**
+     * Takes a permit for the key when one is available.
+     *
+     * @return false when the key is over its limit
+     */
+    boolean tryAcquire(RateLimit limit, String key);
+
+    /**
+     * Records a permit taken at the given time, used to restore limits from persisted history.
+     * Does nothing when the key already has state.
+     */
+    void seed(RateLimit limit, String key, Instant acquiredAt);
+
+    /**
+     * Gives back a permit taken by {@link #tryAcquire}, e.g. when the action it allowed was rolled back.
+     */
+    void release(RateLimit limit, String key);
+}
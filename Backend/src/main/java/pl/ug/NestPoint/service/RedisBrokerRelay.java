@@ -0,0 +1,168 @@
+package pl.ug.NestPoint.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lets several backend nodes share one set of STOMP destinations.
+ * Every message sent to the local simple broker for /topic or /user is delivered locally right away and
+ * queued per destination; the queues are published to Redis as one envelope per destination every flush
+ * interval. Other nodes hand the envelope back to their own broker channel, where user destinations are
+ * resolved against the sessions connected to that node.
+ */
+@Component
+@ConditionalOnProperty(name = "websocket.relay.enabled", havingValue = "true")
+@Slf4j
+public class RedisBrokerRelay implements ChannelInterceptor, MessageListener {
+
+    static final String CHANNEL = "stomp:relay";
+    // Marks messages that came from another node, so they are not published again
+    static final String RELAYED_HEADER = "relayed";
+
+    private static final List<String> RELAYED_PREFIXES = List.of("/topic/", "/user/");
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisConnectionFactory redisConnectionFactory;
+    private final MessageChannel brokerChannel;
+    private final ObjectMapper objectMapper;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, List<RelayedMessage>> pending = new ConcurrentHashMap<>();
+    private RedisMessageListenerContainer listenerContainer;
+
+    // The broker channel is created after its interceptors, hence the lazy proxy
+    public RedisBrokerRelay(StringRedisTemplate stringRedisTemplate, RedisConnectionFactory redisConnectionFactory,
+                            @Lazy @Qualifier("brokerChannel") MessageChannel brokerChannel, ObjectMapper objectMapper) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisConnectionFactory = redisConnectionFactory;
+        this.brokerChannel = brokerChannel;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void start() {
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(redisConnectionFactory);
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        flush();
+        listenerContainer.destroy();
+    }
+
+    @Override
+    public org.springframework.messaging.Message<?> preSend(org.springframework.messaging.Message<?> message,
+                                                            MessageChannel channel) {
+        if (shouldRelay(message)) {
+            String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+            Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+            RelayedMessage relayedMessage = new RelayedMessage(
+                    contentType != null ? contentType.toString() : null, (byte[]) message.getPayload());
+            pending.compute(destination, (key, queued) -> {
+                List<RelayedMessage> messages = queued != null ? queued : new ArrayList<>();
+                messages.add(relayedMessage);
+                return messages;
+            });
+        }
+        return message;
+    }
+
+    @Scheduled(fixedDelayString = "${websocket.relay.flush-interval-ms:20}")
+    public void flush() {
+        for (String destination : pending.keySet()) {
+            List<RelayedMessage> messages = pending.remove(destination);
+            if (messages == null || messages.isEmpty()) {
+                continue;
+            }
+            try {
+                String envelope = objectMapper.writeValueAsString(new RelayEnvelope(nodeId, destination, messages));
+                stringRedisTemplate.convertAndSend(CHANNEL, envelope);
+            } catch (JsonProcessingException | RuntimeException e) {
+                // Local subscribers already got the messages, only other nodes miss them
+                log.warn("Failed to relay {} messages for {}: {}", messages.size(), destination, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        RelayEnvelope envelope;
+        try {
+            envelope = objectMapper.readValue(message.getBody(), RelayEnvelope.class);
+        } catch (IOException e) {
+            log.warn("Ignoring an unreadable relay envelope: {}", e.getMessage());
+            return;
+        }
+        if (nodeId.equals(envelope.nodeId())) {
+            return;
+        }
+
+        for (RelayedMessage relayedMessage : envelope.messages()) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination(envelope.destination());
+            if (relayedMessage.contentType() != null) {
+                accessor.setContentType(MimeType.valueOf(relayedMessage.contentType()));
+            }
+            accessor.setHeader(RELAYED_HEADER, true);
+            MessageHeaders headers = accessor.getMessageHeaders();
+            brokerChannel.send(MessageBuilder.createMessage(relayedMessage.payload(), headers));
+        }
+    }
+
+    String nodeId() {
+        return nodeId;
+    }
+
+    private boolean shouldRelay(org.springframework.messaging.Message<?> message) {
+        MessageHeaders headers = message.getHeaders();
+        if (SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE
+                || !(message.getPayload() instanceof byte[])
+                || headers.containsKey(RELAYED_HEADER)) {
+            return false;
+        }
+        // Messages already resolved to a local session by the user destination handler stay on this node
+        if (headers.containsKey(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION)) {
+            return false;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        return destination != null && RELAYED_PREFIXES.stream().anyMatch(destination::startsWith);
+    }
+
+    record RelayEnvelope(String nodeId, String destination, List<RelayedMessage> messages) {
+    }
+
+    // Payloads are already converted by the messaging template, Jackson writes them as base64
+    record RelayedMessage(String contentType, byte[] payload) {
+    }
+}
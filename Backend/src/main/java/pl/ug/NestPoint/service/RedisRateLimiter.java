@@ -0,0 +1,94 @@
+package pl.ug.NestPoint.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Token buckets shared by all nodes. Each check is a single Lua script call,
+ * so refill and take happen atomically on the Redis side.
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.store", havingValue = "redis")
+@RequiredArgsConstructor
+public class RedisRateLimiter implements RateLimiter {
+
+    private static final String KEY_PREFIX = "ratelimit:";
+
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>("""
+            local capacity = tonumber(ARGV[1])
+            local period = tonumber(ARGV[2])
+            local now = tonumber(ARGV[3])
+            local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+            local tokens = tonumber(state[1])
+            local ts = tonumber(state[2])
+            if tokens == nil then
+              tokens = capacity
+              ts = now
+            end
+            if now > ts then
+              tokens = math.min(capacity, tokens + (now - ts) * capacity / period)
+              ts = now
+            end
+            local allowed = 0
+            if tokens >= 1 then
+              tokens = tokens - 1
+              allowed = 1
+            end
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(ts))
+            redis.call('PEXPIRE', KEYS[1], period)
+            return allowed
+            """, Long.class);
+
+    private static final RedisScript<Long> SEED_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+              return 0
+            end
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tonumber(ARGV[1]) - 1), 'ts', ARGV[3])
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            local tokens = tonumber(redis.call('HGET', KEYS[1], 'tokens'))
+            if tokens == nil then
+              return 0
+            end
+            redis.call('HSET', KEYS[1], 'tokens', tostring(math.min(tonumber(ARGV[1]), tokens + 1)))
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Override
+    public boolean tryAcquire(RateLimit limit, String key) {
+        Long allowed = stringRedisTemplate.execute(ACQUIRE_SCRIPT, List.of(redisKey(limit, key)),
+                String.valueOf(limit.capacity()),
+                String.valueOf(limit.period().toMillis()),
+                String.valueOf(System.currentTimeMillis()));
+        return allowed != null && allowed == 1L;
+    }
+
+    @Override
+    public void seed(RateLimit limit, String key, Instant acquiredAt) {
+        stringRedisTemplate.execute(SEED_SCRIPT, List.of(redisKey(limit, key)),
+                String.valueOf(limit.capacity()),
+                String.valueOf(limit.period().toMillis()),
+                String.valueOf(acquiredAt.toEpochMilli()));
+    }
+
+    @Override
+    public void release(RateLimit limit, String key) {
+        stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(redisKey(limit, key)), String.valueOf(limit.capacity()));
+    }
+
+    private static String redisKey(RateLimit limit, String key) {
+        return KEY_PREFIX + limit.name() + ":" + key;
+    }
+}
@@ -0,0 +1,145 @@
+package pl.ug.NestPoint.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.ug.NestPoint.domain.RentalStatus;
+import pl.ug.NestPoint.dto.RentalCalendarEventDTO;
+import pl.ug.NestPoint.dto.RentalCalendarVersion;
+import pl.ug.NestPoint.repository.RentalRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Calendar views of rentals. Events are read as projections of the few columns a calendar shows,
+ * and every calendar has a version (latest change, number of rentals) for conditional requests.
+ * Owners can export all their rentals as an iCalendar (RFC 5545) feed, streamed from a database cursor.
+ */
+@Service
+@RequiredArgsConstructor
+public class RentalCalendarService {
+
+    private static final DateTimeFormatter ICAL_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final DateTimeFormatter ICAL_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final int ICAL_LINE_OCTETS = 75;
+
+    private final RentalRepository rentalRepository;
+
+    // An apartment calendar takes precedence over a user calendar, without either all rentals are shown
+    public List<RentalCalendarEventDTO> findEvents(Long apartmentId, Long userId, LocalDate startDate, LocalDate endDate) {
+        return rentalRepository.findCalendarEvents(apartmentId, apartmentId != null ? null : userId,
+                startOrDefault(startDate), endOrDefault(endDate));
+    }
+
+    public RentalCalendarVersion getVersion(Long apartmentId, Long userId, LocalDate startDate, LocalDate endDate) {
+        return rentalRepository.findCalendarVersion(apartmentId, apartmentId != null ? null : userId,
+                startOrDefault(startDate), endOrDefault(endDate));
+    }
+
+    /**
+     * Writes the owner's rentals as an iCalendar feed. Rentals are read from a cursor and written
+     * one by one, so the export never holds the whole history in memory.
+     */
+    @Transactional(readOnly = true)
+    public void writeOwnerCalendar(Long ownerId, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        String stamp = ZonedDateTime.now(ZoneOffset.UTC).format(ICAL_TIMESTAMP);
+        writeLine(writer, "BEGIN:VCALENDAR");
+        writeLine(writer, "VERSION:2.0");
+        writeLine(writer, "PRODID:-//NestPoint//Rentals//EN");
+        writeLine(writer, "CALSCALE:GREGORIAN");
+        writeLine(writer, "X-WR-CALNAME:NestPoint rentals");
+        try (Stream<RentalCalendarEventDTO> events = rentalRepository.streamOwnerCalendar(ownerId)) {
+            events.forEach(event -> {
+                try {
+                    writeEvent(writer, event, stamp);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writeLine(writer, "END:VCALENDAR");
+        writer.flush();
+    }
+
+    private void writeEvent(Writer writer, RentalCalendarEventDTO event, String stamp) throws IOException {
+        writeLine(writer, "BEGIN:VEVENT");
+        writeLine(writer, "UID:rental-" + event.getId() + "@nestpoint");
+        writeLine(writer, "DTSTAMP:" + stamp);
+        writeLine(writer, "DTSTART;VALUE=DATE:" + event.getStartDate().format(ICAL_DATE));
+        // All-day DTEND is exclusive, which matches the check-out day
+        writeLine(writer, "DTEND;VALUE=DATE:" + event.getEndDate().format(ICAL_DATE));
+        writeLine(writer, "SUMMARY:" + escape("Rental: " + event.getApartmentTitle()));
+        writeLine(writer, "STATUS:" + icalStatus(event.getStatus()));
+        writeLine(writer, "END:VEVENT");
+    }
+
+    private static String icalStatus(RentalStatus status) {
+        return switch (status) {
+            case PENDING -> "TENTATIVE";
+            case CANCELLED -> "CANCELLED";
+            default -> "CONFIRMED";
+        };
+    }
+
+    static String escape(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.replace("\\", "\\\\")
+                .replace(";", "\\;")
+                .replace(",", "\\,")
+                .replace("\r\n", "\\n")
+                .replace("\n", "\\n")
+                .replace("\r", "\\n");
+    }
+
+    // Folds lines longer than 75 octets, continuation lines start with a space
+    static void writeLine(Writer writer, String line) throws IOException {
+        int octets = 0;
+        for (int i = 0; i < line.length(); ) {
+            int codePoint = line.codePointAt(i);
+            int size = utf8Length(codePoint);
+            if (octets + size > ICAL_LINE_OCTETS) {
+                writer.write("\r\n ");
+                octets = 1;
+            }
+            writer.write(Character.toChars(codePoint));
+            octets += size;
+            i += Character.charCount(codePoint);
+        }
+        writer.write("\r\n");
+    }
+
+    private static int utf8Length(int codePoint) {
+        if (codePoint < 0x80) {
+            return 1;
+        }
+        if (codePoint < 0x800) {
+            return 2;
+        }
+        return codePoint < 0x10000 ? 3 : 4;
+    }
+
+    private static LocalDate startOrDefault(LocalDate startDate) {
+        return startDate != null ? startDate : LocalDate.now();
+    }
+
+    private static LocalDate endOrDefault(LocalDate endDate) {
+        return endDate != null ? endDate : LocalDate.now().plusMonths(3); // Default to 3 months ahead
+    }
+}
@@ -0,0 +1,122 @@
+package pl.ug.NestPoint.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.ug.NestPoint.repository.RentalMaintenanceRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Periodic rental jobs: status transitions, auction payment fines and blocking users with unpaid fines.
+ * Each job runs as a series of bulk updates of at most chunk-size rows, each in its own short transaction,
+ * instead of loading every matching entity into one long transaction.
+ * Affected rows and run time are published as rental.jobs.rows and rental.jobs.duration, tagged by job.
+ * Fines and blocking normally happen on time through {@link DelayedJobQueue}, the sweeps here only pick up
+ * rentals that have no queued job, e.g. ones created before the queue existed.
+ */
+@Component
+@Slf4j
+public class RentalMaintenanceJobs {
+
+    static final double AUCTION_FINE_RATE = 0.30;
+    // Time a tenant has to pay an issued fine before being blocked
+    static final long FINE_GRACE_HOURS = 24;
+
+    private final RentalMaintenanceRepository maintenanceRepository;
+    private final AnalyticsRollups analyticsRollups;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int chunkSize;
+
+    public RentalMaintenanceJobs(RentalMaintenanceRepository maintenanceRepository, AnalyticsRollups analyticsRollups,
+                                 PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                 @Value("${rental.jobs.chunk-size:500}") int chunkSize) {
+        this.maintenanceRepository = maintenanceRepository;
+        this.analyticsRollups = analyticsRollups;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(cron = "0 0 0 * * ?") // Run daily at midnight
+    public void updateRentalStatuses() {
+        LocalDate today = LocalDate.now();
+        // PENDING to ACTIVE when the start date is reached, ACTIVE to COMPLETED when the end date has passed
+        runInChunks("activate-rentals", () -> Chunk.of(maintenanceRepository.activateStartedRentals(today, chunkSize)));
+        runInChunks("complete-rentals", () -> {
+            analyticsRollups.addEndedRentals(today, chunkSize);
+            return Chunk.of(maintenanceRepository.completeEndedRentals(today, chunkSize));
+        });
+    }
+
+    @Scheduled(fixedRate = 3600000) // Run every hour
+    public void checkAuctionPaymentDeadlines() {
+        LocalDateTime now = LocalDateTime.now();
+        runInChunks("issue-auction-fines",
+                () -> Chunk.of(maintenanceRepository.issueOverdueFines(now, AUCTION_FINE_RATE, chunkSize)));
+    }
+
+    @Scheduled(fixedRate = 3600000) // Run every hour
+    public void blockUsersWithUnpaidFines() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime fineDeadline = now.minusHours(FINE_GRACE_HOURS);
+        runInChunks("block-users", () -> {
+            List<RentalMaintenanceRepository.UnpaidFine> unpaidFines =
+                    maintenanceRepository.findTenantsToBlock(fineDeadline, chunkSize);
+            if (unpaidFines.isEmpty()) {
+                return new Chunk(0, 0);
+            }
+            return new Chunk(unpaidFines.size(), maintenanceRepository.blockUsers(unpaidFines, now));
+        });
+    }
+
+    // Returns the number of rows changed over all chunks
+    int runInChunks(String job, Supplier<Chunk> chunk) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Counter rows = Counter.builder("rental.jobs.rows")
+                .description("Rows changed by the periodic rental jobs")
+                .tag("job", job)
+                .register(meterRegistry);
+        int total = 0;
+        int chunks = 0;
+        try {
+            Chunk result;
+            do {
+                result = transactionTemplate.execute(status -> chunk.get());
+                if (result == null) {
+                    break;
+                }
+                total += result.updated();
+                chunks++;
+                rows.increment(result.updated());
+            } while (result.selected() >= chunkSize);
+        } finally {
+            long nanos = sample.stop(Timer.builder("rental.jobs.duration")
+                    .description("Run time of the periodic rental jobs")
+                    .tag("job", job)
+                    .register(meterRegistry));
+            if (total > 0) {
+                log.info("Rental job {} changed {} rows in {} chunks in {} ms", job, total, chunks, nanos / 1_000_000);
+            }
+        }
+        return total;
+    }
+
+    // selected decides whether another chunk may be waiting, updated is what actually changed
+    record Chunk(int selected, int updated) {
+
+        static Chunk of(int updated) {
+            return new Chunk(updated, updated);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package pl.ug.NestPoint.service;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Opaque cursor for keyset scrolling over rentals: the sort key and id of the last rental of a window,
+ * encoded as "sortBy:value:id" in URL-safe Base64. Only non-null rental columns can be sort keys.
+ */
+final class RentalScrollCursor {
+
+    static final Map<String, Function<String, Object>> SORT_KEYS = Map.of(
+            "id", Long::valueOf,
+            "startDate", LocalDate::parse,
+            "endDate", LocalDate::parse,
+            "totalCost", Double::valueOf);
+
+    private RentalScrollCursor() {
+    }
+
+    static void checkSortKey(String sortBy) {
+        if (!SORT_KEYS.containsKey(sortBy)) {
+            throw new IllegalArgumentException("Cannot scroll rentals by " + sortBy + ", use one of " + SORT_KEYS.keySet());
+        }
+    }
+
+    // No cursor starts at the first window
+    static ScrollPosition decode(String cursor, String sortBy) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 3);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid rental cursor");
+        }
+        if (parts.length != 3 || !parts[0].equals(sortBy)) {
+            throw new IllegalArgumentException("Rental cursor does not match sorting by " + sortBy);
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            keys.put(sortBy, SORT_KEYS.get(sortBy).apply(parts[1]));
+            keys.put("id", Long.valueOf(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid rental cursor");
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    static String encode(ScrollPosition position, String sortBy) {
+        Map<String, Object> keys = ((KeysetScrollPosition) position).getKeys();
+        String raw = sortBy + ":" + keys.get(sortBy) + ":" + keys.get("id");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
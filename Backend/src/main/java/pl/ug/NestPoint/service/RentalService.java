@@ -1,11 +1,13 @@
 package pl.ug.NestPoint.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,7 +21,9 @@ import pl.ug.NestPoint.dto.RentalSearchCriteria;
 import pl.ug.NestPoint.mapper.RentalMapper;
 import pl.ug.NestPoint.repository.ApartmentRepository;
 import pl.ug.NestPoint.repository.ConversationRepository;
+import pl.ug.NestPoint.repository.RentalRangeSchema;
 import pl.ug.NestPoint.repository.RentalRepository;
+import pl.ug.NestPoint.repository.RentalSpecifications;
 import pl.ug.NestPoint.domain.enums.Role;
 import pl.ug.NestPoint.domain.User;
 import pl.ug.NestPoint.repository.UserRepository;
@@ -37,8 +41,13 @@ public class RentalService {
     private final RentalMapper rentalMapper;
     private final UserRepository userRepository;
     private final ConversationRepository conversationRepository;
+    private final ApartmentAvailabilityIndex availabilityIndex;
+    private final BookingCoordinator bookingCoordinator;
+    private final AnalyticsRollups analyticsRollups;
 
     private static final double LUXURY_THRESHOLD = 2000.0;
+    // Largest page or window an admin listing returns, larger requests are cut down to it
+    static final int MAX_PAGE_SIZE = 100;
 
     public List<Rental> getAllRentals() {
         return rentalRepository.findAll();
@@ -84,8 +93,10 @@ public class RentalService {
             throw new IllegalStateException("User must have TENANT role to create a rental");
         }
         
-        // Check for overlapping rentals
-        boolean overlapping = apartment.isOccupiedBetween(rentalDTO.getStartDate(), rentalDTO.getEndDate());
+        // Check for overlapping rentals, holding the apartment until this booking is committed
+        bookingCoordinator.lock(apartment.getId());
+        boolean overlapping = bookingCoordinator.isOccupiedBetween(
+                apartment.getId(), rentalDTO.getStartDate(), rentalDTO.getEndDate(), null);
         if (overlapping) {
             throw new IllegalStateException("Apartment is already booked for these dates");
         }
@@ -107,7 +118,8 @@ public class RentalService {
         rental.setRentalFees(totalFees);
         
         // Save rental first to get ID
-        rental = rentalRepository.saveAndFlush(rental);
+        rental = saveBooking(rental, "Apartment is already booked for these dates");
+        availabilityIndex.update(rental);
         
         // Create conversation
         createConversationForRental(rental);
@@ -133,15 +145,9 @@ public class RentalService {
             
             // Check if the apartment is available for the new dates
             // Exclude the current rental from the check
-            boolean occupied = apartment.getRentals().stream()
-                .filter(r -> !r.getId().equals(rental.getId()))
-                .filter(r -> r.getStatus() != RentalStatus.CANCELLED)
-                .anyMatch(r -> 
-                    (r.getStartDate().isBefore(rentalDTO.getEndDate()) || 
-                     r.getStartDate().isEqual(rentalDTO.getEndDate())) && 
-                    (r.getEndDate().isAfter(rentalDTO.getStartDate()) || 
-                     r.getEndDate().isEqual(rentalDTO.getStartDate()))
-                );
+            bookingCoordinator.lock(rental.getApartment().getId(), apartment.getId());
+            boolean occupied = bookingCoordinator.isOccupiedBetween(
+                apartment.getId(), rentalDTO.getStartDate(), rentalDTO.getEndDate(), rental.getId());
                 
             if (occupied) {
                 throw new IllegalStateException("Apartment is not available for the requested dates");
@@ -169,7 +175,21 @@ public class RentalService {
             rental.setStatus(RentalStatus.valueOf(rentalDTO.getStatus()));
         }
 
-        return rentalRepository.saveAndFlush(rental);
+        Rental savedRental = saveBooking(rental, "Apartment is not available for the requested dates");
+        availabilityIndex.update(savedRental);
+        return savedRental;
+    }
+
+    // The database rejects overlapping bookings that slipped past the in-memory check, e.g. from another node
+    private Rental saveBooking(Rental rental, String overlapMessage) {
+        try {
+            return rentalRepository.saveAndFlush(rental);
+        } catch (DataIntegrityViolationException e) {
+            if (RentalRangeSchema.isOverlapViolation(e)) {
+                throw new IllegalStateException(overlapMessage);
+            }
+            throw e;
+        }
     }
 
     @Transactional
@@ -179,6 +199,7 @@ public class RentalService {
                 .orElseThrow(() -> new RuntimeException("Rental not found"));
 
         rentalRepository.deleteById(id);
+        availabilityIndex.remove(id);
     }
 
 
@@ -202,31 +223,45 @@ public class RentalService {
         return rentalRepository.findByOccupied(occupied, pageable);
     }
 
+    // All non-null criteria are combined, null criteria lists every rental
     public Page<Rental> searchRentals(RentalSearchCriteria criteria,
                                     int page,
                                     int size,
                                     String sortBy,
                                     String direction) {
-        Pageable pageable = PageRequest.of(
-                page,
-                size,
-                direction.equalsIgnoreCase("ASC")
-                        ? Sort.by(sortBy).ascending()
-                        : Sort.by(sortBy).descending()
-        );
-    
-        if (criteria.getAddress() != null) {
-            return rentalRepository.findByApartmentAddressContaining(criteria.getAddress(), pageable);
-        } else if (criteria.getOccupied() != null) {
-            return rentalRepository.findByOccupied(criteria.getOccupied(), pageable);
-        } else if (criteria.getOwnerName() != null) {
-            return rentalRepository.findByOwnerName(criteria.getOwnerName(), Role.OWNER, pageable);
-        } else if (criteria.getTenantName() != null) {
-            return rentalRepository.findByTenantName(criteria.getTenantName(), Role.TENANT, pageable);
-        } else if (criteria.getRentalStatus() != null) {
-            return rentalRepository.findByStatus(RentalStatus.valueOf(criteria.getRentalStatus()), pageable);
-        }
-        return rentalRepository.findAll(pageable);
+        Pageable pageable = PageRequest.of(page, Math.min(size, MAX_PAGE_SIZE), Sort.by(sortDirection(direction), sortBy));
+        return rentalRepository.findAll(RentalSpecifications.matching(criteria), pageable);
+    }
+
+    /**
+     * Keyset variant of searchRentals. Each window continues after the cursor of the previous one
+     * on (sortBy, id) instead of skipping rows, and no count query runs, so deep windows cost the same
+     * as the first one.
+     */
+    @Transactional(readOnly = true)
+    public RentalWindow scrollRentals(RentalSearchCriteria criteria,
+                                      String cursor,
+                                      int size,
+                                      String sortBy,
+                                      String direction) {
+        RentalScrollCursor.checkSortKey(sortBy);
+        Sort.Direction sortDirection = sortDirection(direction);
+        Sort sort = sortBy.equals("id")
+                ? Sort.by(sortDirection, "id")
+                : Sort.by(sortDirection, sortBy).and(Sort.by(sortDirection, "id"));
+        ScrollPosition position = RentalScrollCursor.decode(cursor, sortBy);
+
+        Window<Rental> window = rentalRepository.findBy(RentalSpecifications.matching(criteria),
+                query -> query.sortBy(sort).limit(Math.min(size, MAX_PAGE_SIZE)).scroll(position));
+
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? RentalScrollCursor.encode(window.positionAt(window.size() - 1), sortBy)
+                : null;
+        return new RentalWindow(window.getContent(), nextCursor);
+    }
+
+    private static Sort.Direction sortDirection(String direction) {
+        return direction.equalsIgnoreCase("ASC") ? Sort.Direction.ASC : Sort.Direction.DESC;
     }
 
     public Page<Rental> findRentalsByTotalCostGreaterThan(double cost, Pageable pageable) {
@@ -242,17 +277,19 @@ public class RentalService {
     }
 
     public List<Object[]> findAverageRentalCostGroupedByCity() {
-        return rentalRepository.findAverageRentalCostGroupedByCity();
+        return analyticsRollups.findAverageRentalCostGroupedByCity();
     }
     
     @Transactional
     public Rental createRentalFromAuction(Rental rental) {
-        // Skip availability checks since the auction already validated this
+        // Skip availability checks since the auction already validated this, only keep concurrent bookings out
+        bookingCoordinator.lock(rental.getApartment().getId());
         
         rental.setRentalFees(0.0);
         
         // Save rental first to get ID
         rental = rentalRepository.save(rental);
+        availabilityIndex.update(rental);
         
         // Create conversation for all auction rentals
         createConversationForRental(rental);
@@ -260,30 +297,6 @@ public class RentalService {
         return rental;
     }
 
-    @Scheduled(cron = "0 0 0 * * ?") // Run daily at midnight - tested, works fine
-    @Transactional
-    public void updateRentalStatuses() {
-        LocalDate today = LocalDate.now();
-        
-        // Update PENDING to ACTIVE when start date is reached
-        // Only select rentals that are explicitly in PENDING status
-        List<Rental> pendingRentals = rentalRepository.findByStatusAndStartDateLessThanEqual(
-            RentalStatus.PENDING, today);
-        pendingRentals.forEach(rental -> {
-            rental.setStatus(RentalStatus.ACTIVE);
-            rentalRepository.save(rental);
-        });
-        
-        // Update ACTIVE to COMPLETED when end date has passed
-        // Only select rentals that are explicitly in ACTIVE status
-        List<Rental> activeRentals = rentalRepository.findByStatusAndEndDateLessThan(
-            RentalStatus.ACTIVE, today);
-        activeRentals.forEach(rental -> {
-            rental.setStatus(RentalStatus.COMPLETED);
-            rentalRepository.save(rental);
-        });
-    }
-
     @Transactional
     public Rental updateRentalStatus(Long id, String statusStr, String reason) {
         Rental rental = getRentalById(id);
@@ -298,7 +311,9 @@ public class RentalService {
         
         rental.setStatus(newStatus);
         
-        return rentalRepository.save(rental);
+        Rental savedRental = rentalRepository.save(rental);
+        availabilityIndex.update(savedRental);
+        return savedRental;
     }
     
     private void validateStatusTransition(RentalStatus currentStatus, RentalStatus newStatus) {
@@ -324,46 +339,6 @@ public class RentalService {
     public Rental cancelRental(Long id, String reason) {
         return updateRentalStatus(id, "CANCELLED", reason);
     }
-
-    
-    public List<Rental> findByApartmentIdAndDateRange(Long apartmentId, LocalDate startDate, LocalDate endDate) {
-        if (startDate == null) {
-            startDate = LocalDate.now();
-        }
-        if (endDate == null) {
-            endDate = LocalDate.now().plusMonths(3); // Default to 3 months ahead
-        }
-        
-        return rentalRepository.findByApartmentIdAndDateBetween(apartmentId, startDate, endDate);
-    }
-    
-    public List<Rental> findByUserIdAndDateRange(Long userId, LocalDate startDate, LocalDate endDate) {
-        if (startDate == null) {
-            startDate = LocalDate.now();
-        }
-        if (endDate == null) {
-            endDate = LocalDate.now().plusMonths(3); // Default to 3 months ahead
-        }
-        
-        // Fetch rentals where the user is either owner or tenant
-        List<Rental> ownerRentals = rentalRepository.findByOwnerIdAndDateBetween(userId, startDate, endDate);
-        List<Rental> tenantRentals = rentalRepository.findByTenantIdAndDateBetween(userId, startDate, endDate);
-        
-        // Combine the lists
-        ownerRentals.addAll(tenantRentals);
-        return ownerRentals;
-    }
-    
-    public List<Rental> findByDateRange(LocalDate startDate, LocalDate endDate) {
-        if (startDate == null) {
-            startDate = LocalDate.now();
-        }
-        if (endDate == null) {
-            endDate = LocalDate.now().plusMonths(3); // Default to 3 months ahead
-        }
-        
-        return rentalRepository.findByDateBetween(startDate, endDate);
-    }
     
     public List<Rental> findByTenantIdAndStatus(Long tenantId, String statusStr) {
         RentalStatus status = RentalStatus.valueOf(statusStr.toUpperCase());
@@ -391,11 +366,33 @@ public class RentalService {
     return rentalRepository.countByStatus(RentalStatus.ACTIVE);
     }
     
+    // Checks before charging the card, returns the tenant to notify about the payment
+    @Transactional(readOnly = true)
+    public Long checkAuctionPaymentAllowed(Long rentalId) {
+        Rental rental = rentalRepository.findById(rentalId)
+                .orElseThrow(() -> new EntityNotFoundException("Rental not found"));
+        checkAuctionPaymentAllowed(rental, LocalDateTime.now());
+        return rental.getTenant().getId();
+    }
+    
+    /**
+     * Records an approved auction payment. A payment submitted before the deadline counts as on time,
+     * even when a fine was issued while the card was being charged.
+     */
     @Transactional
-    public boolean confirmAuctionPayment(Long rentalId, String cardNumber) {
+    public void confirmAuctionPayment(Long rentalId, LocalDateTime submittedAt) {
         Rental rental = rentalRepository.findById(rentalId)
                 .orElseThrow(() -> new EntityNotFoundException("Rental not found"));
         
+        checkAuctionPaymentAllowed(rental, submittedAt);
+        
+        rental.setAuctionPaymentConfirmed(true);
+        rental.setAuctionFineIssued(false);
+        rental.setAuctionFineAmount(null);
+        rentalRepository.save(rental);
+    }
+    
+    private void checkAuctionPaymentAllowed(Rental rental, LocalDateTime at) {
         if (!rental.isAuction()) {
             throw new IllegalStateException("This rental is not from an auction");
         }
@@ -405,128 +402,52 @@ public class RentalService {
         }
         
         // Check if deadline has passed
-        if (rental.isAuctionPaymentOverdue()) {
+        if (rental.needsAuctionPayment() && at.isAfter(rental.getAuctionPaymentDeadline())) {
             throw new IllegalStateException("Payment deadline has passed");
         }
-        
-        boolean paymentSuccess = processAuctionPaymentSimulation(cardNumber);
-        
-        if (paymentSuccess) {
-            rental.setAuctionPaymentConfirmed(true);
-            rentalRepository.save(rental);
-            return true;
-        }
-        
-        return false;
-    }
-    
-    private boolean processAuctionPaymentSimulation(String cardNumber) {
-        // Validate card number is exactly 10 digits
-        if (cardNumber == null || !cardNumber.matches("\\d{10}")) {
-            return false;
-        }
-        
-        // Simulate processing delay
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        
-        // Always fail for specific test cards
-        if ("4000000000000002".equals(cardNumber)) {
-            return false;
-        }
-        
-        // 98% SUCCESS RATE FOR AUCTION PAYMENTS (higher than regular 90%)
-        return Math.random() < 0.98;
-    }
-    
-    // SCHEDULED TASK TO CHECK PAYMENT DEADLINES AND ISSUE FINES
-    @Scheduled(fixedRate = 300000) // Run every 5 minutes
-    @Transactional
-    public void checkAuctionPaymentDeadlines() {
-        LocalDateTime now = LocalDateTime.now();
-        
-        // Find overdue auction rentals that haven't been fined yet
-        List<Rental> overdueRentals = rentalRepository.findOverdueAuctionPayments(now);
-        
-        for (Rental rental : overdueRentals) {
-            if (!rental.getAuctionFineIssued()) {
-                // Issue 30% fine
-                issueFineForOverduePayment(rental);
-            }
-        }
-    }
-    
-    private void issueFineForOverduePayment(Rental rental) {
-        // Calculate 30% fine
-        double fineAmount = rental.getTotalCost() * 0.30;
-        
-        rental.setAuctionFineIssued(true);
-        rental.setAuctionFineAmount(fineAmount);
-        rentalRepository.save(rental);
-        
-        System.out.println("FINE ISSUED: " + rental.getTenant().getUsername() + 
-                          " owes $" + fineAmount + " for overdue auction payment");
     }
     
     public List<Rental> getUserOverdueAuctionRentals(Long userId) {
         return rentalRepository.findOverdueAuctionPaymentsByUser(userId, LocalDateTime.now());
     }
     
+    // Checks before charging the card, returns the tenant to notify about the payment
+    @Transactional(readOnly = true)
+    public Long checkAuctionFinePayable(Long rentalId) {
+        Rental rental = rentalRepository.findById(rentalId)
+                .orElseThrow(() -> new EntityNotFoundException("Rental not found"));
+        checkAuctionFinePayable(rental);
+        return rental.getTenant().getId();
+    }
+    
+    // Records an approved fine payment, which also settles the original auction payment
     @Transactional
-    public boolean payAuctionFine(Long rentalId, String cardNumber) {
+    public void settleAuctionFine(Long rentalId) {
         Rental rental = rentalRepository.findById(rentalId)
                 .orElseThrow(() -> new EntityNotFoundException("Rental not found"));
         
-        if (!rental.getAuctionFineIssued() || rental.getAuctionFineAmount() == null) {
-            throw new IllegalStateException("No fine to pay for this rental");
-        }
+        checkAuctionFinePayable(rental);
         
-        // Process fine payment
-        boolean paymentSuccess = processAuctionPaymentSimulation(cardNumber);
+        // Clear fine and confirm original payment
+        rental.setAuctionPaymentConfirmed(true);
+        rental.setAuctionFineIssued(false);
+        rental.setAuctionFineAmount(null);
+        rentalRepository.save(rental);
         
-        if (paymentSuccess) {
-            // Clear fine and confirm original payment
-            rental.setAuctionPaymentConfirmed(true);
-            rental.setAuctionFineIssued(false);
-            rental.setAuctionFineAmount(null);
-            rentalRepository.save(rental);
-            
-            // Unblock user if they were blocked
-            User tenant = rental.getTenant();
-            if (tenant.isCurrentlyBlocked()) {
-                tenant.unblockUser();
-                userRepository.save(tenant);
-            }
-            
-            return true;
+        // Unblock user if they were blocked
+        User tenant = rental.getTenant();
+        if (tenant.isCurrentlyBlocked()) {
+            tenant.unblockUser();
+            userRepository.save(tenant);
         }
-        
-        return false;
     }
     
-    // SCHEDULED TASK TO BLOCK USERS WITH UNPAID FINES
-    @Scheduled(fixedRate = 3600000) // Run every hour
-    @Transactional
-    public void blockUsersWithUnpaidFines() {
-        LocalDateTime fineDeadline = LocalDateTime.now().minusHours(24); // 24h to pay fine
-        
-        List<Rental> unpaidFines = rentalRepository.findUnpaidFinesOlderThan(fineDeadline);
-        
-        for (Rental rental : unpaidFines) {
-            User tenant = rental.getTenant();
-            if (!tenant.isCurrentlyBlocked()) {
-                tenant.blockUser("Unpaid auction fine of $" + rental.getAuctionFineAmount());
-                userRepository.save(tenant);
-                
-                System.out.println("🚫 USER BLOCKED: " + tenant.getUsername() + 
-                                  " - Fine escalated to higher authorities");
-            }
+    private void checkAuctionFinePayable(Rental rental) {
+        if (!rental.getAuctionFineIssued() || rental.getAuctionFineAmount() == null) {
+            throw new IllegalStateException("No fine to pay for this rental");
         }
     }
-
+    
     public Boolean isAuctionPaymentConfirmed(Long id) {
         Rental rental = getRentalById(id);
         if (rental == null) {
@@ -553,4 +474,8 @@ public class RentalService {
         
         return rental.getAuctionFineIssued();
     }
-}
\ No newline at end of file
+
+    // One window of a keyset scroll, nextCursor is null after the last one
+    public record RentalWindow(List<Rental> content, String nextCursor) {
+    }
+}
@@ -0,0 +1,109 @@
+package pl.ug.NestPoint.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Holder of an in-memory index that is loaded from the database, kept current with changes applied after
+ * commit, and reloaded periodically by its owner to pick up writes from other nodes.
+ * Readers get the current state without locking; changes replace it through the apply function. Changes
+ * committed while a reload is reading the database are replayed on top of the loaded state, so a reload
+ * never loses them.
+ *
+ * @param <S> the index state
+ * @param <C> a change to it
+ */
+@Slf4j
+final class SnapshotIndex<S, C> {
+
+    private final String name;
+    private final Supplier<S> loader;
+    private final BiFunction<S, C, S> applier;
+
+    private volatile S state;
+    private volatile boolean loaded;
+    // Serializes reloads, readers arriving before the first load wait on it
+    private final Object reloadLock = new Object();
+    private List<C> changesDuringReload;
+
+    SnapshotIndex(String name, S empty, Supplier<S> loader, BiFunction<S, C, S> applier) {
+        this.name = name;
+        this.state = empty;
+        this.loader = loader;
+        this.applier = applier;
+    }
+
+    S get() {
+        if (!loaded) {
+            // Requests can arrive before the startup load
+            synchronized (reloadLock) {
+                if (!loaded) {
+                    load();
+                }
+            }
+        }
+        return state;
+    }
+
+    void reload() {
+        synchronized (reloadLock) {
+            load();
+        }
+    }
+
+    // Applies the change once the current transaction commits, right away outside of one
+    void applyAfterCommit(C change) {
+        afterCommit(() -> apply(change));
+    }
+
+    synchronized void apply(C change) {
+        if (changesDuringReload != null) {
+            changesDuringReload.add(change);
+        }
+        state = applier.apply(state, change);
+    }
+
+    private void load() {
+        synchronized (this) {
+            changesDuringReload = new ArrayList<>();
+        }
+        S loadedState;
+        try {
+            loadedState = loader.get();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                changesDuringReload = null;
+            }
+            log.warn("Failed to load the {}: {}", name, e.getMessage());
+            return;
+        }
+
+        synchronized (this) {
+            for (C change : changesDuringReload) {
+                loadedState = applier.apply(loadedState, change);
+            }
+            changesDuringReload = null;
+            state = loadedState;
+            loaded = true;
+        }
+    }
+
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -20,6 +20,7 @@ import java.time.LocalDate;
 public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final AnalyticsRollups analyticsRollups;
 
     @Transactional
     public User registerUser(String username, String email, String password, 
@@ -175,11 +176,11 @@ public class UserService {
         if (!user.isOwner()) {
             throw new RuntimeException("User is not an owner");
         }
-        return userRepository.getOwnerFeePercentage(ownerId);
+        return analyticsRollups.getOwnerFeePercentage(ownerId);
     }
 
     public List<Object[]> getOwnerFeePercentageByAddress(String address) {
-        return userRepository.getOwnerFeePercentageByAddress(address, Role.OWNER);
+        return analyticsRollups.getOwnerFeePercentageByAddress(address);
     }
 
     public List<User> findTenantsByApartmentAddress(String address) {
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -13,6 +14,8 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -32,16 +35,25 @@ import pl.ug.NestPoint.domain.Photo;
 import pl.ug.NestPoint.domain.enums.AccessibilityType;
 import pl.ug.NestPoint.domain.enums.PropertyType;
 import pl.ug.NestPoint.dto.ApartmentDTO;
+import pl.ug.NestPoint.dto.ApartmentSearchCriteria;
 import pl.ug.NestPoint.dto.DateRangeDTO;
+import pl.ug.NestPoint.dto.MapClusterDTO;
+import pl.ug.NestPoint.dto.MapPointDTO;
+import pl.ug.NestPoint.dto.MapViewportDTO;
+import pl.ug.NestPoint.dto.NearbyApartmentDTO;
 import pl.ug.NestPoint.interceptor.UserBlockingInterceptor;
 import pl.ug.NestPoint.mapper.ApartmentMapper;
 import pl.ug.NestPoint.repository.UserRepository;
+import pl.ug.NestPoint.service.ApartmentSearchIndex;
 import pl.ug.NestPoint.service.ApartmentService;
 import pl.ug.NestPoint.service.GeocodingService;
+import pl.ug.NestPoint.service.MapPayloadWriter;
 import pl.ug.NestPoint.service.PhotoService;
 import pl.ug.NestPoint.service.UserService;
 
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
@@ -324,100 +336,83 @@ class ApartmentControllerTest {
     }
     
     @Test
-    @DisplayName("GET /apartments/search - Should search by availableOn date")
-    void shouldSearchByAvailableOnDate() throws Exception {
-        LocalDate testDate = LocalDate.of(2025, 6, 15);
-        List<Apartment> apartments = Arrays.asList(testApartment);
-        when(apartmentService.findAvailableOnDate(testDate)).thenReturn(apartments);
-    
-        mockMvc.perform(MockMvcRequestBuilders.get("/apartments/search")
-                .param("availableOn", "2025-06-15")
-                .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(MockMvcResultMatchers.status().isOk())
-                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)));
-    
-        verify(apartmentService).findAvailableOnDate(testDate);
-    }
-    
-    @Test
-    @DisplayName("GET /apartments/search - Should search by date range")
-    void shouldSearchByDateRange() throws Exception {
-        LocalDate startDate = LocalDate.of(2025, 6, 15);
-        LocalDate endDate = LocalDate.of(2025, 6, 20);
-        List<Apartment> apartments = Arrays.asList(testApartment);
-        when(apartmentService.findAvailableBetweenDates(startDate, endDate)).thenReturn(apartments);
-    
+    @DisplayName("GET /apartments/search - Should combine all filters and return facet counts")
+    void shouldSearchWithCombinedFilters() throws Exception {
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        facets.put("wifi", Map.of("true", 1));
+        when(apartmentService.search(any(ApartmentSearchCriteria.class)))
+                .thenReturn(new ApartmentSearchIndex.SearchResult(List.of(1L), facets));
+        when(apartmentService.findAllInOrder(List.of(1L))).thenReturn(List.of(testApartment));
+
         mockMvc.perform(MockMvcRequestBuilders.get("/apartments/search")
                 .param("availableFrom", "2025-06-15")
                 .param("availableTo", "2025-06-20")
-                .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(MockMvcResultMatchers.status().isOk())
-                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)));
-    
-        verify(apartmentService).findAvailableBetweenDates(startDate, endDate);
-    }
-    
-    @Test
-    @DisplayName("GET /apartments/search - Should search by owner name")
-    void shouldSearchByOwnerName() throws Exception {
-        List<Apartment> apartments = Arrays.asList(testApartment);
-        when(apartmentService.findByOwnerName("John")).thenReturn(apartments);
-    
-        mockMvc.perform(MockMvcRequestBuilders.get("/apartments/search")
-                .param("ownerName", "John")
-                .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(MockMvcResultMatchers.status().isOk())
-                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)));
-    
-        verify(apartmentService).findByOwnerName("John");
-    }
-    
-    @Test
-    @DisplayName("GET /apartments/search - Should search by address")
-    void shouldSearchByAddress() throws Exception {
-        List<Apartment> apartments = Arrays.asList(testApartment);
-        when(apartmentService.findByAddressContaining("Warsaw")).thenReturn(apartments);
-    
-        mockMvc.perform(MockMvcRequestBuilders.get("/apartments/search")
                 .param("address", "Warsaw")
+                .param("minPrice", "1000.0")
+                .param("wifi", "true")
+                .param("kitchen", "PRIVATE")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(MockMvcResultMatchers.status().isOk())
-                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)));
-    
-        verify(apartmentService).findByAddressContaining("Warsaw");
+                .andExpect(MockMvcResultMatchers.jsonPath("$.apartments", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.facets.wifi.true", is(1)));
+
+        ArgumentCaptor<ApartmentSearchCriteria> criteria = ArgumentCaptor.forClass(ApartmentSearchCriteria.class);
+        verify(apartmentService).search(criteria.capture());
+        assertEquals(LocalDate.of(2025, 6, 15), criteria.getValue().getAvailableFrom());
+        assertEquals(LocalDate.of(2025, 6, 20), criteria.getValue().getAvailableTo());
+        assertEquals("Warsaw", criteria.getValue().getAddress());
+        assertEquals(1000.0, criteria.getValue().getMinPrice());
+        assertNull(criteria.getValue().getMaxPrice());
+        assertEquals(Boolean.TRUE, criteria.getValue().getWifi());
+        assertEquals(AccessibilityType.PRIVATE, criteria.getValue().getKitchen());
     }
-    
+
     @Test
-    @DisplayName("GET /apartments/search - Should search by size")
+    @DisplayName("GET /apartments/search - Should keep size as a lower bound")
     void shouldSearchBySize() throws Exception {
-        List<Apartment> apartments = Arrays.asList(testApartment);
-        when(apartmentService.findBySizeGreaterThan(50)).thenReturn(apartments);
-    
+        when(apartmentService.search(any(ApartmentSearchCriteria.class)))
+                .thenReturn(new ApartmentSearchIndex.SearchResult(List.of(), Map.of()));
+
         mockMvc.perform(MockMvcRequestBuilders.get("/apartments/search")
                 .param("size", "50")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(MockMvcResultMatchers.status().isOk())
-                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)));
-    
-        verify(apartmentService).findBySizeGreaterThan(50);
+                .andExpect(MockMvcResultMatchers.jsonPath("$.apartments", Matchers.hasSize(0)));
+
+        ArgumentCaptor<ApartmentSearchCriteria> criteria = ArgumentCaptor.forClass(ApartmentSearchCriteria.class);
+        verify(apartmentService).search(criteria.capture());
+        assertEquals(51, criteria.getValue().getMinSize());
     }
     
     @Test
-    @DisplayName("GET /apartments/search - Should search by price range")
-    void shouldSearchByPriceRange() throws Exception {
-        List<Apartment> apartments = Arrays.asList(testApartment);
-        when(apartmentService.findByRentalPriceBetween(1000.0, 2000.0)).thenReturn(apartments);
-    
-        mockMvc.perform(MockMvcRequestBuilders.get("/apartments/search")
-                .param("minPrice", "1000.0")
-                .param("maxPrice", "2000.0")
-                .contentType(MediaType.APPLICATION_JSON))
+    @DisplayName("GET /apartments/text-search - Should return a page of ranked apartments")
+    void shouldTextSearch() throws Exception {
+        when(apartmentService.textSearch("mieszkanie w Krakowie", 0, 20))
+                .thenReturn(new PageImpl<>(List.of(testApartment), PageRequest.of(0, 20), 1));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/apartments/text-search")
+                .param("q", "mieszkanie w Krakowie"))
                 .andExpect(MockMvcResultMatchers.status().isOk())
-                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)));
-    
-        verify(apartmentService).findByRentalPriceBetween(1000.0, 2000.0);
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].title", is("Luxury Downtown Apartment")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.totalElements", is(1)));
     }
-    
+
+    @Test
+    @DisplayName("GET /apartments/text-search - Should reject a blank query or an oversized page")
+    void shouldRejectInvalidTextSearch() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/apartments/text-search")
+                .param("q", "  "))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get("/apartments/text-search")
+                .param("q", "balkon")
+                .param("size", "1000"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        verify(apartmentService, Mockito.never()).textSearch(
+                ArgumentMatchers.anyString(), ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt());
+    }
+
     @Test
     @DisplayName("GET /apartments/available/range - Should get available apartments in date range")
     void shouldGetAvailableApartmentsInRange() throws Exception {
@@ -611,9 +606,9 @@ class ApartmentControllerTest {
     @Test
     @DisplayName("GET /apartments/map-data - Should get apartments for map display")
     void shouldGetApartmentsForMap() throws Exception {
-        testApartment.setPhotos(Arrays.asList(testPhoto));
-        List<Apartment> apartments = Arrays.asList(testApartment);
-        when(apartmentService.getAllApartments()).thenReturn(apartments);
+        MapPointDTO point = new MapPointDTO(1L, "Luxury Downtown Apartment", 1500.0, 52.2297, 21.0122,
+                "Warsaw, Test Street 1", "http://example.com/photo.jpg", 10L);
+        when(apartmentService.getMapPoints()).thenReturn(List.of(point));
     
         mockMvc.perform(MockMvcRequestBuilders.get("/apartments/map-data")
                 .contentType(MediaType.APPLICATION_JSON))
@@ -623,7 +618,112 @@ class ApartmentControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].lat", Matchers.is(52.2297)))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].lng", Matchers.is(21.0122)));
     
-        verify(apartmentService).getAllApartments();
+        verify(apartmentService).getMapPoints();
+        verify(apartmentService, Mockito.never()).getAllApartments();
+    }
+
+    @Test
+    @DisplayName("GET /apartments/map-data/viewport - Should return clusters for the bounding box")
+    void shouldGetApartmentsInViewport() throws Exception {
+        MapViewportDTO viewport = new MapViewportDTO(6, true, List.of(),
+                List.of(new MapClusterDTO(52.2, 21.0, 12, 19.6875, 50.625, 21.09375, 52.03125)));
+        when(apartmentService.getMapViewport(14.0, 49.0, 24.0, 55.0, 6)).thenReturn(viewport);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/apartments/map-data/viewport")
+                .param("west", "14.0")
+                .param("south", "49.0")
+                .param("east", "24.0")
+                .param("north", "55.0")
+                .param("zoom", "6"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.clustered", is(true)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.clusters[0].count", is(12)));
+    }
+
+    @Test
+    @DisplayName("GET /apartments/map-data/viewport - Should reject an inverted bounding box")
+    void shouldRejectInvalidViewport() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/apartments/map-data/viewport")
+                .param("west", "14.0")
+                .param("south", "55.0")
+                .param("east", "24.0")
+                .param("north", "49.0")
+                .param("zoom", "6"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        verify(apartmentService, Mockito.never()).getMapViewport(
+                ArgumentMatchers.anyDouble(), ArgumentMatchers.anyDouble(), ArgumentMatchers.anyDouble(),
+                ArgumentMatchers.anyDouble(), ArgumentMatchers.anyInt());
+    }
+
+    @Test
+    @DisplayName("GET /apartments/map-data - Should return the binary payload when the client accepts it")
+    void shouldGetBinaryMapPayload() throws Exception {
+        List<MapPointDTO> points = List.of(new MapPointDTO(1L, "Luxury Downtown Apartment", 1500.0, 52.2297, 21.0122,
+                "Warsaw, Test Street 1", "http://example.com/photo.jpg", 10L));
+        when(apartmentService.getMapPoints()).thenReturn(points);
+        when(apartmentService.getMapFingerprint()).thenReturn(0xabcL);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/apartments/map-data")
+                .accept(MapPayloadWriter.MEDIA_TYPE))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MapPayloadWriter.MEDIA_TYPE))
+                .andExpect(MockMvcResultMatchers.content().bytes(MapPayloadWriter.write(points)))
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"abc-bin\""))
+                .andExpect(MockMvcResultMatchers.header().string("Vary", Matchers.containsString("Accept")));
+    }
+
+    @Test
+    @DisplayName("GET /apartments/map-data/viewport - Should answer 304 while the map data is unchanged")
+    void shouldRevalidateViewport() throws Exception {
+        when(apartmentService.getMapFingerprint()).thenReturn(0xabcL);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/apartments/map-data/viewport")
+                .param("west", "14.0")
+                .param("south", "49.0")
+                .param("east", "24.0")
+                .param("north", "55.0")
+                .param("zoom", "6")
+                .accept(MapPayloadWriter.MEDIA_TYPE)
+                .header("If-None-Match", "\"abc-bin\""))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+
+        verify(apartmentService, Mockito.never()).getMapViewport(
+                ArgumentMatchers.anyDouble(), ArgumentMatchers.anyDouble(), ArgumentMatchers.anyDouble(),
+                ArgumentMatchers.anyDouble(), ArgumentMatchers.anyInt());
+    }
+
+    @Test
+    @DisplayName("GET /apartments/nearby - Should return nearest apartments with the filters applied")
+    void shouldFindNearbyApartments() throws Exception {
+        NearbyApartmentDTO nearby = new NearbyApartmentDTO(1L, "Luxury Downtown Apartment", 1500.0, 52.2297, 21.0122,
+                "Warsaw, Test Street 1", null, 0.4);
+        when(apartmentService.findNearby(eq(52.23), eq(21.01), eq(5), ArgumentMatchers.isNull(), any(ApartmentSearchCriteria.class)))
+                .thenReturn(List.of(nearby));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/apartments/nearby")
+                .param("lat", "52.23")
+                .param("lon", "21.01")
+                .param("k", "5")
+                .param("maxPrice", "2000")
+                .param("availableOn", "2025-06-15"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id", is(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].distanceKm", is(0.4)));
+
+        ArgumentCaptor<ApartmentSearchCriteria> filters = ArgumentCaptor.forClass(ApartmentSearchCriteria.class);
+        verify(apartmentService).findNearby(eq(52.23), eq(21.01), eq(5), ArgumentMatchers.isNull(), filters.capture());
+        assertEquals(2000.0, filters.getValue().getMaxPrice());
+        assertEquals(LocalDate.of(2025, 6, 15), filters.getValue().getAvailableOn());
+    }
+
+    @Test
+    @DisplayName("GET /apartments/nearby - Should require k or radius")
+    void shouldRejectNearbyWithoutLimit() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/apartments/nearby")
+                .param("lat", "52.23")
+                .param("lon", "21.01"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
     }
 
 }
\ No newline at end of file
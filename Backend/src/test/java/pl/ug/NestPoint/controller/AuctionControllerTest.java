@@ -18,10 +18,12 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import pl.ug.NestPoint.domain.User;
 import pl.ug.NestPoint.dto.AuctionDTO;
 import pl.ug.NestPoint.dto.BidDTO;
 import pl.ug.NestPoint.interceptor.UserBlockingInterceptor;
@@ -244,6 +246,22 @@ class AuctionControllerTest {
         Mockito.verify(auctionService).cancelAuction(1L);
     }
 
+    @Test
+    @DisplayName("DELETE /auctions/{auctionId}/bidders/{bidderId} - Should drop bidder")
+    void shouldDropBidderFromAuction() throws Exception {
+        User owner = new User();
+        owner.setId(1L);
+        owner.setUsername("owner");
+        Mockito.when(userService.findByUsername("owner")).thenReturn(owner);
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/auctions/1/bidders/3")
+                .with(SecurityMockMvcRequestPostProcessors.user("owner").authorities(() -> "OWNER"))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isNoContent());
+
+        Mockito.verify(auctionService).dropBidder(1L, 3L, owner);
+    }
+
     @Test
     @DisplayName("Should handle different content types properly")
     void shouldHandleDifferentContentTypes() throws Exception {
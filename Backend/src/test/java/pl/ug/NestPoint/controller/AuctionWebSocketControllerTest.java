@@ -14,6 +14,7 @@ import pl.ug.NestPoint.dto.websocket.AuctionBidMessage;
 import pl.ug.NestPoint.dto.websocket.AuctionJoinMessage;
 import pl.ug.NestPoint.dto.websocket.AuctionLeaveMessage;
 import pl.ug.NestPoint.service.AuctionService;
+import pl.ug.NestPoint.service.BidIngestionPipeline;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -27,6 +28,9 @@ public class AuctionWebSocketControllerTest {
     @Mock
     private AuctionService auctionService;
     
+    @Mock
+    private BidIngestionPipeline bidIngestionPipeline;
+    
     @Mock
     private SimpMessagingTemplate messagingTemplate;
     
@@ -57,14 +61,14 @@ public class AuctionWebSocketControllerTest {
     }
     
     @Test
-    @DisplayName("Should place bid when received through WebSocket")
+    @DisplayName("Should queue bid when received through WebSocket")
     void shouldPlaceBid() {
         // When
         controller.placeBid(auctionId, bidMessage);
         
         // Then
         ArgumentCaptor<BidDTO> bidCaptor = ArgumentCaptor.forClass(BidDTO.class);
-        verify(auctionService).placeBid(bidCaptor.capture());
+        verify(bidIngestionPipeline).submit(bidCaptor.capture());
         
         BidDTO capturedBid = bidCaptor.getValue();
         assertEquals(auctionId, capturedBid.getAuctionId());
@@ -109,10 +113,11 @@ public class AuctionWebSocketControllerTest {
         controller.placeBid(auctionId, secondBid);
         
         // Then
-        verify(auctionService, times(2)).placeBid(any(BidDTO.class));
+        verify(bidIngestionPipeline, times(2)).submit(any(BidDTO.class));
+        verify(auctionService, never()).placeBid(any(BidDTO.class));
         
         ArgumentCaptor<BidDTO> bidCaptor = ArgumentCaptor.forClass(BidDTO.class);
-        verify(auctionService, times(2)).placeBid(bidCaptor.capture());
+        verify(bidIngestionPipeline, times(2)).submit(bidCaptor.capture());
         
         var capturedBids = bidCaptor.getAllValues();
         assertEquals(1500.0, capturedBids.get(0).getAmount());
@@ -170,7 +175,7 @@ public class AuctionWebSocketControllerTest {
         
         // Then
         ArgumentCaptor<BidDTO> bidCaptor = ArgumentCaptor.forClass(BidDTO.class);
-        verify(auctionService).placeBid(bidCaptor.capture());
+        verify(bidIngestionPipeline).submit(bidCaptor.capture());
         
         BidDTO result = bidCaptor.getValue();
         assertEquals(complexAuctionId, result.getAuctionId());
@@ -182,7 +187,7 @@ public class AuctionWebSocketControllerTest {
     @DisplayName("Should not fail when service methods are called")
     void shouldNotFailWhenServiceMethodsAreCalled() {
         // Given - mock return values instead of doNothing() for non-void methods
-        when(auctionService.placeBid(any(BidDTO.class))).thenReturn(null); // or appropriate return type
+        doNothing().when(bidIngestionPipeline).submit(any(BidDTO.class));
         doNothing().when(auctionService).addUserToAuction(any(), any());
         doNothing().when(auctionService).removeUserFromAuction(any(), any());
         
@@ -192,7 +197,7 @@ public class AuctionWebSocketControllerTest {
         controller.leaveAuction(auctionId, leaveMessage);
         
         // Verify all methods were called
-        verify(auctionService).placeBid(any(BidDTO.class));
+        verify(bidIngestionPipeline).submit(any(BidDTO.class));
         verify(auctionService).addUserToAuction(auctionId, 10L);
         verify(auctionService).removeUserFromAuction(auctionId, 10L);
     }
@@ -24,6 +24,8 @@ import pl.ug.NestPoint.dto.RegistrationRequest;
 import pl.ug.NestPoint.interceptor.UserBlockingInterceptor;
 import pl.ug.NestPoint.repository.UserRepository;
 import pl.ug.NestPoint.security.JwtUtil;
+import pl.ug.NestPoint.service.RateLimit;
+import pl.ug.NestPoint.service.RateLimiter;
 import pl.ug.NestPoint.service.TokenBlacklistService;
 import pl.ug.NestPoint.service.UserService;
 
@@ -60,6 +62,9 @@ class AuthControllerTest {
     @Mock
     private TokenBlacklistService tokenBlacklistService;
     
+    @Mock
+    private RateLimiter rateLimiter;
+    
     @InjectMocks
     private AuthController authController;
 
@@ -163,6 +168,7 @@ class AuthControllerTest {
             List.of(new SimpleGrantedAuthority("TENANT"))
         );
         
+        when(rateLimiter.tryAcquire(any(RateLimit.class), anyString())).thenReturn(true);
         when(authenticationManager.authenticate(any())).thenReturn(mockAuth);
         when(userService.findByUsername("testuser")).thenReturn(testUser);
         when(jwtUtil.generateToken(anyString(), anyList(), anyLong()))
@@ -178,6 +184,25 @@ class AuthControllerTest {
                 .andExpect(jsonPath("$.userId").value(1));
     }
     
+    @Test
+    @DisplayName("Should reject login attempts over the rate limit")
+    void shouldRejectLoginOverRateLimit() throws Exception {
+        // Given
+        AuthController.LoginRequest loginRequest = 
+            new AuthController.LoginRequest("testuser", "wrongpassword");
+        
+        when(rateLimiter.tryAcquire(any(RateLimit.class), eq("127.0.0.1:testuser"))).thenReturn(false);
+        
+        // When & Then
+        mockMvc.perform(post("/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(content().string(containsString("Too many login attempts")));
+        
+        verify(authenticationManager, never()).authenticate(any());
+    }
+    
     @Test
     @DisplayName("Should register admin with valid secret key")
     void shouldRegisterAdminWithValidSecretKey() throws Exception {
@@ -24,6 +24,7 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
@@ -33,11 +34,19 @@ import pl.ug.NestPoint.dto.*;
 import pl.ug.NestPoint.interceptor.UserBlockingInterceptor;
 import pl.ug.NestPoint.mapper.RentalMapper;
 import pl.ug.NestPoint.repository.UserRepository;
-import pl.ug.NestPoint.service.PaymentSimulationService;
+import pl.ug.NestPoint.domain.enums.PaymentPurpose;
+import pl.ug.NestPoint.domain.enums.PaymentState;
+import pl.ug.NestPoint.service.PaymentPipeline;
+import pl.ug.NestPoint.service.PaymentPipeline.PaymentTicket;
+import pl.ug.NestPoint.service.RentalCalendarService;
 import pl.ug.NestPoint.service.RentalService;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import org.hamcrest.Matchers;
 
@@ -75,7 +84,10 @@ public class RentalControllerTest {
     private RentalMapper rentalMapper;
 
     @MockBean
-    private PaymentSimulationService paymentSimulationService;
+    private PaymentPipeline paymentPipeline;
+
+    @MockBean
+    private RentalCalendarService rentalCalendarService;
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -87,6 +99,8 @@ public class RentalControllerTest {
     private Apartment testApartment;
     private LocalDate startDate;
     private LocalDate endDate;
+    private RentalCalendarEventDTO calendarEvent;
+    private RentalCalendarVersion calendarVersion;
 
     @BeforeEach
     void setUp() {
@@ -126,6 +140,9 @@ public class RentalControllerTest {
         testRental.setStartDate(startDate);
         testRental.setEndDate(endDate);
         testRental.setStatus(RentalStatus.PENDING);
+
+        calendarEvent = new RentalCalendarEventDTO(1L, "Test Apartment", startDate, endDate, RentalStatus.PENDING);
+        calendarVersion = new RentalCalendarVersion(LocalDateTime.now().withNano(0), 1L);
         testRental.setTotalCost(400.0);
 
         // Setup rental DTO
@@ -363,64 +380,49 @@ public class RentalControllerTest {
     @Test
     @DisplayName("Should get rentals for calendar by apartment ID")
     void shouldGetRentalsForCalendarByApartmentId() throws Exception {
-        List<Rental> rentals = Collections.singletonList(testRental);
-        
-        // Updated mock to match actual controller call with null date parameters
-        Mockito.when(rentalService.findByApartmentIdAndDateRange(
-            ArgumentMatchers.eq(1L), 
-            ArgumentMatchers.isNull(), 
-            ArgumentMatchers.isNull())
-        ).thenReturn(rentals);
+        Mockito.when(rentalCalendarService.getVersion(
+            ArgumentMatchers.eq(1L), ArgumentMatchers.isNull(), ArgumentMatchers.isNull(), ArgumentMatchers.isNull())
+        ).thenReturn(calendarVersion);
+        Mockito.when(rentalCalendarService.findEvents(
+            ArgumentMatchers.eq(1L), ArgumentMatchers.isNull(), ArgumentMatchers.isNull(), ArgumentMatchers.isNull())
+        ).thenReturn(List.of(calendarEvent));
     
         mockMvc.perform(MockMvcRequestBuilders.get("/rentals/calendar")
                 .param("apartmentId", "1")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists("ETag"))
+                .andExpect(MockMvcResultMatchers.header().exists("Last-Modified"))
                 .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].id", Matchers.is(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].title", Matchers.is("Rental: Test Apartment")))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].status", Matchers.is("PENDING")))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].color", Matchers.is("#FFA500")));
-    
-        Mockito.verify(rentalService).findByApartmentIdAndDateRange(
-            ArgumentMatchers.eq(1L), 
-            ArgumentMatchers.isNull(), 
-            ArgumentMatchers.isNull()
-        );
     }
     
     @Test
     @DisplayName("Should get rentals for calendar by user ID")
     void shouldGetRentalsForCalendarByUserId() throws Exception {
-        List<Rental> rentals = Collections.singletonList(testRental);
-        
-        // Updated mock to match actual controller call with null date parameters
-        Mockito.when(rentalService.findByUserIdAndDateRange(
-            ArgumentMatchers.eq(2L), 
-            ArgumentMatchers.isNull(), 
-            ArgumentMatchers.isNull())
-        ).thenReturn(rentals);
+        Mockito.when(rentalCalendarService.getVersion(
+            ArgumentMatchers.isNull(), ArgumentMatchers.eq(2L), ArgumentMatchers.isNull(), ArgumentMatchers.isNull())
+        ).thenReturn(calendarVersion);
+        Mockito.when(rentalCalendarService.findEvents(
+            ArgumentMatchers.isNull(), ArgumentMatchers.eq(2L), ArgumentMatchers.isNull(), ArgumentMatchers.isNull())
+        ).thenReturn(List.of(calendarEvent));
     
         mockMvc.perform(MockMvcRequestBuilders.get("/rentals/calendar")
                 .param("userId", "2")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)));
-    
-        Mockito.verify(rentalService).findByUserIdAndDateRange(
-            ArgumentMatchers.eq(2L), 
-            ArgumentMatchers.isNull(), 
-            ArgumentMatchers.isNull()
-        );
     }
 
     @Test
     @DisplayName("Should get all rentals for calendar with date range")
     void shouldGetAllRentalsForCalendarWithDateRange() throws Exception {
-        List<Rental> rentals = Collections.singletonList(testRental);
-        Mockito.when(rentalService.findByDateRange(
-            ArgumentMatchers.any(LocalDate.class), 
-            ArgumentMatchers.any(LocalDate.class))
-        ).thenReturn(rentals);
+        Mockito.when(rentalCalendarService.getVersion(null, null, startDate, endDate)).thenReturn(calendarVersion);
+        Mockito.when(rentalCalendarService.findEvents(null, null, startDate, endDate))
+            .thenReturn(List.of(calendarEvent));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/rentals/calendar")
                 .param("startDate", startDate.toString())
@@ -429,18 +431,60 @@ public class RentalControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)));
 
-        Mockito.verify(rentalService).findByDateRange(
-            ArgumentMatchers.any(LocalDate.class), 
-            ArgumentMatchers.any(LocalDate.class)
-        );
+        Mockito.verify(rentalCalendarService).findEvents(null, null, startDate, endDate);
+    }
+
+    @Test
+    @DisplayName("Should answer 304 when calendar has not changed")
+    void shouldReturnNotModifiedForUnchangedCalendar() throws Exception {
+        Mockito.when(rentalCalendarService.getVersion(
+            ArgumentMatchers.eq(1L), ArgumentMatchers.isNull(), ArgumentMatchers.isNull(), ArgumentMatchers.isNull())
+        ).thenReturn(calendarVersion);
+        Mockito.when(rentalCalendarService.findEvents(
+            ArgumentMatchers.eq(1L), ArgumentMatchers.isNull(), ArgumentMatchers.isNull(), ArgumentMatchers.isNull())
+        ).thenReturn(List.of(calendarEvent));
+
+        String eTag = mockMvc.perform(MockMvcRequestBuilders.get("/rentals/calendar").param("apartmentId", "1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/rentals/calendar")
+                .param("apartmentId", "1")
+                .header("If-None-Match", eTag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+
+        Mockito.verify(rentalCalendarService, Mockito.times(1)).findEvents(
+            ArgumentMatchers.eq(1L), ArgumentMatchers.isNull(), ArgumentMatchers.isNull(), ArgumentMatchers.isNull());
+    }
+
+    @Test
+    @DisplayName("Should stream owner calendar as iCalendar")
+    void shouldExportOwnerCalendar() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("BEGIN:VCALENDAR\r\nEND:VCALENDAR\r\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(rentalCalendarService).writeOwnerCalendar(ArgumentMatchers.eq(1L), ArgumentMatchers.any());
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/rentals/calendar.ics")
+                .param("ownerId", "1"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith("text/calendar"))
+                .andExpect(MockMvcResultMatchers.content().string(Matchers.startsWith("BEGIN:VCALENDAR")));
     }
 
     @Test
     @DisplayName("Should create rental with successful payment")
     void shouldCreateRentalWithSuccessfulPayment() throws Exception {
         // Set up successful payment
-        Mockito.when(paymentSimulationService.processPayment(ArgumentMatchers.anyString())).thenReturn(true);
-        Mockito.when(rentalService.createRental(ArgumentMatchers.any(RentalDTO.class))).thenReturn(testRental);
+        Mockito.when(paymentPipeline.submitRentalPayment(ArgumentMatchers.any(RentalDTO.class), ArgumentMatchers.anyString()))
+                .thenReturn(ticket(PaymentPurpose.RENTAL, PaymentState.SUCCEEDED, 1L, null));
+        Mockito.when(rentalService.getRentalById(1L)).thenReturn(testRental);
+        Mockito.when(rentalMapper.toDTO(testRental)).thenReturn(testRentalDTO);
         
         // Create test objects
         PaymentRequestDTO paymentRequest = new PaymentRequestDTO();
@@ -450,20 +494,26 @@ public class RentalControllerTest {
         rentalWithPayment.setRental(testRentalDTO);
         rentalWithPayment.setPayment(paymentRequest);
 
-        mockMvc.perform(MockMvcRequestBuilders.post("/rentals/create-with-payment")
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/rentals/create-with-payment")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(rentalWithPayment)))
-                .andExpect(MockMvcResultMatchers.status().isCreated());
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id", Matchers.is(1)));
 
-        Mockito.verify(paymentSimulationService).processPayment(ArgumentMatchers.anyString());
-        Mockito.verify(rentalService).createRental(ArgumentMatchers.any(RentalDTO.class));
+        Mockito.verify(paymentPipeline).submitRentalPayment(ArgumentMatchers.any(RentalDTO.class), ArgumentMatchers.eq("4111111111111111"));
     }
 
     @Test
     @DisplayName("Should reject rental with failed payment")
     void shouldRejectRentalWithFailedPayment() throws Exception {
         // Set up failed payment
-        Mockito.when(paymentSimulationService.processPayment(ArgumentMatchers.anyString())).thenReturn(false);
+        Mockito.when(paymentPipeline.submitRentalPayment(ArgumentMatchers.any(RentalDTO.class), ArgumentMatchers.anyString()))
+                .thenReturn(ticket(PaymentPurpose.RENTAL, PaymentState.DECLINED, null,
+                        "Payment declined. Please try again with a different card."));
         
         // Create test objects
         PaymentRequestDTO paymentRequest = new PaymentRequestDTO();
@@ -473,15 +523,71 @@ public class RentalControllerTest {
         rentalWithPayment.setRental(testRentalDTO);
         rentalWithPayment.setPayment(paymentRequest);
 
-        mockMvc.perform(MockMvcRequestBuilders.post("/rentals/create-with-payment")
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/rentals/create-with-payment")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(rentalWithPayment)))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
                 .andExpect(MockMvcResultMatchers.status().isPaymentRequired())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.success", Matchers.is(false)))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.message", Matchers.containsString("Payment declined")));
 
-        Mockito.verify(paymentSimulationService).processPayment(ArgumentMatchers.anyString());
-        Mockito.verify(rentalService, Mockito.never()).createRental(ArgumentMatchers.any(RentalDTO.class));
+        Mockito.verify(rentalService, Mockito.never()).getRentalById(ArgumentMatchers.anyLong());
+    }
+
+    @Test
+    @DisplayName("Should answer with the pending payment when asked to respond asynchronously")
+    void shouldAcceptPaymentAsynchronously() throws Exception {
+        // Given
+        PaymentTicket ticket = new PaymentTicket(
+                status(PaymentPurpose.AUCTION_PAYMENT, PaymentState.PENDING, 1L, null), new CompletableFuture<>());
+        Mockito.when(paymentPipeline.submitAuctionPayment(1L, "1234567890")).thenReturn(ticket);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/rentals/1/confirm-auction-payment")
+                .header("Prefer", "respond-async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("cardNumber", "1234567890"))))
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andExpect(MockMvcResultMatchers.header().string("Location", "/rentals/payments/payment-1"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.paymentId", Matchers.is("payment-1")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.state", Matchers.is("PENDING")));
+    }
+
+    @Test
+    @DisplayName("Should reject auction payment that is not allowed before charging")
+    void shouldRejectAuctionPaymentBeforeCharging() throws Exception {
+        // Given
+        Mockito.when(paymentPipeline.submitAuctionPayment(1L, "1234567890"))
+                .thenThrow(new IllegalStateException("Payment deadline has passed"));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/rentals/1/confirm-auction-payment")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("cardNumber", "1234567890"))))
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message", Matchers.is("Payment deadline has passed")));
+    }
+
+    @Test
+    @DisplayName("Should return payment state by id")
+    void shouldReturnPaymentState() throws Exception {
+        // Given
+        Mockito.when(paymentPipeline.getPayment("payment-1"))
+                .thenReturn(Optional.of(status(PaymentPurpose.AUCTION_FINE, PaymentState.SUCCEEDED, 1L, null)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/rentals/payments/payment-1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.state", Matchers.is("SUCCEEDED")));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/rentals/payments/unknown"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
     }
 
     @Test
@@ -491,14 +597,38 @@ public class RentalControllerTest {
         rentalWithPayment.setRental(testRentalDTO);
         // No payment info
 
-        mockMvc.perform(MockMvcRequestBuilders.post("/rentals/create-with-payment")
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/rentals/create-with-payment")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(rentalWithPayment)))
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
                 .andExpect(MockMvcResultMatchers.status().isBadRequest())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.success", Matchers.is(false)))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.message", Matchers.containsString("Payment information is required")));
 
-        Mockito.verify(paymentSimulationService, Mockito.never()).processPayment(ArgumentMatchers.anyString());
+        Mockito.verify(paymentPipeline, Mockito.never()).submitRentalPayment(ArgumentMatchers.any(), ArgumentMatchers.any());
         Mockito.verify(rentalService, Mockito.never()).createRental(ArgumentMatchers.any(RentalDTO.class));
     }
-}
\ No newline at end of file
+
+    private static PaymentTicket ticket(PaymentPurpose purpose, PaymentState state, Long rentalId, String message) {
+        PaymentStatusDTO pending = status(purpose, PaymentState.PENDING, rentalId, null);
+        PaymentStatusDTO completed = pending.toBuilder()
+                .state(state)
+                .message(message)
+                .completedAt(LocalDateTime.now())
+                .build();
+        return new PaymentTicket(pending, CompletableFuture.completedFuture(completed));
+    }
+
+    private static PaymentStatusDTO status(PaymentPurpose purpose, PaymentState state, Long rentalId, String message) {
+        return PaymentStatusDTO.builder()
+                .paymentId("payment-1")
+                .purpose(purpose)
+                .state(state)
+                .rentalId(rentalId)
+                .message(message)
+                .submittedAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -47,6 +47,7 @@ import java.util.concurrent.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -118,7 +119,12 @@ public class AuctionWebSocketIntegrationTest {
         
         doNothing().when(auctionService).addUserToAuction(any(), any());
         doNothing().when(auctionService).removeUserFromAuction(any(), any());
-        when(auctionService.placeBid(any())).thenReturn(null);
+        when(auctionService.placeBidBatch(anyList())).thenAnswer(invocation -> {
+            List<BidDTO> bids = invocation.getArgument(0);
+            return bids.stream()
+                    .map(bid -> AuctionService.BidResult.accepted(bid, true, LocalDateTime.now()))
+                    .toList();
+        });
         
         transactionTemplate.execute(status -> {
             testOwner = new User();
@@ -234,13 +240,6 @@ public class AuctionWebSocketIntegrationTest {
         StompSession session1 = session1Future.get(10, TimeUnit.SECONDS);
         StompSession session2 = session2Future.get(10, TimeUnit.SECONDS);
         
-        BidDTO successfulBidDTO = new BidDTO();
-        successfulBidDTO.setAuctionId(testAuction.getId());
-        successfulBidDTO.setBidderId(testTenant1.getId());
-        successfulBidDTO.setAmount(550.0);
-        
-        when(auctionService.placeBid(any())).thenReturn(successfulBidDTO);
-        
         List<AuctionBidMessage> tenant1ReceivedBids = new ArrayList<>();
         List<AuctionBidMessage> tenant2ReceivedBids = new ArrayList<>();
         
@@ -273,7 +272,7 @@ public class AuctionWebSocketIntegrationTest {
         session1.send("/app/auction/" + testAuction.getId() + "/bid", bidMessage);
         Thread.sleep(2000);
         
-        verify(auctionService).placeBid(any(BidDTO.class));
+        verify(auctionService, timeout(2000)).placeBidBatch(anyList());
         
         
         session1.disconnect();
@@ -341,7 +340,7 @@ public class AuctionWebSocketIntegrationTest {
         stompClient.connect(sockJsUrl, new WebSocketHttpHeaders(), headers, new TestSessionHandler(sessionFuture));
         StompSession session = sessionFuture.get(10, TimeUnit.SECONDS);
         
-        when(auctionService.placeBid(any())).thenThrow(new RuntimeException("Bid too low - minimum increment is 25.0"));
+        when(auctionService.placeBidBatch(anyList())).thenThrow(new IllegalStateException("Bid too low - minimum increment is 25.0"));
         
         AuctionBidMessage lowBid = AuctionBidMessage.builder()
                 .auctionId(testAuction.getId())
@@ -352,7 +351,7 @@ public class AuctionWebSocketIntegrationTest {
         session.send("/app/auction/" + testAuction.getId() + "/bid", lowBid);
         Thread.sleep(2000);
         
-        verify(auctionService).placeBid(any());
+        verify(auctionService, timeout(2000)).placeBidBatch(anyList());
         
         session.disconnect();
     }
@@ -367,7 +366,7 @@ public class AuctionWebSocketIntegrationTest {
         stompClient.connect(sockJsUrl, new WebSocketHttpHeaders(), headers, new TestSessionHandler(sessionFuture));
         StompSession session = sessionFuture.get(10, TimeUnit.SECONDS);
         
-        when(auctionService.placeBid(any())).thenThrow(new RuntimeException("Auction is closed"));
+        when(auctionService.placeBidBatch(anyList())).thenThrow(new RuntimeException("Auction is closed"));
         
         AuctionBidMessage bidOnClosedAuction = AuctionBidMessage.builder()
                 .auctionId(testAuction.getId())
@@ -391,7 +390,7 @@ public class AuctionWebSocketIntegrationTest {
             Thread.sleep(1000);
         });
         
-        verify(auctionService, atLeast(1)).placeBid(any());
+        verify(auctionService, timeout(2000).atLeast(1)).placeBidBatch(anyList());
         
         session.disconnect();
     }
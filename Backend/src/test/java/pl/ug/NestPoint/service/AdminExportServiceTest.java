@@ -0,0 +1,111 @@
+package pl.ug.NestPoint.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.ug.NestPoint.domain.Review;
+import pl.ug.NestPoint.domain.User;
+import pl.ug.NestPoint.domain.enums.Role;
+import pl.ug.NestPoint.repository.ApartmentRepository;
+import pl.ug.NestPoint.repository.RentalRepository;
+import pl.ug.NestPoint.repository.ReviewRepository;
+import pl.ug.NestPoint.repository.UserRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AdminExportService Unit Tests")
+class AdminExportServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ApartmentRepository apartmentRepository;
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private AdminExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        exportService = new AdminExportService(userRepository, apartmentRepository, rentalRepository,
+                reviewRepository, entityManager, objectMapper);
+    }
+
+    @Test
+    @DisplayName("Should write one JSON object per user and detach each one")
+    void shouldExportUsersAsNdjson() throws Exception {
+        // Given
+        User first = User.builder().id(1L).username("owner").firstName("Anna").roles(Set.of(Role.OWNER)).build();
+        User second = User.builder().id(2L).username("tenant").roles(Set.of(Role.TENANT)).build();
+        when(userRepository.streamAllForExport()).thenReturn(Stream.of(first, second));
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(AdminExportService.Dataset.USERS, AdminExportService.Format.NDJSON, out);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,\"username\":\"owner\""));
+        assertTrue(lines[0].contains("\"roles\":[\"OWNER\"]"));
+        assertTrue(lines[1].startsWith("{\"id\":2,"));
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+    }
+
+    @Test
+    @DisplayName("Should write reviews as CSV with a header and quoted fields")
+    void shouldExportReviewsAsCsv() throws Exception {
+        // Given
+        Review review = Review.builder()
+                .id(5L)
+                .score(4)
+                .content("Nice, \"quiet\" place")
+                .createdAt(LocalDateTime.of(2025, 5, 1, 12, 0))
+                .build();
+        when(reviewRepository.streamAllForExport()).thenReturn(Stream.of(review));
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(AdminExportService.Dataset.REVIEWS, AdminExportService.Format.CSV, out);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals("id,authorId,apartmentId,targetUserId,score,content,createdAt", lines[0]);
+        assertEquals("5,,,,4,\"Nice, \"\"quiet\"\" place\",2025-05-01T12:00", lines[1]);
+    }
+
+    @Test
+    @DisplayName("Should keep spreadsheet formulas out of CSV text fields")
+    void shouldEscapeFormulasInCsv() {
+        assertEquals("'=SUM(A1:A9)", AdminExportService.csvField("=SUM(A1:A9)"));
+        assertEquals("-5.0", AdminExportService.csvField(-5.0));
+        assertEquals("OWNER;TENANT", AdminExportService.csvField(Set.of(Role.TENANT, Role.OWNER)));
+    }
+}
@@ -0,0 +1,131 @@
+package pl.ug.NestPoint.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+import pl.ug.NestPoint.domain.enums.Role;
+import pl.ug.NestPoint.repository.AnalyticsRollupListener;
+import pl.ug.NestPoint.repository.AnalyticsRollupRepository;
+import pl.ug.NestPoint.repository.ApartmentRepository;
+import pl.ug.NestPoint.repository.RentalRepository;
+import pl.ug.NestPoint.repository.UserRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("AnalyticsRollups Unit Tests")
+class AnalyticsRollupsTest {
+
+    @Mock
+    private AnalyticsRollupRepository rollupRepository;
+
+    @Mock
+    private AnalyticsRollupListener rollupListener;
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    @Mock
+    private ApartmentRepository apartmentRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AnalyticsRollups rollups;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        rollups = new AnalyticsRollups(rollupRepository, rollupListener, rentalRepository, apartmentRepository,
+                userRepository, transactionManager, meterRegistry, true);
+    }
+
+    @Test
+    @DisplayName("Should answer from the aggregate queries until the rollup is ready")
+    void shouldUseAggregateQueriesBeforeStart() {
+        // Given
+        List<Object[]> averages = List.<Object[]>of(new Object[]{"Warsaw", 1200.0});
+        when(rentalRepository.findAverageRentalCostGroupedByCity()).thenReturn(averages);
+
+        // When
+        List<Object[]> result = rollups.findAverageRentalCostGroupedByCity();
+
+        // Then
+        assertSame(averages, result);
+        verifyNoInteractions(rollupRepository);
+    }
+
+    @Test
+    @DisplayName("Should enable tracking, rebuild and then read from the rollup")
+    void shouldReadFromRollupOnceReady() {
+        // Given
+        List<Object[]> completion = List.<Object[]>of(new Object[]{1L, 4L, 3L, 75.0});
+        when(rollupRepository.isSupported()).thenReturn(true);
+        when(rollupRepository.reconcile()).thenReturn(2);
+        when(rollupRepository.getOwnerFeePercentage(1L)).thenReturn(completion);
+
+        // When
+        rollups.start();
+        List<Object[]> result = rollups.getOwnerFeePercentage(1L);
+
+        // Then
+        assertTrue(rollups.isReady());
+        var order = inOrder(rollupListener, rollupRepository);
+        order.verify(rollupListener).enable();
+        order.verify(rollupRepository).reconcile();
+        assertSame(completion, result);
+        verify(userRepository, never()).getOwnerFeePercentage(anyLong());
+        assertEquals(2.0, meterRegistry.counter("analytics.rollup.drift").count());
+    }
+
+    @Test
+    @DisplayName("Should keep the aggregate queries on databases without rollup support")
+    void shouldStayOnAggregateQueriesWhenUnsupported() {
+        // Given
+        when(rollupRepository.isSupported()).thenReturn(false);
+        when(userRepository.getOwnerFeePercentageByAddress("Gdansk", Role.OWNER)).thenReturn(List.of());
+
+        // When
+        rollups.start();
+        rollups.getOwnerFeePercentageByAddress("Gdansk");
+
+        // Then
+        assertFalse(rollups.isReady());
+        verify(rollupListener, never()).enable();
+        verify(userRepository).getOwnerFeePercentageByAddress("Gdansk", Role.OWNER);
+    }
+
+    @Test
+    @DisplayName("Should only count completed rentals into the rollup once it is ready")
+    void shouldCountEndedRentalsOnlyWhenReady() {
+        // Given
+        LocalDate today = LocalDate.of(2025, 3, 1);
+        rollups.addEndedRentals(today, 500);
+        verify(rollupRepository, never()).addEndedRentals(any(), anyInt());
+        when(rollupRepository.isSupported()).thenReturn(true);
+        rollups.start();
+
+        // When
+        rollups.addEndedRentals(today, 500);
+
+        // Then
+        verify(rollupRepository).addEndedRentals(today, 500);
+    }
+}
@@ -0,0 +1,162 @@
+package pl.ug.NestPoint.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import pl.ug.NestPoint.domain.Apartment;
+import pl.ug.NestPoint.domain.Rental;
+import pl.ug.NestPoint.domain.RentalStatus;
+import pl.ug.NestPoint.repository.RentalRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("ApartmentAvailabilityIndex Unit Tests")
+class ApartmentAvailabilityIndexTest {
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    @InjectMocks
+    private ApartmentAvailabilityIndex index;
+
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        today = LocalDate.now();
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, 10L, today.plusDays(1), today.plusDays(10)});
+        // Nested inside the first booking
+        rows.add(new Object[]{2L, 10L, today.plusDays(3), today.plusDays(4)});
+        rows.add(new Object[]{3L, 10L, today.plusDays(20), today.plusDays(22)});
+        rows.add(new Object[]{4L, 11L, today.minusDays(2), today.plusDays(2)});
+        when(rentalRepository.findBookedIntervals(RentalStatus.CANCELLED)).thenReturn(rows);
+        index.load();
+    }
+
+    @Test
+    @DisplayName("Should find overlaps with inclusive start and end dates")
+    void shouldFindOverlaps() {
+        assertTrue(index.isOccupiedBetween(10L, today.plusDays(6), today.plusDays(7)));
+        assertTrue(index.isOccupiedBetween(10L, today.plusDays(10), today.plusDays(15)));
+        assertTrue(index.isOccupiedBetween(10L, today.plusDays(15), today.plusDays(20)));
+        assertFalse(index.isOccupiedBetween(10L, today.plusDays(11), today.plusDays(19)));
+        assertFalse(index.isOccupiedBetween(10L, today.plusDays(23), today.plusDays(30)));
+        assertFalse(index.isOccupiedBetween(99L, today, today.plusDays(30)));
+    }
+
+    @Test
+    @DisplayName("Should tell whether an apartment is occupied on a day")
+    void shouldTellOccupiedOnDay() {
+        assertTrue(index.isOccupiedOn(11L, today));
+        assertFalse(index.isOccupiedOn(10L, today));
+    }
+
+    @Test
+    @DisplayName("Should ignore the rental that is being moved")
+    void shouldExcludeRental() {
+        assertTrue(index.isOccupiedBetween(10L, today.plusDays(21), today.plusDays(25), 1L));
+        assertFalse(index.isOccupiedBetween(10L, today.plusDays(21), today.plusDays(25), 3L));
+        // The nested booking still covers its own days without the outer one
+        assertTrue(index.isOccupiedBetween(10L, today.plusDays(4), today.plusDays(5), 1L));
+        assertFalse(index.isOccupiedBetween(10L, today.plusDays(5), today.plusDays(6), 1L));
+    }
+
+    @Test
+    @DisplayName("Should apply new, moved and cancelled rentals")
+    void shouldApplyChanges() {
+        // Given
+        Rental created = rental(5L, 11L, today.plusDays(30), today.plusDays(32), RentalStatus.PENDING);
+        Rental moved = rental(1L, 11L, today.plusDays(40), today.plusDays(41), RentalStatus.PENDING);
+        Rental cancelled = rental(3L, 10L, today.plusDays(20), today.plusDays(22), RentalStatus.CANCELLED);
+
+        // When - outside a transaction changes apply immediately
+        index.update(created);
+        index.update(moved);
+        index.update(cancelled);
+
+        // Then
+        assertTrue(index.isOccupiedBetween(11L, today.plusDays(31), today.plusDays(31)));
+        assertTrue(index.isOccupiedBetween(11L, today.plusDays(41), today.plusDays(45)));
+        assertFalse(index.isOccupiedBetween(10L, today.plusDays(6), today.plusDays(7)));
+        assertTrue(index.isOccupiedBetween(10L, today.plusDays(3), today.plusDays(3)));
+        assertFalse(index.isOccupiedBetween(10L, today.plusDays(20), today.plusDays(22)));
+    }
+
+    @Test
+    @DisplayName("Should merge and split booked ranges as adjacent bookings change")
+    void shouldKeepRangesInStepWithBookings() {
+        // Given - random changes to one apartment, checked against the bookings themselves
+        Random random = new Random(42);
+        Map<Long, Rental> bookings = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            Long rentalId = (long) (100 + random.nextInt(30));
+            if (random.nextInt(4) == 0) {
+                index.remove(rentalId);
+                bookings.remove(rentalId);
+            } else {
+                LocalDate start = today.plusDays(random.nextInt(60));
+                Rental rental = rental(rentalId, 12L, start, start.plusDays(random.nextInt(4)), RentalStatus.PENDING);
+                index.update(rental);
+                bookings.put(rentalId, rental);
+            }
+
+            // Then
+            for (int day = 0; day < 65; day++) {
+                LocalDate date = today.plusDays(day);
+                boolean booked = bookings.values().stream()
+                        .anyMatch(rental -> !date.isBefore(rental.getStartDate()) && !date.isAfter(rental.getEndDate()));
+                assertEquals(booked, index.isOccupiedOn(12L, date), "day " + day + " after change " + i);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should forget deleted rentals")
+    void shouldRemoveRental() {
+        // When
+        index.remove(4L);
+
+        // Then
+        assertFalse(index.isOccupiedOn(11L, today));
+    }
+
+    @Test
+    @DisplayName("Should load the bookings on first use when the startup load has not run yet")
+    void shouldLoadOnFirstUse() {
+        // Given
+        ApartmentAvailabilityIndex fresh = new ApartmentAvailabilityIndex(rentalRepository);
+
+        // When & Then
+        assertTrue(fresh.isOccupiedOn(11L, today));
+        verify(rentalRepository, times(2)).findBookedIntervals(RentalStatus.CANCELLED);
+    }
+
+    private Rental rental(Long id, Long apartmentId, LocalDate startDate, LocalDate endDate, RentalStatus status) {
+        Apartment apartment = new Apartment();
+        apartment.setId(apartmentId);
+        Rental rental = new Rental();
+        rental.setId(id);
+        rental.setApartment(apartment);
+        rental.setStartDate(startDate);
+        rental.setEndDate(endDate);
+        rental.setStatus(status);
+        return rental;
+    }
+}
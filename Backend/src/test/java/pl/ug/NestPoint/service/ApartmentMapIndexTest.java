@@ -0,0 +1,251 @@
+package pl.ug.NestPoint.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import pl.ug.NestPoint.dto.ApartmentSearchCriteria;
+import pl.ug.NestPoint.dto.MapClusterDTO;
+import pl.ug.NestPoint.dto.MapPointDTO;
+import pl.ug.NestPoint.dto.MapViewportDTO;
+import pl.ug.NestPoint.dto.NearbyApartmentDTO;
+import pl.ug.NestPoint.repository.ApartmentRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("ApartmentMapIndex Unit Tests")
+class ApartmentMapIndexTest {
+
+    @Mock
+    private ApartmentRepository apartmentRepository;
+
+    @Mock
+    private ApartmentAvailabilityIndex availabilityIndex;
+
+    private ApartmentMapIndex index;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(1L, 52.2297, 21.0122, "Warsaw"));
+        rows.add(row(2L, 52.2400, 21.0300, "Warsaw"));
+        rows.add(row(3L, 54.3520, 18.6466, "Gdansk"));
+        rows.add(row(4L, -17.7000, 179.5000, "Suva"));
+        rows.add(row(5L, -17.8000, -179.5000, "Suva"));
+        when(apartmentRepository.findMapPoints()).thenReturn(rows);
+        when(availabilityIndex.isAvailable(anyLong(), any(), any(), any())).thenReturn(true);
+        index = new ApartmentMapIndex(apartmentRepository, availabilityIndex, 15, 500, 1024);
+        index.load();
+    }
+
+    @Test
+    @DisplayName("Should list single apartments inside the viewport at street zoom")
+    void shouldReturnPointsAtHighZoom() {
+        // When
+        MapViewportDTO viewport = index.viewport(20.9, 52.1, 21.1, 52.3, 15);
+
+        // Then
+        assertFalse(viewport.isClustered());
+        assertEquals(List.of(1L, 2L), viewport.getPoints().stream().map(MapPointDTO::getId).sorted().toList());
+        assertTrue(viewport.getClusters().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should cluster nearby apartments at country zoom")
+    void shouldClusterAtLowZoom() {
+        // When
+        MapViewportDTO viewport = index.viewport(14.0, 49.0, 24.0, 55.0, 4);
+
+        // Then
+        assertTrue(viewport.isClustered());
+        assertEquals(1, viewport.getClusters().size());
+        MapClusterDTO warsaw = viewport.getClusters().get(0);
+        assertEquals(2, warsaw.getCount());
+        assertEquals((52.2297 + 52.2400) / 2, warsaw.getLat(), 1e-9);
+        assertTrue(warsaw.getWest() <= 21.0122 && warsaw.getEast() >= 21.03);
+        assertEquals(List.of(3L), viewport.getPoints().stream().map(MapPointDTO::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Should keep the response within the cell budget for any viewport")
+    void shouldBoundResponseSize() {
+        // Given
+        ApartmentMapIndex small = new ApartmentMapIndex(apartmentRepository, availabilityIndex, 15, 2, 16);
+        small.load();
+
+        // When
+        MapViewportDTO viewport = small.viewport(-180, -90, 180, 90, 20);
+
+        // Then
+        assertTrue(viewport.isClustered());
+        assertTrue(viewport.getPoints().size() + viewport.getClusters().size() <= 16);
+        int total = viewport.getPoints().size()
+                + viewport.getClusters().stream().mapToInt(MapClusterDTO::getCount).sum();
+        assertEquals(5, total);
+    }
+
+    @Test
+    @DisplayName("Should handle viewports crossing the antimeridian")
+    void shouldSplitAtAntimeridian() {
+        // When
+        MapViewportDTO viewport = index.viewport(179.0, -18.0, -179.0, -17.0, 16);
+
+        // Then
+        assertEquals(List.of(4L, 5L), viewport.getPoints().stream().map(MapPointDTO::getId).sorted().toList());
+    }
+
+    @Test
+    @DisplayName("Should re-read changed apartments and drop deleted ones")
+    void shouldApplyWrites() {
+        // Given
+        List<Object[]> moved = new ArrayList<>();
+        moved.add(row(3L, 52.2350, 21.0200, "Warsaw"));
+        when(apartmentRepository.findMapPoint(3L)).thenReturn(moved);
+
+        // When
+        index.update(3L);
+        index.remove(1L);
+        MapViewportDTO viewport = index.viewport(20.9, 52.1, 21.1, 52.3, 15);
+
+        // Then
+        assertEquals(List.of(2L, 3L), viewport.getPoints().stream().map(MapPointDTO::getId).sorted().toList());
+        assertEquals(List.of(2L, 3L, 4L, 5L), index.allPoints().stream().map(MapPointDTO::getId).toList());
+        verify(apartmentRepository, times(1)).findMapPoints();
+    }
+
+    @Test
+    @DisplayName("Should return the nearest apartments closest first with their distance")
+    void shouldFindNearest() {
+        // When
+        List<NearbyApartmentDTO> nearby = index.nearby(52.2297, 21.0122, 3, null, new ApartmentSearchCriteria());
+
+        // Then
+        assertEquals(List.of(1L, 2L, 3L), nearby.stream().map(NearbyApartmentDTO::getId).toList());
+        assertEquals(0.0, nearby.get(0).getDistanceKm(), 1e-6);
+        // Warsaw to Gdansk is about 284 km
+        assertEquals(284, nearby.get(2).getDistanceKm(), 3);
+    }
+
+    @Test
+    @DisplayName("Should limit nearby apartments to the radius and the price and date filters")
+    void shouldFilterNearby() {
+        // Given
+        LocalDate date = LocalDate.of(2025, 6, 1);
+        when(availabilityIndex.isAvailable(2L, date, null, null)).thenReturn(false);
+        ApartmentSearchCriteria filters = ApartmentSearchCriteria.builder().maxPrice(300.0).availableOn(date).build();
+
+        // When
+        List<NearbyApartmentDTO> withinRadius = index.nearby(52.2297, 21.0122, null, 10.0, new ApartmentSearchCriteria());
+        List<NearbyApartmentDTO> filtered = index.nearby(52.2297, 21.0122, 10, 10.0, filters);
+        List<NearbyApartmentDTO> overPrice = index.nearby(52.2297, 21.0122, 10, null,
+                ApartmentSearchCriteria.builder().minPrice(300.0).build());
+
+        // Then
+        assertEquals(List.of(1L, 2L), withinRadius.stream().map(NearbyApartmentDTO::getId).toList());
+        assertEquals(List.of(1L), filtered.stream().map(NearbyApartmentDTO::getId).toList());
+        assertTrue(overPrice.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should find across the antimeridian and agree with a full scan")
+    void shouldMatchBruteForce() {
+        // Given
+        Random random = new Random(42);
+        List<ApartmentMapIndex.MapPoint> points = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            points.add(new ApartmentMapIndex.MapPoint(id, "", 0, random.nextDouble() * 180 - 90,
+                    random.nextDouble() * 360 - 180, "", null, null));
+        }
+        NearestPointTree tree = NearestPointTree.of(points);
+
+        for (int query = 0; query < 50; query++) {
+            double lat = random.nextDouble() * 180 - 90;
+            double lng = query == 0 ? 179.99 : random.nextDouble() * 360 - 180;
+
+            // When
+            List<Long> found = tree.nearest(lat, lng, 5, null, point -> true).stream()
+                    .map(neighbour -> neighbour.point().id()).toList();
+
+            // Then
+            List<Long> expected = points.stream()
+                    .sorted(Comparator.comparingDouble(point -> haversineKm(lat, lng, point.lat(), point.lng())))
+                    .limit(5)
+                    .map(ApartmentMapIndex.MapPoint::id)
+                    .toList();
+            assertEquals(expected, found);
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer the same after patched writes as a snapshot built from scratch")
+    void shouldPatchLikeRebuild() {
+        // Given
+        Random random = new Random(7);
+        Map<Long, ApartmentMapIndex.MapPoint> points = new HashMap<>();
+        ApartmentMapIndex.Snapshot patched = ApartmentMapIndex.Snapshot.of(List.of());
+
+        // When - enough writes to rebuild the k-d tree along the way
+        for (int write = 0; write < ApartmentMapIndex.MAX_PENDING_POINTS * 2; write++) {
+            long id = 1 + random.nextInt(200);
+            ApartmentMapIndex.MapPoint point = random.nextInt(5) == 0 ? null : new ApartmentMapIndex.MapPoint(id, "", 0,
+                    random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180, "", null, null);
+            patched = patched.with(id, point);
+            if (point != null) {
+                points.put(id, point);
+            } else {
+                points.remove(id);
+            }
+        }
+
+        // Then
+        ApartmentMapIndex.Snapshot rebuilt = ApartmentMapIndex.Snapshot.of(points.values());
+        assertEquals(rebuilt.fingerprint(), patched.fingerprint());
+        assertEquals(List.of(rebuilt.byId()), List.of(patched.byId()));
+        assertArrayEquals(rebuilt.codes(), patched.codes());
+        assertEquals(rebuilt.latSums()[points.size()], patched.latSums()[points.size()], 1e-6);
+        for (int query = 0; query < 20; query++) {
+            double lat = random.nextDouble() * 180 - 90;
+            double lng = random.nextDouble() * 360 - 180;
+            assertEquals(rebuilt.nearby().nearest(lat, lng, 5, null, point -> true),
+                    patched.nearby().nearest(lat, lng, 5, null, point -> true));
+        }
+    }
+
+    @Test
+    @DisplayName("Should give cells of every level a common code prefix")
+    void shouldNestCellsInZOrder() {
+        int x = ApartmentMapIndex.cell(21.0122, -180, 360, ApartmentMapIndex.MAX_LEVEL);
+        int y = ApartmentMapIndex.cell(52.2297, -90, 180, ApartmentMapIndex.MAX_LEVEL);
+        long code = ApartmentMapIndex.interleave(x, y);
+        int shift = ApartmentMapIndex.MAX_LEVEL - 7;
+        assertEquals(ApartmentMapIndex.interleave(x >>> shift, y >>> shift), code >>> (2 * shift));
+    }
+
+    private static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.pow(Math.sin(dLat / 2), 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.pow(Math.sin(dLng / 2), 2);
+        return 2 * NearestPointTree.EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+
+    private static Object[] row(Long id, double lat, double lng, String city) {
+        return new Object[]{id, "Apartment " + id, 250.0, lat, lng, city, "Main Street", null, null};
+    }
+}
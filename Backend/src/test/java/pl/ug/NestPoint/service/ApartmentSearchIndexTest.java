@@ -0,0 +1,158 @@
+package pl.ug.NestPoint.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.ug.NestPoint.domain.Address;
+import pl.ug.NestPoint.domain.Apartment;
+import pl.ug.NestPoint.domain.User;
+import pl.ug.NestPoint.domain.enums.AccessibilityType;
+import pl.ug.NestPoint.domain.enums.PropertyType;
+import pl.ug.NestPoint.dto.ApartmentSearchCriteria;
+import pl.ug.NestPoint.repository.ApartmentRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ApartmentSearchIndex Unit Tests")
+class ApartmentSearchIndexTest {
+
+    @Mock
+    private ApartmentRepository apartmentRepository;
+
+    @Mock
+    private ApartmentAvailabilityIndex availabilityIndex;
+
+    private ApartmentSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new ApartmentSearchIndex(apartmentRepository, availabilityIndex);
+        User anna = User.builder().id(10L).firstName("Anna").lastName("Nowak").build();
+        User jan = User.builder().id(11L).firstName("Jan").lastName("Kowalski").build();
+        when(apartmentRepository.findAllForSearchIndex()).thenReturn(List.of(
+                apartment(1L, anna, "Warsaw", 300.0, 40, true, AccessibilityType.PRIVATE, PropertyType.APARTMENT),
+                apartment(2L, anna, "Gdansk", 500.0, 80, true, AccessibilityType.SHARED, PropertyType.PROPERTY),
+                apartment(3L, jan, "Warsaw", 700.0, 120, false, AccessibilityType.PRIVATE, PropertyType.PROPERTY)));
+        lenient().when(availabilityIndex.isAvailable(anyLong(), any(), any(), any())).thenReturn(true);
+        searchIndex.load();
+    }
+
+    @Test
+    @DisplayName("Should intersect attribute filters and count facets over the matches")
+    void shouldCombineAttributeFilters() {
+        // When
+        ApartmentSearchIndex.SearchResult result = searchIndex.search(ApartmentSearchCriteria.builder()
+                .wifi(true)
+                .propertyType(PropertyType.PROPERTY)
+                .build());
+
+        // Then
+        assertEquals(List.of(2L), result.apartmentIds());
+        assertEquals(Map.of("PRIVATE", 0, "SHARED", 1), result.facets().get("kitchen"));
+        assertEquals(Map.of("false", 0, "true", 1), result.facets().get("wifi"));
+        assertEquals(List.copyOf(ApartmentSearchIndex.FACETS), List.copyOf(result.facets().keySet()));
+    }
+
+    @Test
+    @DisplayName("Should apply price and size ranges together with text filters")
+    void shouldCombineRangesAndText() {
+        // When
+        ApartmentSearchIndex.SearchResult result = searchIndex.search(ApartmentSearchCriteria.builder()
+                .minPrice(300.0)
+                .maxPrice(700.0)
+                .minSize(50)
+                .address("warsaw")
+                .build());
+
+        // Then
+        assertEquals(List.of(3L), result.apartmentIds());
+        assertEquals(Map.of("APARTMENT", 0, "PROPERTY", 1), result.facets().get("propertyType"));
+    }
+
+    @Test
+    @DisplayName("Should drop apartments booked in the requested dates")
+    void shouldFilterByAvailability() {
+        // Given
+        LocalDate from = LocalDate.of(2025, 6, 1);
+        LocalDate to = LocalDate.of(2025, 6, 5);
+        when(availabilityIndex.isAvailable(1L, null, from, to)).thenReturn(false);
+
+        // When
+        ApartmentSearchIndex.SearchResult result = searchIndex.search(ApartmentSearchCriteria.builder()
+                .ownerName("anna")
+                .availableFrom(from)
+                .availableTo(to)
+                .build());
+
+        // Then
+        assertEquals(List.of(2L), result.apartmentIds());
+        verify(availabilityIndex).isAvailable(1L, null, from, to);
+        verify(availabilityIndex, never()).isAvailable(3L, null, from, to);
+    }
+
+    @Test
+    @DisplayName("Should reflect saved and deleted apartments without a reload")
+    void shouldApplyWrites() {
+        // Given
+        User jan = User.builder().id(11L).firstName("Jan").lastName("Kowalski").build();
+
+        // When
+        searchIndex.update(apartment(3L, jan, "Warsaw", 700.0, 120, true, AccessibilityType.PRIVATE, PropertyType.PROPERTY));
+        searchIndex.remove(1L);
+        ApartmentSearchIndex.SearchResult result = searchIndex.search(ApartmentSearchCriteria.builder().wifi(true).build());
+
+        // Then
+        assertEquals(List.of(2L, 3L), result.apartmentIds());
+        verify(apartmentRepository, times(1)).findAllForSearchIndex();
+    }
+
+    @Test
+    @DisplayName("Should move a saved apartment between facet values and price ranges")
+    void shouldPatchChangedApartment() {
+        // Given
+        User jan = User.builder().id(11L).firstName("Jan").lastName("Kowalski").build();
+
+        // When
+        searchIndex.update(apartment(1L, jan, "Sopot", 900.0, 40, false, AccessibilityType.SHARED, PropertyType.APARTMENT));
+        searchIndex.update(apartment(4L, jan, "Sopot", 350.0, 30, false, AccessibilityType.PRIVATE, PropertyType.APARTMENT));
+        searchIndex.remove(2L);
+
+        // Then
+        assertEquals(List.of(4L), searchIndex.search(ApartmentSearchCriteria.builder().maxPrice(400.0).build())
+                .apartmentIds());
+        ApartmentSearchIndex.SearchResult expensive = searchIndex.search(ApartmentSearchCriteria.builder()
+                .minPrice(650.0)
+                .build());
+        assertEquals(List.of(1L, 3L), expensive.apartmentIds());
+        assertEquals(Map.of("PRIVATE", 1, "SHARED", 1), expensive.facets().get("kitchen"));
+        assertEquals(Map.of("false", 2), expensive.facets().get("wifi"));
+        assertEquals(List.of(1L, 4L), searchIndex.search(ApartmentSearchCriteria.builder().address("sopot").build())
+                .apartmentIds());
+    }
+
+    private static Apartment apartment(Long id, User owner, String city, double price, int size, boolean wifi,
+                                       AccessibilityType kitchen, PropertyType propertyType) {
+        Address address = new Address();
+        address.setCity(city);
+        address.setStreet("Main Street 1");
+        return Apartment.builder()
+                .id(id)
+                .owner(owner)
+                .address(address)
+                .rentalPrice(price)
+                .size(size)
+                .wifi(wifi)
+                .kitchen(kitchen)
+                .propertyType(propertyType)
+                .build();
+    }
+}
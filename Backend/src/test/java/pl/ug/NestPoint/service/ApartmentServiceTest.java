@@ -4,15 +4,19 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
 import pl.ug.NestPoint.domain.Apartment;
 import pl.ug.NestPoint.domain.User;
 import pl.ug.NestPoint.domain.enums.PropertyType;
 import pl.ug.NestPoint.dto.ApartmentDTO;
+import pl.ug.NestPoint.dto.ApartmentSearchCriteria;
 import pl.ug.NestPoint.mapper.ApartmentMapper;
 import pl.ug.NestPoint.repository.ApartmentRepository;
+import pl.ug.NestPoint.repository.RentalRangeSchema;
 import pl.ug.NestPoint.repository.UserRepository;
 import pl.ug.NestPoint.domain.enums.Role;
 import pl.ug.NestPoint.domain.enums.AccessibilityType;
@@ -24,6 +28,7 @@ import pl.ug.NestPoint.domain.Rental;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.HashSet;
@@ -59,6 +64,21 @@ class ApartmentServiceTest {
     @Mock
     private GeocodingService geocodingService;
     
+    @Mock
+    private RentalRangeSchema rentalRangeSchema;
+
+    @Mock
+    private AnalyticsRollups analyticsRollups;
+
+    @Mock
+    private ApartmentSearchIndex searchIndex;
+
+    @Mock
+    private ApartmentTextIndex textIndex;
+
+    @Mock
+    private ApartmentMapIndex mapIndex;
+    
     @InjectMocks
     private ApartmentService apartmentService;
     
@@ -110,6 +130,9 @@ class ApartmentServiceTest {
         assertEquals("Test Apartment", result.getTitle());
         verify(userRepository).findById(1L);
         verify(apartmentRepository).save(any(Apartment.class));
+        verify(searchIndex).update(testApartment);
+        verify(textIndex).update(testApartment);
+        verify(mapIndex).update(1L);
     }
     
     @Test
@@ -178,6 +201,9 @@ class ApartmentServiceTest {
         
         // Then
         verify(apartmentRepository).deleteById(1L);
+        verify(searchIndex).remove(1L);
+        verify(textIndex).remove(1L);
+        verify(mapIndex).remove(1L);
     }
     
     @Test
@@ -244,6 +270,26 @@ class ApartmentServiceTest {
         verify(apartmentRepository).findAvailableBetweenDates(startDate, endDate);
     }
     
+    @Test
+    @DisplayName("Should search availability by date range when the range schema is installed")
+    void shouldFindAvailableApartmentsByRange() {
+        // Given
+        LocalDate startDate = LocalDate.now().plusDays(7);
+        LocalDate endDate = LocalDate.now().plusDays(14);
+        when(rentalRangeSchema.isInstalled()).thenReturn(true);
+        when(apartmentRepository.findAvailableBetweenDatesByRange(startDate, endDate)).thenReturn(List.of(testApartment));
+        
+        // When
+        List<Apartment> between = apartmentService.findAvailableBetweenDates(startDate, endDate);
+        apartmentService.findAvailableOnDate(startDate);
+        
+        // Then
+        assertEquals(List.of(testApartment), between);
+        verify(apartmentRepository).findAvailableBetweenDatesByRange(startDate, startDate);
+        verify(apartmentRepository, never()).findAvailableBetweenDates(any(), any());
+        verify(apartmentRepository, never()).findAvailableOnDate(any());
+    }
+    
     @Test
     @DisplayName("Should find occupied apartments on date")
     void shouldFindOccupiedApartmentsOnDate() {
@@ -408,7 +454,7 @@ class ApartmentServiceTest {
         Object[] cityPriceArray = new Object[] {"Warsaw", 1000.0};
         averagePrices.add(cityPriceArray);
         
-        when(apartmentRepository.findAverageRentalPriceGroupedByCity()).thenReturn(averagePrices);
+        when(analyticsRollups.findAverageRentalPriceGroupedByCity()).thenReturn(averagePrices);
         
         // When
         List<Object[]> result = apartmentService.findAverageRentalPriceGroupedByCity();
@@ -417,7 +463,7 @@ class ApartmentServiceTest {
         assertEquals(1, result.size());
         assertEquals("Warsaw", result.get(0)[0]);
         assertEquals(1000.0, result.get(0)[1]);
-        verify(apartmentRepository).findAverageRentalPriceGroupedByCity();
+        verify(analyticsRollups).findAverageRentalPriceGroupedByCity();
     }
     
     @Test
@@ -426,7 +472,7 @@ class ApartmentServiceTest {
         // Given
         List<Object[]> averagePrices = new ArrayList<>();
         averagePrices.add(new Object[] {"owner", 1000.0});
-        when(apartmentRepository.findAverageRentalPriceGroupedByOwner()).thenReturn(averagePrices);
+        when(analyticsRollups.findAverageRentalPriceGroupedByOwner()).thenReturn(averagePrices);
         
         // When
         List<Object[]> result = apartmentService.findAverageRentalPriceGroupedByOwner();
@@ -435,52 +481,95 @@ class ApartmentServiceTest {
         assertEquals(1, result.size());
         assertEquals("owner", result.get(0)[0]);
         assertEquals(1000.0, result.get(0)[1]);
-        verify(apartmentRepository).findAverageRentalPriceGroupedByOwner();
+        verify(analyticsRollups).findAverageRentalPriceGroupedByOwner();
     }
     
     @Test
-    @DisplayName("Should find by amenities")
+    @DisplayName("Should find by amenities through the search index")
     void shouldFindByAmenities() {
         // Given
-        List<Apartment> apartments = Arrays.asList(testApartment);
-        when(apartmentRepository.findByAmenities(true, true, true, AccessibilityType.PRIVATE, true)).thenReturn(apartments);
+        when(searchIndex.search(any(ApartmentSearchCriteria.class)))
+                .thenReturn(new ApartmentSearchIndex.SearchResult(List.of(1L), Map.of()));
+        when(apartmentRepository.findAllById(List.of(1L))).thenReturn(List.of(testApartment));
         
         // When
-        List<Apartment> result = apartmentService.findByAmenities(true, true, true, AccessibilityType.PRIVATE, true);
+        List<Apartment> result = apartmentService.findByAmenities(true, false, true, AccessibilityType.PRIVATE, false);
         
         // Then
         assertEquals(1, result.size());
-        verify(apartmentRepository).findByAmenities(true, true, true, AccessibilityType.PRIVATE, true);
+        ArgumentCaptor<ApartmentSearchCriteria> criteria = ArgumentCaptor.forClass(ApartmentSearchCriteria.class);
+        verify(searchIndex).search(criteria.capture());
+        assertEquals(Boolean.TRUE, criteria.getValue().getWifi());
+        assertNull(criteria.getValue().getParkingSpace());
+        assertEquals(Boolean.TRUE, criteria.getValue().getPetsAllowed());
+        assertEquals(AccessibilityType.PRIVATE, criteria.getValue().getKitchen());
+        assertNull(criteria.getValue().getDisabilityFriendly());
     }
     
     @Test
-    @DisplayName("Should find by property type")
+    @DisplayName("Should find by property type through the search index")
     void shouldFindByPropertyType() {
         // Given
-        List<Apartment> apartments = Arrays.asList(testApartment);
-        when(apartmentRepository.findByPropertyType(PropertyType.APARTMENT)).thenReturn(apartments);
+        when(searchIndex.search(any(ApartmentSearchCriteria.class)))
+                .thenReturn(new ApartmentSearchIndex.SearchResult(List.of(1L), Map.of()));
+        when(apartmentRepository.findAllById(List.of(1L))).thenReturn(List.of(testApartment));
         
         // When
         List<Apartment> result = apartmentService.findByPropertyType(PropertyType.APARTMENT);
         
         // Then
         assertEquals(1, result.size());
-        verify(apartmentRepository).findByPropertyType(PropertyType.APARTMENT);
+        verify(searchIndex).search(argThat(criteria -> criteria.getPropertyType() == PropertyType.APARTMENT));
     }
     
     @Test
-    @DisplayName("Should find by accessibility features")
+    @DisplayName("Should find by accessibility features through the search index")
     void shouldFindByAccessibilityFeatures() {
         // Given
-        List<Apartment> apartments = Arrays.asList(testApartment);
-        when(apartmentRepository.findByAccessibilityFeatures(AccessibilityType.SHARED, AccessibilityType.PRIVATE, true)).thenReturn(apartments);
+        when(searchIndex.search(any(ApartmentSearchCriteria.class)))
+                .thenReturn(new ApartmentSearchIndex.SearchResult(List.of(1L), Map.of()));
+        when(apartmentRepository.findAllById(List.of(1L))).thenReturn(List.of(testApartment));
         
         // When
         List<Apartment> result = apartmentService.findByAccessibilityFeatures(AccessibilityType.SHARED, AccessibilityType.PRIVATE, true);
         
         // Then
         assertEquals(1, result.size());
-        verify(apartmentRepository).findByAccessibilityFeatures(AccessibilityType.SHARED, AccessibilityType.PRIVATE, true);
+        verify(searchIndex).search(argThat(criteria -> criteria.getPoolAccess() == AccessibilityType.SHARED
+                && criteria.getYardAccess() == AccessibilityType.PRIVATE
+                && Boolean.TRUE.equals(criteria.getDisabilityFriendly())));
+    }
+
+    @Test
+    @DisplayName("Should page full-text search results in relevance order")
+    void shouldTextSearch() {
+        // Given
+        Apartment second = Apartment.builder().id(2L).build();
+        when(textIndex.search("mieszkanie krakow", 1, 2)).thenReturn(new ApartmentTextIndex.TextSearchResult(
+                List.of(new ApartmentTextIndex.Hit(2L, 3.5), new ApartmentTextIndex.Hit(1L, 1.2)), 5));
+        when(apartmentRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(testApartment, second));
+
+        // When
+        Page<Apartment> result = apartmentService.textSearch("mieszkanie krakow", 1, 2);
+
+        // Then
+        assertEquals(List.of(2L, 1L), result.getContent().stream().map(Apartment::getId).toList());
+        assertEquals(5, result.getTotalElements());
+        assertEquals(3, result.getTotalPages());
+    }
+
+    @Test
+    @DisplayName("Should return searched apartments in index order and skip deleted ones")
+    void shouldFindAllInOrder() {
+        // Given
+        Apartment second = Apartment.builder().id(2L).build();
+        when(apartmentRepository.findAllById(List.of(2L, 1L, 3L))).thenReturn(List.of(testApartment, second));
+        
+        // When
+        List<Apartment> result = apartmentService.findAllInOrder(List.of(2L, 1L, 3L));
+        
+        // Then
+        assertEquals(List.of(second, testApartment), result);
     }
     
     @Test
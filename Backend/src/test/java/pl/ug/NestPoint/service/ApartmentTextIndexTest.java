@@ -0,0 +1,130 @@
+package pl.ug.NestPoint.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import pl.ug.NestPoint.domain.Address;
+import pl.ug.NestPoint.domain.Apartment;
+import pl.ug.NestPoint.repository.ApartmentRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("ApartmentTextIndex Unit Tests")
+class ApartmentTextIndexTest {
+
+    @Mock
+    private ApartmentRepository apartmentRepository;
+
+    private ApartmentTextIndex index;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(1L, "Przytulne mieszkanie w centrum", "Dwa pokoje z balkonem, blisko Rynku.",
+                "Floriańska 5", "Kraków", "31-019"));
+        rows.add(row(2L, "Pokój dla studenta", "Pokój w mieszkaniu studenckim, internet w cenie.",
+                "Czarnowiejska 10", "Kraków", "30-054"));
+        rows.add(row(3L, "Apartament z widokiem na morze", "Duży apartament z balkonami i miejscem parkingowym.",
+                "Długa 1", "Gdańsk", "80-827"));
+        rows.add(row(4L, "Mieszkanie przy parku", null, "Piotrkowska 100", "Łódź", "90-001"));
+        when(apartmentRepository.findTextIndexRows()).thenReturn(rows);
+        index = new ApartmentTextIndex(apartmentRepository);
+        index.load();
+    }
+
+    @Test
+    @DisplayName("Should reduce inflected forms and spellings without diacritics to the same term")
+    void shouldStemPolishWords() {
+        assertEquals(List.of("krak", "krak", "krak"), PolishTextAnalyzer.terms("Kraków, Krakowie i krakow"));
+        assertEquals(List.of("mieszkan", "mieszkan", "mieszkan"),
+                PolishTextAnalyzer.terms("mieszkanie mieszkaniu mieszkań"));
+        assertEquals(List.of("balkon", "balkon", "balkon"), PolishTextAnalyzer.terms("balkon z balkonem, balkony"));
+        assertEquals(List.of("lodz", "31", "019"), PolishTextAnalyzer.terms("Łódź 31-019"));
+    }
+
+    @Test
+    @DisplayName("Should find apartments by any inflected form, best match first")
+    void shouldRankMatches() {
+        // When
+        ApartmentTextIndex.TextSearchResult result = index.search("mieszkanie Kraków ", 0, 10);
+
+        // Then
+        // The title match of apartment 1 outranks the description match of apartment 2
+        assertEquals(List.of(1L, 2L), ids(result));
+        assertEquals(2, result.total());
+        assertTrue(result.hits().get(0).score() > result.hits().get(1).score());
+    }
+
+    @Test
+    @DisplayName("Should require every query term and search addresses and descriptions too")
+    void shouldMatchAllTerms() {
+        assertEquals(List.of(3L), ids(index.search("balkon gdansk", 0, 10)));
+        assertEquals(List.of(4L), ids(index.search("lodz piotrkowska", 0, 10)));
+        assertEquals(List.of(3L), ids(index.search("80-827", 0, 10)));
+        assertTrue(index.search("balkon lodz", 0, 10).hits().isEmpty());
+        assertTrue(index.search("w i z", 0, 10).hits().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should match the last word as a prefix while it is being typed")
+    void shouldMatchPrefixOfLastTerm() {
+        assertEquals(List.of(3L), ids(index.search("apartament park", 0, 10)));
+        assertTrue(index.search("apartament park ", 0, 10).hits().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should page the ranked results")
+    void shouldPageResults() {
+        // When
+        ApartmentTextIndex.TextSearchResult first = index.search("krakow ", 0, 1);
+        ApartmentTextIndex.TextSearchResult second = index.search("krakow ", 1, 1);
+        ApartmentTextIndex.TextSearchResult beyond = index.search("krakow ", 5, 1);
+
+        // Then
+        assertEquals(2, first.total());
+        assertEquals(1, first.hits().size());
+        assertEquals(1, second.hits().size());
+        assertNotEquals(ids(first), ids(second));
+        assertTrue(beyond.hits().isEmpty());
+        assertEquals(2, beyond.total());
+    }
+
+    @Test
+    @DisplayName("Should apply saved and deleted apartments without a reload")
+    void shouldApplyWrites() {
+        // Given
+        Address address = new Address();
+        address.setStreet("Monte Cassino 20");
+        address.setCity("Sopot");
+        Apartment apartment = Apartment.builder().id(5L).title("Studio nad morzem").address(address).build();
+
+        // When
+        index.update(apartment);
+        index.remove(3L);
+
+        // Then
+        assertEquals(List.of(5L), ids(index.search("morze ", 0, 10)));
+        assertEquals(List.of(5L), ids(index.search("sopot ", 0, 10)));
+        verify(apartmentRepository, times(1)).findTextIndexRows();
+    }
+
+    private static List<Long> ids(ApartmentTextIndex.TextSearchResult result) {
+        return result.hits().stream().map(ApartmentTextIndex.Hit::apartmentId).toList();
+    }
+
+    private static Object[] row(Long id, String title, String description, String street, String city,
+                                String postalCode) {
+        return new Object[]{id, title, description, street, city, postalCode};
+    }
+}
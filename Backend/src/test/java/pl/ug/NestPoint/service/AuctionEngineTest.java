@@ -0,0 +1,270 @@
+package pl.ug.NestPoint.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import pl.ug.NestPoint.domain.Auction;
+import pl.ug.NestPoint.domain.enums.AuctionStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("AuctionEngine Unit Tests")
+class AuctionEngineTest {
+
+    private AuctionEngine auctionEngine;
+    private Auction auction;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        now = LocalDateTime.now();
+        auctionEngine = new AuctionEngine(new InMemoryRateLimiter());
+
+        auction = new Auction();
+        auction.setId(1L);
+        auction.setStartTime(now.minusMinutes(30));
+        auction.setEndTime(now.plusHours(2));
+        auction.setStartingPrice(100.0);
+        auction.setMinimumBidIncrement(10.0);
+        auction.setRentalStartDate(LocalDate.now().plusDays(7));
+        auction.setRentalEndDate(LocalDate.now().plusDays(14));
+        auction.setStatus(AuctionStatus.ACTIVE);
+        auction.setMaxBidders(2);
+        auction.setBids(new ArrayList<>());
+    }
+
+    @AfterEach
+    void tearDown() {
+        auctionEngine.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should accept first bid at starting price plus increment")
+    void shouldAcceptFirstBid() {
+        // When
+        AuctionEngine.AuctionSnapshot snapshot =
+                auctionEngine.placeBid(auction, 2L, 110.0, 0, now, AuctionEngine.AuctionHistory::empty).snapshot();
+
+        // Then
+        assertEquals(110.0, snapshot.highestBid());
+        assertEquals(2L, snapshot.winningBidderId());
+        assertEquals(1, snapshot.bidderCount());
+        assertEquals(1, snapshot.remainingBidders());
+    }
+
+    @Test
+    @DisplayName("Should reject bid below the minimum increment")
+    void shouldRejectBidBelowMinimum() {
+        // Given
+        auctionEngine.placeBid(auction, 2L, 150.0, 0, now, AuctionEngine.AuctionHistory::empty);
+
+        // When & Then
+        IllegalStateException exception = assertThrows(
+            IllegalStateException.class,
+            () -> auctionEngine.placeBid(auction, 3L, 155.0, 0, now, AuctionEngine.AuctionHistory::empty)
+        );
+
+        assertTrue(exception.getMessage().contains("Bid amount must be at least 160.0"));
+        assertEquals(2L, auctionEngine.snapshot(1L).orElseThrow().winningBidderId());
+    }
+
+    @Test
+    @DisplayName("Should reject second bid from the same bidder within 15 minutes")
+    void shouldRateLimitBidder() {
+        // Given
+        AuctionEngine.AuctionHistory history =
+                new AuctionEngine.AuctionHistory(Map.of(2L, now.minusMinutes(5)), List.of());
+
+        // When & Then
+        IllegalStateException exception = assertThrows(
+            IllegalStateException.class,
+            () -> auctionEngine.placeBid(auction, 2L, 200.0, 0, now, () -> history)
+        );
+
+        assertTrue(exception.getMessage().contains("one bid every 15 minutes"));
+    }
+
+    @Test
+    @DisplayName("Should not use up the bidder's permit on a rejected bid")
+    void shouldKeepPermitOnRejectedBid() {
+        // Given
+        auctionEngine.placeBid(auction, 2L, 150.0, 0, now, AuctionEngine.AuctionHistory::empty);
+        assertThrows(
+            IllegalStateException.class,
+            () -> auctionEngine.placeBid(auction, 3L, 155.0, 0, now, AuctionEngine.AuctionHistory::empty)
+        );
+
+        // When
+        AuctionEngine.AuctionSnapshot snapshot =
+                auctionEngine.placeBid(auction, 3L, 160.0, 0, now, AuctionEngine.AuctionHistory::empty).snapshot();
+
+        // Then
+        assertEquals(3L, snapshot.winningBidderId());
+    }
+
+    @Test
+    @DisplayName("Should keep the bid limit across eviction")
+    void shouldKeepBidLimitAfterEviction() {
+        // Given
+        auctionEngine.placeBid(auction, 2L, 110.0, 0, now, AuctionEngine.AuctionHistory::empty);
+        auctionEngine.evict(1L);
+
+        // When & Then
+        IllegalStateException exception = assertThrows(
+            IllegalStateException.class,
+            () -> auctionEngine.placeBid(auction, 2L, 200.0, 0, now, AuctionEngine.AuctionHistory::empty)
+        );
+
+        assertTrue(exception.getMessage().contains("one bid every 15 minutes"));
+    }
+
+    @Test
+    @DisplayName("Should reject new bidders once the auction is full")
+    void shouldRejectNewBidderWhenFull() {
+        // Given
+        auctionEngine.placeBid(auction, 2L, 110.0, 0, now, AuctionEngine.AuctionHistory::empty);
+        auctionEngine.placeBid(auction, 3L, 120.0, 0, now, AuctionEngine.AuctionHistory::empty);
+
+        // When & Then
+        IllegalStateException exception = assertThrows(
+            IllegalStateException.class,
+            () -> auctionEngine.placeBid(auction, 4L, 130.0, 0, now, AuctionEngine.AuctionHistory::empty)
+        );
+
+        assertTrue(exception.getMessage().contains("Maximum number of bidders reached"));
+    }
+
+    @Test
+    @DisplayName("Should reload state from the database after eviction")
+    void shouldReloadAfterEviction() {
+        // Given
+        auctionEngine.placeBid(auction, 2L, 110.0, 0, now, AuctionEngine.AuctionHistory::empty);
+
+        // When
+        auctionEngine.evict(1L);
+
+        // Then
+        assertTrue(auctionEngine.snapshot(1L).isEmpty());
+        AuctionEngine.AuctionSnapshot snapshot =
+                auctionEngine.placeBid(auction, 3L, 110.0, 0, now, AuctionEngine.AuctionHistory::empty).snapshot();
+        assertEquals(3L, snapshot.winningBidderId());
+    }
+
+    @Test
+    @DisplayName("Should reseed the state when another node has changed the auction since")
+    void shouldReseedWhenAuctionChangedElsewhere() {
+        // Given - this node saw the auction at 110, another node then took it to 150
+        auction.setMaxBidders(5);
+        auctionEngine.placeBid(auction, 2L, 110.0, 0, now, AuctionEngine.AuctionHistory::empty);
+        auction.setCurrentHighestBid(150.0);
+        auction.setWinningBidderId(3L);
+        auction.setDistinctBidderCount(2);
+        auction.setVersion(auction.getVersion() + 2);
+        AuctionEngine.AuctionHistory history = new AuctionEngine.AuctionHistory(
+                Map.of(2L, now.minusHours(1), 3L, now.minusMinutes(1)), List.of());
+
+        // When & Then - a bid between the two amounts is checked against the current row
+        assertTrue(auctionEngine.snapshot(auction).isEmpty());
+        IllegalStateException exception = assertThrows(
+            IllegalStateException.class,
+            () -> auctionEngine.placeBid(auction, 4L, 120.0, 0, now, () -> history)
+        );
+        assertTrue(exception.getMessage().contains("at least 160.0"));
+        assertEquals(3L, auctionEngine.snapshot(auction).orElseThrow().winningBidderId());
+    }
+
+    @Test
+    @DisplayName("Should keep the state of an auction version it has written itself")
+    void shouldKeepStateAfterConfirm() {
+        // Given
+        auctionEngine.placeBid(auction, 2L, 110.0, 0, now, AuctionEngine.AuctionHistory::empty);
+        auction.setVersion(auction.getVersion() + 1);
+
+        // When
+        auctionEngine.confirm(auction);
+
+        // Then - the bidder is still rate limited, so the state was not reloaded
+        IllegalStateException exception = assertThrows(
+            IllegalStateException.class,
+            () -> auctionEngine.placeBid(auction, 2L, 130.0, 0, now, () -> {
+                throw new AssertionError("State should not be reloaded");
+            })
+        );
+        assertTrue(exception.getMessage().contains("one bid every 15 minutes"));
+    }
+
+    @Test
+    @DisplayName("Should answer a bid with a single counter bid from the strongest proxy")
+    void shouldResolveProxyBidsInOneStep() {
+        // Given - two bidders with standing automatic bids
+        auction.setMaxBidders(5);
+        AuctionEngine.AuctionHistory history = new AuctionEngine.AuctionHistory(
+                Map.of(2L, now.minusHours(1), 3L, now.minusHours(1)),
+                List.of(new ProxyBidBook.ProxyBid(2L, 300.0, now.minusHours(1)),
+                        new ProxyBidBook.ProxyBid(3L, 250.0, now.minusHours(1))));
+
+        // When
+        AuctionEngine.BidOutcome outcome = auctionEngine.placeBid(auction, 4L, 150.0, 0, now, () -> history);
+
+        // Then - bidder 2 only needs to beat bidder 3's ceiling
+        assertNotNull(outcome.counterBid());
+        assertEquals(2L, outcome.counterBid().bidderId());
+        assertEquals(260.0, outcome.counterBid().amount());
+        assertEquals(2L, outcome.snapshot().winningBidderId());
+        assertEquals(260.0, outcome.snapshot().highestBid());
+        assertEquals(3, outcome.snapshot().bidderCount());
+    }
+
+    @Test
+    @DisplayName("Should serialize concurrent bids on the same auction")
+    void shouldSerializeConcurrentBids() throws InterruptedException {
+        // Given
+        auction.setMaxBidders(100);
+        int bidders = 50;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(bidders);
+        AtomicInteger accepted = new AtomicInteger();
+        List<Throwable> unexpected = new ArrayList<>();
+
+        // When - everybody bids the same amount at once
+        for (long bidderId = 1; bidderId <= bidders; bidderId++) {
+            final long id = bidderId;
+            pool.submit(() -> {
+                try {
+                    start.await();
+                    auctionEngine.placeBid(auction, id, 110.0, 0, now, AuctionEngine.AuctionHistory::empty);
+                    accepted.incrementAndGet();
+                } catch (IllegalStateException expected) {
+                    // lost the race
+                } catch (Throwable t) {
+                    synchronized (unexpected) {
+                        unexpected.add(t);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        // Then - only one of them can be at least the minimum bid
+        assertTrue(unexpected.isEmpty());
+        assertEquals(1, accepted.get());
+        assertEquals(110.0, auctionEngine.snapshot(1L).orElseThrow().highestBid());
+    }
+}
@@ -0,0 +1,115 @@
+package pl.ug.NestPoint.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import pl.ug.NestPoint.domain.Auction;
+import pl.ug.NestPoint.domain.enums.AuctionStatus;
+import pl.ug.NestPoint.repository.AuctionRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("AuctionLifecycleScheduler Unit Tests")
+class AuctionLifecycleSchedulerTest {
+
+    private AuctionLifecycleScheduler scheduler;
+    private List<AuctionLifecycleEvent> published;
+    private CountDownLatch firstEvent;
+
+    @BeforeEach
+    void setUp() {
+        published = new CopyOnWriteArrayList<>();
+        firstEvent = new CountDownLatch(1);
+        ApplicationEventPublisher publisher = event -> {
+            published.add((AuctionLifecycleEvent) event);
+            firstEvent.countDown();
+        };
+        scheduler = new AuctionLifecycleScheduler(mock(AuctionRepository.class), publisher);
+        scheduler.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    private Auction auction(AuctionStatus status, LocalDateTime startTime, LocalDateTime endTime) {
+        Auction auction = new Auction();
+        auction.setId(1L);
+        auction.setStatus(status);
+        auction.setStartTime(startTime);
+        auction.setEndTime(endTime);
+        return auction;
+    }
+
+    @Test
+    @DisplayName("Should fire activation when the start time is reached")
+    void shouldFireActivationAtStartTime() throws InterruptedException {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+
+        // When
+        scheduler.schedule(auction(AuctionStatus.PENDING, now.plusNanos(50_000_000), now.plusHours(1)));
+
+        // Then
+        assertTrue(firstEvent.await(2, TimeUnit.SECONDS));
+        assertEquals(new AuctionLifecycleEvent(1L, AuctionLifecycleEvent.Transition.ACTIVATE), published.get(0));
+        assertEquals(1, published.size());
+    }
+
+    @Test
+    @DisplayName("Should fire overdue transitions immediately with activation first")
+    void shouldFireOverdueTransitionsInOrder() throws InterruptedException {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+
+        // When
+        scheduler.schedule(auction(AuctionStatus.PENDING, now.minusHours(2), now.minusHours(1)));
+
+        // Then
+        assertTrue(firstEvent.await(2, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(List.of(
+                new AuctionLifecycleEvent(1L, AuctionLifecycleEvent.Transition.ACTIVATE),
+                new AuctionLifecycleEvent(1L, AuctionLifecycleEvent.Transition.COMPLETE)), published);
+    }
+
+    @Test
+    @DisplayName("Should not fire timers of an unscheduled auction")
+    void shouldNotFireAfterUnschedule() throws InterruptedException {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        scheduler.schedule(auction(AuctionStatus.ACTIVE, now.minusHours(1), now.plusNanos(100_000_000)));
+
+        // When
+        scheduler.unschedule(1L);
+
+        // Then
+        assertFalse(firstEvent.await(500, TimeUnit.MILLISECONDS));
+        assertTrue(published.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should only keep the latest schedule of an auction")
+    void shouldReplaceEarlierSchedule() throws InterruptedException {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        scheduler.schedule(auction(AuctionStatus.ACTIVE, now.minusHours(1), now.plusNanos(100_000_000)));
+
+        // When - the auction was moved to end later
+        scheduler.schedule(auction(AuctionStatus.ACTIVE, now.minusHours(1), now.plusHours(1)));
+
+        // Then
+        assertFalse(firstEvent.await(500, TimeUnit.MILLISECONDS));
+        assertEquals(1, scheduler.pendingTimers());
+    }
+}
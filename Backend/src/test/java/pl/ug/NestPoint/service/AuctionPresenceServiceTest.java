@@ -0,0 +1,121 @@
+package pl.ug.NestPoint.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("AuctionPresenceService Unit Tests")
+class AuctionPresenceServiceTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    @InjectMocks
+    private AuctionPresenceService auctionPresenceService;
+
+    @BeforeEach
+    void setUp() {
+        when(stringRedisTemplate.opsForSet()).thenReturn(setOperations);
+    }
+
+    @Test
+    @DisplayName("Should report a new participant on join")
+    void shouldReportNewParticipantOnJoin() {
+        // Given - SADD, EXPIRE, SETEX and index SADD results
+        when(stringRedisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenReturn(List.of(1L, true, true, 0L));
+
+        // When
+        boolean joined = auctionPresenceService.join(1L, 2L);
+
+        // Then
+        assertTrue(joined);
+        verify(stringRedisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    @DisplayName("Should not report a participant that was already present")
+    void shouldNotReportExistingParticipantOnJoin() {
+        // Given
+        when(stringRedisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenReturn(List.of(0L, true, true, 0L));
+
+        // When
+        boolean joined = auctionPresenceService.join(1L, 2L);
+
+        // Then
+        assertFalse(joined);
+    }
+
+    @Test
+    @DisplayName("Should count observers with the set cardinality")
+    void shouldCountObserversWithSetCardinality() {
+        // Given
+        when(setOperations.size("auction:observers:1")).thenReturn(3L);
+
+        // When
+        int count = auctionPresenceService.count(1L);
+
+        // Then
+        assertEquals(3, count);
+        verify(setOperations, never()).members(anyString());
+    }
+
+    @Test
+    @DisplayName("Should return zero observers when the set does not exist")
+    void shouldReturnZeroWhenSetMissing() {
+        // Given
+        when(setOperations.size("auction:observers:1")).thenReturn(null);
+
+        // When & Then
+        assertEquals(0, auctionPresenceService.count(1L));
+    }
+
+    @Test
+    @DisplayName("Should sweep members whose heartbeat expired")
+    void shouldSweepExpiredMembers() {
+        // Given
+        Set<String> members = new LinkedHashSet<>(List.of("2", "3"));
+        when(setOperations.members("auction:observers:index")).thenReturn(Set.of("1"));
+        when(setOperations.members("auction:observers:1")).thenReturn(members);
+        when(stringRedisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(List.of(true, false));
+
+        // When
+        auctionPresenceService.sweepExpiredMembers();
+
+        // Then
+        verify(setOperations).remove("auction:observers:1", "3");
+    }
+
+    @Test
+    @DisplayName("Should skip the heartbeat when no one is connected to this node")
+    void shouldSkipHeartbeatWithoutLocalMembers() {
+        // When
+        auctionPresenceService.refreshHeartbeats();
+
+        // Then
+        verify(stringRedisTemplate, never()).executePipelined(any(RedisCallback.class));
+    }
+}
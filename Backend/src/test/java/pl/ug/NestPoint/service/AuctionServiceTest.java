@@ -6,13 +6,16 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.PlatformTransactionManager;
 import pl.ug.NestPoint.domain.*;
 import pl.ug.NestPoint.domain.enums.AuctionStatus;
+import pl.ug.NestPoint.domain.enums.DelayedJobType;
 import pl.ug.NestPoint.domain.enums.Role;
 import pl.ug.NestPoint.domain.enums.PropertyType;
 import pl.ug.NestPoint.dto.AuctionDTO;
@@ -43,6 +46,9 @@ class AuctionServiceTest {
     @Mock
     private BidRepository bidRepository;
     
+    @Mock
+    private BidBatchRepository bidBatchRepository;
+    
     @Mock
     private ApartmentRepository apartmentRepository;
     
@@ -58,15 +64,33 @@ class AuctionServiceTest {
     @Mock
     private BidMapper bidMapper;
     
+    @Mock
+    private BidJournal bidJournal;
+    
+    @Spy
+    private AuctionEngine auctionEngine = new AuctionEngine(new InMemoryRateLimiter());
+    
+    @Mock
+    private AuctionLifecycleScheduler auctionLifecycleScheduler;
+    
+    @Mock
+    private AuctionStatusBroadcaster auctionStatusBroadcaster;
+    
     @Mock
     private SimpMessagingTemplate messagingTemplate;
     
     @Mock
-    private RedisTemplate<String, Set<Long>> participantsRedisTemplate;
+    private AuctionPresenceService auctionPresenceService;
+    
+    @Mock
+    private BookingCoordinator bookingCoordinator;
     
     @Mock
-    private ValueOperations<String, Set<Long>> valueOperations;
+    private DelayedJobQueue delayedJobQueue;
     
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private AuctionService auctionService;
     
@@ -129,9 +153,6 @@ class AuctionServiceTest {
         realAuction.setStatus(AuctionStatus.ACTIVE);
         realAuction.setMaxBidders(5);
         realAuction.setBids(new ArrayList<>());
-        
-        // Mock Redis operations
-        when(participantsRedisTemplate.opsForValue()).thenReturn(valueOperations);
     }
     
     
@@ -144,7 +165,6 @@ class AuctionServiceTest {
         when(auctionRepository.findById(1L)).thenReturn(Optional.of(realAuction));
         when(userRepository.findById(2L)).thenReturn(Optional.of(realTenant1));
         when(bidRepository.findByAuctionIdAndBidderId(1L, 2L)).thenReturn(new ArrayList<>());
-        when(valueOperations.get(anyString())).thenReturn(new HashSet<>());
         
         BidDTO validBidDTO = new BidDTO();
         validBidDTO.setAuctionId(1L);
@@ -174,6 +194,144 @@ class AuctionServiceTest {
         verify(messagingTemplate).convertAndSend(eq("/topic/auction/1/bids"), any(Object.class));
     }
     
+    @Test
+    @DisplayName("Should seed the auction from the bid journal when it is up to date")
+    void shouldSeedAuctionFromJournal() {
+        // Given
+        when(auctionRepository.findById(1L)).thenReturn(Optional.of(realAuction));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(realTenant1));
+        when(bidJournal.history(realAuction)).thenReturn(Optional.of(AuctionEngine.AuctionHistory.empty()));
+        
+        BidDTO bidDTO = new BidDTO();
+        bidDTO.setAuctionId(1L);
+        bidDTO.setBidderId(2L);
+        bidDTO.setAmount(175.0);
+        
+        Bid newBid = new Bid();
+        newBid.setAmount(175.0);
+        when(bidMapper.toEntity(bidDTO)).thenReturn(newBid);
+        when(bidRepository.save(any(Bid.class))).thenReturn(newBid);
+        
+        // When
+        auctionService.placeBid(bidDTO);
+        
+        // Then
+        verify(bidRepository, never()).findLatestBidTimePerBidder(anyLong());
+        verify(bidRepository, never()).findAutoBidCeilingPerBidder(anyLong());
+        verify(bidJournal).recordBid(newBid);
+    }
+    
+    @Test
+    @DisplayName("Should persist auction aggregates when bid takes the lead")
+    void shouldPersistAggregatesWhenBidTakesLead() {
+        // Given
+        when(auctionRepository.findById(1L)).thenReturn(Optional.of(realAuction));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(realTenant1));
+        
+        BidDTO bidDTO = new BidDTO();
+        bidDTO.setAuctionId(1L);
+        bidDTO.setBidderId(2L);
+        bidDTO.setAmount(180.0);
+        
+        Bid newBid = new Bid();
+        newBid.setId(7L);
+        newBid.setAuction(realAuction);
+        newBid.setBidder(realTenant1);
+        newBid.setAmount(180.0);
+        newBid.setBidTime(now);
+        
+        when(bidMapper.toEntity(bidDTO)).thenReturn(newBid);
+        when(bidRepository.save(any(Bid.class))).thenReturn(newBid);
+        when(bidMapper.toDTO(newBid)).thenReturn(bidDTO);
+        
+        // When
+        auctionService.placeBid(bidDTO);
+        
+        // Then
+        assertEquals(180.0, realAuction.getCurrentHighestBid());
+        assertEquals(7L, realAuction.getWinningBidId());
+        assertEquals(2L, realAuction.getWinningBidderId());
+        assertEquals(1, realAuction.getDistinctBidderCount());
+        verify(auctionRepository).saveAndFlush(realAuction);
+    }
+    
+    @Test
+    @DisplayName("Should reject bid when auction was updated concurrently")
+    void shouldRejectBidOnVersionConflict() {
+        // Given
+        when(auctionRepository.findById(1L)).thenReturn(Optional.of(realAuction));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(realTenant1));
+        
+        BidDTO bidDTO = new BidDTO();
+        bidDTO.setAuctionId(1L);
+        bidDTO.setBidderId(2L);
+        bidDTO.setAmount(180.0);
+        
+        Bid newBid = new Bid();
+        newBid.setId(7L);
+        newBid.setBidder(realTenant1);
+        newBid.setAmount(180.0);
+        
+        when(bidMapper.toEntity(bidDTO)).thenReturn(newBid);
+        when(bidRepository.save(any(Bid.class))).thenReturn(newBid);
+        when(auctionRepository.saveAndFlush(realAuction))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Auction.class, 1L));
+        
+        // When & Then
+        IllegalStateException exception = assertThrows(
+            IllegalStateException.class,
+            () -> auctionService.placeBid(bidDTO)
+        );
+        
+        assertTrue(exception.getMessage().contains("updated by another bid"));
+        assertTrue(auctionEngine.snapshot(1L).isEmpty());
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+    }
+    
+    @Test
+    @DisplayName("Should only let the auction's owner drop a bidder")
+    void shouldRejectDropByNonOwner() {
+        // Given
+        when(auctionRepository.findById(1L)).thenReturn(Optional.of(realAuction));
+        
+        // When & Then
+        assertThrows(AccessDeniedException.class, () -> auctionService.dropBidder(1L, 3L, realTenant1));
+        verify(bidRepository, never()).markDroppedByAuctionIdAndBidderId(anyLong(), anyLong());
+    }
+    
+    @Test
+    @DisplayName("Should recompute aggregates when a bidder is dropped")
+    void shouldRecomputeAggregatesWhenBidderDropped() {
+        // Given
+        Bid leadingBid = new Bid();
+        leadingBid.setId(2L);
+        leadingBid.setBidder(realTenant2);
+        leadingBid.setAmount(200.0);
+        realAuction.updateBidAggregates(leadingBid, 2);
+        
+        Bid remainingBid = new Bid();
+        remainingBid.setId(1L);
+        remainingBid.setBidder(realTenant1);
+        remainingBid.setAmount(175.0);
+        
+        when(auctionRepository.findById(1L)).thenReturn(Optional.of(realAuction));
+        when(bidRepository.markDroppedByAuctionIdAndBidderId(1L, 3L)).thenReturn(1);
+        when(bidRepository.findFirstByAuctionIdAndDroppedFalseOrderByAmountDescBidTimeAsc(1L))
+                .thenReturn(Optional.of(remainingBid));
+        when(bidRepository.countDistinctBiddersByAuctionId(1L)).thenReturn(1);
+        
+        // When
+        auctionService.dropBidder(1L, 3L, realOwner);
+        
+        // Then
+        assertEquals(175.0, realAuction.getCurrentHighestBid());
+        assertEquals(1L, realAuction.getWinningBidId());
+        assertEquals(2L, realAuction.getWinningBidderId());
+        assertEquals(1, realAuction.getDistinctBidderCount());
+        verify(auctionRepository).saveAndFlush(realAuction);
+        verify(auctionStatusBroadcaster).markChanged(1L);
+    }
+    
     @Test
     @DisplayName("Should calculate minimum bid correctly with existing bids")
     void shouldCalculateMinimumBidWithExistingBids() {
@@ -191,11 +349,11 @@ class AuctionServiceTest {
         existingBid2.setBidTime(now.minusMinutes(18));
         
         realAuction.setBids(Arrays.asList(existingBid1, existingBid2));
+        realAuction.updateBidAggregates(existingBid2, 2);
         
         when(auctionRepository.findById(1L)).thenReturn(Optional.of(realAuction));
         when(userRepository.findById(2L)).thenReturn(Optional.of(realTenant1));
         when(bidRepository.findByAuctionIdAndBidderId(1L, 2L)).thenReturn(Arrays.asList(existingBid1));
-        when(valueOperations.get(anyString())).thenReturn(new HashSet<>());
         
         BidDTO newBidDTO = new BidDTO();
         newBidDTO.setAuctionId(1L);
@@ -222,6 +380,165 @@ class AuctionServiceTest {
         verify(bidRepository).save(any(Bid.class));
     }
     
+    @Test
+    @DisplayName("Should write a batch of queued bids with a single insert")
+    void shouldPlaceBidBatchWithSingleInsert() {
+        // Given
+        when(auctionRepository.findById(1L)).thenReturn(Optional.of(realAuction));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(realTenant1));
+        when(userRepository.findById(3L)).thenReturn(Optional.of(realTenant2));
+        when(bidMapper.toEntity(any(BidDTO.class))).thenAnswer(invocation -> {
+            Bid bid = new Bid();
+            bid.setAmount(((BidDTO) invocation.getArgument(0)).getAmount());
+            return bid;
+        });
+        
+        BidDTO firstBid = new BidDTO();
+        firstBid.setAuctionId(1L);
+        firstBid.setBidderId(2L);
+        firstBid.setAmount(200.0);
+        
+        BidDTO secondBid = new BidDTO();
+        secondBid.setAuctionId(1L);
+        secondBid.setBidderId(3L);
+        secondBid.setAmount(250.0);
+        
+        BidDTO tooLowBid = new BidDTO();
+        tooLowBid.setAuctionId(1L);
+        tooLowBid.setBidderId(3L);
+        tooLowBid.setAmount(255.0);
+        
+        // When
+        List<AuctionService.BidResult> results = auctionService.placeBidBatch(List.of(firstBid, secondBid, tooLowBid));
+        
+        // Then
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).accepted());
+        assertFalse(results.get(0).winningBid());
+        assertTrue(results.get(1).accepted());
+        assertTrue(results.get(1).winningBid());
+        assertFalse(results.get(2).accepted());
+        assertTrue(results.get(2).message().contains("Bid amount must be at least"));
+        
+        verify(bidBatchRepository, times(1)).insertAll(argThat(bids -> bids.size() == 2));
+        verify(bidRepository, never()).save(any(Bid.class));
+        verify(auctionRepository, times(1)).saveAndFlush(realAuction);
+        verify(auctionRepository, times(1)).findById(1L);
+        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/auction/1/bids"), any(Object.class));
+        verify(auctionStatusBroadcaster, times(1)).markChanged(1L);
+    }
+    
+    @Test
+    @DisplayName("Should only reject the queued bids of an auction whose write conflicts")
+    void shouldIsolateConflictingAuctionInBatch() {
+        // Given - a second auction that another node has just updated
+        Auction otherAuction = new Auction();
+        otherAuction.setId(2L);
+        otherAuction.setApartment(realApartment);
+        otherAuction.setStartTime(now.minusMinutes(30));
+        otherAuction.setEndTime(now.plusHours(2));
+        otherAuction.setStartingPrice(150.0);
+        otherAuction.setMinimumBidIncrement(25.0);
+        otherAuction.setStatus(AuctionStatus.ACTIVE);
+        otherAuction.setMaxBidders(5);
+        
+        when(auctionRepository.findById(1L)).thenReturn(Optional.of(realAuction));
+        when(auctionRepository.findById(2L)).thenReturn(Optional.of(otherAuction));
+        when(auctionRepository.saveAndFlush(otherAuction))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Auction.class, 2L));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(realTenant1));
+        when(userRepository.findById(3L)).thenReturn(Optional.of(realTenant2));
+        when(bidMapper.toEntity(any(BidDTO.class))).thenAnswer(invocation -> {
+            Bid bid = new Bid();
+            bid.setAmount(((BidDTO) invocation.getArgument(0)).getAmount());
+            return bid;
+        });
+        
+        BidDTO conflictingBid = new BidDTO();
+        conflictingBid.setAuctionId(2L);
+        conflictingBid.setBidderId(2L);
+        conflictingBid.setAmount(200.0);
+        
+        BidDTO unrelatedBid = new BidDTO();
+        unrelatedBid.setAuctionId(1L);
+        unrelatedBid.setBidderId(3L);
+        unrelatedBid.setAmount(200.0);
+        
+        // When
+        List<AuctionService.BidResult> results = auctionService.placeBidBatch(List.of(conflictingBid, unrelatedBid));
+        
+        // Then - results stay in submission order
+        assertFalse(results.get(0).accepted());
+        assertTrue(results.get(0).message().contains("updated by another bid"));
+        assertTrue(results.get(1).accepted());
+        assertTrue(results.get(1).winningBid());
+        
+        verify(bidBatchRepository, times(2)).insertAll(anyList());
+        verify(auctionRepository).saveAndFlush(realAuction);
+        verify(transactionManager, times(1)).rollback(any());
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/auction/1/bids"), any(Object.class));
+        verify(messagingTemplate, never()).convertAndSend(eq("/topic/auction/2/bids"), any(Object.class));
+        verify(auctionStatusBroadcaster, never()).markChanged(2L);
+    }
+    
+    @Test
+    @DisplayName("Should roll back the auction when the counter bidder cannot be loaded")
+    void shouldRollBackBatchWhenCounterBidderIsMissing() {
+        // Given - a proxy bidder whose account is gone by the time the proxy answers
+        when(auctionRepository.findById(1L)).thenReturn(Optional.of(realAuction));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(realTenant1));
+        when(userRepository.findById(3L)).thenReturn(Optional.of(realTenant2));
+        when(bidMapper.toEntity(any(BidDTO.class))).thenAnswer(invocation -> {
+            Bid bid = new Bid();
+            bid.setAmount(((BidDTO) invocation.getArgument(0)).getAmount());
+            return bid;
+        });
+        
+        BidDTO proxyBid = new BidDTO();
+        proxyBid.setAuctionId(1L);
+        proxyBid.setBidderId(2L);
+        proxyBid.setAmount(200.0);
+        proxyBid.setAutoBid(true);
+        proxyBid.setMaxAutoBidAmount(400.0);
+        auctionService.placeBidBatch(List.of(proxyBid));
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+        
+        BidDTO outbid = new BidDTO();
+        outbid.setAuctionId(1L);
+        outbid.setBidderId(3L);
+        outbid.setAmount(250.0);
+        
+        // When
+        List<AuctionService.BidResult> results = auctionService.placeBidBatch(List.of(outbid));
+        
+        // Then
+        assertFalse(results.get(0).accepted());
+        verify(bidBatchRepository, times(1)).insertAll(anyList());
+        verify(transactionManager, times(1)).rollback(any());
+    }
+    
+    @Test
+    @DisplayName("Should not write anything when every queued bid is rejected")
+    void shouldSkipWriteWhenAllQueuedBidsRejected() {
+        // Given
+        when(auctionRepository.findById(1L)).thenReturn(Optional.of(realAuction));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(realOwner));
+        
+        BidDTO ownerBid = new BidDTO();
+        ownerBid.setAuctionId(1L);
+        ownerBid.setBidderId(1L);
+        ownerBid.setAmount(200.0);
+        
+        // When
+        List<AuctionService.BidResult> results = auctionService.placeBidBatch(List.of(ownerBid));
+        
+        // Then
+        assertFalse(results.get(0).accepted());
+        assertEquals("Only tenants can place bids", results.get(0).message());
+        verifyNoInteractions(bidBatchRepository);
+        verify(auctionRepository, never()).saveAndFlush(any());
+    }
+    
     @Test
     @DisplayName("Should reject bid that's too low")
     void shouldRejectBidThatsTooLow() {
@@ -233,6 +550,7 @@ class AuctionServiceTest {
         existingHighBid.setBidTime(now.minusMinutes(5));
         
         realAuction.setBids(Arrays.asList(existingHighBid));
+        realAuction.updateBidAggregates(existingHighBid, 1);
         
         when(auctionRepository.findById(1L)).thenReturn(Optional.of(realAuction));
         when(userRepository.findById(2L)).thenReturn(Optional.of(realTenant1));
@@ -436,22 +754,17 @@ class AuctionServiceTest {
     @DisplayName("Should add user to auction participants correctly")
     void shouldAddUserToAuctionParticipantsCorrectly() {
         // Given
-        Set<Long> currentParticipants = new HashSet<>();
-        currentParticipants.add(3L); // realTenant2 already watching
-        
         when(auctionRepository.findById(1L)).thenReturn(Optional.of(realAuction));
         when(userRepository.findById(2L)).thenReturn(Optional.of(realTenant1));
-        when(valueOperations.get("auction:participants:1")).thenReturn(currentParticipants);
+        when(auctionPresenceService.join(1L, 2L)).thenReturn(true);
+        when(auctionPresenceService.count(1L)).thenReturn(2);
         
         // When
         auctionService.addUserToAuction(1L, 2L);
         
         // Then 
-        verify(valueOperations).set(eq("auction:participants:1"), argThat(participants -> {
-            Set<Long> participantSet = (Set<Long>) participants;
-            return participantSet.contains(2L) && participantSet.contains(3L) && participantSet.size() == 2;
-        }), anyLong(), any());
-        
+        verify(auctionPresenceService).join(1L, 2L);
+        verify(auctionStatusBroadcaster).republish(1L);
         verify(messagingTemplate).convertAndSend(eq("/topic/auction/1/participants"), anyString());
     }
     
@@ -459,26 +772,21 @@ class AuctionServiceTest {
     @DisplayName("Should get correct participant count")
     void shouldGetCorrectParticipantCount() {
         // Given
-        Set<Long> participants = new HashSet<>();
-        participants.add(2L);
-        participants.add(3L);
-        participants.add(4L);
-        
-        when(valueOperations.get("auction:participants:1")).thenReturn(participants);
+        when(auctionPresenceService.count(1L)).thenReturn(3);
         
         // When
         int count = auctionService.getActiveAuctionObserverCount(1L);
         
         // Then
         assertEquals(3, count);
-        verify(valueOperations).get("auction:participants:1");
+        verify(auctionPresenceService).count(1L);
     }
     
     @Test
     @DisplayName("Should return zero when no participants")
     void shouldReturnZeroWhenNoParticipants() {
         // Given
-        when(valueOperations.get("auction:participants:1")).thenReturn(null);
+        when(auctionPresenceService.count(1L)).thenReturn(0);
         
         // When
         int count = auctionService.getActiveAuctionObserverCount(1L);
@@ -543,7 +851,6 @@ class AuctionServiceTest {
         realAuction.setStatus(AuctionStatus.ACTIVE);
         when(auctionRepository.findById(1L)).thenReturn(Optional.of(realAuction));
         when(auctionRepository.save(realAuction)).thenReturn(realAuction);
-        when(valueOperations.get(anyString())).thenReturn(new HashSet<>());
         
         // When
         auctionService.cancelAuction(1L);
@@ -551,7 +858,8 @@ class AuctionServiceTest {
         // Then
         assertEquals(AuctionStatus.CANCELLED, realAuction.getStatus());
         verify(auctionRepository).save(realAuction);
-        verify(messagingTemplate).convertAndSend(eq("/topic/auction/1/status"), any(Object.class));    
+        verify(auctionLifecycleScheduler).unschedule(1L);
+        verify(auctionStatusBroadcaster).markChanged(1L);    
     }
     
     @Test
@@ -627,6 +935,58 @@ class AuctionServiceTest {
         assertNotNull(result);
         verify(apartmentRepository).findById(1L);
         verify(auctionRepository).save(any(Auction.class));
+        verify(auctionLifecycleScheduler).schedule(realAuction);
+    }
+
+    @Test
+    @DisplayName("Should activate pending auction when its start time is reached")
+    void shouldActivatePendingAuctionOnLifecycleEvent() {
+        // Given
+        realAuction.setStatus(AuctionStatus.PENDING);
+        when(auctionRepository.findById(1L)).thenReturn(Optional.of(realAuction));
+        
+        // When
+        auctionService.onAuctionLifecycleEvent(
+                new AuctionLifecycleEvent(1L, AuctionLifecycleEvent.Transition.ACTIVATE));
+        
+        // Then
+        assertEquals(AuctionStatus.ACTIVE, realAuction.getStatus());
+        verify(auctionRepository).save(realAuction);
+        verify(auctionStatusBroadcaster).markChanged(1L);
+    }
+
+    @Test
+    @DisplayName("Should ignore lifecycle event for cancelled auction")
+    void shouldIgnoreLifecycleEventForCancelledAuction() {
+        // Given
+        realAuction.setStatus(AuctionStatus.CANCELLED);
+        realAuction.setEndTime(now.minusMinutes(1));
+        when(auctionRepository.findById(1L)).thenReturn(Optional.of(realAuction));
+        
+        // When
+        auctionService.onAuctionLifecycleEvent(
+                new AuctionLifecycleEvent(1L, AuctionLifecycleEvent.Transition.COMPLETE));
+        
+        // Then
+        assertEquals(AuctionStatus.CANCELLED, realAuction.getStatus());
+        verify(auctionRepository, never()).save(any());
+        verify(rentalService, never()).createRentalFromAuction(any());
+    }
+
+    @Test
+    @DisplayName("Should reschedule completion that fired before the end time")
+    void shouldRescheduleEarlyCompletion() {
+        // Given
+        when(auctionRepository.findById(1L)).thenReturn(Optional.of(realAuction));
+        
+        // When
+        auctionService.onAuctionLifecycleEvent(
+                new AuctionLifecycleEvent(1L, AuctionLifecycleEvent.Transition.COMPLETE));
+        
+        // Then
+        assertEquals(AuctionStatus.ACTIVE, realAuction.getStatus());
+        verify(auctionLifecycleScheduler).schedule(realAuction);
+        verify(auctionRepository, never()).save(any());
     }
 
     @Test
@@ -640,8 +1000,12 @@ class AuctionServiceTest {
         winningBid.setAuction(realAuction);
         
         realAuction.setBids(Arrays.asList(winningBid));
+        realAuction.updateBidAggregates(winningBid, 1);
         
-        when(rentalService.createRentalFromAuction(any(Rental.class))).thenReturn(new Rental());
+        when(bidRepository.findById(1L)).thenReturn(Optional.of(winningBid));
+        Rental savedRental = new Rental();
+        savedRental.setId(10L);
+        when(rentalService.createRentalFromAuction(any(Rental.class))).thenReturn(savedRental);
         when(auctionRepository.save(realAuction)).thenReturn(realAuction);
         
         // When
@@ -651,24 +1015,35 @@ class AuctionServiceTest {
         assertEquals(AuctionStatus.COMPLETED, realAuction.getStatus());
         verify(rentalService).createRentalFromAuction(any(Rental.class));
         verify(auctionRepository).save(realAuction);
+        verify(delayedJobQueue).enqueue(eq(DelayedJobType.ISSUE_AUCTION_FINE), eq(10L),
+                argThat(deadline -> deadline.isAfter(now.plusHours(23))));
     }
 
     @Test
     @DisplayName("Should remove user from auction participants")
     void shouldRemoveUserFromAuctionParticipants() {
         // Given
-        Set<Long> participants = new HashSet<>();
-        participants.add(2L);
-        participants.add(3L);
-        
-        when(valueOperations.get("auction:participants:1")).thenReturn(participants);
+        when(auctionPresenceService.leave(1L, 2L)).thenReturn(true);
         when(userRepository.findById(2L)).thenReturn(Optional.of(realTenant1));
         
         // When
         auctionService.removeUserFromAuction(1L, 2L);
         
         // Then
-        verify(valueOperations).get("auction:participants:1");
+        verify(auctionPresenceService).leave(1L, 2L);
         verify(messagingTemplate).convertAndSend(anyString(), anyString());
     }
+    
+    @Test
+    @DisplayName("Should not announce leaving when user was not watching")
+    void shouldNotAnnounceLeaveForUnknownParticipant() {
+        // Given
+        when(auctionPresenceService.leave(1L, 2L)).thenReturn(false);
+        
+        // When
+        auctionService.removeUserFromAuction(1L, 2L);
+        
+        // Then
+        verify(messagingTemplate, never()).convertAndSend(anyString(), anyString());
+    }
 }
\ No newline at end of file
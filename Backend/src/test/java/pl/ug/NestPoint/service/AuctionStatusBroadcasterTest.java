@@ -0,0 +1,148 @@
+package pl.ug.NestPoint.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import pl.ug.NestPoint.domain.Auction;
+import pl.ug.NestPoint.domain.enums.AuctionStatus;
+import pl.ug.NestPoint.dto.websocket.AuctionStatusMessage;
+import pl.ug.NestPoint.repository.AuctionRepository;
+import pl.ug.NestPoint.repository.BidRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("AuctionStatusBroadcaster Unit Tests")
+class AuctionStatusBroadcasterTest {
+
+    @Mock
+    private AuctionRepository auctionRepository;
+
+    @Mock
+    private BidRepository bidRepository;
+
+    @Mock
+    private AuctionEngine auctionEngine;
+
+    @Mock
+    private AuctionPresenceService auctionPresenceService;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @InjectMocks
+    private AuctionStatusBroadcaster broadcaster;
+
+    private Auction auction;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        auction = new Auction();
+        auction.setId(1L);
+        auction.setStartTime(now.minusMinutes(30));
+        auction.setEndTime(now.plusHours(2));
+        auction.setStartingPrice(150.0);
+        auction.setMinimumBidIncrement(25.0);
+        auction.setRentalStartDate(LocalDate.now().plusDays(7));
+        auction.setRentalEndDate(LocalDate.now().plusDays(14));
+        auction.setStatus(AuctionStatus.ACTIVE);
+        auction.setMaxBidders(5);
+
+        when(auctionRepository.findById(1L)).thenReturn(Optional.of(auction));
+        when(auctionEngine.snapshot(auction)).thenReturn(Optional.empty());
+        when(auctionPresenceService.count(1L)).thenReturn(2);
+    }
+
+    @Test
+    @DisplayName("Should coalesce several changes into one status frame")
+    void shouldCoalesceChangesIntoOneFrame() {
+        // Given
+        broadcaster.markChanged(1L);
+        broadcaster.markChanged(1L);
+        broadcaster.markChanged(1L);
+
+        // When
+        broadcaster.flush();
+
+        // Then
+        verify(auctionRepository, times(1)).findById(1L);
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/auction/1/status"), any(Object.class));
+    }
+
+    @Test
+    @DisplayName("Should include the end instant for client-side countdown")
+    void shouldIncludeEndInstant() {
+        // Given
+        broadcaster.markChanged(1L);
+
+        // When
+        broadcaster.flush();
+
+        // Then
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/auction/1/status"), captor.capture());
+        AuctionStatusMessage message = (AuctionStatusMessage) captor.getValue();
+        assertEquals(auction.getEndTime().atZone(ZoneId.systemDefault()).toInstant(), message.getEndsAt());
+        assertEquals(150.0, message.getWinningBidAmount());
+        assertEquals(5, message.getRemainingBidders());
+        assertEquals(2, message.getActiveObservers());
+    }
+
+    @Test
+    @DisplayName("Should drop a frame that is identical to the last one")
+    void shouldDropUnchangedFrame() {
+        // Given
+        broadcaster.markChanged(1L);
+        broadcaster.flush();
+
+        // When
+        broadcaster.markChanged(1L);
+        broadcaster.flush();
+
+        // Then
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/auction/1/status"), any(Object.class));
+    }
+
+    @Test
+    @DisplayName("Should republish an unchanged frame when forced")
+    void shouldRepublishWhenForced() {
+        // Given
+        broadcaster.markChanged(1L);
+        broadcaster.flush();
+
+        // When
+        broadcaster.republish(1L);
+        broadcaster.flush();
+
+        // Then
+        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/auction/1/status"), any(Object.class));
+    }
+
+    @Test
+    @DisplayName("Should not touch the database when nothing changed")
+    void shouldSkipFlushWithoutChanges() {
+        // When
+        broadcaster.flush();
+
+        // Then
+        verifyNoInteractions(auctionRepository);
+        verifyNoInteractions(messagingTemplate);
+    }
+}
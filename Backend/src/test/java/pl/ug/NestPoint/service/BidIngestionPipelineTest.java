@@ -0,0 +1,133 @@
+package pl.ug.NestPoint.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import pl.ug.NestPoint.dto.BidDTO;
+import pl.ug.NestPoint.dto.websocket.BidAckMessage;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("BidIngestionPipeline Unit Tests")
+class BidIngestionPipelineTest {
+
+    @Mock
+    private AuctionService auctionService;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BidIngestionPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        pipeline = new BidIngestionPipeline(auctionService, messagingTemplate, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should acknowledge each bid of a batch to its bidder")
+    void shouldAcknowledgeEachBid() {
+        // Given
+        BidDTO accepted = bid(2L, 200.0);
+        BidDTO rejected = bid(3L, 150.0);
+        LocalDateTime bidTime = LocalDateTime.now();
+        when(auctionService.placeBidBatch(List.of(accepted, rejected))).thenReturn(List.of(
+                AuctionService.BidResult.accepted(accepted, true, bidTime),
+                AuctionService.BidResult.rejected(rejected, "Bid amount must be at least 225.0")));
+
+        // When
+        pipeline.process(List.of(pending(accepted), pending(rejected)));
+
+        // Then
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate).convertAndSendToUser(eq("2"), eq("/queue/bids"), captor.capture());
+        BidAckMessage acceptedAck = (BidAckMessage) captor.getValue();
+        assertTrue(acceptedAck.isAccepted());
+        assertTrue(acceptedAck.isWinningBid());
+        assertEquals(bidTime, acceptedAck.getBidTime());
+
+        verify(messagingTemplate).convertAndSendToUser(eq("3"), eq("/queue/bids"), captor.capture());
+        BidAckMessage rejectedAck = (BidAckMessage) captor.getValue();
+        assertFalse(rejectedAck.isAccepted());
+        assertEquals("Bid amount must be at least 225.0", rejectedAck.getMessage());
+
+        assertEquals(1, meterRegistry.get("auction.bid.latency").tag("outcome", "accepted").timer().count());
+        assertEquals(1, meterRegistry.get("auction.bid.latency").tag("outcome", "rejected").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should reject the whole batch when the write fails")
+    void shouldRejectBatchWhenWriteFails() {
+        // Given
+        BidDTO first = bid(2L, 200.0);
+        BidDTO second = bid(3L, 250.0);
+        when(auctionService.placeBidBatch(anyList()))
+                .thenThrow(new IllegalStateException("The auction was updated by another bid. Please try again."));
+
+        // When
+        pipeline.process(List.of(pending(first), pending(second)));
+
+        // Then
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, times(2)).convertAndSendToUser(anyString(), eq("/queue/bids"), captor.capture());
+        captor.getAllValues().forEach(ack -> {
+            assertFalse(((BidAckMessage) ack).isAccepted());
+            assertEquals("The auction was updated by another bid. Please try again.", ((BidAckMessage) ack).getMessage());
+        });
+    }
+
+    @Test
+    @DisplayName("Should process submitted bids on a worker thread")
+    void shouldProcessSubmittedBidsAsynchronously() {
+        // Given
+        BidDTO bidDTO = bid(2L, 200.0);
+        when(auctionService.placeBidBatch(anyList())).thenAnswer(invocation -> {
+            List<BidDTO> bids = invocation.getArgument(0);
+            return bids.stream()
+                    .map(queued -> AuctionService.BidResult.accepted(queued, true, LocalDateTime.now()))
+                    .toList();
+        });
+        pipeline.start();
+
+        // When
+        pipeline.submit(bidDTO);
+
+        // Then
+        verify(messagingTemplate, timeout(2000)).convertAndSendToUser(eq("2"), eq("/queue/bids"), any(BidAckMessage.class));
+    }
+
+    private static BidDTO bid(Long bidderId, double amount) {
+        BidDTO bidDTO = new BidDTO();
+        bidDTO.setAuctionId(1L);
+        bidDTO.setBidderId(bidderId);
+        bidDTO.setAmount(amount);
+        return bidDTO;
+    }
+
+    private static BidIngestionPipeline.PendingBid pending(BidDTO bidDTO) {
+        return new BidIngestionPipeline.PendingBid(bidDTO, System.nanoTime());
+    }
+}
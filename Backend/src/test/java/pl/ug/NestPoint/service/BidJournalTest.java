@@ -0,0 +1,220 @@
+package pl.ug.NestPoint.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.ug.NestPoint.domain.Auction;
+import pl.ug.NestPoint.domain.Bid;
+import pl.ug.NestPoint.domain.User;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BidJournal Unit Tests")
+class BidJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private BidJournal journal;
+    private Auction auction;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        journal = openJournal();
+
+        auction = new Auction();
+        auction.setId(1L);
+        auction.setStartingPrice(100.0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("Should recover bidders and automatic bid ceilings after a restart")
+    void shouldRecoverAfterRestart() {
+        // Given
+        journal.append(BidJournalRecord.bid(1L, 2L, 150.0, true, 300.0, now.minusMinutes(20)));
+        journal.append(BidJournalRecord.bid(1L, 3L, 200.0, false, 0, now.minusMinutes(10)));
+        journal.append(BidJournalRecord.bid(1L, 2L, 210.0, true, 300.0, now.minusMinutes(10)));
+        Bid leader = bid(2L, 210.0);
+
+        // When
+        journal.close();
+        journal = openJournal();
+
+        // Then
+        auction.updateBidAggregates(leader, 2);
+        AuctionEngine.AuctionHistory history = journal.history(auction).orElseThrow();
+        assertEquals(now.minusMinutes(10), history.lastBidTimes().get(2L));
+        assertEquals(now.minusMinutes(10), history.lastBidTimes().get(3L));
+        assertEquals(1, history.proxyBids().size());
+        assertEquals(300.0, history.proxyBids().get(0).ceiling());
+        assertEquals(now.minusMinutes(20), history.proxyBids().get(0).placedAt());
+    }
+
+    @Test
+    @DisplayName("Should recover from a snapshot plus the records written after it")
+    void shouldRecoverFromSnapshotAndTail() {
+        // Given
+        journal.append(BidJournalRecord.bid(1L, 2L, 150.0, false, 0, now.minusMinutes(20)));
+        journal.snapshot();
+        journal.append(BidJournalRecord.bid(1L, 3L, 200.0, false, 0, now.minusMinutes(10)));
+        journal.append(BidJournalRecord.bid(5L, 3L, 400.0, false, 0, now.minusMinutes(5)));
+        journal.append(BidJournalRecord.close(5L));
+        journal.flush();
+
+        // When - no shutdown snapshot, as after a crash
+        journal = openJournal();
+
+        // Then
+        auction.updateBidAggregates(bid(3L, 200.0), 2);
+        AuctionEngine.AuctionHistory history = journal.history(auction).orElseThrow();
+        assertEquals(2, history.lastBidTimes().size());
+        assertEquals(1, journal.openAuctionCount());
+    }
+
+    @Test
+    @DisplayName("Should delete the segments covered by a snapshot")
+    void shouldDeleteSegmentsCoveredBySnapshot() {
+        // Given - enough records to fill the first segment
+        int perSegment = 1024 * 1024 / BidJournalRecord.FRAME_SIZE;
+        for (int i = 0; i < perSegment + 10; i++) {
+            journal.append(BidJournalRecord.bid(1L, 2L + i % 2, 150.0 + i, false, 0, now.minusSeconds(10_000 - i)));
+        }
+        assertEquals(2, BidJournalReader.segments(directory).size());
+
+        // When
+        journal.snapshot();
+        journal.append(BidJournalRecord.bid(1L, 4L, 150.0 + perSegment + 10, false, 0, now));
+        journal.flush();
+
+        // Then
+        List<Path> segments = BidJournalReader.segments(directory);
+        assertEquals(1, segments.size());
+        assertTrue(BidJournalReader.firstSequence(segments.get(0)) > 0);
+
+        journal = openJournal();
+        auction.updateBidAggregates(bid(4L, 150.0 + perSegment + 10), 3);
+        AuctionEngine.AuctionHistory history = journal.history(auction).orElseThrow();
+        assertEquals(3, history.lastBidTimes().size());
+        assertEquals(now, history.lastBidTimes().get(4L));
+    }
+
+    @Test
+    @DisplayName("Should forget dropped bidders")
+    void shouldForgetDroppedBidders() {
+        // Given
+        journal.append(BidJournalRecord.bid(1L, 2L, 150.0, false, 0, now.minusMinutes(20)));
+        journal.append(BidJournalRecord.bid(1L, 3L, 200.0, false, 0, now.minusMinutes(10)));
+
+        // When
+        journal.append(BidJournalRecord.drop(1L, 3L));
+
+        // Then
+        auction.updateBidAggregates(bid(2L, 150.0), 1);
+        AuctionEngine.AuctionHistory history = journal.history(auction).orElseThrow();
+        assertEquals(List.of(2L), new ArrayList<>(history.lastBidTimes().keySet()));
+    }
+
+    @Test
+    @DisplayName("Should fall back to the database when the journal is behind the auction")
+    void shouldFallBackWhenJournalIsBehind() {
+        // Given - the auction saw a bid the journal missed
+        journal.append(BidJournalRecord.bid(1L, 2L, 150.0, false, 0, now.minusMinutes(20)));
+        auction.updateBidAggregates(bid(3L, 200.0), 2);
+
+        // When & Then
+        assertTrue(journal.history(auction).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should ignore a torn record at the end of the journal")
+    void shouldIgnoreTornRecord() throws Exception {
+        // Given
+        journal.append(BidJournalRecord.bid(1L, 2L, 150.0, false, 0, now.minusMinutes(20)));
+        journal.append(BidJournalRecord.bid(1L, 3L, 200.0, false, 0, now.minusMinutes(10)));
+        journal.flush();
+
+        // When - corrupt the payload of the second record
+        Path segment = BidJournalReader.segments(directory).get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(BidJournalRecord.FRAME_SIZE + 20);
+            file.writeByte(0x7F);
+        }
+        journal = openJournal();
+
+        // Then
+        List<BidJournalRecord> replayed = new ArrayList<>();
+        BidJournalReader.replay(directory, 0, replayed::add);
+        assertEquals(1, replayed.size());
+        auction.updateBidAggregates(bid(2L, 150.0), 1);
+        assertTrue(journal.history(auction).isPresent());
+    }
+
+    @Test
+    @DisplayName("Should replay records offline from a given sequence")
+    void shouldReplayFromSequence() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            journal.append(BidJournalRecord.bid(1L, 2L + i, 110.0 + i * 10, false, 0, now.minusMinutes(5 - i)));
+        }
+        journal.flush();
+
+        // When
+        List<BidJournalRecord> replayed = new ArrayList<>();
+        BidJournalReader.ReplayResult result = BidJournalReader.replay(directory, 2, replayed::add);
+
+        // Then
+        assertEquals(3, replayed.size());
+        assertEquals(2, replayed.get(0).sequence());
+        assertEquals(4L, replayed.get(0).bidderId());
+        assertEquals(now.minusMinutes(3), replayed.get(0).bidTime());
+        assertEquals(5, result.nextSequence());
+    }
+
+    @Test
+    @DisplayName("Should do nothing when disabled")
+    void shouldDoNothingWhenDisabled() {
+        // Given
+        BidJournal disabled = new BidJournal(false, directory.resolve("disabled").toString(), 1);
+        disabled.open();
+
+        // When
+        disabled.append(BidJournalRecord.bid(1L, 2L, 150.0, false, 0, now));
+
+        // Then
+        assertTrue(disabled.history(auction).isEmpty());
+        assertTrue(BidJournalReader.segments(directory.resolve("disabled")).isEmpty());
+    }
+
+    private BidJournal openJournal() {
+        BidJournal opened = new BidJournal(true, directory.toString(), 1);
+        opened.open();
+        return opened;
+    }
+
+    private Bid bid(Long bidderId, double amount) {
+        User bidder = new User();
+        bidder.setId(bidderId);
+        Bid bid = new Bid();
+        bid.setId(bidderId * 100);
+        bid.setAuction(auction);
+        bid.setBidder(bidder);
+        bid.setAmount(amount);
+        return bid;
+    }
+}
@@ -0,0 +1,85 @@
+package pl.ug.NestPoint.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Contention benchmark for {@link BookingCoordinator}, not part of the test suite.
+ * Every booking holds its lock for a simulated check-and-insert round trip. Compares the striped locks
+ * with one lock for all bookings (what a table lock or SERIALIZABLE retries amount to), for bookings
+ * spread over many apartments and for everyone booking the same apartment.
+ *
+ * <pre>
+ * mvn test-compile
+ * java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *      pl.ug.NestPoint.service.BookingCoordinatorBenchmark
+ * </pre>
+ */
+public class BookingCoordinatorBenchmark {
+
+    private static final int THREADS = 32;
+    private static final long DURATION_MILLIS = 3000;
+    private static final long HOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+    private static final int APARTMENTS = 100_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        BookingCoordinator coordinator = new BookingCoordinator(null, null, null, "local", 60_000);
+        ReentrantLock globalLock = new ReentrantLock();
+
+        System.out.printf("%d threads, %d us per booking, %d ms per run%n",
+                THREADS, TimeUnit.NANOSECONDS.toMicros(HOLD_NANOS), DURATION_MILLIS);
+        run("striped, spread over apartments", () -> ThreadLocalRandom.current().nextLong(1, APARTMENTS),
+                apartmentId -> coordinator.lock(apartmentId));
+        run("global lock, spread over apartments", () -> ThreadLocalRandom.current().nextLong(1, APARTMENTS),
+                apartmentId -> lockGlobally(globalLock));
+        run("striped, one hot apartment", () -> 1L, apartmentId -> coordinator.lock(apartmentId));
+        run("global lock, one hot apartment", () -> 1L, apartmentId -> lockGlobally(globalLock));
+    }
+
+    private static void run(String name, LongSupplier apartments, LongConsumer lock)
+            throws InterruptedException {
+        AtomicLong bookings = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(THREADS);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MILLIS);
+
+        for (int i = 0; i < THREADS; i++) {
+            Thread worker = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    TransactionSynchronizationManager.initSynchronization();
+                    try {
+                        lock.accept(apartments.getAsLong());
+                        LockSupport.parkNanos(HOLD_NANOS);
+                        bookings.incrementAndGet();
+                    } finally {
+                        TransactionSynchronizationManager.getSynchronizations()
+                                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+                        TransactionSynchronizationManager.clearSynchronization();
+                    }
+                }
+                done.countDown();
+            });
+            worker.start();
+        }
+        done.await();
+        System.out.printf("%-40s %,10d bookings/s%n", name, bookings.get() * 1000 / DURATION_MILLIS);
+    }
+
+    private static void lockGlobally(ReentrantLock globalLock) {
+        globalLock.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                globalLock.unlock();
+            }
+        });
+    }
+}
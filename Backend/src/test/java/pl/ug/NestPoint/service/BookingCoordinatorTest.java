@@ -0,0 +1,188 @@
+package pl.ug.NestPoint.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.ug.NestPoint.repository.RentalRepository;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("BookingCoordinator Unit Tests")
+class BookingCoordinatorTest {
+
+    @Mock
+    private ApartmentAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private BookingCoordinator coordinator;
+
+    @BeforeEach
+    void setUp() {
+        coordinator = new BookingCoordinator(availabilityIndex, rentalRepository, jdbcTemplate, "local", 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            complete();
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse to lock outside a transaction")
+    void shouldRequireTransaction() {
+        assertThrows(IllegalStateException.class, () -> coordinator.lock(1L));
+    }
+
+    @Test
+    @DisplayName("Should keep a second booking of the apartment waiting until the first one completes")
+    void shouldSerializeSameApartment() throws Exception {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+        coordinator.lock(1L);
+
+        // When - another transaction gives up after the lock timeout
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> inTransaction(() -> coordinator.lock(1L)));
+
+        // Then
+        Exception exception = assertThrows(Exception.class, () -> blocked.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+
+        // And once the first transaction completes the apartment is free again
+        complete();
+        CompletableFuture.runAsync(() -> inTransaction(() -> coordinator.lock(1L))).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Should let bookings of other apartments through")
+    void shouldNotBlockOtherApartments() throws Exception {
+        // Given
+        long otherApartment = LongStream.range(2, 1000)
+                .filter(id -> BookingCoordinator.stripeOf(id) != BookingCoordinator.stripeOf(1L))
+                .findFirst()
+                .orElseThrow();
+        TransactionSynchronizationManager.initSynchronization();
+        coordinator.lock(1L);
+
+        // When & Then
+        CompletableFuture.runAsync(() -> inTransaction(() -> coordinator.lock(otherApartment))).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Should lock two apartments, e.g. when a rental moves, without deadlocking")
+    void shouldLockSeveralApartments() throws Exception {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        coordinator.lock(7L, 3L, 7L, null);
+        CompletableFuture<Void> reversed = CompletableFuture.runAsync(() -> inTransaction(() -> coordinator.lock(3L, 7L)));
+        complete();
+
+        // Then
+        reversed.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Should spread sequential apartment ids over the stripes")
+    void shouldSpreadStripes() {
+        Set<Integer> used = new HashSet<>();
+        for (long id = 1; id <= BookingCoordinator.STRIPE_COUNT; id++) {
+            used.add(BookingCoordinator.stripeOf(id));
+        }
+        assertTrue(used.size() > BookingCoordinator.STRIPE_COUNT / 2);
+    }
+
+    @Test
+    @DisplayName("Should take an advisory lock and ask the database when running on several nodes")
+    void shouldUseDatabaseWhenDistributed() {
+        // Given
+        coordinator = new BookingCoordinator(availabilityIndex, rentalRepository, jdbcTemplate, "postgres", 100);
+        LocalDate start = LocalDate.now().plusDays(1);
+        LocalDate end = start.plusDays(3);
+        when(rentalRepository.existsOverlappingRental(1L, start, end, null)).thenReturn(true);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), any(), any())).thenReturn(true);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        coordinator.lock(1L);
+        boolean occupied = coordinator.isOccupiedBetween(1L, start, end, null);
+
+        // Then
+        verify(jdbcTemplate).queryForObject(anyString(), eq(Boolean.class), eq(BookingCoordinator.ADVISORY_LOCK_NAMESPACE), eq(1));
+        verify(availabilityIndex).isOccupiedBetween(1L, start, end, null);
+        assertTrue(occupied);
+    }
+
+    @Test
+    @DisplayName("Should give up on the advisory lock after the lock timeout")
+    void shouldTimeOutOnAdvisoryLock() {
+        // Given - another node holds the apartment's advisory lock
+        coordinator = new BookingCoordinator(availabilityIndex, rentalRepository, jdbcTemplate, "postgres", 100);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), any(), any())).thenReturn(false);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When & Then
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> coordinator.lock(1L));
+        assertTrue(exception.getMessage().contains("being booked by someone else"));
+        verify(jdbcTemplate, atLeast(2)).queryForObject(anyString(), eq(Boolean.class), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should answer from the index alone on a single node")
+    void shouldUseIndexWhenLocal() {
+        // Given
+        LocalDate start = LocalDate.now().plusDays(1);
+        LocalDate end = start.plusDays(3);
+
+        // When
+        boolean occupied = coordinator.isOccupiedBetween(1L, start, end, 5L);
+
+        // Then
+        assertFalse(occupied);
+        verify(availabilityIndex).isOccupiedBetween(1L, start, end, 5L);
+        verifyNoInteractions(rentalRepository, jdbcTemplate);
+    }
+
+    private static void inTransaction(Runnable action) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            action.run();
+        } finally {
+            complete();
+        }
+    }
+
+    // What the transaction manager does on commit, minus the commit
+    private static void complete() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
@@ -60,6 +60,9 @@ public class ChatServiceTest {
     @Mock
     private SimpMessagingTemplate messagingTemplate;
     
+    @Mock
+    private RateLimiter rateLimiter;
+    
     @InjectMocks
     private ChatService chatService;
     
@@ -76,6 +79,7 @@ public class ChatServiceTest {
     @BeforeEach
     void setUp() {
         now = LocalDateTime.now();
+        when(rateLimiter.tryAcquire(any(RateLimit.class), anyString())).thenReturn(true);
         
         tenant = new User();
         tenant.setId(1L);
@@ -303,6 +307,22 @@ public class ChatServiceTest {
         });
     }
     
+    @Test
+    @DisplayName("Should reject messages over the rate limit")
+    void shouldRejectMessagesOverRateLimit() {
+        // Arrange
+        when(rateLimiter.tryAcquire(any(RateLimit.class), eq("1"))).thenReturn(false);
+        
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
+            chatService.sendMessage(messageDTO, 1L);
+        });
+        
+        assertTrue(exception.getMessage().contains("too quickly"));
+        verify(messageRepository, never()).save(any(Message.class));
+        verifyNoInteractions(messagingTemplate);
+    }
+    
     @Test
     @DisplayName("Should mark messages as read")
     void shouldMarkMessagesAsRead() {
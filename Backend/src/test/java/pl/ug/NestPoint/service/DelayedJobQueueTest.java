@@ -0,0 +1,178 @@
+package pl.ug.NestPoint.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import pl.ug.NestPoint.domain.enums.DelayedJobType;
+import pl.ug.NestPoint.repository.DelayedJobRepository;
+import pl.ug.NestPoint.repository.DelayedJobRepository.ClaimedJob;
+import pl.ug.NestPoint.repository.RentalMaintenanceRepository;
+import pl.ug.NestPoint.repository.RentalMaintenanceRepository.UnpaidFine;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("DelayedJobQueue Unit Tests")
+class DelayedJobQueueTest {
+
+    private static final String WORKER = "node/0";
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Mock
+    private DelayedJobRepository jobRepository;
+
+    @Mock
+    private RentalMaintenanceRepository maintenanceRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DelayedJobQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        queue = new DelayedJobQueue(jobRepository, maintenanceRepository, transactionManager, meterRegistry,
+                false, 1, 1000, 60000, MAX_ATTEMPTS);
+    }
+
+    @Test
+    @DisplayName("Should write enqueued jobs to the table")
+    void shouldEnqueueJob() {
+        // Given
+        LocalDateTime deadline = LocalDateTime.now().plusHours(24);
+
+        // When
+        queue.enqueue(DelayedJobType.ISSUE_AUCTION_FINE, 5L, deadline);
+
+        // Then
+        verify(jobRepository).enqueue(DelayedJobType.ISSUE_AUCTION_FINE, 5L, deadline);
+    }
+
+    @Test
+    @DisplayName("Should issue the fine and queue blocking after the grace period")
+    void shouldIssueFineAndQueueBlocking() {
+        // Given
+        LocalDateTime deadline = LocalDateTime.now().minusSeconds(1);
+        ClaimedJob job = new ClaimedJob(1L, DelayedJobType.ISSUE_AUCTION_FINE, 5L, deadline, 1);
+        when(jobRepository.claimDue(eq(WORKER), any(), any(), anyInt())).thenReturn(List.of(job));
+        when(maintenanceRepository.issueFine(eq(5L), any(LocalDateTime.class), eq(0.30))).thenReturn(true);
+
+        // When
+        int claimed = queue.runDueJobs(WORKER);
+
+        // Then
+        assertEquals(1, claimed);
+        verify(jobRepository).enqueue(DelayedJobType.BLOCK_UNPAID_FINE, 5L, deadline.plusHours(24));
+        verify(jobRepository).complete(1L);
+        assertEquals(1, runs(DelayedJobType.ISSUE_AUCTION_FINE, "done"));
+    }
+
+    @Test
+    @DisplayName("Should complete without follow-up when the payment was confirmed in time")
+    void shouldSkipFineForConfirmedPayment() {
+        // Given
+        ClaimedJob job = new ClaimedJob(1L, DelayedJobType.ISSUE_AUCTION_FINE, 5L, LocalDateTime.now(), 1);
+        when(jobRepository.claimDue(eq(WORKER), any(), any(), anyInt())).thenReturn(List.of(job));
+        when(maintenanceRepository.issueFine(eq(5L), any(LocalDateTime.class), anyDouble())).thenReturn(false);
+
+        // When
+        queue.runDueJobs(WORKER);
+
+        // Then
+        verify(jobRepository, never()).enqueue(eq(DelayedJobType.BLOCK_UNPAID_FINE), anyLong(), any());
+        verify(jobRepository).complete(1L);
+    }
+
+    @Test
+    @DisplayName("Should block the tenant when the fine is still unpaid")
+    void shouldBlockTenantWithUnpaidFine() {
+        // Given
+        ClaimedJob job = new ClaimedJob(2L, DelayedJobType.BLOCK_UNPAID_FINE, 5L, LocalDateTime.now(), 1);
+        UnpaidFine fine = new UnpaidFine(7L, 60.0);
+        when(jobRepository.claimDue(eq(WORKER), any(), any(), anyInt())).thenReturn(List.of(job));
+        when(maintenanceRepository.findUnpaidFine(eq(5L), any(LocalDateTime.class))).thenReturn(Optional.of(fine));
+
+        // When
+        LocalDateTime before = LocalDateTime.now();
+        queue.runDueJobs(WORKER);
+
+        // Then
+        verify(maintenanceRepository).findUnpaidFine(eq(5L),
+                argThat(deadline -> !deadline.isAfter(before.minusHours(23))));
+        verify(maintenanceRepository).blockUsers(eq(List.of(fine)), any(LocalDateTime.class));
+        verify(jobRepository).complete(2L);
+    }
+
+    @Test
+    @DisplayName("Should release a failed job for a later retry")
+    void shouldRetryFailedJob() {
+        // Given
+        ClaimedJob job = new ClaimedJob(3L, DelayedJobType.BLOCK_UNPAID_FINE, 5L, LocalDateTime.now(), 2);
+        when(jobRepository.claimDue(eq(WORKER), any(), any(), anyInt())).thenReturn(List.of(job));
+        when(maintenanceRepository.findUnpaidFine(anyLong(), any()))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"));
+
+        // When
+        LocalDateTime before = LocalDateTime.now();
+        queue.runDueJobs(WORKER);
+
+        // Then
+        verify(jobRepository, never()).complete(anyLong());
+        verify(jobRepository).retryAt(eq(3L), argThat(runAt -> !runAt.isBefore(before.plusMinutes(4))));
+        assertEquals(1, runs(DelayedJobType.BLOCK_UNPAID_FINE, "retried"));
+    }
+
+    @Test
+    @DisplayName("Should mark a job failed once it has used up its attempts")
+    void shouldFailJobAfterMaxAttempts() {
+        // Given
+        ClaimedJob job = new ClaimedJob(3L, DelayedJobType.BLOCK_UNPAID_FINE, 5L, LocalDateTime.now(), MAX_ATTEMPTS);
+        when(jobRepository.claimDue(eq(WORKER), any(), any(), anyInt())).thenReturn(List.of(job));
+        when(maintenanceRepository.findUnpaidFine(anyLong(), any()))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"));
+
+        // When
+        queue.runDueJobs(WORKER);
+
+        // Then
+        verify(jobRepository, never()).retryAt(anyLong(), any());
+        verify(jobRepository).markFailed(eq(3L), any(LocalDateTime.class));
+        assertEquals(1, runs(DelayedJobType.BLOCK_UNPAID_FINE, "failed"));
+    }
+
+    @Test
+    @DisplayName("Should lease claimed jobs until the lease ends")
+    void shouldClaimWithLease() {
+        // Given
+        when(jobRepository.claimDue(eq(WORKER), any(), any(), anyInt())).thenReturn(List.of());
+
+        // When
+        int claimed = queue.runDueJobs(WORKER);
+
+        // Then
+        assertEquals(0, claimed);
+        verify(jobRepository).claimDue(eq(WORKER), any(LocalDateTime.class),
+                argThat(leaseUntil -> leaseUntil.isAfter(LocalDateTime.now().plusSeconds(50))), anyInt());
+    }
+
+    private long runs(DelayedJobType type, String outcome) {
+        return meterRegistry.get("rental.jobs.delayed").tag("type", type.name()).tag("outcome", outcome).timer().count();
+    }
+}
@@ -0,0 +1,152 @@
+package pl.ug.NestPoint.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("InMemoryRateLimiter Unit Tests")
+class InMemoryRateLimiterTest {
+
+    private static final RateLimit LIMIT = new RateLimit("test", 2, Duration.ofMinutes(1));
+
+    private MutableClock clock;
+    private InMemoryRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T12:00:00Z"));
+        rateLimiter = new InMemoryRateLimiter(clock);
+    }
+
+    @Test
+    @DisplayName("Should allow a burst up to the capacity")
+    void shouldAllowBurstUpToCapacity() {
+        // When & Then
+        assertTrue(rateLimiter.tryAcquire(LIMIT, "a"));
+        assertTrue(rateLimiter.tryAcquire(LIMIT, "a"));
+        assertFalse(rateLimiter.tryAcquire(LIMIT, "a"));
+    }
+
+    @Test
+    @DisplayName("Should give back a released permit, up to the capacity")
+    void shouldGiveBackReleasedPermit() {
+        // Given
+        rateLimiter.tryAcquire(LIMIT, "a");
+        rateLimiter.tryAcquire(LIMIT, "a");
+
+        // When
+        rateLimiter.release(LIMIT, "a");
+        rateLimiter.release(LIMIT, "a");
+        rateLimiter.release(LIMIT, "a");
+
+        // Then
+        assertTrue(rateLimiter.tryAcquire(LIMIT, "a"));
+        assertTrue(rateLimiter.tryAcquire(LIMIT, "a"));
+        assertFalse(rateLimiter.tryAcquire(LIMIT, "a"));
+    }
+
+    @Test
+    @DisplayName("Should keep separate buckets per key")
+    void shouldKeepSeparateBucketsPerKey() {
+        // Given
+        rateLimiter.tryAcquire(LIMIT, "a");
+        rateLimiter.tryAcquire(LIMIT, "a");
+
+        // When & Then
+        assertFalse(rateLimiter.tryAcquire(LIMIT, "a"));
+        assertTrue(rateLimiter.tryAcquire(LIMIT, "b"));
+    }
+
+    @Test
+    @DisplayName("Should refill permits over the period")
+    void shouldRefillPermitsOverPeriod() {
+        // Given
+        rateLimiter.tryAcquire(LIMIT, "a");
+        rateLimiter.tryAcquire(LIMIT, "a");
+
+        // When - half the period refills one of two permits
+        clock.advance(Duration.ofSeconds(30));
+
+        // Then
+        assertTrue(rateLimiter.tryAcquire(LIMIT, "a"));
+        assertFalse(rateLimiter.tryAcquire(LIMIT, "a"));
+    }
+
+    @Test
+    @DisplayName("Should restore a limit from a seeded acquisition")
+    void shouldRestoreLimitFromSeed() {
+        // Given
+        RateLimit single = new RateLimit("single", 1, Duration.ofMinutes(15));
+        rateLimiter.seed(single, "a", clock.instant().minus(Duration.ofMinutes(5)));
+
+        // When & Then
+        assertFalse(rateLimiter.tryAcquire(single, "a"));
+        clock.advance(Duration.ofMinutes(10));
+        assertTrue(rateLimiter.tryAcquire(single, "a"));
+    }
+
+    @Test
+    @DisplayName("Should ignore a seed for a key that already has state")
+    void shouldIgnoreSeedForKnownKey() {
+        // Given
+        rateLimiter.tryAcquire(LIMIT, "a");
+
+        // When
+        rateLimiter.seed(LIMIT, "a", clock.instant());
+
+        // Then - the seed did not take the second permit
+        assertTrue(rateLimiter.tryAcquire(LIMIT, "a"));
+        assertFalse(rateLimiter.tryAcquire(LIMIT, "a"));
+    }
+
+    @Test
+    @DisplayName("Should evict buckets once they are full again")
+    void shouldEvictRefilledBuckets() {
+        // Given
+        rateLimiter.tryAcquire(LIMIT, "a");
+        rateLimiter.tryAcquire(LIMIT, "b");
+        rateLimiter.tryAcquire(LIMIT, "b");
+
+        // When
+        clock.advance(Duration.ofSeconds(30));
+        rateLimiter.evictRefilledBuckets();
+
+        // Then - only "b" still has a permit missing
+        assertEquals(1, rateLimiter.size());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package pl.ug.NestPoint.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import pl.ug.NestPoint.dto.MapClusterDTO;
+import pl.ug.NestPoint.dto.MapPointDTO;
+import pl.ug.NestPoint.dto.MapViewportDTO;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("MapPayloadWriter Unit Tests")
+class MapPayloadWriterTest {
+
+    @Test
+    @DisplayName("Should write points sorted by id with quantized coordinates, prices and thumbnails")
+    void shouldRoundTripPoints() {
+        // Given
+        List<MapPointDTO> points = List.of(
+                new MapPointDTO(7L, "B", 1999.99, 52.2400, 21.0300, "Warsaw", null, null),
+                new MapPointDTO(3L, "A", 1500.0, 52.2297, 21.0122, "Warsaw", "https://example.com/a.jpg", 40L),
+                new MapPointDTO(9L, "C", 800.5, -17.7, -179.5, "Suva", "https://example.com/b.jpg", 12L));
+
+        // When
+        Decoded decoded = Decoded.of(MapPayloadWriter.write(points));
+
+        // Then
+        assertFalse(decoded.clustered);
+        assertEquals(255, decoded.zoom);
+        assertEquals(List.of(3L, 7L, 9L), decoded.ids);
+        assertEquals(List.of(52.2297, 52.24, -17.7), decoded.lats);
+        assertEquals(List.of(21.0122, 21.03, -179.5), decoded.lngs);
+        assertEquals(List.of(150000L, 199999L, 80050L), decoded.cents);
+        assertEquals(Arrays.asList(40L, null, 12L), decoded.thumbnailIds);
+        assertTrue(decoded.clusterCounts.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should write the clusters and the zoom of a viewport")
+    void shouldRoundTripViewport() {
+        // Given
+        MapViewportDTO viewport = new MapViewportDTO(6, true,
+                List.of(new MapPointDTO(3L, "A", 1500.0, 54.352, 18.6466, "Gdansk", null, null)),
+                List.of(new MapClusterDTO(52.23, 21.02, 12, 19.6875, 50.625, 21.09375, 52.03125),
+                        new MapClusterDTO(50.06, 19.94, 4, 18.28125, 49.21875, 19.6875, 50.625)));
+
+        // When
+        Decoded decoded = Decoded.of(MapPayloadWriter.write(viewport));
+
+        // Then
+        assertTrue(decoded.clustered);
+        assertEquals(6, decoded.zoom);
+        assertEquals(List.of(3L), decoded.ids);
+        assertEquals(List.of(52.23, 50.06), decoded.clusterLats);
+        assertEquals(List.of(21.02, 19.94), decoded.clusterLngs);
+        assertEquals(List.of(19.6875, 18.28125), decoded.clusterWests);
+        assertEquals(List.of(52.03125, 50.625), decoded.clusterNorths);
+        assertEquals(List.of(12L, 4L), decoded.clusterCounts);
+    }
+
+    @Test
+    @DisplayName("Should be an order of magnitude smaller than JSON for a full city, also gzipped")
+    void shouldBeMuchSmallerThanJson() throws IOException {
+        // Given
+        Random random = new Random(7);
+        List<MapPointDTO> points = new ArrayList<>();
+        for (long id = 1; id <= 10_000; id++) {
+            points.add(new MapPointDTO(id, "Apartment " + id, 1000 + random.nextInt(4000),
+                    52.1 + random.nextDouble() * 0.25, 20.85 + random.nextDouble() * 0.35,
+                    "Warsaw, Street " + random.nextInt(500),
+                    "https://res.cloudinary.com/nestpoint/image/upload/v1735000000/" + Long.toString(random.nextLong(), 36)
+                            + ".jpg",
+                    id * 3));
+        }
+        byte[] json = new ObjectMapper().writeValueAsBytes(points);
+
+        // When
+        byte[] binary = MapPayloadWriter.write(points);
+
+        // Then
+        assertTrue(binary.length * 10 < json.length, binary.length + " vs " + json.length);
+        assertTrue(gzip(binary).length * 5 < gzip(json).length, gzip(binary).length + " vs " + gzip(json).length);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads the format back the way a client would.
+     */
+    private static final class Decoded {
+        boolean clustered;
+        int zoom;
+        final List<Long> ids = new ArrayList<>();
+        final List<Double> lats = new ArrayList<>();
+        final List<Double> lngs = new ArrayList<>();
+        final List<Long> cents = new ArrayList<>();
+        final List<Long> thumbnailIds = new ArrayList<>();
+        final List<Double> clusterLats = new ArrayList<>();
+        final List<Double> clusterLngs = new ArrayList<>();
+        final List<Double> clusterWests = new ArrayList<>();
+        final List<Double> clusterNorths = new ArrayList<>();
+        final List<Long> clusterCounts = new ArrayList<>();
+
+        static Decoded of(byte[] payload) {
+            ByteArrayInputStream in = new ByteArrayInputStream(payload);
+            byte[] magic = new byte[3];
+            in.read(magic, 0, magic.length);
+            assertArrayEquals("NPM".getBytes(StandardCharsets.US_ASCII), magic);
+            assertEquals(MapPayloadWriter.VERSION, in.read());
+            Decoded decoded = new Decoded();
+            decoded.clustered = (in.read() & 1) != 0;
+            decoded.zoom = in.read();
+
+            int count = (int) readVarint(in);
+            long id = 0;
+            for (int i = 0; i < count; i++) {
+                id += readVarint(in);
+                decoded.ids.add(id);
+            }
+            readCoordinates(in, count, decoded.lats);
+            readCoordinates(in, count, decoded.lngs);
+            for (int i = 0; i < count; i++) {
+                decoded.cents.add(readVarint(in));
+            }
+            long photoId = 0;
+            for (int i = 0; i < count; i++) {
+                long value = readVarint(in);
+                if (value == 0) {
+                    decoded.thumbnailIds.add(null);
+                } else {
+                    photoId += unzigzag(value - 1);
+                    decoded.thumbnailIds.add(photoId);
+                }
+            }
+
+            int clusters = (int) readVarint(in);
+            List<Double> ignored = new ArrayList<>();
+            readCoordinates(in, clusters, decoded.clusterLats);
+            readCoordinates(in, clusters, decoded.clusterLngs);
+            readCoordinates(in, clusters, decoded.clusterWests);
+            readCoordinates(in, clusters, ignored);
+            readCoordinates(in, clusters, ignored);
+            readCoordinates(in, clusters, decoded.clusterNorths);
+            for (int i = 0; i < clusters; i++) {
+                decoded.clusterCounts.add(readVarint(in));
+            }
+            assertEquals(0, in.available());
+            return decoded;
+        }
+
+        private static void readCoordinates(ByteArrayInputStream in, int count, List<Double> target) {
+            long value = 0;
+            for (int i = 0; i < count; i++) {
+                value += unzigzag(readVarint(in));
+                target.add(value / MapPayloadWriter.COORDINATE_SCALE);
+            }
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private static long readVarint(ByteArrayInputStream in) {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = in.read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package pl.ug.NestPoint.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import pl.ug.NestPoint.domain.Rental;
+import pl.ug.NestPoint.domain.enums.PaymentPurpose;
+import pl.ug.NestPoint.domain.enums.PaymentState;
+import pl.ug.NestPoint.dto.PaymentStatusDTO;
+import pl.ug.NestPoint.dto.RentalDTO;
+import pl.ug.NestPoint.service.PaymentPipeline.PaymentTicket;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("PaymentPipeline Unit Tests")
+class PaymentPipelineTest {
+
+    private static final String CARD = "1234567890";
+
+    @Mock
+    private PaymentGateway paymentGateway;
+
+    @Mock
+    private RentalService rentalService;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private PaymentStatusStore paymentStatusStore;
+
+    private final Map<String, PaymentStatusDTO> storedPayments = new ConcurrentHashMap<>();
+    private PaymentPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        // Stands in for Redis
+        doAnswer(invocation -> {
+            PaymentStatusDTO payment = invocation.getArgument(0);
+            storedPayments.put(payment.getPaymentId(), payment);
+            return null;
+        }).when(paymentStatusStore).save(any(PaymentStatusDTO.class));
+        when(paymentStatusStore.find(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(storedPayments.get(invocation.<String>getArgument(0))));
+        pipeline = new PaymentPipeline(paymentGateway, rentalService, messagingTemplate, paymentStatusStore, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should return the pending payment before the gateway answers")
+    void shouldReturnBeforeGatewayAnswers() throws Exception {
+        // Given
+        CountDownLatch gatewayReleased = new CountDownLatch(1);
+        when(rentalService.checkAuctionPaymentAllowed(1L)).thenReturn(2L);
+        when(paymentGateway.charge(PaymentPurpose.AUCTION_PAYMENT, CARD)).thenAnswer(invocation -> {
+            gatewayReleased.await(5, TimeUnit.SECONDS);
+            return true;
+        });
+
+        // When
+        PaymentTicket ticket = pipeline.submitAuctionPayment(1L, CARD);
+
+        // Then
+        assertEquals(PaymentState.PENDING, ticket.pending().getState());
+        assertEquals(PaymentState.PENDING, pipeline.getPayment(ticket.pending().getPaymentId()).orElseThrow().getState());
+        assertFalse(ticket.result().isDone());
+
+        gatewayReleased.countDown();
+        PaymentStatusDTO result = ticket.result().get(5, TimeUnit.SECONDS);
+        assertEquals(PaymentState.SUCCEEDED, result.getState());
+        verify(rentalService).confirmAuctionPayment(1L, ticket.pending().getSubmittedAt());
+        verify(messagingTemplate).convertAndSendToUser("2", "/queue/payments", result);
+        assertEquals(PaymentState.SUCCEEDED, pipeline.getPayment(result.getPaymentId()).orElseThrow().getState());
+    }
+
+    @Test
+    @DisplayName("Should not touch the rental when the card is declined")
+    void shouldNotCommitDeclinedPayment() throws Exception {
+        // Given
+        when(rentalService.checkAuctionFinePayable(1L)).thenReturn(2L);
+        when(paymentGateway.charge(PaymentPurpose.AUCTION_FINE, CARD)).thenReturn(false);
+
+        // When
+        PaymentStatusDTO result = pipeline.submitFinePayment(1L, CARD).result().get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(PaymentState.DECLINED, result.getState());
+        assertTrue(result.getMessage().contains("Payment declined"));
+        verify(rentalService, never()).settleAuctionFine(anyLong());
+        verify(messagingTemplate).convertAndSendToUser(eq("2"), eq("/queue/payments"), any(PaymentStatusDTO.class));
+    }
+
+    @Test
+    @DisplayName("Should check the rental before charging the card")
+    void shouldRejectBeforeCharging() {
+        // Given
+        when(rentalService.checkAuctionPaymentAllowed(1L))
+                .thenThrow(new IllegalStateException("Payment already confirmed"));
+
+        // When / Then
+        assertThrows(IllegalStateException.class, () -> pipeline.submitAuctionPayment(1L, CARD));
+        verifyNoInteractions(paymentGateway);
+    }
+
+    @Test
+    @DisplayName("Should create the rental once the payment is approved")
+    void shouldCreateRentalAfterApproval() throws Exception {
+        // Given
+        RentalDTO rentalDTO = new RentalDTO();
+        rentalDTO.setTenantId(2L);
+        Rental rental = new Rental();
+        rental.setId(7L);
+        when(paymentGateway.charge(PaymentPurpose.RENTAL, CARD)).thenReturn(true);
+        when(rentalService.createRental(rentalDTO)).thenReturn(rental);
+
+        // When
+        PaymentStatusDTO result = pipeline.submitRentalPayment(rentalDTO, CARD).result().get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(PaymentState.SUCCEEDED, result.getState());
+        assertEquals(7L, result.getRentalId());
+    }
+
+    @Test
+    @DisplayName("Should report a failed payment when the rental cannot be created")
+    void shouldFailWhenRentalCannotBeCreated() throws Exception {
+        // Given
+        RentalDTO rentalDTO = new RentalDTO();
+        rentalDTO.setTenantId(2L);
+        when(paymentGateway.charge(PaymentPurpose.RENTAL, CARD)).thenReturn(true);
+        when(rentalService.createRental(rentalDTO))
+                .thenThrow(new IllegalStateException("Apartment is not available for the selected dates"));
+
+        // When
+        PaymentStatusDTO result = pipeline.submitRentalPayment(rentalDTO, CARD).result().get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(PaymentState.FAILED, result.getState());
+        assertEquals("Apartment is not available for the selected dates", result.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should still answer a settled payment when its outcome cannot be stored")
+    void shouldAnswerWhenOutcomeCannotBeStored() throws Exception {
+        // Given - the pending state is stored, the outcome is not
+        when(rentalService.checkAuctionFinePayable(1L)).thenReturn(2L);
+        when(paymentGateway.charge(any(), anyString())).thenReturn(true);
+        doAnswer(invocation -> {
+            PaymentStatusDTO payment = invocation.getArgument(0);
+            if (payment.getState() != PaymentState.PENDING) {
+                throw new IllegalStateException("Redis unavailable");
+            }
+            return null;
+        }).when(paymentStatusStore).save(any(PaymentStatusDTO.class));
+
+        // When
+        PaymentStatusDTO result = pipeline.submitFinePayment(1L, CARD).result().get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(PaymentState.SUCCEEDED, result.getState());
+        verify(rentalService).settleAuctionFine(1L);
+        verify(messagingTemplate).convertAndSendToUser("2", "/queue/payments", result);
+    }
+}
@@ -0,0 +1,99 @@
+package pl.ug.NestPoint.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import pl.ug.NestPoint.domain.enums.PaymentPurpose;
+import pl.ug.NestPoint.domain.enums.PaymentState;
+import pl.ug.NestPoint.dto.PaymentStatusDTO;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("PaymentStatusStore Unit Tests")
+class PaymentStatusStoreTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @InjectMocks
+    private PaymentStatusStore paymentStatusStore;
+
+    @BeforeEach
+    void setUp() {
+        when(stringRedisTemplate.opsForHash()).thenReturn(hashOperations);
+    }
+
+    @Test
+    @DisplayName("Should write the payment and its expiry in one round trip")
+    void shouldSavePaymentInOneRoundTrip() {
+        // Given
+        PaymentStatusDTO payment = PaymentStatusDTO.builder()
+                .paymentId("p-1")
+                .purpose(PaymentPurpose.RENTAL)
+                .state(PaymentState.PENDING)
+                .submittedAt(LocalDateTime.now())
+                .build();
+
+        // When
+        paymentStatusStore.save(payment);
+
+        // Then
+        verify(stringRedisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    @DisplayName("Should read a completed payment back from its hash")
+    void shouldFindCompletedPayment() {
+        // Given
+        when(hashOperations.entries("payment:status:p-1")).thenReturn(Map.of(
+                "purpose", "AUCTION_FINE",
+                "state", "SUCCEEDED",
+                "rentalId", "7",
+                "submittedAt", "2025-03-01T12:00",
+                "completedAt", "2025-03-01T12:00:02"));
+
+        // When
+        PaymentStatusDTO payment = paymentStatusStore.find("p-1").orElseThrow();
+
+        // Then
+        assertEquals("p-1", payment.getPaymentId());
+        assertEquals(PaymentPurpose.AUCTION_FINE, payment.getPurpose());
+        assertEquals(PaymentState.SUCCEEDED, payment.getState());
+        assertEquals(7L, payment.getRentalId());
+        assertNull(payment.getMessage());
+        assertEquals(LocalDateTime.of(2025, 3, 1, 12, 0, 2), payment.getCompletedAt());
+    }
+
+    @Test
+    @DisplayName("Should not find a payment that is unknown or expired")
+    void shouldNotFindExpiredPayment() {
+        // Given
+        when(hashOperations.entries("payment:status:p-2")).thenReturn(Map.of());
+
+        // When
+        Optional<PaymentStatusDTO> payment = paymentStatusStore.find("p-2");
+
+        // Then
+        assertTrue(payment.isEmpty());
+    }
+}
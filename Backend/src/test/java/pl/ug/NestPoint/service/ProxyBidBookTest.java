@@ -0,0 +1,112 @@
+package pl.ug.NestPoint.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ProxyBidBook Unit Tests")
+class ProxyBidBookTest {
+
+    private ProxyBidBook book;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        book = new ProxyBidBook();
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    @DisplayName("Should let a bid stand when no proxy can outbid it")
+    void shouldLetBidStandWithoutStrongerProxy() {
+        // Given
+        book.register(2L, 205.0, now.minusMinutes(10));
+
+        // When
+        Optional<ProxyBidBook.CounterBid> counterBid = book.resolve(3L, 200.0, 10.0);
+
+        // Then
+        assertTrue(counterBid.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should price the strongest proxy just above the runner-up")
+    void shouldPriceStrongestProxyAboveRunnerUp() {
+        // Given
+        book.register(2L, 500.0, now.minusMinutes(30));
+        book.register(3L, 320.0, now.minusMinutes(20));
+        book.register(4L, 280.0, now.minusMinutes(10));
+
+        // When
+        ProxyBidBook.CounterBid counterBid = book.resolve(5L, 200.0, 10.0).orElseThrow();
+
+        // Then
+        assertEquals(2L, counterBid.bidderId());
+        assertEquals(330.0, counterBid.amount());
+        assertEquals(500.0, counterBid.maxAutoBidAmount());
+    }
+
+    @Test
+    @DisplayName("Should cap the counter bid at the proxy ceiling")
+    void shouldCapCounterBidAtCeiling() {
+        // Given
+        book.register(2L, 205.0, now.minusMinutes(10));
+
+        // When
+        ProxyBidBook.CounterBid counterBid = book.resolve(3L, 200.0, 5.0).orElseThrow();
+
+        // Then
+        assertEquals(2L, counterBid.bidderId());
+        assertEquals(205.0, counterBid.amount());
+    }
+
+    @Test
+    @DisplayName("Should give a tie on ceilings to the earlier proxy")
+    void shouldGiveTieToEarlierProxy() {
+        // Given
+        book.register(2L, 300.0, now.minusMinutes(10));
+        book.register(3L, 300.0, now.minusMinutes(5));
+
+        // When
+        ProxyBidBook.CounterBid counterBid = book.resolve(3L, 200.0, 10.0).orElseThrow();
+
+        // Then
+        assertEquals(2L, counterBid.bidderId());
+        assertEquals(300.0, counterBid.amount());
+    }
+
+    @Test
+    @DisplayName("Should raise the bidder's own proxy above the strongest competitor")
+    void shouldRaiseOwnProxyAboveCompetitor() {
+        // Given
+        book.register(2L, 250.0, now.minusMinutes(10));
+        book.register(3L, 400.0, now);
+
+        // When
+        ProxyBidBook.CounterBid counterBid = book.resolve(3L, 200.0, 10.0).orElseThrow();
+
+        // Then
+        assertEquals(3L, counterBid.bidderId());
+        assertEquals(260.0, counterBid.amount());
+    }
+
+    @Test
+    @DisplayName("Should replace the ceiling when a bidder registers again")
+    void shouldReplaceCeilingOnReRegistration() {
+        // Given
+        book.register(2L, 250.0, now.minusMinutes(10));
+
+        // When
+        book.register(2L, 180.0, now);
+
+        // Then
+        assertEquals(1, book.size());
+        assertEquals(180.0, book.get(2L).orElseThrow().ceiling());
+        assertTrue(book.resolve(3L, 200.0, 10.0).isEmpty());
+    }
+}
@@ -0,0 +1,150 @@
+package pl.ug.NestPoint.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("RedisBrokerRelay Unit Tests")
+class RedisBrokerRelayTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private RedisConnectionFactory redisConnectionFactory;
+
+    @Mock
+    private MessageChannel brokerChannel;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private RedisBrokerRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new RedisBrokerRelay(stringRedisTemplate, redisConnectionFactory, brokerChannel, objectMapper);
+    }
+
+    @Test
+    @DisplayName("Should publish one envelope per destination on flush")
+    void shouldBatchPerDestination() throws Exception {
+        // Given
+        relay.preSend(brokerMessage("/topic/auction/1/bids", "{\"amount\":150}"), brokerChannel);
+        relay.preSend(brokerMessage("/topic/auction/1/bids", "{\"amount\":160}"), brokerChannel);
+        relay.preSend(brokerMessage("/user/7/queue/chat", "{\"content\":\"hi\"}"), brokerChannel);
+
+        // When
+        relay.flush();
+
+        // Then
+        ArgumentCaptor<String> envelopes = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate, times(2)).convertAndSend(eq(RedisBrokerRelay.CHANNEL), envelopes.capture());
+        RedisBrokerRelay.RelayEnvelope bids = envelopes.getAllValues().stream()
+                .map(this::readEnvelope)
+                .filter(envelope -> envelope.destination().equals("/topic/auction/1/bids"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(relay.nodeId(), bids.nodeId());
+        assertEquals(2, bids.messages().size());
+        assertEquals("{\"amount\":160}", new String(bids.messages().get(1).payload(), StandardCharsets.UTF_8));
+
+        // And nothing is left for the next flush
+        relay.flush();
+        verify(stringRedisTemplate, times(2)).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should keep messages resolved to a local session on this node")
+    void shouldNotRelayResolvedUserMessages() {
+        // Given
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination("/queue/chat-user123");
+        accessor.setHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION, "/user/queue/chat");
+        Message<byte[]> resolved = MessageBuilder.createMessage("{}".getBytes(StandardCharsets.UTF_8),
+                accessor.getMessageHeaders());
+
+        // When
+        relay.preSend(resolved, brokerChannel);
+        relay.flush();
+
+        // Then
+        verify(stringRedisTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should hand messages from other nodes to the local broker without publishing them again")
+    void shouldRedeliverRemoteMessages() throws Exception {
+        // Given
+        String envelope = objectMapper.writeValueAsString(new RedisBrokerRelay.RelayEnvelope("other-node",
+                "/topic/auction/1/bids", List.of(new RedisBrokerRelay.RelayedMessage("application/json",
+                "{\"amount\":150}".getBytes(StandardCharsets.UTF_8)))));
+
+        // When
+        relay.onMessage(new DefaultMessage(RedisBrokerRelay.CHANNEL.getBytes(), envelope.getBytes()), null);
+
+        // Then
+        ArgumentCaptor<Message<?>> delivered = ArgumentCaptor.forClass(Message.class);
+        verify(brokerChannel).send(delivered.capture());
+        Message<?> message = delivered.getValue();
+        assertEquals("/topic/auction/1/bids", SimpMessageHeaderAccessor.getDestination(message.getHeaders()));
+        assertArrayEquals("{\"amount\":150}".getBytes(StandardCharsets.UTF_8), (byte[]) message.getPayload());
+
+        relay.preSend(message, brokerChannel);
+        relay.flush();
+        verify(stringRedisTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should ignore its own envelopes")
+    void shouldIgnoreOwnEnvelopes() throws Exception {
+        // Given
+        String envelope = objectMapper.writeValueAsString(new RedisBrokerRelay.RelayEnvelope(relay.nodeId(),
+                "/topic/auction/1/bids", List.of(new RedisBrokerRelay.RelayedMessage(null, new byte[0]))));
+
+        // When
+        relay.onMessage(new DefaultMessage(RedisBrokerRelay.CHANNEL.getBytes(), envelope.getBytes()), null);
+
+        // Then
+        verify(brokerChannel, never()).send(any());
+    }
+
+    private Message<byte[]> brokerMessage(String destination, String json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    private RedisBrokerRelay.RelayEnvelope readEnvelope(String json) {
+        try {
+            return objectMapper.readValue(json, RedisBrokerRelay.RelayEnvelope.class);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package pl.ug.NestPoint.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.ug.NestPoint.domain.RentalStatus;
+import pl.ug.NestPoint.dto.RentalCalendarEventDTO;
+import pl.ug.NestPoint.repository.RentalRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RentalCalendarServiceTest {
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    @InjectMocks
+    private RentalCalendarService rentalCalendarService;
+
+    @Test
+    @DisplayName("Should prefer apartment over user and default the date range")
+    void shouldPreferApartmentCalendar() {
+        rentalCalendarService.findEvents(1L, 2L, null, null);
+
+        verify(rentalRepository).findCalendarEvents(eq(1L), isNull(),
+                eq(LocalDate.now()), eq(LocalDate.now().plusMonths(3)));
+    }
+
+    @Test
+    @DisplayName("Should write owner rentals as iCalendar events")
+    void shouldWriteOwnerCalendar() throws Exception {
+        when(rentalRepository.streamOwnerCalendar(1L)).thenReturn(Stream.of(
+                new RentalCalendarEventDTO(7L, "Sea view, Gda\u0144sk; top floor",
+                        LocalDate.of(2025, 7, 1), LocalDate.of(2025, 7, 5), RentalStatus.PENDING),
+                new RentalCalendarEventDTO(8L, "Loft",
+                        LocalDate.of(2025, 8, 1), LocalDate.of(2025, 8, 3), RentalStatus.CANCELLED)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        rentalCalendarService.writeOwnerCalendar(1L, out);
+        String ics = out.toString(StandardCharsets.UTF_8);
+
+        assertTrue(ics.startsWith("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n"));
+        assertTrue(ics.endsWith("END:VCALENDAR\r\n"));
+        assertTrue(ics.contains("UID:rental-7@nestpoint\r\n"));
+        assertTrue(ics.contains("DTSTART;VALUE=DATE:20250701\r\nDTEND;VALUE=DATE:20250705\r\n"));
+        assertTrue(ics.contains("SUMMARY:Rental: Sea view\\, Gda\u0144sk\\; top floor\r\n"));
+        assertTrue(ics.contains("STATUS:TENTATIVE\r\n"));
+        assertTrue(ics.contains("STATUS:CANCELLED\r\n"));
+    }
+
+    @Test
+    @DisplayName("Should fold lines longer than 75 octets")
+    void shouldFoldLongLines() throws Exception {
+        StringWriter writer = new StringWriter();
+        RentalCalendarService.writeLine(writer, "SUMMARY:" + "x".repeat(100));
+
+        String[] lines = writer.toString().split("\r\n");
+        assertEquals(2, lines.length);
+        assertEquals(75, lines[0].length());
+        assertTrue(lines[1].startsWith(" "));
+        assertEquals("SUMMARY:" + "x".repeat(100), lines[0] + lines[1].substring(1));
+    }
+}
@@ -0,0 +1,127 @@
+package pl.ug.NestPoint.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+import pl.ug.NestPoint.repository.RentalMaintenanceRepository;
+import pl.ug.NestPoint.repository.RentalMaintenanceRepository.UnpaidFine;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("RentalMaintenanceJobs Unit Tests")
+class RentalMaintenanceJobsTest {
+
+    private static final int CHUNK_SIZE = 2;
+
+    @Mock
+    private RentalMaintenanceRepository maintenanceRepository;
+
+    @Mock
+    private AnalyticsRollups analyticsRollups;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RentalMaintenanceJobs jobs;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        jobs = new RentalMaintenanceJobs(maintenanceRepository, analyticsRollups, transactionManager, meterRegistry,
+                CHUNK_SIZE);
+    }
+
+    @Test
+    @DisplayName("Should keep updating in chunks until a chunk comes back short")
+    void shouldUpdateRentalStatusesInChunks() {
+        // Given
+        when(maintenanceRepository.activateStartedRentals(any(LocalDate.class), eq(CHUNK_SIZE))).thenReturn(2, 2, 1);
+        when(maintenanceRepository.completeEndedRentals(any(LocalDate.class), eq(CHUNK_SIZE))).thenReturn(0);
+
+        // When
+        jobs.updateRentalStatuses();
+
+        // Then
+        verify(maintenanceRepository, times(3)).activateStartedRentals(any(LocalDate.class), eq(CHUNK_SIZE));
+        verify(maintenanceRepository, times(1)).completeEndedRentals(any(LocalDate.class), eq(CHUNK_SIZE));
+        // The rollup counts the chunk in the same transaction, before the bulk update
+        var order = inOrder(analyticsRollups, maintenanceRepository);
+        order.verify(analyticsRollups).addEndedRentals(any(LocalDate.class), eq(CHUNK_SIZE));
+        order.verify(maintenanceRepository).completeEndedRentals(any(LocalDate.class), eq(CHUNK_SIZE));
+        // Every chunk is committed on its own
+        verify(transactionManager, times(4)).commit(any());
+        assertEquals(5, rows("activate-rentals"));
+        assertEquals(0, rows("complete-rentals"));
+        assertEquals(1, meterRegistry.get("rental.jobs.duration").tag("job", "activate-rentals").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should fine overdue auction payments at 30% of the total cost")
+    void shouldIssueAuctionFines() {
+        // Given
+        when(maintenanceRepository.issueOverdueFines(any(LocalDateTime.class), anyDouble(), eq(CHUNK_SIZE)))
+                .thenReturn(1);
+
+        // When
+        jobs.checkAuctionPaymentDeadlines();
+
+        // Then
+        verify(maintenanceRepository).issueOverdueFines(any(LocalDateTime.class), eq(0.30), eq(CHUNK_SIZE));
+        assertEquals(1, rows("issue-auction-fines"));
+    }
+
+    @Test
+    @DisplayName("Should block tenants whose fine is unpaid after the grace period")
+    void shouldBlockUsersWithUnpaidFines() {
+        // Given
+        List<UnpaidFine> firstChunk = List.of(new UnpaidFine(1L, 30.0), new UnpaidFine(2L, 45.0));
+        List<UnpaidFine> secondChunk = List.of(new UnpaidFine(3L, 15.0));
+        when(maintenanceRepository.findTenantsToBlock(any(LocalDateTime.class), eq(CHUNK_SIZE)))
+                .thenReturn(firstChunk, secondChunk);
+        when(maintenanceRepository.blockUsers(eq(firstChunk), any(LocalDateTime.class))).thenReturn(2);
+        when(maintenanceRepository.blockUsers(eq(secondChunk), any(LocalDateTime.class))).thenReturn(1);
+
+        // When
+        LocalDateTime before = LocalDateTime.now();
+        jobs.blockUsersWithUnpaidFines();
+
+        // Then
+        verify(maintenanceRepository, times(2)).findTenantsToBlock(
+                argThat(deadline -> !deadline.isAfter(before.minusHours(23))), eq(CHUNK_SIZE));
+        assertEquals(3, rows("block-users"));
+    }
+
+    @Test
+    @DisplayName("Should not block anyone when there are no unpaid fines")
+    void shouldSkipBlockingWhenNothingIsUnpaid() {
+        // Given
+        when(maintenanceRepository.findTenantsToBlock(any(LocalDateTime.class), eq(CHUNK_SIZE))).thenReturn(List.of());
+
+        // When
+        jobs.blockUsersWithUnpaidFines();
+
+        // Then
+        verify(maintenanceRepository, never()).blockUsers(any(), any());
+        assertEquals(0, rows("block-users"));
+    }
+
+    private double rows(String job) {
+        return meterRegistry.get("rental.jobs.rows").tag("job", job).counter().count();
+    }
+}
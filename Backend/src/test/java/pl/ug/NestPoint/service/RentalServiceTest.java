@@ -11,7 +11,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.query.FluentQuery;
 import pl.ug.NestPoint.domain.Apartment;
 import pl.ug.NestPoint.domain.Conversation;
 import pl.ug.NestPoint.domain.Rental;
@@ -38,9 +42,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("RentalService Tests")
@@ -58,6 +65,15 @@ class RentalServiceTest {
     @Mock
     private ConversationRepository conversationRepository;
     
+    @Mock
+    private ApartmentAvailabilityIndex availabilityIndex;
+    
+    @Mock
+    private BookingCoordinator bookingCoordinator;
+
+    @Mock
+    private AnalyticsRollups analyticsRollups;
+    
     @InjectMocks
     private RentalService rentalService;
     
@@ -261,15 +277,7 @@ class RentalServiceTest {
         when(apartmentRepository.findById(1L)).thenReturn(Optional.of(testApartment));
         when(userRepository.findById(2L)).thenReturn(Optional.of(testTenant));
         
-        Rental existingRental = new Rental();
-        existingRental.setId(2L);
-        existingRental.setStartDate(startDate.minusDays(1)); // Overlaps!
-        existingRental.setEndDate(startDate.plusDays(2));    // Overlaps!
-        existingRental.setStatus(RentalStatus.ACTIVE);
-        
-        List<Rental> existingRentals = new ArrayList<>();
-        existingRentals.add(existingRental);
-        testApartment.setRentals(existingRentals);
+        when(bookingCoordinator.isOccupiedBetween(1L, startDate, endDate, null)).thenReturn(true);
         
         // When & Then
         IllegalStateException exception = assertThrows(
@@ -279,6 +287,7 @@ class RentalServiceTest {
         
         assertEquals("Apartment is already booked for these dates", exception.getMessage());
         verify(rentalRepository, never()).saveAndFlush(any());
+        verify(bookingCoordinator).lock(1L);
     }
     
     @Test
@@ -334,147 +343,101 @@ class RentalServiceTest {
 
     
     @Test
-    @DisplayName("Should search rentals by address")
-    void shouldSearchRentalsByAddress() {
+    @DisplayName("Should search rentals with all criteria in one query")
+    void shouldSearchRentalsWithCombinedCriteria() {
         // Given
         Page<Rental> mockPage = new PageImpl<>(List.of(testRental));
         RentalSearchCriteria criteria = new RentalSearchCriteria();
         criteria.setAddress("Warsaw");
-        
-        when(rentalRepository.findByApartmentAddressContaining(eq("Warsaw"), any(Pageable.class)))
-            .thenReturn(mockPage);
-        
-        // When
-        Page<Rental> result = rentalService.searchRentals(criteria, 0, 10, "id", "asc");
-        
-        // Then
-        assertEquals(1, result.getTotalElements());
-        assertEquals("Warsaw", result.getContent().get(0).getApartment().getAddress().getCity());
-        verify(rentalRepository).findByApartmentAddressContaining(eq("Warsaw"), any(Pageable.class));
-    }
-    
-    @Test
-    @DisplayName("Should search rentals by status")
-    void shouldSearchRentalsByStatus() {
-        // Given
-        Page<Rental> mockPage = new PageImpl<>(List.of(testRental));
-        RentalSearchCriteria criteria = new RentalSearchCriteria();
         criteria.setRentalStatus("PENDING");
         
-        when(rentalRepository.findByStatus(eq(RentalStatus.PENDING), any(Pageable.class)))
-            .thenReturn(mockPage);
+        when(rentalRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(mockPage);
         
         // When
-        Page<Rental> result = rentalService.searchRentals(criteria, 0, 10, "id", "asc");
+        Page<Rental> result = rentalService.searchRentals(criteria, 2, 10, "startDate", "desc");
         
         // Then
         assertEquals(1, result.getTotalElements());
-        assertEquals(RentalStatus.PENDING, result.getContent().get(0).getStatus());
-        verify(rentalRepository).findByStatus(eq(RentalStatus.PENDING), any(Pageable.class));
+        verify(rentalRepository).findAll(any(Specification.class),
+                eq(PageRequest.of(2, 10, Sort.by(Sort.Direction.DESC, "startDate"))));
+        verify(rentalRepository, never()).findByApartmentAddressContaining(anyString(), any(Pageable.class));
+        verify(rentalRepository, never()).findByStatus(any(), any(Pageable.class));
     }
     
     @Test
-    @DisplayName("Should find all rentals when no search criteria")
+    @DisplayName("Should list all rentals when there are no search criteria")
     void shouldFindAllRentalsWhenNoSearchCriteria() {
         // Given
         Page<Rental> mockPage = new PageImpl<>(List.of(testRental));
-        RentalSearchCriteria emptyCriteria = new RentalSearchCriteria();
         
-        when(rentalRepository.findAll(any(Pageable.class))).thenReturn(mockPage);
+        when(rentalRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(mockPage);
         
         // When
-        Page<Rental> result = rentalService.searchRentals(emptyCriteria, 0, 10, "id", "asc");
+        Page<Rental> result = rentalService.searchRentals(null, 0, 10, "id", "asc");
         
         // Then
         assertEquals(1, result.getTotalElements());
-        verify(rentalRepository).findAll(any(Pageable.class));
     }
     
     @Test
-    @DisplayName("Should find rentals by date range")
-    void shouldFindRentalsByDateRange() {
+    @DisplayName("Should scroll rentals from the cursor of the previous window")
+    @SuppressWarnings("unchecked")
+    void shouldScrollRentalsWithKeyset() {
         // Given
-        LocalDate searchStart = LocalDate.now();
-        LocalDate searchEnd = LocalDate.now().plusDays(10);
-        List<Rental> mockRentals = List.of(testRental);
-        
-        when(rentalRepository.findByDateBetween(searchStart, searchEnd)).thenReturn(mockRentals);
+        Rental next = new Rental();
+        next.setId(8L);
+        next.setStartDate(LocalDate.of(2026, 5, 3));
+        ScrollPosition lastPosition = ScrollPosition.forward(
+                new LinkedHashMap<>(Map.of("startDate", LocalDate.of(2026, 5, 3), "id", 8L)));
+        Window<Rental> window = Window.from(List.of(next), index -> lastPosition, true);
+        FluentQuery.FetchableFluentQuery<Rental> query = mock(FluentQuery.FetchableFluentQuery.class, RETURNS_SELF);
+        when(query.scroll(any(ScrollPosition.class))).thenReturn(window);
+        when(rentalRepository.findBy(any(Specification.class), any(Function.class)))
+                .thenAnswer(invocation -> invocation.<Function<FluentQuery.FetchableFluentQuery<Rental>, Object>>getArgument(1)
+                        .apply(query));
+        String cursor = RentalScrollCursor.encode(ScrollPosition.forward(
+                new LinkedHashMap<>(Map.of("startDate", LocalDate.of(2026, 5, 1), "id", 3L))), "startDate");
         
         // When
-        List<Rental> result = rentalService.findByDateRange(searchStart, searchEnd);
+        RentalService.RentalWindow result = rentalService.scrollRentals(null, cursor, 1, "startDate", "ASC");
         
         // Then
-        assertEquals(1, result.size());
-        Rental foundRental = result.get(0);
-        assertTrue(foundRental.getStartDate().isAfter(searchStart) || foundRental.getStartDate().isEqual(searchStart));
-        assertTrue(foundRental.getEndDate().isBefore(searchEnd) || foundRental.getEndDate().isEqual(searchEnd));
-        verify(rentalRepository).findByDateBetween(searchStart, searchEnd);
+        assertEquals(List.of(next), result.content());
+        verify(query).sortBy(Sort.by("startDate").ascending().and(Sort.by("id").ascending()));
+        verify(query).limit(1);
+        verify(query).scroll(ScrollPosition.forward(Map.of("startDate", LocalDate.of(2026, 5, 1), "id", 3L)));
+        assertEquals(ScrollPosition.forward(Map.of("startDate", LocalDate.of(2026, 5, 3), "id", 8L)),
+                RentalScrollCursor.decode(result.nextCursor(), "startDate"));
+        verify(rentalRepository, never()).count(any(Specification.class));
     }
     
     @Test
-    @DisplayName("Should use default dates when null parameters provided")
-    void shouldUseDefaultDatesWhenNullParametersProvided() {
+    @DisplayName("Should cap the scroll window at the largest page size")
+    void shouldCapScrollWindowSize() {
         // Given
-        List<Rental> mockRentals = List.of(testRental);
-        when(rentalRepository.findByDateBetween(any(LocalDate.class), any(LocalDate.class)))
-            .thenReturn(mockRentals);
+        FluentQuery.FetchableFluentQuery<Rental> query = mock(FluentQuery.FetchableFluentQuery.class, RETURNS_SELF);
+        when(query.scroll(any(ScrollPosition.class))).thenReturn(Window.from(List.of(), index -> null));
+        when(rentalRepository.findBy(any(Specification.class), any(Function.class)))
+                .thenAnswer(invocation -> invocation.<Function<FluentQuery.FetchableFluentQuery<Rental>, Object>>getArgument(1)
+                        .apply(query));
         
         // When
-        List<Rental> result = rentalService.findByDateRange(null, null);
+        RentalService.RentalWindow result = rentalService.scrollRentals(null, null, 1_000_000, "id", "ASC");
         
         // Then
-        assertEquals(1, result.size());
-        verify(rentalRepository).findByDateBetween(any(LocalDate.class), any(LocalDate.class));
+        assertTrue(result.content().isEmpty());
+        verify(query).limit(RentalService.MAX_PAGE_SIZE);
     }
     
     @Test
-    @DisplayName("Should update pending rentals to active when start date reached")
-    void shouldUpdatePendingRentalsToActiveWhenStartDateReached() {
-        // Given
-        LocalDate today = LocalDate.now();
-        Rental pendingRental = new Rental();
-        pendingRental.setId(1L);
-        pendingRental.setStatus(RentalStatus.PENDING);
-        pendingRental.setStartDate(today.minusDays(1)); // Started yesterday
-        
-        List<Rental> pendingRentals = List.of(pendingRental);
-        
-        when(rentalRepository.findByStatusAndStartDateLessThanEqual(RentalStatus.PENDING, today))
-            .thenReturn(pendingRentals);
-        when(rentalRepository.findByStatusAndEndDateLessThan(RentalStatus.ACTIVE, today))
-            .thenReturn(Collections.emptyList());
-        
-        // When
-        rentalService.updateRentalStatuses();
-        
-        // Then
-        assertEquals(RentalStatus.ACTIVE, pendingRental.getStatus());
-        verify(rentalRepository).save(pendingRental);
-    }
-    
-    @Test
-    @DisplayName("Should update active rentals to completed when end date passed")
-    void shouldUpdateActiveRentalsToCompletedWhenEndDatePassed() {
-        // Given
-        LocalDate today = LocalDate.now();
-        Rental activeRental = new Rental();
-        activeRental.setId(2L);
-        activeRental.setStatus(RentalStatus.ACTIVE);
-        activeRental.setEndDate(today.minusDays(1)); // Ended yesterday
-        
-        List<Rental> activeRentals = List.of(activeRental);
-        
-        when(rentalRepository.findByStatusAndStartDateLessThanEqual(RentalStatus.PENDING, today))
-            .thenReturn(Collections.emptyList());
-        when(rentalRepository.findByStatusAndEndDateLessThan(RentalStatus.ACTIVE, today))
-            .thenReturn(activeRentals);
-        
-        // When
-        rentalService.updateRentalStatuses();
-        
-        // Then
-        assertEquals(RentalStatus.COMPLETED, activeRental.getStatus());
-        verify(rentalRepository).save(activeRental);
+    @DisplayName("Should reject scrolling by a column that is not a sort key")
+    void shouldRejectUnknownScrollSortKey() {
+        assertThrows(IllegalArgumentException.class,
+                () -> rentalService.scrollRentals(null, null, 10, "apartment.address.city", "ASC"));
+        assertThrows(IllegalArgumentException.class,
+                () -> RentalScrollCursor.decode(RentalScrollCursor.encode(
+                        ScrollPosition.forward(Map.of("id", 3L)), "id"), "startDate"));
+        verifyNoInteractions(rentalRepository);
     }
     
     @Test
@@ -529,7 +492,7 @@ class RentalServiceTest {
             new Object[]{"Warsaw", 1200.0},
             new Object[]{"Krakow", 800.0}
         );
-        when(rentalRepository.findAverageRentalCostGroupedByCity()).thenReturn(mockResults);
+        when(analyticsRollups.findAverageRentalCostGroupedByCity()).thenReturn(mockResults);
         
         // When
         List<Object[]> result = rentalService.findAverageRentalCostGroupedByCity();
@@ -540,7 +503,7 @@ class RentalServiceTest {
         assertEquals(1200.0, result.get(0)[1]);
         assertEquals("Krakow", result.get(1)[0]);
         assertEquals(800.0, result.get(1)[1]);
-        verify(rentalRepository).findAverageRentalCostGroupedByCity();
+        verify(analyticsRollups).findAverageRentalCostGroupedByCity();
     }
 
     @Test
@@ -706,58 +669,6 @@ class RentalServiceTest {
         verify(rentalRepository).findRentalsByTotalCostGreaterThan(500.0, pageable);
     }
     
-    @Test
-    @DisplayName("Should find rentals by apartment ID and date range")
-    void shouldFindRentalsByApartmentIdAndDateRange() {
-        // Given
-        List<Rental> mockRentals = Arrays.asList(testRental);
-        when(rentalRepository.findByApartmentIdAndDateBetween(1L, startDate, endDate))
-            .thenReturn(mockRentals);
-        
-        // When
-        List<Rental> result = rentalService.findByApartmentIdAndDateRange(1L, startDate, endDate);
-        
-        // Then
-        assertEquals(1, result.size());
-        verify(rentalRepository).findByApartmentIdAndDateBetween(1L, startDate, endDate);
-    }
-    
-    @Test
-    @DisplayName("Should find rentals by apartment ID with null dates")
-    void shouldFindRentalsByApartmentIdWithNullDates() {
-        // Given
-        List<Rental> mockRentals = Arrays.asList(testRental);
-        when(rentalRepository.findByApartmentIdAndDateBetween(eq(1L), any(LocalDate.class), any(LocalDate.class)))
-            .thenReturn(mockRentals);
-        
-        // When
-        List<Rental> result = rentalService.findByApartmentIdAndDateRange(1L, null, null);
-        
-        // Then
-        assertEquals(1, result.size());
-        verify(rentalRepository).findByApartmentIdAndDateBetween(eq(1L), any(LocalDate.class), any(LocalDate.class));
-    }
-    
-    @Test
-    @DisplayName("Should find rentals by user ID and date range")
-    void shouldFindRentalsByUserIdAndDateRange() {
-        // Given
-        List<Rental> ownerRentals = Arrays.asList(testRental);
-        List<Rental> tenantRentals = Arrays.asList();
-        when(rentalRepository.findByOwnerIdAndDateBetween(1L, startDate, endDate))
-            .thenReturn(ownerRentals);
-        when(rentalRepository.findByTenantIdAndDateBetween(1L, startDate, endDate))
-            .thenReturn(tenantRentals);
-        
-        // When
-        List<Rental> result = rentalService.findByUserIdAndDateRange(1L, startDate, endDate);
-        
-        // Then
-        assertEquals(1, result.size());
-        verify(rentalRepository).findByOwnerIdAndDateBetween(1L, startDate, endDate);
-        verify(rentalRepository).findByTenantIdAndDateBetween(1L, startDate, endDate);
-    }
-    
     @Test
     @DisplayName("Should find rentals by tenant ID and status")
     void shouldFindRentalsByTenantIdAndStatus() {
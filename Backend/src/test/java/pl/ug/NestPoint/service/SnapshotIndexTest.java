@@ -0,0 +1,78 @@
+package pl.ug.NestPoint.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("SnapshotIndex Unit Tests")
+class SnapshotIndexTest {
+
+    @Test
+    @DisplayName("Should load on first use when the startup load has not run yet")
+    void shouldLoadOnFirstUse() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        SnapshotIndex<List<String>, String> index = index(() -> {
+            loads.incrementAndGet();
+            return List.of("a");
+        });
+
+        // When & Then
+        assertEquals(List.of("a"), index.get());
+        assertEquals(List.of("a"), index.get());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should replay changes committed while the reload was reading")
+    void shouldReplayChangesDuringReload() {
+        // Given - a change arrives while the loader is running
+        List<SnapshotIndex<List<String>, String>> holder = new ArrayList<>();
+        SnapshotIndex<List<String>, String> index = index(() -> {
+            holder.get(0).apply("b");
+            return List.of("a");
+        });
+        holder.add(index);
+
+        // When
+        index.reload();
+
+        // Then
+        assertEquals(List.of("a", "b"), index.get());
+    }
+
+    @Test
+    @DisplayName("Should keep the current state when loading fails")
+    void shouldKeepStateWhenLoadFails() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        SnapshotIndex<List<String>, String> index = index(() -> {
+            if (loads.incrementAndGet() > 1) {
+                throw new IllegalStateException("database unavailable");
+            }
+            return List.of("a");
+        });
+        index.reload();
+        index.apply("b");
+
+        // When
+        index.reload();
+
+        // Then
+        assertEquals(List.of("a", "b"), index.get());
+    }
+
+    private static SnapshotIndex<List<String>, String> index(Supplier<List<String>> loader) {
+        return new SnapshotIndex<>("test index", List.of(), loader, (state, change) -> {
+            List<String> updated = new ArrayList<>(state);
+            updated.add(change);
+            return List.copyOf(updated);
+        });
+    }
+}